@@ -444,4 +444,18 @@ public interface ClientConfig extends Config {
     @Property("cuba.gui.defaultExcelExportFormat")
     @Default("XLSX")
     String getDefaultExcelExportFormat();
+
+    /**
+     * @return number of entities loaded by one request in the streaming Excel export
+     */
+    @Property("cuba.gui.streamingExcelExportPageSize")
+    @DefaultInt(1000)
+    int getStreamingExcelExportPageSize();
+
+    /**
+     * @return number of rows kept in memory by the streaming Excel export, previous rows are flushed to disk
+     */
+    @Property("cuba.gui.streamingExcelExportRowWindowSize")
+    @DefaultInt(100)
+    int getStreamingExcelExportRowWindowSize();
 }
\ No newline at end of file
@@ -106,6 +106,12 @@ public class ConfigPersisterClientImpl implements ConfigPersister {
         }
     }
 
+    @Override
+    public boolean isCacheable(SourceType sourceType) {
+        // without caching, database properties are read from the middleware on each access to reflect their changes
+        return sourceType == SourceType.APP || (sourceType == SourceType.DATABASE && caching);
+    }
+
     protected ConfigStorageService getConfigStorage() {
         return configStorageService;
     }
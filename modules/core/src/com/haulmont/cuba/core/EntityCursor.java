@@ -0,0 +1,59 @@
+/*
+ * Copyright (c) 2008-2020 Haulmont.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.haulmont.cuba.core;
+
+import com.haulmont.cuba.core.entity.Entity;
+
+import java.util.Iterator;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Iterates over a large number of entity instances without loading them all in memory.
+ * <p>
+ * Instances are loaded by chunks according to the view of the {@code LoadContext}, each chunk is detached
+ * and security constraints are applied to it before the iteration. The cursor holds database resources,
+ * so it must be closed after use, for example:
+ * <pre>
+ *     try (EntityCursor&lt;Customer&gt; cursor = txDataManager.openCursor(loadContext)) {
+ *         while (cursor.hasNext()) {
+ *             process(cursor.next());
+ *         }
+ *     }
+ * </pre>
+ *
+ * @see TransactionalDataManager#openCursor(com.haulmont.cuba.core.global.LoadContext)
+ */
+public interface EntityCursor<E extends Entity> extends Iterator<E>, AutoCloseable {
+
+    /**
+     * @return a sequential stream of the remaining instances. Closing the stream closes the cursor.
+     */
+    default Stream<E> stream() {
+        return StreamSupport.stream(
+                Spliterators.spliteratorUnknownSize(this, Spliterator.ORDERED | Spliterator.NONNULL), false)
+                .onClose(this::close);
+    }
+
+    /**
+     * Releases database resources held by the cursor. Subsequent {@link #hasNext()} invocations return false.
+     */
+    @Override
+    void close();
+}
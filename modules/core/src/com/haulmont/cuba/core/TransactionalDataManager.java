@@ -137,6 +137,29 @@ public interface TransactionalDataManager {
     @CheckReturnValue
     <E extends Entity> List<E> loadList(LoadContext<E> context);
 
+    /**
+     * Opens a cursor over a large number of entity instances defined by the {@link LoadContext}, using the batch size
+     * defined by the {@code cuba.entityCursorBatchSize} application property.
+     * @see #openCursor(LoadContext, int)
+     */
+    @CheckReturnValue
+    <E extends Entity> EntityCursor<E> openCursor(LoadContext<E> context);
+
+    /**
+     * Opens a cursor over a large number of entity instances defined by the {@link LoadContext}.
+     * <p>
+     * Instances are loaded by chunks of the given size according to the view of the context, and security
+     * constraints are applied to each chunk. Unlike other methods of this interface, chunks are loaded in
+     * separate transactions, so the iterated instances are detached and not kept in memory by the persistence context.
+     * The cursor does not affect the current transaction, so the iterated instances can be saved by this data manager.
+     * The cursor must be iterated and closed in the same thread.
+     * @param context   {@link LoadContext} object, defining what and how to load
+     * @param batchSize maximum number of instances in a chunk
+     * @return          cursor which must be closed after use
+     */
+    @CheckReturnValue
+    <E extends Entity> EntityCursor<E> openCursor(LoadContext<E> context, int batchSize);
+
     /**
      * Loads list of key-value pairs.
      * @param context   defines a query for scalar values and a list of keys for returned KeyValueEntity
@@ -0,0 +1,202 @@
+/*
+ * Copyright (c) 2008-2020 Haulmont.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.haulmont.cuba.core.app;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.haulmont.cuba.core.sys.AppContext;
+import com.haulmont.cuba.core.sys.SecurityContext;
+import com.haulmont.cuba.core.sys.UserInvocationContext;
+import com.haulmont.cuba.core.sys.remoting.BatchedRemoteInvocation;
+import com.haulmont.cuba.core.sys.remoting.RemoteClientInfo;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.ApplicationContext;
+import org.springframework.remoting.support.RemoteInvocationResult;
+import org.springframework.stereotype.Component;
+import org.springframework.stereotype.Service;
+import org.springframework.util.ClassUtils;
+
+import javax.annotation.PreDestroy;
+import javax.inject.Inject;
+import java.lang.reflect.InvocationTargetException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.TimeZone;
+import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Executes batches of service invocations.
+ * <p>
+ * The bean is intentionally not a {@link Service}: each invocation of a batch passes through the target
+ * service proxy as a top-level service call, with the user session check and exception conversion.
+ */
+@Component(BatchInvocationService.NAME)
+public class BatchInvocationServiceBean implements BatchInvocationService {
+
+    private static final Logger log = LoggerFactory.getLogger(BatchInvocationServiceBean.class);
+
+    @Inject
+    protected ServerConfig serverConfig;
+
+    @Inject
+    protected ApplicationContext applicationContext;
+
+    protected volatile ExecutorService executor;
+
+    @Override
+    public List<RemoteInvocationResult> invoke(List<BatchedRemoteInvocation> invocations, boolean parallel) {
+        int maxSize = serverConfig.getBatchInvocationMaxSize();
+        if (invocations.size() > maxSize) {
+            throw new IllegalArgumentException(String.format("Batch contains %s invocations, maximum is %s",
+                    invocations.size(), maxSize));
+        }
+
+        List<RemoteInvocationResult> results = new ArrayList<>(invocations.size());
+        if (!parallel || invocations.size() < 2 || serverConfig.getBatchInvocationThreads() <= 0) {
+            for (BatchedRemoteInvocation invocation : invocations) {
+                results.add(invoke(invocation));
+            }
+            return results;
+        }
+
+        InvocationContext context = new InvocationContext();
+        List<Future<RemoteInvocationResult>> futures = new ArrayList<>(invocations.size());
+        for (BatchedRemoteInvocation invocation : invocations) {
+            futures.add(getExecutor().submit(() -> context.invoke(invocation)));
+        }
+        try {
+            for (Future<RemoteInvocationResult> future : futures) {
+                try {
+                    results.add(future.get());
+                } catch (ExecutionException e) {
+                    results.add(new RemoteInvocationResult(e.getCause()));
+                }
+            }
+        } catch (InterruptedException e) {
+            futures.forEach(future -> future.cancel(true));
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while executing batch of service invocations", e);
+        }
+        return results;
+    }
+
+    protected RemoteInvocationResult invoke(BatchedRemoteInvocation invocation) {
+        try {
+            Object service = getService(invocation);
+            return new RemoteInvocationResult(invocation.invoke(service));
+        } catch (InvocationTargetException e) {
+            return new RemoteInvocationResult(e);
+        } catch (Throwable e) {
+            log.warn("Unable to execute {}: {}", invocation, e.toString());
+            return new RemoteInvocationResult(e);
+        }
+    }
+
+    protected Object getService(BatchedRemoteInvocation invocation) throws NoSuchMethodException {
+        String serviceName = invocation.getServiceName();
+        if (serviceName == null || !applicationContext.containsBean(serviceName)
+                || applicationContext.findAnnotationOnBean(serviceName, Service.class) == null) {
+            throw new IllegalArgumentException("Service " + serviceName + " is not found");
+        }
+        Object service = applicationContext.getBean(serviceName);
+
+        // only methods of service interfaces are available to clients, see RemoteServicesBeanCreator
+        for (Class<?> intf : ClassUtils.getAllInterfacesForClassAsSet(service.getClass())) {
+            if (intf.getName().endsWith("Service")
+                    && ClassUtils.hasMethod(intf, invocation.getMethodName(), invocation.getParameterTypes())) {
+                return service;
+            }
+        }
+        throw new NoSuchMethodException("Method " + invocation.getMethodName() + " is not found in service " + serviceName);
+    }
+
+    protected ExecutorService getExecutor() {
+        if (executor == null) {
+            synchronized (this) {
+                if (executor == null) {
+                    int nThreads = serverConfig.getBatchInvocationThreads();
+                    ThreadPoolExecutor threadPoolExecutor = new ThreadPoolExecutor(nThreads, nThreads,
+                            60L, TimeUnit.SECONDS, new LinkedBlockingQueue<>(),
+                            new ThreadFactoryBuilder()
+                                    .setNameFormat("BatchInvocation-%d")
+                                    .setDaemon(true)
+                                    .build());
+                    threadPoolExecutor.allowCoreThreadTimeOut(true);
+                    executor = threadPoolExecutor;
+                }
+            }
+        }
+        return executor;
+    }
+
+    @PreDestroy
+    protected void shutdown() {
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * State of the request handling thread which is reproduced in the threads executing parallel invocations.
+     * A separate {@link SecurityContext} is created for each invocation because it counts nested service calls.
+     * {@link RemoteClientInfo} is reproduced to check access to trusted-only services.
+     */
+    protected class InvocationContext {
+        protected final UUID sessionId;
+        protected final boolean authorizationRequired;
+        protected final Locale locale;
+        protected final TimeZone timeZone;
+        protected final String address;
+        protected final String clientInfo;
+        protected final RemoteClientInfo remoteClientInfo;
+
+        protected InvocationContext() {
+            SecurityContext securityContext = AppContext.getSecurityContext();
+            sessionId = securityContext != null ? securityContext.getSessionId() : null;
+            authorizationRequired = securityContext != null && securityContext.isAuthorizationRequired();
+            locale = UserInvocationContext.getRequestScopeLocale(sessionId);
+            timeZone = UserInvocationContext.getRequestScopeTimeZone(sessionId);
+            address = UserInvocationContext.getRequestScopeAddress(sessionId);
+            clientInfo = UserInvocationContext.getRequestScopeClientInfo(sessionId);
+            remoteClientInfo = RemoteClientInfo.get();
+        }
+
+        protected RemoteInvocationResult invoke(BatchedRemoteInvocation invocation) {
+            if (sessionId != null) {
+                SecurityContext securityContext = new SecurityContext(sessionId);
+                securityContext.setAuthorizationRequired(authorizationRequired);
+                AppContext.setSecurityContext(securityContext);
+                UserInvocationContext.setRequestScopeInfo(sessionId, locale, timeZone, address, clientInfo);
+            }
+            RemoteClientInfo.set(remoteClientInfo);
+            try {
+                return BatchInvocationServiceBean.this.invoke(invocation);
+            } finally {
+                AppContext.setSecurityContext(null);
+                UserInvocationContext.clearRequestScopeInfo();
+                RemoteClientInfo.clear();
+            }
+        }
+    }
+}
@@ -0,0 +1,86 @@
+/*
+ * Copyright (c) 2008-2020 Haulmont.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.haulmont.cuba.core.app;
+
+import com.haulmont.cuba.core.EntityCursor;
+import com.haulmont.cuba.core.entity.Entity;
+
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * Base implementation of {@link EntityCursor} which iterates over chunks of instances loaded one after another.
+ * Only the current chunk is kept in memory.
+ */
+public abstract class ChunkedEntityCursor<E extends Entity> implements EntityCursor<E> {
+
+    protected Iterator<E> chunk = Collections.emptyIterator();
+
+    protected boolean exhausted;
+
+    protected boolean closed;
+
+    /**
+     * Loads the next chunk of instances.
+     *
+     * @return list of instances which can be empty if all instances of a chunk are filtered out,
+     * or null if there are no more instances
+     */
+    protected abstract List<E> loadNextChunk();
+
+    /**
+     * Releases resources of the cursor. Invoked once, when the cursor is closed or exhausted.
+     */
+    protected void release() {
+    }
+
+    @Override
+    public boolean hasNext() {
+        while (!chunk.hasNext()) {
+            if (closed || exhausted) {
+                return false;
+            }
+            List<E> entities = loadNextChunk();
+            if (entities == null) {
+                exhausted = true;
+                close();
+                return false;
+            }
+            chunk = entities.iterator();
+        }
+        return true;
+    }
+
+    @Override
+    public E next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        return chunk.next();
+    }
+
+    @Override
+    public void close() {
+        if (!closed) {
+            closed = true;
+            chunk = Collections.emptyIterator();
+            release();
+        }
+    }
+}
@@ -24,6 +24,11 @@ import com.haulmont.cuba.core.config.SourceType;
 import com.haulmont.cuba.core.config.defaults.DefaultBoolean;
 import com.haulmont.cuba.core.config.defaults.DefaultInt;
 import com.haulmont.cuba.core.config.defaults.DefaultLong;
+import com.haulmont.cuba.core.config.defaults.DefaultString;
+import com.haulmont.cuba.core.config.type.CommaSeparatedStringListTypeFactory;
+import com.haulmont.cuba.core.config.type.Factory;
+
+import java.util.List;
 
 /**
  * Middleware cluster configuration settings.
@@ -66,4 +71,42 @@ public interface ClusterConfig extends Config {
     @Property("cuba.cluster.messageSendingQueueCapacity")
     @DefaultInt(Integer.MAX_VALUE)
     int getClusterMessageSendingQueueCapacity();
+
+    /**
+     * @return name of the {@link ClusterMessageCodec} bean used to serialize cluster messages.
+     * All nodes of the cluster must use compatible codecs.
+     */
+    @Property("cuba.cluster.messageCodec")
+    @DefaultString(StandardClusterMessageCodec.NAME)
+    String getMessageCodec();
+
+    /**
+     * @return comma-separated list of message class names which are written with a short class id
+     * by {@link KryoClusterMessageCodec}. The list must be the same on all nodes of the cluster.
+     */
+    @Property("cuba.cluster.registeredMessageClasses")
+    @Factory(factory = CommaSeparatedStringListTypeFactory.class)
+    List<String> getRegisteredMessageClasses();
+
+    /**
+     * @return whether messages sent asynchronously are collected during {@link #getMessageBatchingWindow()}
+     * and sent in batches. All nodes of the cluster must run a platform version supporting batches.
+     */
+    @Property("cuba.cluster.messageBatchingEnabled")
+    @DefaultBoolean(false)
+    boolean getMessageBatchingEnabled();
+
+    /**
+     * @return time in milliseconds during which messages are collected into a batch
+     */
+    @Property("cuba.cluster.messageBatchingWindow")
+    @DefaultInt(10)
+    int getMessageBatchingWindow();
+
+    /**
+     * @return maximum size in bytes of serialized messages packed into one batch
+     */
+    @Property("cuba.cluster.messageBatchMaxBytes")
+    @DefaultInt(60000)
+    int getMessageBatchMaxBytes();
 }
@@ -19,13 +19,13 @@ package com.haulmont.cuba.core.app;
 import com.google.common.base.Strings;
 import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import com.haulmont.bali.util.Preconditions;
+import com.haulmont.cuba.core.global.BeanLocator;
 import com.haulmont.cuba.core.global.Events;
 import com.haulmont.cuba.core.global.GlobalConfig;
 import com.haulmont.cuba.core.global.Resources;
 import com.haulmont.cuba.core.sys.AppContext;
 import com.haulmont.cuba.core.sys.events.AppContextInitializedEvent;
 import com.haulmont.cuba.core.sys.events.AppContextStoppedEvent;
-import com.haulmont.cuba.core.sys.serialization.SerializationSupport;
 import org.jgroups.*;
 import org.jgroups.conf.XmlConfigurator;
 import org.jgroups.jmx.JmxConfigurator;
@@ -43,9 +43,7 @@ import javax.inject.Inject;
 import javax.management.MBeanServer;
 import java.io.*;
 import java.lang.management.ManagementFactory;
-import java.util.HashMap;
-import java.util.List;
-import java.util.Map;
+import java.util.*;
 import java.util.concurrent.*;
 import java.util.concurrent.atomic.LongAdder;
 
@@ -65,9 +63,14 @@ public class ClusterManager implements ClusterManagerAPI {
 
     protected ThreadPoolExecutor executor;
 
+    protected MessageBatcher batcher;
+
     @Inject
     protected Resources resources;
 
+    @Inject
+    protected BeanLocator beanLocator;
+
     @Inject
     protected GlobalConfig globalConfig;
     @Inject
@@ -77,6 +80,8 @@ public class ClusterManager implements ClusterManagerAPI {
 
     protected Map<String, MessageStat> messagesStat = new ConcurrentHashMap<>();
 
+    protected volatile ClusterMessageCodec messageCodec;
+
     protected static final String STATE_MAGIC = "CUBA_STATE";
 
     public JChannel getChannel() {
@@ -85,6 +90,8 @@ public class ClusterManager implements ClusterManagerAPI {
 
     @PostConstruct
     protected void init() {
+        messageCodec = beanLocator.get(clusterConfig.getMessageCodec(), ClusterMessageCodec.class);
+
         int nThreads = clusterConfig.getClusterMessageSendingThreadPoolSize();
         executor = new ThreadPoolExecutor(nThreads, nThreads,
                 0L, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(clusterConfig.getClusterMessageSendingQueueCapacity()),
@@ -93,6 +100,10 @@ public class ClusterManager implements ClusterManagerAPI {
                     SendMessageRunnable sendMessageRunnable = (SendMessageRunnable) r;
                     log.info("Queue capacity is exceeded. Message: {}: {}", sendMessageRunnable.message.getClass(), sendMessageRunnable.message);
                 });
+
+        if (clusterConfig.getMessageBatchingEnabled()) {
+            batcher = new MessageBatcher();
+        }
     }
 
     @EventListener(AppContextInitializedEvent.class)
@@ -106,6 +117,9 @@ public class ClusterManager implements ClusterManagerAPI {
     @EventListener(AppContextStoppedEvent.class)
     protected void applicationStopped() {
         executor.shutdown();
+        if (batcher != null) {
+            batcher.shutdown();
+        }
         stop();
     }
 
@@ -119,7 +133,11 @@ public class ClusterManager implements ClusterManagerAPI {
             internalSend(message, true);
         } else {
             log.trace("Submitting message: {}: {} to send asynchronously", message.getClass(), message);
-            executor.execute(new SendMessageRunnable(message));
+            if (batcher != null) {
+                batcher.add(message);
+            } else {
+                executor.execute(new SendMessageRunnable(message));
+            }
         }
     }
 
@@ -134,33 +152,89 @@ public class ClusterManager implements ClusterManagerAPI {
     protected void internalSend(Serializable message, boolean sync) {
         StopWatch sw = new Slf4JStopWatch(String.format("sendClusterMessage(%s)", message.getClass().getSimpleName()));
         try {
-            byte[] bytes;
-            try {
-                bytes = SerializationSupport.serialize(message);
-            } catch (Exception e) {
-                log.error("Cluster message serialization error", e);
-                throw new RuntimeException("Cluster message serialization error", e);
-            }
-            log.debug("Sending message: {}: {} ({} bytes)", message.getClass(), message, bytes.length);
-            MessageStat stat = messagesStat.get(message.getClass().getName());
-            if (stat != null) {
-                stat.updateSent(bytes.length);
-            }
-            Message msg = new Message()
-                    .setBuffer(bytes);
-            if (sync) {
-                msg.setFlag(Message.Flag.RSVP);
+            sendBytes(encodeMessage(message), sync);
+        } finally {
+            sw.stop();
+        }
+    }
+
+    protected byte[] encodeMessage(Serializable message) {
+        byte[] bytes;
+        long start = System.nanoTime();
+        try {
+            bytes = messageCodec.encode(message);
+        } catch (Exception e) {
+            log.error("Cluster message serialization error", e);
+            throw new RuntimeException("Cluster message serialization error", e);
+        }
+        long encodeTime = System.nanoTime() - start;
+        log.debug("Sending message: {}: {} ({} bytes)", message.getClass(), message, bytes.length);
+        MessageStat stat = messagesStat.get(message.getClass().getName());
+        if (stat != null) {
+            stat.updateSent(bytes.length, encodeTime);
+        }
+        return bytes;
+    }
+
+    protected void sendBytes(byte[] bytes, boolean sync) {
+        JChannel channel = this.channel;
+        if (channel == null)
+            return;
+
+        Message msg = new Message()
+                .setBuffer(bytes);
+        if (sync) {
+            msg.setFlag(Message.Flag.RSVP);
+        }
+        try {
+            channel.send(msg);
+        } catch (Exception e) {
+            log.error("Error sending message", e);
+        }
+    }
+
+    /**
+     * Sends the messages packing them into {@link MessageBatch} envelopes of limited size.
+     */
+    protected void internalSendBatch(List<Serializable> messages) {
+        StopWatch sw = new Slf4JStopWatch(String.format("sendClusterMessageBatch(%s)", messages.size()));
+        try {
+            int maxBytes = clusterConfig.getMessageBatchMaxBytes();
+            List<byte[]> envelope = new ArrayList<>();
+            int envelopeBytes = 0;
+            for (Serializable message : messages) {
+                byte[] bytes;
+                try {
+                    bytes = encodeMessage(message);
+                } catch (RuntimeException e) {
+                    continue;
+                }
+                if (!envelope.isEmpty() && envelopeBytes + bytes.length > maxBytes) {
+                    sendEnvelope(envelope);
+                    envelope = new ArrayList<>();
+                    envelopeBytes = 0;
+                }
+                envelope.add(bytes);
+                envelopeBytes += bytes.length;
             }
-            try {
-                channel.send(msg);
-            } catch (Exception e) {
-                log.error("Error sending message", e);
+            if (!envelope.isEmpty()) {
+                sendEnvelope(envelope);
             }
         } finally {
             sw.stop();
         }
     }
 
+    protected void sendEnvelope(List<byte[]> envelope) {
+        if (envelope.size() == 1) {
+            sendBytes(envelope.get(0), false);
+        } else {
+            byte[] bytes = messageCodec.encode(new MessageBatch(envelope));
+            log.debug("Sending batch of {} messages ({} bytes)", envelope.size(), bytes.length);
+            sendBytes(bytes, false);
+        }
+    }
+
     @Override
     public boolean getSyncSendingForCurrentThread() {
         return forceSyncSending.get() == null ? false : forceSyncSending.get();
@@ -175,6 +249,17 @@ public class ClusterManager implements ClusterManagerAPI {
         }
     }
 
+    @Override
+    public ClusterMessageCodec getMessageCodec() {
+        return messageCodec;
+    }
+
+    @Override
+    public void setMessageCodec(ClusterMessageCodec messageCodec) {
+        Preconditions.checkNotNullArgument(messageCodec, "Message codec is null");
+        this.messageCodec = messageCodec;
+    }
+
     @Override
     public synchronized void addListener(Class messageClass, ClusterListener listener) {
         String className = messageClass.getName();
@@ -275,7 +360,7 @@ public class ClusterManager implements ClusterManagerAPI {
 
     @Override
     public int getMessagesCount() {
-        return executor.getQueue().size();
+        return executor.getQueue().size() + (batcher != null ? batcher.size() : 0);
     }
 
     @Override
@@ -342,9 +427,12 @@ public class ClusterManager implements ClusterManagerAPI {
             MessageStat stat = entry.getValue();
             if (stat != null) {
                 messagesStats
-                        .append(String.format("Class: %s; received: %s, %s bytes; sent: %s, %s bytes\n",
+                        .append(String.format("Class: %s; received: %s, %s bytes, deserialize time: %s ms; " +
+                                        "sent: %s, %s bytes, serialize time: %s ms\n",
                                 entry.getKey(), stat.getReceivedMessages(), stat.getReceivedBytes(),
-                                stat.getSentMessages(), stat.getSentBytes()));
+                                TimeUnit.NANOSECONDS.toMillis(stat.getDecodeTime()),
+                                stat.getSentMessages(), stat.getSentBytes(),
+                                TimeUnit.NANOSECONDS.toMillis(stat.getEncodeTime())));
             }
         }
         return messagesStats.toString();
@@ -399,22 +487,40 @@ public class ClusterManager implements ClusterManagerAPI {
                 log.debug("Null buffer received");
                 return;
             }
+            receiveBytes(bytes);
+        }
+
+        protected void receiveBytes(byte[] bytes) {
             StopWatch sw = new Slf4JStopWatch();
             String simpleClassName = null;
             try {
                 Serializable data;
+                long start = System.nanoTime();
                 try {
-                    data = (Serializable) SerializationSupport.deserialize(bytes);
+                    data = messageCodec.decode(bytes);
                 } catch (Exception e) {
                     log.error("Cluster message deserialization error", e);
                     throw new RuntimeException("Cluster message deserialization error", e);
                 }
+                long decodeTime = System.nanoTime() - start;
+                if (data instanceof MessageBatch) {
+                    List<byte[]> messages = ((MessageBatch) data).messages;
+                    log.debug("Received batch of {} messages ({} bytes)", messages.size(), bytes.length);
+                    for (byte[] messageBytes : messages) {
+                        try {
+                            receiveBytes(messageBytes);
+                        } catch (RuntimeException e) {
+                            log.error("Error processing cluster message from batch", e);
+                        }
+                    }
+                    return;
+                }
                 String className = data.getClass().getName();
                 simpleClassName = data.getClass().getSimpleName();
                 log.debug("Received message: {}: {} ({} bytes)", data.getClass(), data, bytes.length);
                 MessageStat stat = messagesStat.get(className);
                 if (stat != null) {
-                    stat.updateReceived(bytes.length);
+                    stat.updateReceived(bytes.length, decodeTime);
                 }
                 @SuppressWarnings("unchecked")
                 ClusterListener<Serializable> listener = listeners.get(className);
@@ -532,20 +638,95 @@ public class ClusterManager implements ClusterManagerAPI {
         }
     }
 
+    /**
+     * Collects messages sent asynchronously during the batching window, coalescing
+     * {@link CoalescingClusterMessage}s with equal keys, and sends them in batches from a single thread.
+     */
+    protected class MessageBatcher {
+        protected final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(
+                new ThreadFactoryBuilder().setNameFormat("ClusterManagerMessageBatcher-%d").setDaemon(true).build());
+
+        protected LinkedHashMap<Object, Serializable> pending = new LinkedHashMap<>();
+        protected boolean flushScheduled;
+
+        public synchronized void add(Serializable message) {
+            Object key = message instanceof CoalescingClusterMessage
+                    ? Arrays.asList(message.getClass(), ((CoalescingClusterMessage) message).getCoalescingKey())
+                    : new Object();
+            // a coalesced message takes the position of the latest one
+            if (pending.remove(key) != null) {
+                log.trace("Coalescing message: {}: {}", message.getClass(), message);
+            }
+            pending.put(key, message);
+
+            if (!flushScheduled) {
+                try {
+                    scheduler.schedule(this::flush, clusterConfig.getMessageBatchingWindow(), TimeUnit.MILLISECONDS);
+                    flushScheduled = true;
+                } catch (RejectedExecutionException e) {
+                    log.info("Batcher is stopped. Message: {}: {}", message.getClass(), message);
+                }
+            }
+        }
+
+        public synchronized int size() {
+            return pending.size();
+        }
+
+        protected List<Serializable> takePending() {
+            synchronized (this) {
+                List<Serializable> messages = new ArrayList<>(pending.values());
+                pending.clear();
+                flushScheduled = false;
+                return messages;
+            }
+        }
+
+        public void flush() {
+            List<Serializable> messages = takePending();
+            if (!messages.isEmpty()) {
+                try {
+                    internalSendBatch(messages);
+                } catch (RuntimeException e) {
+                    log.error("Error sending batch of cluster messages", e);
+                }
+            }
+        }
+
+        public void shutdown() {
+            scheduler.shutdown();
+            flush();
+        }
+    }
+
+    protected static class MessageBatch implements Serializable {
+        private static final long serialVersionUID = 3545233851366203612L;
+
+        protected List<byte[]> messages;
+
+        public MessageBatch(List<byte[]> messages) {
+            this.messages = messages;
+        }
+    }
+
     protected static class MessageStat {
         protected LongAdder sentBytes = new LongAdder();
         protected LongAdder receivedBytes = new LongAdder();
         protected LongAdder receivedMessages = new LongAdder();
         protected LongAdder sentMessages = new LongAdder();
+        protected LongAdder encodeTime = new LongAdder();
+        protected LongAdder decodeTime = new LongAdder();
 
-        public void updateReceived(int bytes) {
+        public void updateReceived(int bytes, long decodeNanos) {
             receivedMessages.increment();
             receivedBytes.add(bytes);
+            decodeTime.add(decodeNanos);
         }
 
-        public void updateSent(int bytes) {
+        public void updateSent(int bytes, long encodeNanos) {
             sentMessages.increment();
             sentBytes.add(bytes);
+            encodeTime.add(encodeNanos);
         }
 
         public long getSentBytes() {
@@ -563,5 +744,13 @@ public class ClusterManager implements ClusterManagerAPI {
         public long getReceivedMessages() {
             return receivedMessages.longValue();
         }
+
+        public long getEncodeTime() {
+            return encodeTime.longValue();
+        }
+
+        public long getDecodeTime() {
+            return decodeTime.longValue();
+        }
     }
 }
\ No newline at end of file
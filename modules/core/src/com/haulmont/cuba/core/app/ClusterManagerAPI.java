@@ -53,6 +53,18 @@ public interface ClusterManagerAPI {
      */
     void setSyncSendingForCurrentThread(boolean sync);
 
+    /**
+     * @return codec used to serialize cluster messages
+     */
+    ClusterMessageCodec getMessageCodec();
+
+    /**
+     * Set codec used to serialize cluster messages. All nodes of the cluster must use compatible codecs.
+     *
+     * @param messageCodec codec instance
+     */
+    void setMessageCodec(ClusterMessageCodec messageCodec);
+
     /**
      * Subscribe to messages from other cluster nodes.
      *
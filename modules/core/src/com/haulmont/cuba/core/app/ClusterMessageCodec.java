@@ -0,0 +1,44 @@
+/*
+ * Copyright (c) 2008-2020 Haulmont.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.haulmont.cuba.core.app;
+
+import java.io.Serializable;
+
+/**
+ * Converts middleware cluster messages to bytes and back.
+ * <p>
+ * All cluster nodes must use compatible codecs. The codec used by {@link ClusterManagerAPI} is chosen by the
+ * {@link ClusterConfig#getMessageCodec()} property.
+ */
+public interface ClusterMessageCodec {
+
+    /**
+     * Serialize a message to be sent to other cluster nodes.
+     *
+     * @param message message instance
+     * @return serialized message
+     */
+    byte[] encode(Serializable message);
+
+    /**
+     * Deserialize a message received from other cluster node.
+     *
+     * @param bytes serialized message
+     * @return message instance
+     */
+    Serializable decode(byte[] bytes);
+}
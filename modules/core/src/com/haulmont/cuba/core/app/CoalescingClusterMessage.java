@@ -0,0 +1,34 @@
+/*
+ * Copyright (c) 2008-2020 Haulmont.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.haulmont.cuba.core.app;
+
+import java.io.Serializable;
+
+/**
+ * Cluster message which can be coalesced with other messages of the same class and key when cluster message
+ * batching is enabled. Only the latest of such messages sent within the batching window is delivered, so the
+ * effect of the message must not depend on how many times it is received.
+ *
+ * @see ClusterConfig#getMessageBatchingEnabled()
+ */
+public interface CoalescingClusterMessage extends Serializable {
+
+    /**
+     * @return key identifying messages of the same class which can be replaced by the latest one
+     */
+    Object getCoalescingKey();
+}
@@ -20,6 +20,7 @@ import com.haulmont.bali.db.QueryRunner;
 import com.haulmont.bali.db.ResultSetHandler;
 import com.haulmont.bali.util.Preconditions;
 import com.haulmont.cuba.core.*;
+import com.haulmont.cuba.core.config.ConfigValueCache;
 import com.haulmont.cuba.core.entity.Config;
 import com.haulmont.cuba.core.global.AppBeans;
 import com.haulmont.cuba.core.global.Metadata;
@@ -28,7 +29,6 @@ import org.slf4j.LoggerFactory;
 
 import org.springframework.stereotype.Component;
 import javax.inject.Inject;
-import java.io.Serializable;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.HashMap;
@@ -58,8 +58,13 @@ public class ConfigStorage implements ConfigStorageAPI {
 
     private static final Logger log = LoggerFactory.getLogger(ConfigStorage.class);
 
-    private static class InvalidateCacheMsg implements Serializable {
+    private static class InvalidateCacheMsg implements CoalescingClusterMessage {
         private static final long serialVersionUID = -3116358584797500962L;
+
+        @Override
+        public Object getCoalescingKey() {
+            return Boolean.TRUE;
+        }
     }
     
     @Inject
@@ -86,6 +91,7 @@ public class ConfigStorage implements ConfigStorageAPI {
         } finally {
             writeLock.unlock();
         }
+        ConfigValueCache.invalidate();
     }
 
     @Override
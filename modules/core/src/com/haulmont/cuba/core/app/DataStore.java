@@ -16,15 +16,19 @@
 
 package com.haulmont.cuba.core.app;
 
+import com.haulmont.cuba.core.EntityCursor;
 import com.haulmont.cuba.core.entity.Entity;
 import com.haulmont.cuba.core.entity.KeyValueEntity;
+import com.haulmont.cuba.core.global.AppBeans;
 import com.haulmont.cuba.core.global.CommitContext;
 import com.haulmont.cuba.core.global.LoadContext;
+import com.haulmont.cuba.core.global.Metadata;
 import com.haulmont.cuba.core.global.ValueLoadContext;
 
 import javax.annotation.Nullable;
 import java.util.List;
 import java.util.Set;
+import java.util.function.Function;
 
 /**
  * Interface defining methods for storing and loading entities in a persistent storage.
@@ -65,4 +69,22 @@ public interface DataStore {
      * @return list of KeyValueEntity instances
      */
     List<KeyValueEntity> loadValues(ValueLoadContext context);
+
+    /**
+     * Opens a cursor over entity instances defined by the {@link LoadContext}. Instances are loaded by chunks,
+     * so only one chunk is kept in memory.
+     * <p>
+     * The default implementation loads pages of the query using the given chunk loader.
+     *
+     * @param context       defines what and how to load
+     * @param batchSize     maximum number of instances in a chunk
+     * @param chunkLoader   loads instances of a chunk defined by a copy of the context with ids or a page of the query
+     * @return cursor which must be closed after use
+     */
+    default <E extends Entity> EntityCursor<E> openCursor(LoadContext<E> context, int batchSize,
+                                                          Function<LoadContext<E>, List<E>> chunkLoader) {
+        Metadata metadata = AppBeans.get(Metadata.NAME);
+        String primaryKeyName = metadata.getTools().getPrimaryKeyName(metadata.getClassNN(context.getMetaClass()));
+        return new PagingEntityCursor<>(context, batchSize, primaryKeyName, chunkLoader);
+    }
 }
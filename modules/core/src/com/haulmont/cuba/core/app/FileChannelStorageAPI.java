@@ -0,0 +1,88 @@
+/*
+ * Copyright (c) 2008-2020 Haulmont.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.haulmont.cuba.core.app;
+
+import com.haulmont.cuba.core.entity.FileDescriptor;
+import com.haulmont.cuba.core.global.FileStorageException;
+
+import java.io.InputStream;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+
+/**
+ * Extension of {@link FileStorageAPI} for storages keeping files in the local file system.
+ * Provides access to file contents without loading them into the heap: byte-range reads,
+ * zero-copy transfer to a channel and memory-mapped reads.
+ * <p>
+ * Check whether the {@link FileStorageAPI} bean implements this interface before using it.
+ */
+public interface FileChannelStorageAPI extends FileStorageAPI {
+
+    /**
+     * Returns the size of a file.
+     * @param fileDescr             file descriptor
+     * @return                      file size in bytes
+     * @throws IllegalArgumentException if arguments are incorrect
+     * @throws FileStorageException     if the file is not found
+     */
+    long getFileSize(FileDescriptor fileDescr) throws FileStorageException;
+
+    /**
+     * Opens a read-only channel to a file.
+     * @param fileDescr             file descriptor
+     * @return                      file channel, must be closed after use
+     * @throws IllegalArgumentException if arguments are incorrect
+     * @throws FileStorageException     if something goes wrong
+     */
+    FileChannel openChannel(FileDescriptor fileDescr) throws FileStorageException;
+
+    /**
+     * Returns an input stream to load a range of a file contents.
+     * @param fileDescr             file descriptor
+     * @param offset                position of the first byte to read
+     * @param length                maximum number of bytes to read
+     * @return                      input stream, must be closed after use
+     * @throws IllegalArgumentException if arguments are incorrect
+     * @throws FileStorageException     if something goes wrong
+     */
+    InputStream openStream(FileDescriptor fileDescr, long offset, long length) throws FileStorageException;
+
+    /**
+     * Transfers a range of a file contents to the given channel, avoiding copying to the heap when possible.
+     * @param fileDescr             file descriptor
+     * @param offset                position of the first byte to transfer
+     * @param length                maximum number of bytes to transfer
+     * @param target                target channel, is not closed by this method
+     * @return                      number of bytes transferred
+     * @throws IllegalArgumentException if arguments are incorrect
+     * @throws FileStorageException     if something goes wrong
+     */
+    long transferTo(FileDescriptor fileDescr, long offset, long length, WritableByteChannel target)
+            throws FileStorageException;
+
+    /**
+     * Maps a range of a file contents into memory for reading.
+     * @param fileDescr             file descriptor
+     * @param offset                position of the first byte to map
+     * @param length                number of bytes to map, up to {@link Integer#MAX_VALUE}
+     * @return                      read-only buffer
+     * @throws IllegalArgumentException if arguments are incorrect
+     * @throws FileStorageException     if something goes wrong
+     */
+    MappedByteBuffer map(FileDescriptor fileDescr, long offset, long length) throws FileStorageException;
+}
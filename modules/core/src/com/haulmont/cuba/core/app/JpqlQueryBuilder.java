@@ -35,6 +35,7 @@ import org.slf4j.LoggerFactory;
 import org.springframework.context.annotation.Scope;
 import org.springframework.stereotype.Component;
 
+import javax.annotation.Nullable;
 import javax.inject.Inject;
 import java.util.*;
 import java.util.stream.Collectors;
@@ -58,6 +59,7 @@ public class JpqlQueryBuilder {
     protected String[] noConversionParams;
     protected Condition condition;
     protected Sort sort;
+    protected Keyset keyset;
 
     protected String entityName;
     protected List<String> valueProperties;
@@ -67,6 +69,7 @@ public class JpqlQueryBuilder {
     protected boolean previousResults;
     protected UUID sessionId;
     protected int queryKey;
+    protected List<?> previousResultIds;
 
     protected String resultQuery;
     protected Map<String, Object> resultParameters;
@@ -136,6 +139,14 @@ public class JpqlQueryBuilder {
         return this;
     }
 
+    /**
+     * Restricts the query by rows following the keyset if it is applicable to the sort.
+     */
+    public JpqlQueryBuilder setKeyset(@Nullable Keyset keyset) {
+        this.keyset = keyset;
+        return this;
+    }
+
     public JpqlQueryBuilder setPreviousResults(UUID sessionId, int queryKey) {
         this.previousResults = true;
         this.sessionId = sessionId;
@@ -143,6 +154,15 @@ public class JpqlQueryBuilder {
         return this;
     }
 
+    /**
+     * Restricts the query by ids of previous results kept in memory instead of the {@code SYS_QUERY_RESULT} table.
+     */
+    public JpqlQueryBuilder setPreviousResultIds(List<?> previousResultIds) {
+        this.previousResults = true;
+        this.previousResultIds = previousResultIds;
+        return this;
+    }
+
     public String getResultQueryString() {
         if (resultQuery == null) {
             buildResultQuery();
@@ -201,8 +221,13 @@ public class JpqlQueryBuilder {
                     resultQuery = String.format("select e from %s e where e.%s = :entityId", entityName, getPrimaryKeyProperty().getName());
                     resultParameters = Maps.newHashMap(ImmutableMap.of("entityId", id));
                 } else if (ids != null && !ids.isEmpty()) {
-                    resultQuery = String.format("select e from %s e where e.%s in :entityIds", entityName, getPrimaryKeyProperty().getName());
-                    resultParameters = Maps.newHashMap(ImmutableMap.of("entityIds", ids));
+                    MetaProperty primaryKeyProperty = getPrimaryKeyProperty();
+                    if (primaryKeyProperty.getRange().isClass()) {
+                        buildEmbeddedIdsQuery(primaryKeyProperty);
+                    } else {
+                        resultQuery = String.format("select e from %s e where e.%s in :entityIds", entityName, primaryKeyProperty.getName());
+                        resultParameters = Maps.newHashMap(ImmutableMap.of("entityIds", ids));
+                    }
                 } else {
                     resultQuery = String.format("select e from %s e", entityName);
                     resultParameters = Collections.emptyMap();
@@ -210,10 +235,28 @@ public class JpqlQueryBuilder {
             }
         }
         applyFiltering();
+        applyKeyset();
         applySorting();
         restrictByPreviousResults();
     }
 
+    /**
+     * Embedded ids cannot be used with IN, so the query compares the id with each of the given values.
+     */
+    protected void buildEmbeddedIdsQuery(MetaProperty primaryKeyProperty) {
+        StringBuilder sb = new StringBuilder();
+        resultParameters = new HashMap<>();
+        for (int i = 0; i < ids.size(); i++) {
+            if (i > 0) {
+                sb.append(" or ");
+            }
+            String paramName = "entityId" + i;
+            sb.append("e.").append(primaryKeyProperty.getName()).append(" = :").append(paramName);
+            resultParameters.put(paramName, ids.get(i));
+        }
+        resultQuery = String.format("select e from %s e where (%s)", entityName, sb);
+    }
+
     protected void applySorting() {
         if (sort != null) {
             resultQuery = sortJpqlGenerator.processQuery(entityName, valueProperties, resultQuery, sort);
@@ -231,8 +274,61 @@ public class JpqlQueryBuilder {
         }
     }
 
+    /**
+     * Adds the seek predicate comparing the sort properties and the primary key with the keyset values, in the same
+     * lexicographic order as produced by {@link SortJpqlGenerator}.
+     */
+    protected void applyKeyset() {
+        if (keyset == null || entityName == null || valueProperties != null || singleResult
+                || id != null || (ids != null && !ids.isEmpty())) {
+            return;
+        }
+        MetaClass metaClass = metadata.getClassNN(entityName);
+        if (!keyset.isApplicable(metaClass, sort)) {
+            return;
+        }
+
+        List<String> expressions = new ArrayList<>();
+        for (Sort.Order order : sort.getOrders()) {
+            expressions.add("{E}." + order.getProperty());
+        }
+        expressions.add("{E}." + getPrimaryKeyProperty().getName());
+
+        List<Object> values = new ArrayList<>(keyset.getValues());
+        values.add(keyset.getId());
+
+        String operator = sort.getOrders().get(0).getDirection() == Sort.Direction.ASC ? ">" : "<";
+
+        Map<String, Object> parameters = new HashMap<>(resultParameters);
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < expressions.size(); i++) {
+            if (i > 0) {
+                sb.append(" or ");
+            }
+            sb.append("(");
+            for (int j = 0; j < i; j++) {
+                sb.append(expressions.get(j)).append(" = :_ks_").append(j).append(" and ");
+            }
+            sb.append(expressions.get(i)).append(" ").append(operator).append(" :_ks_").append(i);
+            sb.append(")");
+            parameters.put("_ks_" + i, values.get(i));
+        }
+
+        QueryTransformer transformer = queryTransformerFactory.transformer(resultQuery);
+        transformer.addWhere("(" + sb + ")");
+
+        resultQuery = transformer.getResult();
+        resultParameters = parameters;
+    }
+
     protected void restrictByPreviousResults() {
-        if (previousResults) {
+        if (previousResults && previousResultIds != null) {
+            QueryTransformer transformer = queryTransformerFactory.transformer(resultQuery);
+            transformer.addWhere(String.format("{E}.%s in :_qr_ids", getPrimaryKeyProperty().getName()));
+
+            this.resultQuery = transformer.getResult();
+            this.resultParameters.put("_qr_ids", previousResultIds);
+        } else if (previousResults) {
             Class type = getPrimaryKeyProperty().getJavaType();
             String entityIdField;
             if (UUID.class.equals(type)) {
@@ -0,0 +1,152 @@
+/*
+ * Copyright (c) 2008-2020 Haulmont.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.haulmont.cuba.core.app;
+
+import com.haulmont.bali.util.ReflectionHelper;
+import com.haulmont.cuba.core.sys.serialization.KryoSerialization;
+import com.haulmont.cuba.core.sys.serialization.SerializationSupport;
+import com.haulmont.cuba.core.sys.serialization.StandardSerialization;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.inject.Inject;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compact cluster message codec based on {@link KryoSerialization}.
+ * <p>
+ * Each message starts with a format byte. Classes listed in {@link ClusterConfig#getRegisteredMessageClasses()}
+ * are written with a short class id instead of the class name, so the list must be the same on all nodes.
+ * Messages which cannot be serialized by Kryo are written using standard Java serialization.
+ * Plain Java-serialized messages sent by nodes using {@link StandardClusterMessageCodec} are accepted as well.
+ */
+@Component(KryoClusterMessageCodec.NAME)
+public class KryoClusterMessageCodec implements ClusterMessageCodec {
+
+    public static final String NAME = "cuba_KryoClusterMessageCodec";
+
+    private static final Logger log = LoggerFactory.getLogger(KryoClusterMessageCodec.class);
+
+    protected static final byte FORMAT_KRYO = 1;
+    protected static final byte FORMAT_KRYO_REGISTERED = 2;
+    protected static final byte FORMAT_JAVA = 3;
+
+    protected static final byte JAVA_STREAM_MAGIC = (byte) 0xAC;
+
+    @Inject
+    protected ClusterConfig clusterConfig;
+
+    protected StandardSerialization javaSerialization = new StandardSerialization();
+
+    protected List<Class> registeredClasses = new ArrayList<>();
+    protected Map<Class, Integer> registeredClassIds = new HashMap<>();
+
+    @PostConstruct
+    protected void init() {
+        List<String> classNames = clusterConfig.getRegisteredMessageClasses();
+        if (classNames == null) {
+            return;
+        }
+        for (String className : classNames) {
+            Class messageClass = null;
+            try {
+                messageClass = ReflectionHelper.loadClass(className.trim());
+                registeredClassIds.put(messageClass, registeredClasses.size());
+            } catch (ClassNotFoundException e) {
+                log.warn("Registered cluster message class {} not found", className);
+            }
+            // keep ids stable even if some class is not available on this node
+            registeredClasses.add(messageClass);
+        }
+    }
+
+    @Override
+    public byte[] encode(Serializable message) {
+        ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        try {
+            Integer classId = registeredClassIds.get(message.getClass());
+            if (classId != null) {
+                DataOutputStream out = new DataOutputStream(bos);
+                out.writeByte(FORMAT_KRYO_REGISTERED);
+                out.writeShort(classId);
+                out.flush();
+                getKryoSerialization().serializeWithoutClass(message, bos);
+            } else {
+                bos.write(FORMAT_KRYO);
+                getKryoSerialization().serialize(message, bos);
+            }
+        } catch (IOException | RuntimeException e) {
+            log.debug("Unable to serialize cluster message {} by Kryo, using Java serialization", message.getClass(), e);
+            bos.reset();
+            bos.write(FORMAT_JAVA);
+            javaSerialization.serialize(message, bos);
+        }
+        return bos.toByteArray();
+    }
+
+    @Override
+    public Serializable decode(byte[] bytes) {
+        if (bytes.length == 0) {
+            throw new IllegalArgumentException("Empty cluster message");
+        }
+        switch (bytes[0]) {
+            case FORMAT_KRYO:
+                return (Serializable) getKryoSerialization().deserialize(
+                        new ByteArrayInputStream(bytes, 1, bytes.length - 1));
+            case FORMAT_KRYO_REGISTERED:
+                return decodeRegistered(bytes);
+            case FORMAT_JAVA:
+                return (Serializable) javaSerialization.deserialize(
+                        new ByteArrayInputStream(bytes, 1, bytes.length - 1));
+            case JAVA_STREAM_MAGIC:
+                return (Serializable) javaSerialization.deserialize(bytes);
+            default:
+                throw new IllegalArgumentException("Unknown cluster message format: " + bytes[0]);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    protected Serializable decodeRegistered(byte[] bytes) {
+        ByteArrayInputStream bis = new ByteArrayInputStream(bytes, 1, bytes.length - 1);
+        int classId;
+        try {
+            classId = new DataInputStream(bis).readUnsignedShort();
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Invalid cluster message header", e);
+        }
+        Class messageClass = classId < registeredClasses.size() ? registeredClasses.get(classId) : null;
+        if (messageClass == null) {
+            throw new IllegalArgumentException("Unknown registered cluster message class id: " + classId);
+        }
+        return (Serializable) getKryoSerialization().deserialize(bis, messageClass);
+    }
+
+    protected KryoSerialization getKryoSerialization() {
+        return SerializationSupport.getKryoSerialization();
+    }
+}
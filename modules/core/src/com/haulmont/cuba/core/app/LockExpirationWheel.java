@@ -0,0 +1,160 @@
+/*
+ * Copyright (c) 2008-2020 Haulmont.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.haulmont.cuba.core.app;
+
+import com.google.common.base.Preconditions;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Hashed timing wheel which keeps items until their deadlines. Used by {@link LockManager} to expire lock leases
+ * without scanning all current locks.
+ * <p>
+ * Items are placed into slots by their deadline tick. Advancing the wheel visits only the slots passed since
+ * the previous advance and returns the items whose deadlines have come. Items with deadlines more than one
+ * rotation ahead stay in their slots until the corresponding round.
+ * <p>
+ * The wheel does not support removal of items: the caller checks whether an expired item is still relevant.
+ *
+ * @param <T> type of items
+ */
+public class LockExpirationWheel<T> {
+
+    protected final long tickMillis;
+
+    protected final Queue<Entry<T>>[] slots;
+
+    protected final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    /**
+     * Last processed tick, -1 if the wheel has not been advanced yet.
+     */
+    protected volatile long lastTick = -1;
+
+    /**
+     * @param tickMillis duration of a tick in milliseconds
+     * @param wheelSize  number of slots
+     */
+    @SuppressWarnings("unchecked")
+    public LockExpirationWheel(long tickMillis, int wheelSize) {
+        Preconditions.checkArgument(tickMillis > 0, "tickMillis must be positive");
+        Preconditions.checkArgument(wheelSize > 0, "wheelSize must be positive");
+        this.tickMillis = tickMillis;
+        this.slots = new Queue[wheelSize];
+        for (int i = 0; i < wheelSize; i++) {
+            slots[i] = new ConcurrentLinkedQueue<>();
+        }
+    }
+
+    /**
+     * Adds an item to the wheel.
+     *
+     * @param item     item
+     * @param deadline time in milliseconds when the item expires
+     */
+    public void schedule(T item, long deadline) {
+        lock.readLock().lock();
+        try {
+            // the item is placed into the first slot visited not earlier than the deadline
+            long tick = (deadline + tickMillis - 1) / tickMillis;
+            // slots of passed ticks are not visited until the next rotation
+            long processed = lastTick;
+            if (processed >= 0 && tick <= processed) {
+                tick = processed + 1;
+            }
+            slots[slotIndex(tick)].add(new Entry<>(item, deadline));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Moves the wheel to the given time.
+     *
+     * @param now current time in milliseconds
+     * @return items whose deadlines have come
+     */
+    public List<T> advance(long now) {
+        List<T> expired = new ArrayList<>();
+        lock.writeLock().lock();
+        try {
+            long nowTick = now / tickMillis;
+            long fromTick = lastTick < 0 || nowTick - lastTick > slots.length ? nowTick - slots.length + 1 : lastTick + 1;
+            for (long tick = fromTick; tick <= nowTick; tick++) {
+                Iterator<Entry<T>> iterator = slots[slotIndex(tick)].iterator();
+                while (iterator.hasNext()) {
+                    Entry<T> entry = iterator.next();
+                    if (entry.deadline <= now) {
+                        iterator.remove();
+                        expired.add(entry.item);
+                    }
+                }
+            }
+            if (nowTick > lastTick) {
+                lastTick = nowTick;
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+        return expired;
+    }
+
+    /**
+     * Removes all items from the wheel.
+     */
+    public void clear() {
+        lock.writeLock().lock();
+        try {
+            for (Queue<Entry<T>> slot : slots) {
+                slot.clear();
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * @return number of items in the wheel. Iterates through all slots, so should be used for monitoring only.
+     */
+    public int size() {
+        int size = 0;
+        for (Queue<Entry<T>> slot : slots) {
+            size += slot.size();
+        }
+        return size;
+    }
+
+    protected int slotIndex(long tick) {
+        return (int) Math.floorMod(tick, (long) slots.length);
+    }
+
+    protected static class Entry<T> {
+        protected final T item;
+        protected final long deadline;
+
+        protected Entry(T item, long deadline) {
+            this.item = item;
+            this.deadline = deadline;
+        }
+    }
+}
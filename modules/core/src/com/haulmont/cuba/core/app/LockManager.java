@@ -16,6 +16,7 @@
  */
 package com.haulmont.cuba.core.app;
 
+import com.google.common.util.concurrent.Striped;
 import com.haulmont.bali.util.Preconditions;
 import com.haulmont.chile.core.model.MetaClass;
 import com.haulmont.cuba.core.EntityManager;
@@ -25,19 +26,22 @@ import com.haulmont.cuba.core.TypedQuery;
 import com.haulmont.cuba.core.entity.Entity;
 import com.haulmont.cuba.core.entity.LockDescriptor;
 import com.haulmont.cuba.core.global.*;
+import com.haulmont.cuba.security.app.UserSessionsAPI;
+import com.haulmont.cuba.security.auth.events.UserLoggedOutEvent;
+import com.haulmont.cuba.security.entity.User;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Component;
 
 import javax.annotation.Nullable;
 import javax.inject.Inject;
 import java.io.*;
-import java.util.ArrayList;
-import java.util.Date;
-import java.util.List;
-import java.util.Map;
+import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
 
 @Component(LockManagerAPI.NAME)
 public class LockManager implements LockManagerAPI, ClusterListener<LockInfo> {
@@ -73,11 +77,31 @@ public class LockManager implements LockManagerAPI, ClusterListener<LockInfo> {
         }
     }
 
+    /**
+     * Number of stripes guarding modifications of locks. Bulk operations acquire stripes of all their keys.
+     */
+    private static final int LOCK_STRIPES = 64;
+
+    private static final long EXPIRATION_TICK_MS = 1000;
+
+    private static final int EXPIRATION_WHEEL_SIZE = 1024;
+
     private static final Logger log = LoggerFactory.getLogger(LockManager.class);
 
     private volatile Map<String, LockDescriptor> config;
 
-    private Map<LockKey, LockInfo> locks = new ConcurrentHashMap<>();
+    private final ReentrantLock configLock = new ReentrantLock();
+
+    private final Map<LockKey, LockInfo> locks = new ConcurrentHashMap<>();
+
+    private final Map<UUID, Set<LockKey>> userLocks = new ConcurrentHashMap<>();
+
+    private final Striped<Lock> stripes = Striped.lock(LOCK_STRIPES);
+
+    private final LockExpirationWheel<LockKey> expirationWheel =
+            new LockExpirationWheel<>(EXPIRATION_TICK_MS, EXPIRATION_WHEEL_SIZE);
+
+    private volatile boolean rescheduleRequired;
 
     @Inject
     private Persistence persistence;
@@ -88,19 +112,39 @@ public class LockManager implements LockManagerAPI, ClusterListener<LockInfo> {
     @Inject
     private UserSessionSource userSessionSource;
 
+    @Inject
+    private UserSessionsAPI userSessions;
+
+    @Inject
+    private TimeSource timeSource;
+
+    @Inject
+    private ServerConfig serverConfig;
+
     private ClusterManagerAPI clusterManager;
 
     @Inject
     public void setClusterManager(ClusterManagerAPI clusterManager) {
         this.clusterManager = clusterManager;
         this.clusterManager.addListener(LockInfo.class, this);
+        this.clusterManager.addListener(LockUpdateMsg.class, new ClusterListenerAdapter<LockUpdateMsg>() {
+            @Override
+            public void receive(LockUpdateMsg message) {
+                for (LockInfo lockInfo : message.updates) {
+                    LockManager.this.receive(lockInfo);
+                }
+            }
+        });
     }
 
     private Map<String, LockDescriptor> getConfig() {
-        if (this.config == null) {
-            synchronized (this) {
-                if (this.config == null) {
-                    Map<String, LockDescriptor> config = new ConcurrentHashMap<>();
+        Map<String, LockDescriptor> config = this.config;
+        if (config == null) {
+            configLock.lock();
+            try {
+                config = this.config;
+                if (config == null) {
+                    config = new HashMap<>();
 
                     Transaction tx = persistence.createTransaction();
                     try {
@@ -117,6 +161,8 @@ public class LockManager implements LockManagerAPI, ClusterListener<LockInfo> {
                     }
                     this.config = config;
                 }
+            } finally {
+                configLock.unlock();
             }
         }
         return config;
@@ -137,15 +183,81 @@ public class LockManager implements LockManagerAPI, ClusterListener<LockInfo> {
             return new LockNotSupported();
         }
 
-        lockInfo = new LockInfo(userSessionSource.getUserSession().getCurrentOrSubstitutedUser(), name, id);
-        locks.put(key, lockInfo);
+        Lock stripe = stripes.get(key);
+        stripe.lock();
+        try {
+            lockInfo = locks.get(key);
+            if (lockInfo != null) {
+                log.debug("Already locked: " + lockInfo);
+                return lockInfo;
+            }
+            lockInfo = new LockInfo(userSessionSource.getUserSession().getCurrentOrSubstitutedUser(), name, id);
+            putLock(key, lockInfo);
+        } finally {
+            stripe.unlock();
+        }
         log.debug("Locked " + name + "/" + id);
 
-        clusterManager.send(lockInfo);
+        clusterManager.send(new LockUpdateMsg(Collections.singletonList(lockInfo)));
 
         return null;
     }
 
+    @Override
+    public Map<String, LockInfo> lock(String name, Collection<String> ids) {
+        Preconditions.checkNotNullArgument(ids, "ids is null");
+
+        LockDescriptor ld = getConfig().get(name);
+        if (ld == null) {
+            LockNotSupported lockNotSupported = new LockNotSupported();
+            Map<String, LockInfo> result = new LinkedHashMap<>();
+            for (String id : ids) {
+                result.put(id, lockNotSupported);
+            }
+            return result;
+        }
+
+        Set<LockKey> keys = new LinkedHashSet<>();
+        for (String id : ids) {
+            keys.add(new LockKey(name, id));
+        }
+        if (keys.isEmpty()) {
+            return Collections.emptyMap();
+        }
+
+        User user = userSessionSource.getUserSession().getCurrentOrSubstitutedUser();
+        List<LockInfo> lockInfos = new ArrayList<>(keys.size());
+
+        // stripes are returned in a stable order, so concurrent bulk operations cannot deadlock
+        List<Lock> keyStripes = lockStripes(keys);
+        try {
+            Map<String, LockInfo> lockedBySomeone = new LinkedHashMap<>();
+            for (LockKey key : keys) {
+                LockInfo lockInfo = locks.get(key);
+                if (lockInfo != null) {
+                    lockedBySomeone.put(key.id, lockInfo);
+                }
+            }
+            if (!lockedBySomeone.isEmpty()) {
+                log.debug("Already locked {} of {} objects of {}", lockedBySomeone.size(), keys.size(), name);
+                return lockedBySomeone;
+            }
+
+            for (LockKey key : keys) {
+                LockInfo lockInfo = new LockInfo(user, name, key.id);
+                putLock(key, lockInfo);
+                lockInfos.add(lockInfo);
+            }
+        } finally {
+            unlockStripes(keyStripes);
+        }
+        log.debug("Locked {} objects of {}", lockInfos.size(), name);
+
+        clusterManager.send(new LockUpdateMsg(lockInfos));
+
+        return Collections.emptyMap();
+    }
+
     @Nullable
     @Override
     public LockInfo lock(Entity entity) {
@@ -159,12 +271,33 @@ public class LockManager implements LockManagerAPI, ClusterListener<LockInfo> {
 
     @Override
     public void unlock(String name, String id) {
-        LockInfo lockInfo = locks.remove(new LockKey(name, id));
+        LockKey key = new LockKey(name, id);
+        LockInfo lockInfo;
+
+        Lock stripe = stripes.get(key);
+        stripe.lock();
+        try {
+            lockInfo = removeLock(key, null);
+        } finally {
+            stripe.unlock();
+        }
+
         if (lockInfo != null) {
             log.debug("Unlocked " + name + "/" + id);
 
-            clusterManager.send(new LockInfo(null, name, id));
+            clusterManager.send(new LockUpdateMsg(Collections.singletonList(new LockInfo(null, name, id))));
+        }
+    }
+
+    @Override
+    public void unlock(String name, Collection<String> ids) {
+        Preconditions.checkNotNullArgument(ids, "ids is null");
+
+        Set<LockKey> keys = new LinkedHashSet<>();
+        for (String id : ids) {
+            keys.add(new LockKey(name, id));
         }
+        unlockKeys(keys, null);
     }
 
     @Override
@@ -177,6 +310,40 @@ public class LockManager implements LockManagerAPI, ClusterListener<LockInfo> {
         unlock(originalMetaClass.getName(), entity.getId().toString());
     }
 
+    @Override
+    public void unlockByUser(UUID userId) {
+        Preconditions.checkNotNullArgument(userId, "userId is null");
+
+        Set<LockKey> keys = userLocks.get(userId);
+        if (keys != null) {
+            unlockKeys(new ArrayList<>(keys), userId);
+        }
+    }
+
+    private void unlockKeys(Collection<LockKey> keys, @Nullable UUID userId) {
+        if (keys.isEmpty()) {
+            return;
+        }
+        List<LockInfo> unlocked = new ArrayList<>();
+
+        List<Lock> keyStripes = lockStripes(keys);
+        try {
+            for (LockKey key : keys) {
+                if (removeLock(key, userId) != null) {
+                    unlocked.add(new LockInfo(null, key.name, key.id));
+                }
+            }
+        } finally {
+            unlockStripes(keyStripes);
+        }
+
+        if (!unlocked.isEmpty()) {
+            log.debug("Unlocked {} objects", unlocked.size());
+
+            clusterManager.send(new LockUpdateMsg(unlocked));
+        }
+    }
+
     @Override
     public LockInfo getLockInfo(String name, String id) {
         LockDescriptor ld = getConfig().get(name);
@@ -195,24 +362,51 @@ public class LockManager implements LockManagerAPI, ClusterListener<LockInfo> {
     @Override
     public void expireLocks() {
         log.debug("Expiring locks");
-        ArrayList<LockKey> list = new ArrayList<>(locks.keySet());
-        for (LockKey key : list) {
-            LockInfo lockInfo = locks.get(key);
-            if (lockInfo != null) {
-                LockDescriptor ld = getConfig().get(key.name);
-                if (ld == null) {
-                    log.debug("Lock " + key.name + "/" + key.id + " configuration not found, remove it");
-                    locks.remove(key);
-                } else {
-                    Integer timeoutSec = ld.getTimeoutSec();
-                    if (timeoutSec != null && timeoutSec > 0) {
-                        Date since = lockInfo.getSince();
-                        if (since.getTime() + timeoutSec * 1000 < AppBeans.get(TimeSource.class).currentTimestamp().getTime()) {
-                            log.debug("Lock " + key.name + "/" + key.id + " expired");
-                            locks.remove(key);
-                        }
+        if (rescheduleRequired) {
+            rescheduleLocks();
+        }
+
+        long now = timeSource.currentTimeMillis();
+        for (LockKey key : expirationWheel.advance(now)) {
+            Lock stripe = stripes.get(key);
+            stripe.lock();
+            try {
+                LockInfo lockInfo = locks.get(key);
+                // the lock could be released and acquired again after the lease has been scheduled
+                if (lockInfo != null && getDeadline(key, lockInfo) <= now) {
+                    log.debug("Lock " + key.name + "/" + key.id + " expired");
+                    removeLock(key, null);
+                }
+            } finally {
+                stripe.unlock();
+            }
+        }
+    }
+
+    /**
+     * Schedules expiration of all current locks according to the current configuration and removes locks which
+     * are not configured anymore.
+     */
+    private void rescheduleLocks() {
+        rescheduleRequired = false;
+        Map<String, LockDescriptor> config = getConfig();
+
+        expirationWheel.clear();
+        for (LockKey key : new ArrayList<>(locks.keySet())) {
+            Lock stripe = stripes.get(key);
+            stripe.lock();
+            try {
+                LockInfo lockInfo = locks.get(key);
+                if (lockInfo != null) {
+                    if (config.get(key.name) == null) {
+                        log.debug("Lock " + key.name + "/" + key.id + " configuration not found, remove it");
+                        removeLock(key, null);
+                    } else {
+                        scheduleExpiration(key, lockInfo);
                     }
                 }
+            } finally {
+                stripe.unlock();
             }
         }
     }
@@ -220,18 +414,43 @@ public class LockManager implements LockManagerAPI, ClusterListener<LockInfo> {
     @Override
     public void reloadConfiguration() {
         config = null;
+        rescheduleRequired = true;
+    }
+
+    @EventListener
+    protected void onUserLoggedOut(UserLoggedOutEvent event) {
+        if (!serverConfig.getReleaseLocksOnLogout()) {
+            return;
+        }
+        UUID userId = event.getUserSession().getCurrentOrSubstitutedUser().getId();
+        if (!userLocks.containsKey(userId)) {
+            return;
+        }
+        // locks are held by users, so they are released only when the last session of the user is finished
+        boolean hasOtherSessions = userSessions.getUserSessionsStream()
+                .anyMatch(session -> userId.equals(session.getCurrentOrSubstitutedUser().getId()));
+        if (!hasOtherSessions) {
+            log.debug("Releasing locks of logged out user {}", event.getUserSession().getCurrentOrSubstitutedUser());
+            unlockByUser(userId);
+        }
     }
 
     @Override
     public void receive(LockInfo message) {
         LockKey key = new LockKey(message.getEntityName(), message.getEntityId());
-        if (message.getUser() != null) {
-            LockInfo lockInfo = locks.get(key);
-            if (lockInfo == null || lockInfo.getSince().before(message.getSince())) {
-                locks.put(key, message);
+        Lock stripe = stripes.get(key);
+        stripe.lock();
+        try {
+            if (message.getUser() != null) {
+                LockInfo lockInfo = locks.get(key);
+                if (lockInfo == null || lockInfo.getSince().before(message.getSince())) {
+                    putLock(key, message);
+                }
+            } else {
+                removeLock(key, null);
             }
-        } else {
-            locks.remove(key);
+        } finally {
+            stripe.unlock();
         }
     }
 
@@ -269,4 +488,104 @@ public class LockManager implements LockManagerAPI, ClusterListener<LockInfo> {
             receive(lockInfo);
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * Must be invoked holding the stripe of the key.
+     */
+    private void putLock(LockKey key, LockInfo lockInfo) {
+        LockInfo prevLockInfo = locks.put(key, lockInfo);
+        if (prevLockInfo != null) {
+            removeFromUserLocks(key, prevLockInfo);
+        }
+        userLocks.compute(lockInfo.getUser().getId(), (userId, keys) -> {
+            if (keys == null) {
+                keys = ConcurrentHashMap.newKeySet();
+            }
+            keys.add(key);
+            return keys;
+        });
+        scheduleExpiration(key, lockInfo);
+    }
+
+    /**
+     * Must be invoked holding the stripe of the key.
+     *
+     * @param userId if not null, the lock is removed only if it is held by this user
+     * @return removed lock or null if there was no lock
+     */
+    @Nullable
+    private LockInfo removeLock(LockKey key, @Nullable UUID userId) {
+        LockInfo lockInfo = locks.get(key);
+        if (lockInfo == null || (userId != null && !userId.equals(lockInfo.getUser().getId()))) {
+            return null;
+        }
+        locks.remove(key);
+        removeFromUserLocks(key, lockInfo);
+        return lockInfo;
+    }
+
+    private void removeFromUserLocks(LockKey key, LockInfo lockInfo) {
+        userLocks.computeIfPresent(lockInfo.getUser().getId(), (userId, keys) -> {
+            keys.remove(key);
+            return keys.isEmpty() ? null : keys;
+        });
+    }
+
+    private void scheduleExpiration(LockKey key, LockInfo lockInfo) {
+        long deadline = getDeadline(key, lockInfo);
+        if (deadline < Long.MAX_VALUE) {
+            expirationWheel.schedule(key, deadline);
+        }
+    }
+
+    private long getDeadline(LockKey key, LockInfo lockInfo) {
+        LockDescriptor ld = getConfig().get(key.name);
+        if (ld != null) {
+            Integer timeoutSec = ld.getTimeoutSec();
+            if (timeoutSec != null && timeoutSec > 0) {
+                return lockInfo.getSince().getTime() + timeoutSec * 1000L;
+            }
+        }
+        return Long.MAX_VALUE;
+    }
+
+    private List<Lock> lockStripes(Collection<LockKey> keys) {
+        List<Lock> keyStripes = new ArrayList<>();
+        for (Lock stripe : stripes.bulkGet(keys)) {
+            // bulkGet returns a stripe once for each key, so repeated stripes are acquired reentrantly
+            stripe.lock();
+            keyStripes.add(stripe);
+        }
+        return keyStripes;
+    }
+
+    private void unlockStripes(List<Lock> keyStripes) {
+        for (int i = keyStripes.size() - 1; i >= 0; i--) {
+            keyStripes.get(i).unlock();
+        }
+    }
+
+    /**
+     * Replicates changes of locks to other cluster members. A {@link LockInfo} without user means that
+     * the object has been unlocked.
+     */
+    private static class LockUpdateMsg implements CoalescingClusterMessage {
+        private static final long serialVersionUID = 6148251046337414396L;
+
+        private final List<LockInfo> updates;
+
+        private LockUpdateMsg(List<LockInfo> updates) {
+            this.updates = updates;
+        }
+
+        @Override
+        public Object getCoalescingKey() {
+            // only subsequent changes of the same single object replace each other
+            if (updates.size() == 1) {
+                LockInfo lockInfo = updates.get(0);
+                return lockInfo.getEntityName() + "/" + lockInfo.getEntityId();
+            }
+            return this;
+        }
+    }
+}
@@ -20,7 +20,10 @@ import com.haulmont.cuba.core.entity.Entity;
 import com.haulmont.cuba.core.global.LockInfo;
 
 import javax.annotation.Nullable;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.UUID;
 
 /**
  * Interface for pessimistic locking.
@@ -40,6 +43,17 @@ public interface LockManagerAPI {
     @Nullable
     LockInfo lock(String name, String id);
 
+    /**
+     * Try to lock several objects of the same type at once. Either all objects are locked, or none of them.
+     * @param name locking object name
+     * @param ids locking object IDs
+     * @return - empty map in case of successful lock,<br>
+     * - map of all IDs to {@link com.haulmont.cuba.core.global.LockNotSupported} instance in case of locking is not
+     * configured for this object type,<br>
+     * - map of IDs of objects which are already locked by someone to their {@link LockInfo} instances
+     */
+    Map<String, LockInfo> lock(String name, Collection<String> ids);
+
     /**
      * Try to lock an entity.
      * @param entity entity instance
@@ -57,12 +71,25 @@ public interface LockManagerAPI {
      */
     void unlock(String name, String id);
 
+    /**
+     * Unlock several objects of the same type at once.
+     * @param name locking object name
+     * @param ids locking object IDs
+     */
+    void unlock(String name, Collection<String> ids);
+
     /**
      * Unlock an entity.
      * @param entity entity instance
      */
     void unlock(Entity entity);
 
+    /**
+     * Unlock all objects locked by a user.
+     * @param userId user ID
+     */
+    void unlockByUser(UUID userId);
+
     /**
      * Get locking status for particular object
      * @param name locking object name
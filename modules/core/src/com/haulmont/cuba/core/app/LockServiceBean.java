@@ -22,7 +22,9 @@ import org.springframework.stereotype.Service;
 
 import javax.annotation.Nullable;
 import javax.inject.Inject;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 
 @Service(LockService.NAME)
 public class LockServiceBean implements LockService {
@@ -35,6 +37,11 @@ public class LockServiceBean implements LockService {
         return lockManager.lock(name, id);
     }
 
+    @Override
+    public Map<String, LockInfo> lock(String name, Collection<String> ids) {
+        return lockManager.lock(name, ids);
+    }
+
     @Nullable
     @Override
     public LockInfo lock(Entity entity) {
@@ -46,6 +53,11 @@ public class LockServiceBean implements LockService {
         lockManager.unlock(name, id);
     }
 
+    @Override
+    public void unlock(String name, Collection<String> ids) {
+        lockManager.unlock(name, ids);
+    }
+
     @Override
     public void unlock(Entity entity) {
         lockManager.unlock(entity);
@@ -0,0 +1,140 @@
+/*
+ * Copyright (c) 2008-2020 Haulmont.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.haulmont.cuba.core.app;
+
+import com.google.common.collect.Lists;
+import com.haulmont.cuba.core.entity.Entity;
+import com.haulmont.cuba.core.global.Keyset;
+import com.haulmont.cuba.core.global.LoadContext;
+import com.haulmont.cuba.core.global.Sort;
+
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.function.Function;
+import java.util.regex.Pattern;
+
+/**
+ * Cursor which loads chunks of instances by pages of the query of a {@link LoadContext}, or by partitions
+ * of its ids. Pages following the first one are selected by a {@link Keyset} of the last loaded instance
+ * if the data store supports it, and by offset otherwise.
+ * <p>
+ * Used by data stores which do not provide a more efficient implementation of
+ * {@link DataStore#openCursor(LoadContext, int, Function)}.
+ */
+public class PagingEntityCursor<E extends Entity> extends ChunkedEntityCursor<E> {
+
+    protected static final Pattern ORDER_BY_PATTERN = Pattern.compile("\\border\\s+by\\b", Pattern.CASE_INSENSITIVE);
+
+    protected final LoadContext<E> context;
+
+    protected final int batchSize;
+
+    protected final Function<LoadContext<E>, List<E>> chunkLoader;
+
+    protected Iterator<List<Object>> idPartitions;
+
+    protected int firstResult;
+
+    protected int remaining;
+
+    protected E lastEntity;
+
+    protected boolean lastChunk;
+
+    /**
+     * @param context       defines what and how to load, copied by the constructor
+     * @param batchSize     maximum number of instances in a chunk
+     * @param primaryKeyName name of the primary key attribute used to order the pages if the query is not sorted
+     * @param chunkLoader   loads instances of a chunk defined by a copy of the context
+     */
+    @SuppressWarnings("unchecked")
+    public PagingEntityCursor(LoadContext<E> context, int batchSize, String primaryKeyName,
+                              Function<LoadContext<E>, List<E>> chunkLoader) {
+        if (batchSize <= 0) {
+            throw new IllegalArgumentException("batchSize must be positive");
+        }
+        this.context = (LoadContext<E>) context.copy();
+        this.batchSize = batchSize;
+        this.chunkLoader = chunkLoader;
+
+        if (!this.context.getIds().isEmpty()) {
+            idPartitions = Lists.partition((List<Object>) this.context.getIds(), batchSize).iterator();
+        } else if (this.context.getId() == null) {
+            LoadContext.Query query = this.context.getQuery();
+            if (query == null) {
+                query = this.context.setQueryString(String.format("select e from %s e", this.context.getMetaClass()));
+            }
+            firstResult = query.getFirstResult();
+            remaining = query.getMaxResults() > 0 ? query.getMaxResults() : Integer.MAX_VALUE;
+            if ((query.getSort() == null || query.getSort().getOrders().isEmpty())
+                    && primaryKeyName != null
+                    && !ORDER_BY_PATTERN.matcher(query.getQueryString()).find()) {
+                // paging requires a stable order of instances
+                query.setSort(Sort.by(primaryKeyName));
+            }
+        }
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    protected List<E> loadNextChunk() {
+        if (lastChunk) {
+            return null;
+        }
+        if (idPartitions != null) {
+            if (!idPartitions.hasNext()) {
+                return null;
+            }
+            LoadContext<E> chunkContext = (LoadContext<E>) context.copy();
+            chunkContext.setIds(idPartitions.next());
+            return chunkLoader.apply(chunkContext);
+        }
+        if (context.getId() != null) {
+            lastChunk = true;
+            return chunkLoader.apply((LoadContext<E>) context.copy());
+        }
+        if (remaining <= 0) {
+            return null;
+        }
+
+        LoadContext<E> pageContext = (LoadContext<E>) context.copy();
+        LoadContext.Query query = pageContext.getQuery();
+        int maxResults = Math.min(batchSize, remaining);
+        query.setFirstResult(firstResult);
+        query.setMaxResults(maxResults);
+        if (lastEntity != null) {
+            query.setKeyset(Keyset.after(lastEntity, query.getSort()));
+        }
+
+        List<E> entities = chunkLoader.apply(pageContext);
+        if (entities.isEmpty()) {
+            return null;
+        }
+        firstResult += entities.size();
+        remaining -= entities.size();
+        lastEntity = entities.get(entities.size() - 1);
+        lastChunk = entities.size() < maxResults;
+        return entities;
+    }
+
+    @Override
+    protected void release() {
+        idPartitions = Collections.emptyIterator();
+        lastEntity = null;
+    }
+}
@@ -17,6 +17,7 @@
 package com.haulmont.cuba.core.app;
 
 import com.google.common.collect.Lists;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import com.haulmont.bali.util.Preconditions;
 import com.haulmont.chile.core.model.MetaClass;
 import com.haulmont.chile.core.model.MetaProperty;
@@ -29,26 +30,38 @@ import com.haulmont.cuba.core.app.queryresults.QueryResultsManagerAPI;
 import com.haulmont.cuba.core.entity.*;
 import com.haulmont.cuba.core.entity.contracts.Id;
 import com.haulmont.cuba.core.global.*;
+import com.haulmont.cuba.core.sys.AppContext;
 import com.haulmont.cuba.core.sys.EntityFetcher;
 import com.haulmont.cuba.core.sys.EntityReferencesNormalizer;
+import com.haulmont.cuba.core.sys.SecurityContext;
 import com.haulmont.cuba.core.sys.persistence.DbmsSpecificFactory;
 import com.haulmont.cuba.core.sys.persistence.EntityChangedEventInfo;
 import com.haulmont.cuba.core.sys.persistence.EntityChangedEventManager;
 import com.haulmont.cuba.core.sys.persistence.PersistenceImplSupport;
+import com.haulmont.cuba.core.sys.persistence.StatementCounter;
 import com.haulmont.cuba.security.entity.ConstraintOperationType;
 import com.haulmont.cuba.security.entity.EntityAttrAccess;
 import com.haulmont.cuba.security.entity.EntityOp;
 import com.haulmont.cuba.security.entity.PermissionType;
 import org.apache.commons.lang3.StringUtils;
+import org.eclipse.persistence.config.HintValues;
+import org.eclipse.persistence.config.QueryHints;
+import org.eclipse.persistence.config.ResultSetConcurrency;
+import org.eclipse.persistence.config.ResultSetType;
+import org.eclipse.persistence.queries.ScrollableCursor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.context.annotation.Scope;
 import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import javax.annotation.Nullable;
 import javax.inject.Inject;
+import javax.persistence.FlushModeType;
 import javax.persistence.NoResultException;
 import java.util.*;
+import java.util.concurrent.*;
 import java.util.function.Function;
 import java.util.function.Predicate;
 import java.util.stream.Collectors;
@@ -115,6 +128,8 @@ public class RdbmsStore implements DataStore {
 
     protected String storeName;
 
+    protected volatile ExecutorService idsBatchLoadingExecutor;
+
     public RdbmsStore(String storeName) {
         this.storeName = storeName;
     }
@@ -211,6 +226,12 @@ public class RdbmsStore implements DataStore {
             return Collections.emptyList();
         }
 
+        if (isKeysetApplicable(context, metaClass)) {
+            // rows following the keyset are selected by the query, so the page starts from its first row
+            context = (LoadContext<E>) context.copy();
+            context.getQuery().setFirstResult(0);
+        }
+
         queryResultsManager.savePreviousQueryResults(context);
 
         List<E> resultList;
@@ -233,7 +254,13 @@ public class RdbmsStore implements DataStore {
             List<E> entities;
             Integer maxIdsBatchSize = DbmsSpecificFactory.getDbmsFeatures(storeName).getMaxIdsBatchSize();
             if (!context.getIds().isEmpty() && entityHasEmbeddedId(metaClass)) {
-                entities = loadListBySingleIds(context, em, view);
+                int embeddedIdsBatchSize = serverConfig.getEmbeddedIdsBatchSize();
+                if (maxIdsBatchSize != null) {
+                    embeddedIdsBatchSize = Math.min(embeddedIdsBatchSize, maxIdsBatchSize);
+                }
+                entities = embeddedIdsBatchSize > 1 ?
+                        loadListByBatchesOfIds(context, em, view, embeddedIdsBatchSize) :
+                        loadListBySingleIds(context, em, view);
             } else if (!context.getIds().isEmpty() && maxIdsBatchSize != null && context.getIds().size() > maxIdsBatchSize) {
                 entities = loadListByBatchesOfIds(context, em, view, maxIdsBatchSize);
             } else {
@@ -316,6 +343,9 @@ public class RdbmsStore implements DataStore {
     @SuppressWarnings("unchecked")
     protected <E extends Entity> List<E> loadListByBatchesOfIds(LoadContext<E> context, EntityManager em, View view, int batchSize) {
         List<List<Object>> partitions = Lists.partition((List<Object>) context.getIds(), batchSize);
+        if (partitions.size() > 1 && isConcurrentIdsBatchLoadingPossible(context)) {
+            return loadBatchesOfIdsConcurrently(context, view, partitions);
+        }
 
         List<E> entities = new ArrayList<>(context.getIds().size());
         for (List partition : partitions) {
@@ -331,6 +361,125 @@ public class RdbmsStore implements DataStore {
         return entities;
     }
 
+    protected boolean isConcurrentIdsBatchLoadingPossible(LoadContext<?> context) {
+        // entities loaded in the current transaction must stay attached to its EntityManager
+        return serverConfig.getIdsBatchLoadingThreads() > 1 && !context.isJoinTransaction();
+    }
+
+    /**
+     * Loads each partition of ids in a separate read-only transaction on a bounded thread pool,
+     * with the security context of the calling thread.
+     */
+    @SuppressWarnings("unchecked")
+    protected <E extends Entity> List<E> loadBatchesOfIdsConcurrently(LoadContext<E> context, View view,
+                                                                      List<List<Object>> partitions) {
+        SecurityContext securityContext = AppContext.getSecurityContext();
+        ExecutorService executor = getIdsBatchLoadingExecutor();
+
+        List<Future<List<E>>> futures = new ArrayList<>(partitions.size());
+        for (List partition : partitions) {
+            LoadContext<E> contextCopy = (LoadContext<E>) context.copy();
+            contextCopy.setIds(partition);
+            futures.add(executor.submit(() -> {
+                AppContext.setSecurityContext(securityContext);
+                try {
+                    return loadBatchOfIds(contextCopy, view);
+                } finally {
+                    AppContext.setSecurityContext(null);
+                }
+            }));
+        }
+
+        List<E> entities = new ArrayList<>(context.getIds().size());
+        try {
+            for (Future<List<E>> future : futures) {
+                entities.addAll(future.get());
+            }
+        } catch (InterruptedException e) {
+            futures.forEach(future -> future.cancel(true));
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while loading " + context.getMetaClass(), e);
+        } catch (ExecutionException e) {
+            futures.forEach(future -> future.cancel(true));
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new RuntimeException("Error loading " + context.getMetaClass(), e.getCause());
+        }
+        return entities;
+    }
+
+    protected <E extends Entity> List<E> loadBatchOfIds(LoadContext<E> context, View view) {
+        try (Transaction tx = persistence.createTransaction(storeName, new TransactionParams().setReadOnly(true))) {
+            EntityManager em = persistence.getEntityManager(storeName);
+            em.setSoftDeletion(context.isSoftDeletion());
+
+            Query query = createQuery(em, context, false, false);
+            query.setView(view);
+            List<E> list = executeQuery(query, false);
+
+            tx.commit();
+            return list;
+        }
+    }
+
+    protected ExecutorService getIdsBatchLoadingExecutor() {
+        if (idsBatchLoadingExecutor == null) {
+            synchronized (this) {
+                if (idsBatchLoadingExecutor == null) {
+                    int nThreads = serverConfig.getIdsBatchLoadingThreads();
+                    ThreadPoolExecutor executor = new ThreadPoolExecutor(nThreads, nThreads,
+                            60L, TimeUnit.SECONDS, new LinkedBlockingQueue<>(),
+                            new ThreadFactoryBuilder()
+                                    .setNameFormat("RdbmsStoreLoader-" + storeName + "-%d")
+                                    .setDaemon(true)
+                                    .build());
+                    executor.allowCoreThreadTimeOut(true);
+                    idsBatchLoadingExecutor = executor;
+                }
+            }
+        }
+        return idsBatchLoadingExecutor;
+    }
+
+    @Override
+    public <E extends Entity> EntityCursor<E> openCursor(LoadContext<E> context, int batchSize,
+                                                         Function<LoadContext<E>, List<E>> chunkLoader) {
+        if (log.isDebugEnabled())
+            log.debug("openCursor: metaClass=" + context.getMetaClass() + ", view=" + context.getView()
+                    + ", query=" + context.getQuery() + ", batchSize=" + batchSize);
+
+        MetaClass metaClass = metadata.getClassNN(context.getMetaClass());
+
+        if (isAuthorizationRequired(context) && !isEntityOpPermitted(metaClass, EntityOp.READ)) {
+            log.debug("reading of {} not permitted, returning empty cursor", metaClass);
+            return new ChunkedEntityCursor<E>() {
+                @Override
+                protected List<E> loadNextChunk() {
+                    return null;
+                }
+            };
+        }
+
+        if (!isIdsScrollingApplicable(context, metaClass)) {
+            return DataStore.super.openCursor(context, batchSize, chunkLoader);
+        }
+        return new IdsScrollingCursor<>(context, metaClass, batchSize, chunkLoader);
+    }
+
+    protected boolean isIdsScrollingApplicable(LoadContext<?> context, MetaClass metaClass) {
+        LoadContext.Query contextQuery = context.getQuery();
+        if (contextQuery == null
+                || context.getId() != null
+                || !context.getIds().isEmpty()
+                || !context.getPrevQueries().isEmpty()
+                || entityHasEmbeddedId(metaClass)) {
+            return false;
+        }
+        QueryParser parser = queryTransformerFactory.parser(contextQuery.getQueryString());
+        return parser.isEntitySelect(parser.getEntityName());
+    }
+
     @Override
     public long getCount(LoadContext<? extends Entity> context) {
         if (log.isDebugEnabled())
@@ -402,14 +551,25 @@ public class RdbmsStore implements DataStore {
     }
 
     @Override
-    @SuppressWarnings("unchecked")
     public Set<Entity> commit(CommitContext context) {
         if (log.isDebugEnabled())
             log.debug("commit: commitInstances=" + context.getCommitInstances()
                     + ", removeInstances=" + context.getRemoveInstances());
 
+        StatementCounter statementCounter = StatementCounter.start();
+        try {
+            return commitInstances(context);
+        } finally {
+            int statements = statementCounter.stop();
+            log.debug("commit: {} instances to commit, {} to remove, {} SQL statements executed",
+                    context.getCommitInstances().size(), context.getRemoveInstances().size(), statements);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    protected Set<Entity> commitInstances(CommitContext context) {
         Set<Entity> saved = new HashSet<>();
-        List<Entity> persisted = new ArrayList<>();
+        Set<Entity> persisted = new HashSet<>();
         List<BaseGenericIdEntity> identityEntitiesToStoreDynamicAttributes = new ArrayList<>();
         List<CategoryAttributeValue> attributeValuesToRemove = new ArrayList<>();
 
@@ -745,6 +905,14 @@ public class RdbmsStore implements DataStore {
                 && ((BaseGenericIdEntity) entity).getDynamicAttributes() != null;
     }
 
+    protected boolean isKeysetApplicable(LoadContext<?> context, MetaClass metaClass) {
+        LoadContext.Query contextQuery = context.getQuery();
+        return contextQuery != null
+                && contextQuery.getKeyset() != null
+                && context.getIds().isEmpty()
+                && contextQuery.getKeyset().isApplicable(metaClass, contextQuery.getSort());
+    }
+
     protected Query createQuery(EntityManager em, LoadContext<?> context, boolean singleResult, boolean countQuery) {
         LoadContext.Query contextQuery = context.getQuery();
 
@@ -761,13 +929,19 @@ public class RdbmsStore implements DataStore {
                     .setQueryParameters(contextQuery.getParameters())
                     .setNoConversionParams(contextQuery.getNoConversionParams());
             if (!countQuery) {
-                queryBuilder.setSort(contextQuery.getSort());
+                queryBuilder.setSort(contextQuery.getSort())
+                        .setKeyset(contextQuery.getKeyset());
             }
         }
 
         if (!context.getPrevQueries().isEmpty()) {
             log.debug("Restrict query by previous results");
-            queryBuilder.setPreviousResults(userSessionSource.getUserSession().getId(), context.getQueryKey());
+            List<?> previousIds = queryResultsManager.getInMemoryResults(context.getQueryKey());
+            if (previousIds != null) {
+                queryBuilder.setPreviousResultIds(previousIds);
+            } else {
+                queryBuilder.setPreviousResults(userSessionSource.getUserSession().getId(), context.getQueryKey());
+            }
         }
 
         Query query = queryBuilder.getQuery(em);
@@ -794,14 +968,16 @@ public class RdbmsStore implements DataStore {
     protected View createRestrictedView(LoadContext<?> context) {
         View view = context.getView() != null ? context.getView() :
                 viewRepository.getView(metadata.getClassNN(context.getMetaClass()), View.BASE);
-        View copy = View.copy(isAuthorizationRequired(context) ? attributeSecurity.createRestrictedView(view) : view);
+        View restrictedView = isAuthorizationRequired(context) ? attributeSecurity.createRestrictedView(view) : view;
+        View copy = new View(new View.ViewParams().src(restrictedView).name(restrictedView.getName()));
         if (context.isLoadPartialEntities()
                 && !needToApplyInMemoryReadConstraints(context)
                 && !needToFilterByInMemoryReadConstraints(context)
                 && !needToApplyAttributeAccess(context)) {
             copy.setLoadPartialEntities(true);
         }
-        return copy;
+        // the view is only read while loading, a frozen copy shares frozen nested views instead of copying them
+        return View.frozenCopy(copy);
     }
 
     @SuppressWarnings("unchecked")
@@ -1161,4 +1337,247 @@ public class RdbmsStore implements DataStore {
             }
         }
     }
+
+    /**
+     * Cursor which scrolls the ids selected by the query through a forward-only JDBC result set held open
+     * in a separate read-only transaction. Instances of each chunk of ids are loaded by the chunk loader
+     * in their own transactions, so neither persistence context accumulates the iterated instances.
+     * <p>
+     * The transaction of the cursor is bound to the thread only while the cursor fetches ids, so the caller's
+     * transactions are not affected by it between invocations of the cursor methods. The cursor must be iterated
+     * and closed in the thread which has opened it.
+     */
+    protected class IdsScrollingCursor<E extends Entity> extends ChunkedEntityCursor<E> {
+
+        protected final LoadContext<E> context;
+
+        protected final MetaClass metaClass;
+
+        protected final int batchSize;
+
+        protected final Function<LoadContext<E>, List<E>> chunkLoader;
+
+        protected Transaction transaction;
+
+        /**
+         * State of the cursor transaction, which is bound to the thread only while the cursor fetches ids,
+         * so the caller can use its own transactions when processing the instances.
+         */
+        protected ThreadTransactionState transactionState;
+
+        protected ScrollableCursor cursor;
+
+        protected int remaining;
+
+        @SuppressWarnings("unchecked")
+        public IdsScrollingCursor(LoadContext<E> context, MetaClass metaClass, int batchSize,
+                                  Function<LoadContext<E>, List<E>> chunkLoader) {
+            if (batchSize <= 0) {
+                throw new IllegalArgumentException("batchSize must be positive");
+            }
+            this.context = (LoadContext<E>) context.copy();
+            this.metaClass = metaClass;
+            this.batchSize = batchSize;
+            this.chunkLoader = chunkLoader;
+        }
+
+        @Override
+        protected List<E> loadNextChunk() {
+            List<Object> ids = fetchIds();
+            if (ids.isEmpty()) {
+                return null;
+            }
+            // the cursor transaction is detached here, so the chunk is loaded as if by the caller
+            return loadChunk(ids);
+        }
+
+        protected List<Object> fetchIds() {
+            ThreadTransactionState callerState = ThreadTransactionState.detach();
+            try {
+                if (cursor == null) {
+                    open();
+                } else {
+                    transactionState.attach();
+                }
+                try {
+                    List<Object> ids = new ArrayList<>(Math.min(batchSize, remaining));
+                    while (ids.size() < batchSize && remaining > 0 && cursor.hasNext()) {
+                        ids.add(cursor.next());
+                        remaining--;
+                    }
+                    // release objects read by the result set
+                    cursor.clear();
+                    return ids;
+                } finally {
+                    transactionState = ThreadTransactionState.detach();
+                }
+            } finally {
+                callerState.attach();
+            }
+        }
+
+        protected void open() {
+            LoadContext.Query contextQuery = context.getQuery();
+            String primaryKeyName = metadataTools.getPrimaryKeyName(metaClass);
+
+            LoadContext<?> idsContext = context.copy();
+            QueryTransformer transformer = queryTransformerFactory.transformer(contextQuery.getQueryString());
+            transformer.replaceWithSelectId(primaryKeyName);
+            idsContext.getQuery().setQueryString(transformer.getResult());
+            idsContext.getQuery().setFirstResult(0);
+            idsContext.getQuery().setMaxResults(0);
+            idsContext.getQuery().setCacheable(false);
+
+            transaction = persistence.createTransaction(storeName, new TransactionParams().setReadOnly(true));
+            try {
+                EntityManager em = persistence.getEntityManager(storeName);
+                em.setSoftDeletion(context.isSoftDeletion());
+
+                Query query = createQuery(em, idsContext, false, false);
+                javax.persistence.Query jpaQuery = query.getDelegate();
+                jpaQuery.setFlushMode(FlushModeType.COMMIT);
+                jpaQuery.setHint(QueryHints.SCROLLABLE_CURSOR, HintValues.TRUE);
+                jpaQuery.setHint(QueryHints.RESULT_SET_TYPE, ResultSetType.ForwardOnly);
+                jpaQuery.setHint(QueryHints.RESULT_SET_CONCURRENCY, ResultSetConcurrency.ReadOnly);
+                jpaQuery.setHint(QueryHints.JDBC_FETCH_SIZE, batchSize);
+
+                cursor = (ScrollableCursor) jpaQuery.getSingleResult();
+
+                for (int i = 0; i < contextQuery.getFirstResult() && cursor.hasNext(); i++) {
+                    cursor.next();
+                }
+            } catch (RuntimeException e) {
+                try {
+                    if (cursor != null) {
+                        cursor.close();
+                        cursor = null;
+                    }
+                } finally {
+                    transaction.end();
+                    transaction = null;
+                }
+                throw e;
+            }
+            remaining = contextQuery.getMaxResults() > 0 ? contextQuery.getMaxResults() : Integer.MAX_VALUE;
+        }
+
+        /**
+         * Loads instances with the given ids in the order of ids. Instances deleted after the ids have been
+         * selected, or filtered out by in-memory constraints, are skipped.
+         */
+        @SuppressWarnings("unchecked")
+        protected List<E> loadChunk(List<Object> ids) {
+            LoadContext<E> chunkContext = (LoadContext<E>) context.copy();
+            chunkContext.setQuery(LoadContext.createQuery(String.format("select e from %s e where e.%s in :entityIds",
+                    metaClass.getName(), metadataTools.getPrimaryKeyName(metaClass)))
+                    .setParameter("entityIds", ids));
+            chunkContext.setJoinTransaction(false);
+
+            List<E> entities = chunkLoader.apply(chunkContext);
+
+            Map<Object, E> idToEntityMap = new HashMap<>(entities.size() * 2);
+            for (E entity : entities) {
+                Object id = entity.getId() instanceof IdProxy ? ((IdProxy) entity.getId()).get() : entity.getId();
+                idToEntityMap.put(id, entity);
+            }
+            List<E> result = new ArrayList<>(entities.size());
+            for (Object id : ids) {
+                E entity = idToEntityMap.get(id);
+                if (entity != null) {
+                    result.add(entity);
+                }
+            }
+            return result;
+        }
+
+        @Override
+        protected void release() {
+            if (transaction == null) {
+                return;
+            }
+            ThreadTransactionState callerState = ThreadTransactionState.detach();
+            try {
+                transactionState.attach();
+                try {
+                    cursor.close();
+                } finally {
+                    try {
+                        transaction.commit();
+                    } finally {
+                        transaction.end();
+                        transaction = null;
+                    }
+                }
+            } finally {
+                callerState.attach();
+            }
+        }
+    }
+
+    /**
+     * Transaction resources and synchronizations bound to the current thread. The state is detached from
+     * the thread and attached back the same way as {@code AbstractPlatformTransactionManager} suspends and resumes
+     * transactions, but not necessarily in the nested order.
+     */
+    protected static class ThreadTransactionState {
+
+        protected final Map<Object, Object> resources = new LinkedHashMap<>();
+
+        protected List<TransactionSynchronization> synchronizations;
+
+        protected String name;
+
+        protected boolean readOnly;
+
+        protected Integer isolationLevel;
+
+        protected boolean active;
+
+        /**
+         * Unbinds the transaction state from the current thread.
+         */
+        public static ThreadTransactionState detach() {
+            ThreadTransactionState state = new ThreadTransactionState();
+            if (TransactionSynchronizationManager.isSynchronizationActive()) {
+                state.synchronizations = TransactionSynchronizationManager.getSynchronizations();
+                for (TransactionSynchronization synchronization : state.synchronizations) {
+                    synchronization.suspend();
+                }
+                TransactionSynchronizationManager.clearSynchronization();
+            }
+            for (Object key : new ArrayList<>(TransactionSynchronizationManager.getResourceMap().keySet())) {
+                Object resource = TransactionSynchronizationManager.unbindResourceIfPossible(key);
+                if (resource != null) {
+                    state.resources.put(key, resource);
+                }
+            }
+            state.name = TransactionSynchronizationManager.getCurrentTransactionName();
+            state.readOnly = TransactionSynchronizationManager.isCurrentTransactionReadOnly();
+            state.isolationLevel = TransactionSynchronizationManager.getCurrentTransactionIsolationLevel();
+            state.active = TransactionSynchronizationManager.isActualTransactionActive();
+            TransactionSynchronizationManager.setCurrentTransactionName(null);
+            TransactionSynchronizationManager.setCurrentTransactionReadOnly(false);
+            TransactionSynchronizationManager.setCurrentTransactionIsolationLevel(null);
+            TransactionSynchronizationManager.setActualTransactionActive(false);
+            return state;
+        }
+
+        /**
+         * Binds the state to the current thread, which must have no transaction state bound.
+         */
+        public void attach() {
+            resources.forEach(TransactionSynchronizationManager::bindResource);
+            TransactionSynchronizationManager.setCurrentTransactionName(name);
+            TransactionSynchronizationManager.setCurrentTransactionReadOnly(readOnly);
+            TransactionSynchronizationManager.setCurrentTransactionIsolationLevel(isolationLevel);
+            TransactionSynchronizationManager.setActualTransactionActive(active);
+            if (synchronizations != null) {
+                TransactionSynchronizationManager.initSynchronization();
+                for (TransactionSynchronization synchronization : synchronizations) {
+                    synchronization.resume();
+                    TransactionSynchronizationManager.registerSynchronization(synchronization);
+                }
+            }
+        }
+    }
 }
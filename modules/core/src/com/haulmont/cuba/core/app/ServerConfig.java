@@ -112,6 +112,14 @@ public interface ServerConfig extends Config {
     @DefaultInt(1)
     int getUserSessionTouchTimeoutSec();
 
+    /**
+     * @return names of user session attributes indexed by {@link UserSessionsAPI} to speed up
+     * {@link UserSessionsAPI#findUserSessionsByAttribute(String, Object)}
+     */
+    @Property("cuba.userSessionIndexedAttributes")
+    @Factory(factory = TokenizedStringListFactory.class)
+    List<String> getUserSessionIndexedAttributes();
+
     /**
      * @return DB scripts directory.
      * Does not end with "/"
@@ -149,6 +157,29 @@ public interface ServerConfig extends Config {
     @Default("100MB")
     DataSize getFileStorageMaxFileSize();
 
+    /**
+     * Size of the file storage journal ({@code storage.log}) after which it is renamed and a new one is started.
+     * Zero means no rotation by size.
+     */
+    @Property("cuba.fileStorageLogMaxFileSize")
+    @Factory(factory = DataSizeTypeFactory.class)
+    @Default("0")
+    DataSize getFileStorageLogMaxFileSize();
+
+    /**
+     * @return whether the file storage journal ({@code storage.log}) is renamed and started anew every day
+     */
+    @Property("cuba.fileStorageLogDailyRotation")
+    @DefaultBoolean(false)
+    boolean getFileStorageLogDailyRotation();
+
+    /**
+     * @return whether the file storage journal is forced to disk after each group of records is written
+     */
+    @Property("cuba.fileStorageLogFsync")
+    @DefaultBoolean(true)
+    boolean getFileStorageLogFsync();
+
     /**
      * @return Scheduled tasks execution control.
      */
@@ -309,6 +340,96 @@ public interface ServerConfig extends Config {
     @DefaultBoolean(false)
     boolean getUseEntityDataStoreForIdSequence();
 
+    /**
+     * @return number of threads used by {@code DataManager} to load partitions of a large list of ids concurrently,
+     * each in a separate read-only transaction. If less than 2, partitions are loaded sequentially in the
+     * current transaction.
+     * <p>
+     * Partitions are created when the number of ids exceeds {@code DbmsFeatures.getMaxIdsBatchSize()}
+     * or the entity has an embedded id, see {@link #getEmbeddedIdsBatchSize()}.
+     */
+    @Property("cuba.idsBatchLoadingThreads")
+    @DefaultInt(0)
+    int getIdsBatchLoadingThreads();
+
+    /**
+     * @return maximum number of ids of entities with embedded ids loaded by {@code DataManager} in a single query.
+     * If less than 2, such entities are loaded by separate queries for each id.
+     */
+    @Property("cuba.embeddedIdsBatchSize")
+    @DefaultInt(50)
+    int getEmbeddedIdsBatchSize();
+
+    /**
+     * @return default number of instances loaded in a chunk by a cursor opened with
+     * {@code TransactionalDataManager.openCursor()}. Also used as the JDBC fetch size of the cursor.
+     */
+    @Property("cuba.entityCursorBatchSize")
+    @DefaultInt(500)
+    int getEntityCursorBatchSize();
+
+    /**
+     * @return maximum number of ids inserted into {@code SYS_QUERY_RESULT} by a single statement or JDBC batch
+     * when searching in previous query results
+     */
+    @Property("cuba.queryResultsInsertBatchSize")
+    @DefaultInt(1000)
+    int getQueryResultsInsertBatchSize();
+
+    /**
+     * @return maximum number of ids of previous query results kept in memory of the middleware block and passed
+     * to subsequent queries as a parameter instead of being saved to {@code SYS_QUERY_RESULT}.
+     * Zero means the results are always saved to the database.
+     */
+    @Property("cuba.queryResultsInMemoryMaxSize")
+    @DefaultInt(0)
+    int getQueryResultsInMemoryMaxSize();
+
+    /**
+     * @return maximum number of fetch group descriptions cached by {@code FetchGroupManager} for pairs of
+     * query and view. Zero disables caching.
+     */
+    @Property("cuba.fetchGroupCacheMaxSize")
+    @DefaultInt(2000)
+    int getFetchGroupCacheMaxSize();
+
+    /**
+     * @return maximum number of entities whose dynamic attribute values are cached by
+     * {@code DynamicAttributeValuesCache}. Zero disables caching.
+     */
+    @Property("cuba.dynamicAttributeValuesCacheMaxSize")
+    @DefaultInt(0)
+    int getDynamicAttributeValuesCacheMaxSize();
+
+    /**
+     * @return whether pessimistic locks held by a user are released when the last session of the user is logged out
+     */
+    @Property("cuba.releaseLocksOnLogout")
+    @DefaultBoolean(true)
+    boolean getReleaseLocksOnLogout();
+
+    /**
+     * @return maximum number of compiled Groovy scripts of in-memory constraints kept by {@code ConstraintScriptCache}
+     */
+    @Property("cuba.constraintScriptCacheMaxSize")
+    @DefaultInt(1000)
+    int getConstraintScriptCacheMaxSize();
+
+    /**
+     * @return number of threads executing parallel batches of service invocations received by
+     * {@code BatchInvocationService}. Zero means that batches are always executed sequentially.
+     */
+    @Property("cuba.batchInvocationThreads")
+    @DefaultInt(4)
+    int getBatchInvocationThreads();
+
+    /**
+     * @return maximum number of service invocations in a batch accepted by {@code BatchInvocationService}
+     */
+    @Property("cuba.batchInvocationMaxSize")
+    @DefaultInt(100)
+    int getBatchInvocationMaxSize();
+
     /**
      * @return if true, system allows to execute JPQL DELETE statement with enabled soft deletion.
      * Otherwise(by default) system throws an exception when JPQL DELETE statement with enabled soft deletion is executed
@@ -0,0 +1,42 @@
+/*
+ * Copyright (c) 2008-2020 Haulmont.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.haulmont.cuba.core.app;
+
+import com.haulmont.cuba.core.sys.serialization.SerializationSupport;
+import org.springframework.stereotype.Component;
+
+import java.io.Serializable;
+
+/**
+ * Cluster message codec using the platform serialization configured by the {@code cuba.serialization.impl}
+ * property, standard Java serialization by default.
+ */
+@Component(StandardClusterMessageCodec.NAME)
+public class StandardClusterMessageCodec implements ClusterMessageCodec {
+
+    public static final String NAME = "cuba_StandardClusterMessageCodec";
+
+    @Override
+    public byte[] encode(Serializable message) {
+        return SerializationSupport.serialize(message);
+    }
+
+    @Override
+    public Serializable decode(byte[] bytes) {
+        return (Serializable) SerializationSupport.deserialize(bytes);
+    }
+}
@@ -36,7 +36,7 @@ public class StoreFactory {
 
     public static final String NAME = "cuba_StoreFactory";
 
-    static final String NULL_NAME = "_NULL_";
+    public static final String NULL_NAME = "_NULL_";
 
     private Map<String, DataStore> stores = new HashMap<>();
 
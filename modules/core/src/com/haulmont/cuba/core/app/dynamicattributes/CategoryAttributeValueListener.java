@@ -0,0 +1,58 @@
+/*
+ * Copyright (c) 2008-2020 Haulmont.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.haulmont.cuba.core.app.dynamicattributes;
+
+import com.haulmont.cuba.core.EntityManager;
+import com.haulmont.cuba.core.entity.CategoryAttributeValue;
+import com.haulmont.cuba.core.listener.BeforeDeleteEntityListener;
+import com.haulmont.cuba.core.listener.BeforeInsertEntityListener;
+import com.haulmont.cuba.core.listener.BeforeUpdateEntityListener;
+import org.springframework.stereotype.Component;
+
+import javax.inject.Inject;
+
+/**
+ * Invalidates cached values of dynamic attributes when {@link CategoryAttributeValue} instances are changed.
+ */
+@Component("cuba_CategoryAttributeValueListener")
+public class CategoryAttributeValueListener implements BeforeInsertEntityListener<CategoryAttributeValue>,
+                                                       BeforeUpdateEntityListener<CategoryAttributeValue>,
+                                                       BeforeDeleteEntityListener<CategoryAttributeValue> {
+    @Inject
+    protected DynamicAttributeValuesCache valuesCache;
+
+    @Override
+    public void onBeforeInsert(CategoryAttributeValue entity, EntityManager entityManager) {
+        registerChange(entity);
+    }
+
+    @Override
+    public void onBeforeUpdate(CategoryAttributeValue entity, EntityManager entityManager) {
+        registerChange(entity);
+    }
+
+    @Override
+    public void onBeforeDelete(CategoryAttributeValue entity, EntityManager entityManager) {
+        registerChange(entity);
+    }
+
+    protected void registerChange(CategoryAttributeValue entity) {
+        if (valuesCache.isEnabled()) {
+            valuesCache.registerChange(entity.getObjectEntityId());
+        }
+    }
+}
@@ -0,0 +1,267 @@
+/*
+ * Copyright (c) 2008-2020 Haulmont.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.haulmont.cuba.core.app.dynamicattributes;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import com.haulmont.chile.core.model.MetaClass;
+import com.haulmont.cuba.core.app.ClusterListenerAdapter;
+import com.haulmont.cuba.core.app.ClusterManagerAPI;
+import com.haulmont.cuba.core.app.ServerConfig;
+import com.haulmont.cuba.core.entity.BaseEntityInternalAccess;
+import com.haulmont.cuba.core.entity.CategoryAttributeValue;
+import com.haulmont.cuba.core.entity.ReferenceToEntity;
+import com.haulmont.cuba.core.global.MetadataTools;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.annotation.Nullable;
+import javax.annotation.PostConstruct;
+import javax.inject.Inject;
+import java.io.Serializable;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+/**
+ * Second-level cache of dynamic attribute values keyed by the entity id and the entity type.
+ * <p>
+ * The cache is disabled by default and is enabled by the {@code cuba.dynamicAttributeValuesCacheMaxSize} application
+ * property. Values are invalidated when {@link CategoryAttributeValue} instances are saved or removed in this or
+ * other middleware blocks of the cluster, and when the dynamic attributes cache is reloaded.
+ * <p>
+ * The cache never exposes stored instances: values are copied when they are put to the cache and when they are
+ * returned from it.
+ */
+@Component(DynamicAttributeValuesCache.NAME)
+public class DynamicAttributeValuesCache {
+
+    public static final String NAME = "cuba_DynamicAttributeValuesCache";
+
+    private static final Logger log = LoggerFactory.getLogger(DynamicAttributeValuesCache.class);
+
+    protected static final String CHANGED_IDS_RESOURCE_KEY = "cuba-DynamicAttributeValuesCache-changedIds";
+
+    @Inject
+    protected MetadataTools metadataTools;
+
+    @Inject
+    protected ServerConfig serverConfig;
+
+    protected ClusterManagerAPI clusterManager;
+
+    protected Cache<Object, Map<String, List<CategoryAttributeValue>>> cache;
+
+    protected final AtomicLong version = new AtomicLong();
+
+    @PostConstruct
+    protected void init() {
+        int maxSize = serverConfig.getDynamicAttributeValuesCacheMaxSize();
+        if (maxSize > 0) {
+            cache = CacheBuilder.newBuilder()
+                    .maximumSize(maxSize)
+                    .recordStats()
+                    .build();
+        }
+    }
+
+    @Inject
+    public void setClusterManager(ClusterManagerAPI clusterManager) {
+        this.clusterManager = clusterManager;
+        clusterManager.addListener(InvalidateValuesMsg.class, new ClusterListenerAdapter<InvalidateValuesMsg>() {
+            @Override
+            public void receive(InvalidateValuesMsg message) {
+                if (message.entityIds == null) {
+                    invalidateAll();
+                } else {
+                    invalidate(message.entityIds);
+                }
+            }
+        });
+    }
+
+    public boolean isEnabled() {
+        return cache != null;
+    }
+
+    /**
+     * @return current version of the cache content. Values loaded from the database should be put to the cache with
+     * the version obtained before loading, so they are discarded if the cache has been invalidated in the meantime.
+     */
+    public long getVersion() {
+        return version.get();
+    }
+
+    /**
+     * @param metaClass entity meta-class
+     * @param entityId  entity id as returned by {@code ReferenceToEntitySupport.getReferenceId()}
+     * @return copies of cached attribute values of the entity or null if the values are not cached
+     */
+    @Nullable
+    public List<CategoryAttributeValue> get(MetaClass metaClass, Object entityId) {
+        if (cache == null) {
+            return null;
+        }
+        Map<String, List<CategoryAttributeValue>> valuesByType = cache.getIfPresent(entityId);
+        if (valuesByType == null) {
+            return null;
+        }
+        List<CategoryAttributeValue> values = valuesByType.get(metaClass.getName());
+        return values != null ? copyValues(values) : null;
+    }
+
+    /**
+     * Caches attribute values of an entity.
+     *
+     * @param metaClass entity meta-class
+     * @param entityId  entity id as returned by {@code ReferenceToEntitySupport.getReferenceId()}
+     * @param values    attribute values of the entity, empty list if the entity has no values
+     * @param version   version of the cache obtained by {@link #getVersion()} before loading the values
+     */
+    public void put(MetaClass metaClass, Object entityId, List<CategoryAttributeValue> values, long version) {
+        if (cache == null || version != this.version.get()) {
+            return;
+        }
+        List<CategoryAttributeValue> copies = Collections.unmodifiableList(copyValues(values));
+        cache.asMap().compute(entityId, (id, valuesByType) -> {
+            // the check is repeated under the entry lock because invalidation increments the version before removal
+            if (version != this.version.get()) {
+                return valuesByType;
+            }
+            Map<String, List<CategoryAttributeValue>> result = valuesByType == null
+                    ? new HashMap<>(2) : new HashMap<>(valuesByType);
+            result.put(metaClass.getName(), copies);
+            return result;
+        });
+    }
+
+    /**
+     * Removes values of the given entities from the cache of this middleware block.
+     */
+    public void invalidate(Collection<?> entityIds) {
+        if (cache == null) {
+            return;
+        }
+        version.incrementAndGet();
+        cache.invalidateAll(entityIds);
+    }
+
+    /**
+     * Removes all values from the cache of this middleware block.
+     */
+    public void invalidateAll() {
+        if (cache == null) {
+            return;
+        }
+        version.incrementAndGet();
+        cache.invalidateAll();
+    }
+
+    /**
+     * Removes all values from the caches of all middleware blocks of the cluster.
+     */
+    public void invalidateAllInCluster() {
+        if (cache == null) {
+            return;
+        }
+        invalidateAll();
+        clusterManager.send(new InvalidateValuesMsg(null));
+    }
+
+    /**
+     * Registers a change of attribute values of the given entity. The values are removed from the cache
+     * immediately and once more after completion of the current transaction, then other middleware blocks
+     * of the cluster are notified.
+     */
+    public void registerChange(Object entityId) {
+        if (cache == null || entityId == null) {
+            return;
+        }
+        invalidate(Collections.singleton(entityId));
+
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            clusterManager.send(new InvalidateValuesMsg(Collections.singleton(entityId)));
+            return;
+        }
+
+        @SuppressWarnings("unchecked")
+        Set<Object> changedIds = (Set<Object>) TransactionSynchronizationManager.getResource(CHANGED_IDS_RESOURCE_KEY);
+        if (changedIds == null) {
+            Set<Object> ids = new HashSet<>();
+            TransactionSynchronizationManager.bindResource(CHANGED_IDS_RESOURCE_KEY, ids);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+                @Override
+                public void afterCompletion(int status) {
+                    TransactionSynchronizationManager.unbindResourceIfPossible(CHANGED_IDS_RESOURCE_KEY);
+                    // values could be loaded by concurrent transactions before the changes became visible
+                    invalidate(ids);
+                    if (status == STATUS_COMMITTED) {
+                        log.trace("Sending invalidation of dynamic attribute values for {} entities", ids.size());
+                        clusterManager.send(new InvalidateValuesMsg(new HashSet<>(ids)));
+                    }
+                }
+            });
+            changedIds = ids;
+        }
+        changedIds.add(entityId);
+    }
+
+    public long getSize() {
+        return cache != null ? cache.size() : 0;
+    }
+
+    public CacheStats getStats() {
+        return cache != null ? cache.stats() : new CacheStats(0, 0, 0, 0, 0, 0);
+    }
+
+    protected List<CategoryAttributeValue> copyValues(List<CategoryAttributeValue> values) {
+        return values.stream()
+                .map(this::copyValue)
+                .collect(Collectors.toList());
+    }
+
+    protected CategoryAttributeValue copyValue(CategoryAttributeValue source) {
+        CategoryAttributeValue copy = metadataTools.copy(source);
+        copy.setEntity(copyReference(source.getEntity()));
+        copy.setEntityValue(copyReference(source.getEntityValue()));
+        BaseEntityInternalAccess.setNew(copy, false);
+        BaseEntityInternalAccess.setDetached(copy, true);
+        return copy;
+    }
+
+    @Nullable
+    protected ReferenceToEntity copyReference(@Nullable ReferenceToEntity source) {
+        return source != null ? metadataTools.copy(source) : null;
+    }
+
+    protected static class InvalidateValuesMsg implements Serializable {
+        private static final long serialVersionUID = 4867452917038256380L;
+
+        /**
+         * Ids of changed entities, null to invalidate the whole cache.
+         */
+        protected final Set<Object> entityIds;
+
+        public InvalidateValuesMsg(@Nullable Set<Object> entityIds) {
+            this.entityIds = entityIds;
+        }
+    }
+}
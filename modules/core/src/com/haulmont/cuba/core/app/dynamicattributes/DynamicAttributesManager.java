@@ -27,6 +27,7 @@ import com.haulmont.cuba.core.Transaction;
 import com.haulmont.cuba.core.TypedQuery;
 import com.haulmont.cuba.core.app.ClusterListenerAdapter;
 import com.haulmont.cuba.core.app.ClusterManagerAPI;
+import com.haulmont.cuba.core.app.CoalescingClusterMessage;
 import com.haulmont.cuba.core.entity.*;
 import com.haulmont.cuba.core.global.*;
 import com.haulmont.cuba.security.entity.EntityOp;
@@ -39,7 +40,6 @@ import org.springframework.stereotype.Component;
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 import javax.inject.Inject;
-import java.io.Serializable;
 import java.util.*;
 import java.util.concurrent.locks.ReentrantLock;
 import java.util.stream.Collectors;
@@ -73,6 +73,9 @@ public class DynamicAttributesManager implements DynamicAttributesManagerAPI {
     @Inject
     protected Security security;
 
+    @Inject
+    protected DynamicAttributeValuesCache valuesCache;
+
     protected ClusterManagerAPI clusterManager;
 
     protected ReentrantLock loadCacheLock = new ReentrantLock();
@@ -133,6 +136,8 @@ public class DynamicAttributesManager implements DynamicAttributesManagerAPI {
                 tx.commit();
 
                 dynamicAttributesCache = new DynamicAttributesCache(categoriesCache, attributesCache, timeSource.currentTimestamp());
+                // cached values refer to category attributes which could be changed
+                valuesCache.invalidateAll();
                 if (sendClusterMessage) {
                     clusterManager.send(new ReloadCacheMsg());
                 }
@@ -367,8 +372,22 @@ public class DynamicAttributesManager implements DynamicAttributesManagerAPI {
 
         Multimap<Object, CategoryAttributeValue> allAttributeValues = HashMultimap.create();
 
+        boolean useValuesCache = isValuesCacheApplicable(categoryAttributes);
+        long cacheVersion = valuesCache.getVersion();
+        List<Object> idsToLoad = useValuesCache ? new ArrayList<>() : ids;
+        if (useValuesCache) {
+            for (Object id : ids) {
+                List<CategoryAttributeValue> cachedValues = valuesCache.get(metaClass, id);
+                if (cachedValues != null) {
+                    allAttributeValues.putAll(id, cachedValues);
+                } else {
+                    idsToLoad.add(id);
+                }
+            }
+        }
+
         List<Object> currentIds = new ArrayList<>();
-        for (Object id : ids) {
+        for (Object id : idsToLoad) {
             currentIds.add(id);
             if (currentIds.size() >= MAX_ENTITIES_FOR_ATTRIBUTE_VALUES_BATCH) {
                 handleAttributeValuesForIds(metaClass, currentIds, allAttributeValues);
@@ -377,6 +396,12 @@ public class DynamicAttributesManager implements DynamicAttributesManagerAPI {
         }
         handleAttributeValuesForIds(metaClass, currentIds, allAttributeValues);
 
+        if (useValuesCache) {
+            for (Object id : idsToLoad) {
+                valuesCache.put(metaClass, id, new ArrayList<>(allAttributeValues.get(id)), cacheVersion);
+            }
+        }
+
         for (BaseGenericIdEntity entity : entities) {
             Collection<CategoryAttributeValue> entityAttributeValues = allAttributeValues.get(referenceToEntitySupport.getReferenceId(entity));
             Map<String, CategoryAttributeValue> map = new HashMap<>();
@@ -392,6 +417,22 @@ public class DynamicAttributesManager implements DynamicAttributesManagerAPI {
         }
     }
 
+    /**
+     * Values of entity and collection attributes are not cached because they include instances loaded
+     * with respect to permissions of the current user.
+     */
+    protected boolean isValuesCacheApplicable(Collection<CategoryAttribute> categoryAttributes) {
+        if (!valuesCache.isEnabled()) {
+            return false;
+        }
+        for (CategoryAttribute attribute : categoryAttributes) {
+            if (attribute.getDataType() == PropertyType.ENTITY || BooleanUtils.isTrue(attribute.getIsCollection())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
     protected void handleAttributeValuesForIds(MetaClass metaClass, List<Object> currentIds, Multimap<Object, CategoryAttributeValue> attributeValuesForEntity) {
         if (CollectionUtils.isNotEmpty(currentIds)) {
             for (CategoryAttributeValue attributeValue : loadAttributeValues(metaClass, currentIds)) {
@@ -541,7 +582,12 @@ public class DynamicAttributesManager implements DynamicAttributesManagerAPI {
                 .getResultList();
     }
 
-    private static class ReloadCacheMsg implements Serializable {
+    private static class ReloadCacheMsg implements CoalescingClusterMessage {
         private static final long serialVersionUID = -3116358584797500962L;
+
+        @Override
+        public Object getCoalescingKey() {
+            return Boolean.TRUE;
+        }
     }
 }
\ No newline at end of file
@@ -17,6 +17,7 @@
 package com.haulmont.cuba.core.app.filestorage;
 
 import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.haulmont.cuba.core.app.FileChannelStorageAPI;
 import com.haulmont.cuba.core.app.FileStorageAPI;
 import com.haulmont.cuba.core.app.ServerConfig;
 import com.haulmont.cuba.core.entity.FileDescriptor;
@@ -26,6 +27,7 @@ import com.haulmont.cuba.core.sys.SecurityContext;
 import com.haulmont.cuba.security.global.UserSession;
 import org.apache.commons.io.FileUtils;
 import org.apache.commons.io.IOUtils;
+import org.apache.commons.io.input.BoundedInputStream;
 import org.apache.commons.lang3.StringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -35,21 +37,32 @@ import javax.annotation.PostConstruct;
 import javax.annotation.PreDestroy;
 import javax.inject.Inject;
 import java.io.*;
-import java.nio.charset.StandardCharsets;
-import java.text.SimpleDateFormat;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Calendar;
 import java.util.List;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 
 import static com.haulmont.bali.util.Preconditions.checkNotNullArgument;
 
 @Component(FileStorageAPI.NAME)
-public class FileStorage implements FileStorageAPI {
+public class FileStorage implements FileChannelStorageAPI {
 
     private static final Logger log = LoggerFactory.getLogger(FileStorage.class);
 
+    protected static final DateTimeFormatter LOG_DATE_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss.SSS");
+
     @Inject
     protected UserSessionSource userSessionSource;
 
@@ -66,9 +79,13 @@ public class FileStorage implements FileStorageAPI {
 
     protected volatile File[] storageRoots;
 
+    protected FileStorageJournal journal;
+
     @PostConstruct
     public void init() {
-        this.isImmutableFileStorage = configuration.getConfig(ServerConfig.class).getImmutableFileStorage();
+        ServerConfig serverConfig = configuration.getConfig(ServerConfig.class);
+        this.isImmutableFileStorage = serverConfig.getImmutableFileStorage();
+        this.journal = new FileStorageJournal(serverConfig);
     }
 
     /**
@@ -168,7 +185,7 @@ public class FileStorage implements FileStorageAPI {
                 public void run() {
                     try {
                         AppContext.setSecurityContext(securityContext);
-                        FileUtils.copyFile(file, fileCopy, true);
+                        copyFile(file, fileCopy);
                         writeLog(fileCopy, false);
                     } catch (Exception e) {
                         log.error("Error saving {} into {} : {}", fileDescr, fileCopy.getAbsolutePath(), e.getMessage());
@@ -182,6 +199,33 @@ public class FileStorage implements FileStorageAPI {
         return size;
     }
 
+    /**
+     * Copies a file using {@link FileChannel#transferTo(long, long, WritableByteChannel)}, preserving its
+     * modification date.
+     */
+    protected void copyFile(File srcFile, File destFile) throws IOException {
+        File destDir = destFile.getParentFile();
+        if (destDir != null && !destDir.mkdirs() && !destDir.isDirectory()) {
+            throw new IOException("Unable to create directory " + destDir);
+        }
+        try (FileChannel in = FileChannel.open(srcFile.toPath(), StandardOpenOption.READ);
+             FileChannel out = FileChannel.open(destFile.toPath(),
+                     StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            long size = in.size();
+            long position = 0;
+            while (position < size) {
+                long count = in.transferTo(position, size - position, out);
+                if (count <= 0)
+                    break;
+                position += count;
+            }
+            if (position != size) {
+                throw new IOException("Failed to copy full contents from '" + srcFile + "' to '" + destFile + "'");
+            }
+        }
+        destFile.setLastModified(srcFile.lastModified());
+    }
+
     protected void checkFileExists(File file) throws FileStorageException {
         if (file.exists() && isImmutableFileStorage)
             throw new FileStorageException(FileStorageException.Type.FILE_ALREADY_EXISTS, file.getAbsolutePath());
@@ -212,7 +256,7 @@ public class FileStorage implements FileStorageAPI {
         saveStream(fileDescr, new ByteArrayInputStream(data));
     }
 
-    protected synchronized void writeLog(File file, boolean remove) {
+    protected void writeLog(File file, boolean remove) {
         File rootDir;
         try {
             rootDir = file.getParentFile().getParentFile().getParentFile().getParentFile();
@@ -221,27 +265,20 @@ public class FileStorage implements FileStorageAPI {
             return;
         }
 
-        SimpleDateFormat df = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss.SSS");
+        LocalDateTime timestamp = LocalDateTime.ofInstant(timeSource.currentTimestamp().toInstant(), ZoneId.systemDefault());
 
         UserSession userSession = userSessionSource.getUserSession();
         String userLogin = userSession.getUser().getLogin();
         String userId = userSession.getUser().getId().toString();
 
         StringBuilder sb = new StringBuilder();
-        sb.append(df.format(timeSource.currentTimestamp())).append(" ");
+        sb.append(LOG_DATE_FORMAT.format(timestamp)).append(" ");
 
         sb.append("[").append(userLogin).append("--").append(userId).append("] ");
         sb.append(remove ? "REMOVE" : "CREATE").append(" ");
         sb.append("\"").append(file.getAbsolutePath()).append("\"\n");
 
-        File logFile = new File(rootDir, "storage.log");
-        try {
-            try (FileOutputStream fos = new FileOutputStream(logFile, true)) {
-                IOUtils.write(sb.toString(), fos, StandardCharsets.UTF_8);
-            }
-        } catch (IOException e) {
-            log.error("Unable to write log", e);
-        }
+        journal.append(rootDir, timestamp.toLocalDate(), sb.toString());
     }
 
     @Override
@@ -308,16 +345,121 @@ public class FileStorage implements FileStorageAPI {
 
     @Override
     public byte[] loadFile(FileDescriptor fileDescr) throws FileStorageException {
-        InputStream inputStream = openStream(fileDescr);
+        try (FileChannel channel = openChannel(fileDescr)) {
+            long size = channel.size();
+            if (size > Integer.MAX_VALUE - 8) {
+                throw new FileStorageException(FileStorageException.Type.IO_EXCEPTION,
+                        "File is too large to be loaded into memory: " + fileDescr.getId());
+            }
+            ByteBuffer buffer = ByteBuffer.allocate((int) size);
+            while (buffer.hasRemaining()) {
+                if (channel.read(buffer) < 0)
+                    break;
+            }
+            return buffer.hasRemaining() ? Arrays.copyOf(buffer.array(), buffer.position()) : buffer.array();
+        } catch (IOException e) {
+            throw new FileStorageException(FileStorageException.Type.IO_EXCEPTION, fileDescr.getId().toString(), e);
+        }
+    }
+
+    @Override
+    public long getFileSize(FileDescriptor fileDescr) throws FileStorageException {
+        checkFileDescriptor(fileDescr);
+
+        for (File root : getStorageRoots()) {
+            File file = new File(getStorageDir(root, fileDescr), getFileName(fileDescr));
+            if (file.exists()) {
+                return file.length();
+            }
+        }
+        throw new FileStorageException(FileStorageException.Type.FILE_NOT_FOUND, fileDescr.getId().toString());
+    }
+
+    @Override
+    public FileChannel openChannel(FileDescriptor fileDescr) throws FileStorageException {
+        checkFileDescriptor(fileDescr);
+
+        File[] roots = getStorageRoots();
+        if (roots.length == 0) {
+            log.error("No storage directories available");
+            throw new FileStorageException(FileStorageException.Type.FILE_NOT_FOUND, fileDescr.getId().toString());
+        }
+
+        for (File root : roots) {
+            File dir = getStorageDir(root, fileDescr);
+
+            File file = new File(dir, getFileName(fileDescr));
+            if (!file.exists()) {
+                log.error("File " + file + " not found");
+                continue;
+            }
+
+            try {
+                return FileChannel.open(file.toPath(), StandardOpenOption.READ);
+            } catch (IOException e) {
+                log.error("Error opening channel for " + file, e);
+            }
+        }
+        throw new FileStorageException(FileStorageException.Type.FILE_NOT_FOUND, fileDescr.getId().toString());
+    }
+
+    @Override
+    public InputStream openStream(FileDescriptor fileDescr, long offset, long length) throws FileStorageException {
+        checkRange(offset, length);
+
+        FileChannel channel = openChannel(fileDescr);
         try {
-            return IOUtils.toByteArray(inputStream);
+            channel.position(offset);
+        } catch (IOException e) {
+            IOUtils.closeQuietly(channel);
+            throw new FileStorageException(FileStorageException.Type.IO_EXCEPTION, fileDescr.getId().toString(), e);
+        }
+        return new BoundedInputStream(Channels.newInputStream(channel), length);
+    }
+
+    @Override
+    public long transferTo(FileDescriptor fileDescr, long offset, long length, WritableByteChannel target)
+            throws FileStorageException {
+        checkRange(offset, length);
+        checkNotNullArgument(target);
+
+        try (FileChannel channel = openChannel(fileDescr)) {
+            long size = channel.size();
+            // length may be Long.MAX_VALUE meaning "to the end of file", so offset + length can overflow
+            long end = length > size - offset ? size : offset + length;
+            long position = offset;
+            while (position < end) {
+                long count = channel.transferTo(position, end - position, target);
+                if (count <= 0)
+                    break;
+                position += count;
+            }
+            return Math.max(position - offset, 0);
+        } catch (IOException e) {
+            throw new FileStorageException(FileStorageException.Type.IO_EXCEPTION, fileDescr.getId().toString(), e);
+        }
+    }
+
+    @Override
+    public MappedByteBuffer map(FileDescriptor fileDescr, long offset, long length) throws FileStorageException {
+        checkRange(offset, length);
+        if (length > Integer.MAX_VALUE)
+            throw new IllegalArgumentException("Cannot map more than " + Integer.MAX_VALUE + " bytes");
+
+        try (FileChannel channel = openChannel(fileDescr)) {
+            long size = Math.max(Math.min(length, channel.size() - offset), 0);
+            // the mapping stays valid after the channel is closed
+            return channel.map(FileChannel.MapMode.READ_ONLY, offset, size);
         } catch (IOException e) {
             throw new FileStorageException(FileStorageException.Type.IO_EXCEPTION, fileDescr.getId().toString(), e);
-        } finally {
-            IOUtils.closeQuietly(inputStream);
         }
     }
 
+    protected void checkRange(long offset, long length) {
+        if (offset < 0 || length < 0)
+            throw new IllegalArgumentException("Invalid range: offset=" + offset + ", length=" + length);
+    }
+
     @Override
     public boolean fileExists(FileDescriptor fileDescr) {
         checkFileDescriptor(fileDescr);
@@ -358,5 +500,11 @@ public class FileStorage implements FileStorageAPI {
     @PreDestroy
     protected void stopWriteExecutor() {
         writeExecutor.shutdown();
+        try {
+            writeExecutor.awaitTermination(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        journal.stop();
     }
 }
\ No newline at end of file
@@ -0,0 +1,274 @@
+/*
+ * Copyright (c) 2008-2020 Haulmont.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.haulmont.cuba.core.app.filestorage;
+
+import com.haulmont.cuba.core.app.ServerConfig;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.*;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Append-only journal of file storage operations, written to {@code storage.log} in each storage root.
+ * <p>
+ * Records are put to a lock-free queue and written by a single background thread, so callers never wait
+ * for the disk. The writer keeps the journal files open, writes all records available at the moment in one go
+ * and forces them to disk once per such group if {@link ServerConfig#getFileStorageLogFsync()} is set.
+ * Journals are rotated by size and/or date according to {@link ServerConfig#getFileStorageLogMaxFileSize()}
+ * and {@link ServerConfig#getFileStorageLogDailyRotation()}.
+ */
+public class FileStorageJournal {
+
+    public static final String LOG_FILE_NAME = "storage.log";
+
+    private static final Logger log = LoggerFactory.getLogger(FileStorageJournal.class);
+
+    protected static final int BUFFER_SIZE = 64 * 1024;
+
+    protected final ServerConfig serverConfig;
+
+    protected final Queue<Record> queue = new ConcurrentLinkedQueue<>();
+
+    protected final AtomicBoolean sleeping = new AtomicBoolean();
+
+    protected volatile Thread writerThread;
+
+    protected volatile boolean stopped;
+
+    // accessed by the writer thread only
+    protected final Map<File, JournalFile> journalFiles = new HashMap<>();
+
+    public FileStorageJournal(ServerConfig serverConfig) {
+        this.serverConfig = serverConfig;
+    }
+
+    /**
+     * Adds a record to the journal located in the given storage root. Returns immediately.
+     *
+     * @param rootDir storage root directory
+     * @param date    date of the operation, used for daily rotation
+     * @param line    record text including the line separator
+     */
+    public void append(File rootDir, LocalDate date, String line) {
+        if (stopped) {
+            log.warn("File storage journal is stopped, record is lost: {}", line);
+            return;
+        }
+        ensureStarted();
+        queue.offer(new Record(rootDir, date, line));
+        if (sleeping.compareAndSet(true, false)) {
+            LockSupport.unpark(writerThread);
+        }
+    }
+
+    /**
+     * Writes all queued records and closes the journal files.
+     */
+    public void stop() {
+        stopped = true;
+        Thread thread = writerThread;
+        if (thread != null) {
+            LockSupport.unpark(thread);
+            try {
+                thread.join(TimeUnit.SECONDS.toMillis(10));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    protected void ensureStarted() {
+        if (writerThread != null)
+            return;
+        synchronized (this) {
+            if (writerThread == null) {
+                Thread thread = new Thread(this::run, "FileStorageJournalWriter");
+                thread.setDaemon(true);
+                thread.start();
+                writerThread = thread;
+            }
+        }
+    }
+
+    protected void run() {
+        Set<JournalFile> touched = new HashSet<>();
+        while (true) {
+            Record record = queue.poll();
+            if (record == null) {
+                syncAll(touched);
+                if (stopped && queue.isEmpty())
+                    break;
+
+                sleeping.set(true);
+                // re-check after announcing the sleep to not miss a record added in between
+                if (queue.isEmpty() && !stopped) {
+                    LockSupport.parkNanos(this, TimeUnit.SECONDS.toNanos(1));
+                }
+                sleeping.set(false);
+                continue;
+            }
+            try {
+                JournalFile journalFile = getJournalFile(record.rootDir);
+                journalFile.write(record);
+                touched.add(journalFile);
+            } catch (IOException | RuntimeException e) {
+                log.error("Unable to write log", e);
+            }
+        }
+        closeAll();
+    }
+
+    protected JournalFile getJournalFile(File rootDir) {
+        return journalFiles.computeIfAbsent(rootDir, JournalFile::new);
+    }
+
+    protected void syncAll(Set<JournalFile> touched) {
+        if (touched.isEmpty())
+            return;
+        boolean fsync = serverConfig.getFileStorageLogFsync();
+        for (JournalFile journalFile : touched) {
+            try {
+                journalFile.flush(fsync);
+            } catch (IOException e) {
+                log.error("Unable to write log", e);
+            }
+        }
+        touched.clear();
+    }
+
+    protected void closeAll() {
+        for (JournalFile journalFile : journalFiles.values()) {
+            journalFile.close();
+        }
+        journalFiles.clear();
+    }
+
+    protected static class Record {
+
+        protected final File rootDir;
+        protected final LocalDate date;
+        protected final String line;
+
+        protected Record(File rootDir, LocalDate date, String line) {
+            this.rootDir = rootDir;
+            this.date = date;
+            this.line = line;
+        }
+    }
+
+    protected class JournalFile {
+
+        protected final File file;
+        protected final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+        protected FileChannel channel;
+        protected LocalDate openDate;
+        protected long size;
+
+        protected JournalFile(File rootDir) {
+            this.file = new File(rootDir, LOG_FILE_NAME);
+        }
+
+        protected void write(Record record) throws IOException {
+            byte[] bytes = record.line.getBytes(StandardCharsets.UTF_8);
+            if (channel == null) {
+                open(record.date);
+            } else if (isRotationRequired(record.date, bytes.length)) {
+                rotate();
+                open(record.date);
+            }
+
+            if (bytes.length > buffer.remaining()) {
+                writeBuffer();
+            }
+            if (bytes.length > buffer.capacity()) {
+                channel.write(ByteBuffer.wrap(bytes));
+            } else {
+                buffer.put(bytes);
+            }
+            size += bytes.length;
+        }
+
+        protected boolean isRotationRequired(LocalDate date, int length) {
+            if (serverConfig.getFileStorageLogDailyRotation() && !date.equals(openDate))
+                return true;
+            long maxSize = serverConfig.getFileStorageLogMaxFileSize().toBytes();
+            return maxSize > 0 && size > 0 && size + length > maxSize;
+        }
+
+        protected void open(LocalDate date) throws IOException {
+            channel = FileChannel.open(file.toPath(),
+                    StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+            size = channel.size();
+            openDate = date;
+        }
+
+        protected void rotate() throws IOException {
+            flush(serverConfig.getFileStorageLogFsync());
+            channel.close();
+            channel = null;
+
+            String prefix = LOG_FILE_NAME + "." + openDate;
+            File target = new File(file.getParentFile(), prefix);
+            for (int i = 1; target.exists(); i++) {
+                target = new File(file.getParentFile(), prefix + "." + i);
+            }
+            if (!file.renameTo(target)) {
+                log.warn("Unable to rename {} to {}", file, target);
+            }
+        }
+
+        protected void writeBuffer() throws IOException {
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            buffer.clear();
+        }
+
+        protected void flush(boolean fsync) throws IOException {
+            if (channel == null)
+                return;
+            writeBuffer();
+            if (fsync) {
+                channel.force(false);
+            }
+        }
+
+        protected void close() {
+            if (channel == null)
+                return;
+            try {
+                flush(serverConfig.getFileStorageLogFsync());
+                channel.close();
+            } catch (IOException e) {
+                log.error("Unable to close log {}", file, e);
+            }
+            channel = null;
+        }
+    }
+}
@@ -17,23 +17,31 @@
 
 package com.haulmont.cuba.core.app.queryresults;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import com.haulmont.bali.db.QueryRunner;
 import com.haulmont.cuba.core.*;
 import com.haulmont.cuba.core.app.ClusterManagerAPI;
 import com.haulmont.cuba.core.app.JpqlQueryBuilder;
+import com.haulmont.cuba.core.app.ServerConfig;
 import com.haulmont.cuba.core.global.*;
 import com.haulmont.cuba.core.sys.AppContext;
 import com.haulmont.cuba.core.sys.QueryHolder;
 import com.haulmont.cuba.core.sys.persistence.DbTypeConverter;
+import com.haulmont.cuba.core.sys.persistence.DbmsSpecificFactory;
 import com.haulmont.cuba.security.app.UserSessionsAPI;
 import com.haulmont.cuba.security.global.UserSession;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Component;
 
+import javax.annotation.Nullable;
 import javax.inject.Inject;
+import java.sql.Connection;
 import java.sql.SQLException;
+import java.sql.Types;
 import java.util.*;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 
 /**
@@ -62,12 +70,20 @@ public class QueryResultsManager implements QueryResultsManagerAPI {
     @Inject
     protected Metadata metadata;
 
-    protected static final int BATCH_SIZE = 100;
-
     protected static final int DELETE_BATCH_SIZE = 100;
 
     protected static final int INACTIVE_DELETION_MAX = 100000;
 
+    /**
+     * Marks results saved to {@code SYS_QUERY_RESULT} by this middleware block. In-memory results are never empty.
+     */
+    protected static final List<?> DATABASE_RESULTS = Collections.emptyList();
+
+    protected Cache<ResultsKey, List<?>> savedResults = CacheBuilder.newBuilder()
+            .maximumSize(1000)
+            .expireAfterAccess(30, TimeUnit.MINUTES)
+            .build();
+
     @Override
     public void savePreviousQueryResults(LoadContext loadContext) {
         List<LoadContext.Query> prevQueries = loadContext.getPrevQueries();
@@ -82,9 +98,14 @@ public class QueryResultsManager implements QueryResultsManagerAPI {
             return;
 
         int queryKey = loadContext.getQueryKey();
+        ResultsKey resultsKey = new ResultsKey(userSessionSource.getUserSession().getId(), queryKey);
+        int inMemoryMaxSize = getInMemoryMaxSize();
 
-        if (resultsAlreadySaved(queryKey, contextQuery))
-            return;
+        if (resultsAlreadySaved(queryKey, contextQuery)) {
+            // in-memory results could be saved by another middleware block or evicted
+            if (inMemoryMaxSize <= 0 || savedResults.getIfPresent(resultsKey) != null)
+                return;
+        }
 
         List idList;
         Transaction tx = persistence.createTransaction();
@@ -107,7 +128,12 @@ public class QueryResultsManager implements QueryResultsManagerAPI {
                     .setNoConversionParams(contextQuery.getNoConversionParams());
 
             if (prevQueries.size() > 1) {
-                queryBuilder.setPreviousResults(userSessionSource.getUserSession().getId(), loadContext.getQueryKey());
+                List<?> previousIds = getInMemoryResults(loadContext.getQueryKey());
+                if (previousIds != null) {
+                    queryBuilder.setPreviousResultIds(previousIds);
+                } else {
+                    queryBuilder.setPreviousResults(userSessionSource.getUserSession().getId(), loadContext.getQueryKey());
+                }
             }
             Query query = queryBuilder.getQuery(em);
 
@@ -123,8 +149,32 @@ public class QueryResultsManager implements QueryResultsManagerAPI {
             tx.end();
         }
 
-        delete(queryKey);
-        insert(queryKey, idList);
+        if (!idList.isEmpty() && idList.size() <= inMemoryMaxSize) {
+            List<?> previous = savedResults.getIfPresent(resultsKey);
+            if (previous == null || previous == DATABASE_RESULTS) {
+                delete(queryKey);
+            }
+            savedResults.put(resultsKey, new ArrayList<Object>(idList));
+        } else {
+            delete(queryKey);
+            insert(queryKey, idList);
+            if (inMemoryMaxSize > 0) {
+                savedResults.put(resultsKey, DATABASE_RESULTS);
+            }
+        }
+    }
+
+    @Nullable
+    @Override
+    public List<?> getInMemoryResults(int queryKey) {
+        List<?> ids = savedResults.getIfPresent(new ResultsKey(userSessionSource.getUserSession().getId(), queryKey));
+        return ids == null || ids.isEmpty() ? null : ids;
+    }
+
+    protected int getInMemoryMaxSize() {
+        int maxSize = configuration.getConfig(ServerConfig.class).getQueryResultsInMemoryMaxSize();
+        Integer maxIdsBatchSize = DbmsSpecificFactory.getDbmsFeatures().getMaxIdsBatchSize();
+        return maxIdsBatchSize != null ? Math.min(maxSize, maxIdsBatchSize) : maxSize;
     }
 
     protected boolean resultsAlreadySaved(Integer queryKey, LoadContext.Query query) {
@@ -164,32 +214,8 @@ public class QueryResultsManager implements QueryResultsManagerAPI {
         Transaction tx = persistence.createTransaction();
         try {
             EntityManager em = persistence.getEntityManager();
-            DbTypeConverter converter = persistence.getDbTypeConverter();
-            Object idFromList = idList.get(0);
-            String columnName = null;
-            if (idFromList instanceof String) {
-                columnName = "STRING_ENTITY_ID";
-            } else if (idFromList instanceof Long) {
-                columnName = "LONG_ENTITY_ID";
-            } else if (idFromList instanceof Integer) {
-                columnName = "INT_ENTITY_ID";
-            } else {
-                columnName = "ENTITY_ID";
-            }
-            QueryRunner runner = new QueryRunner();
             try {
-                String userSessionIdStr = converter.getSqlObject(userSessionId).toString(); // assuming that UUID can be passed to query as string in all databases
-                String sql = String.format("insert into SYS_QUERY_RESULT (SESSION_ID, QUERY_KEY, %s) values ('%s', %s, ?)",
-                        columnName, userSessionIdStr, queryKey);
-                int[] paramTypes = new int[]{converter.getSqlType(idFromList.getClass())};
-                for (int i = 0; i < idList.size(); i += BATCH_SIZE) {
-                    List<UUID> sublist = idList.subList(i, Math.min(i + BATCH_SIZE, idList.size()));
-                    Object[][] params = new Object[sublist.size()][1];
-                    for (int j = 0; j < sublist.size(); j++) {
-                        params[j][0] = converter.getSqlObject(sublist.get(j));
-                    }
-                    runner.batch(em.getConnection(), sql, params, paramTypes);
-                }
+                insertIds(em.getConnection(), userSessionId, queryKey, idList);
             } catch (SQLException e) {
                 throw new RuntimeException(e);
             }
@@ -201,21 +227,78 @@ public class QueryResultsManager implements QueryResultsManagerAPI {
         }
     }
 
+    /**
+     * Inserts ids by multi-row INSERT statements if the DBMS supports them, otherwise by JDBC batches.
+     */
+    protected void insertIds(Connection connection, UUID userSessionId, int queryKey, List<?> idList) throws SQLException {
+        DbTypeConverter converter = persistence.getDbTypeConverter();
+        Object idFromList = idList.get(0);
+        String columnName;
+        if (idFromList instanceof String) {
+            columnName = "STRING_ENTITY_ID";
+        } else if (idFromList instanceof Long) {
+            columnName = "LONG_ENTITY_ID";
+        } else if (idFromList instanceof Integer) {
+            columnName = "INT_ENTITY_ID";
+        } else {
+            columnName = "ENTITY_ID";
+        }
+        String sql = "insert into SYS_QUERY_RESULT (SESSION_ID, QUERY_KEY, " + columnName + ") values ";
+        String valuesRow = "(?, ?, ?)";
+
+        Object sessionIdParam = converter.getSqlObject(userSessionId);
+        int sessionIdType = converter.getSqlType(UUID.class);
+        int idType = converter.getSqlType(idFromList.getClass());
+
+        int batchSize = Math.max(configuration.getConfig(ServerConfig.class).getQueryResultsInsertBatchSize(), 1);
+        int maxRows = DbmsSpecificFactory.getDbmsFeatures().getMaxMultiRowInsertSize();
+
+        QueryRunner runner = new QueryRunner();
+        if (maxRows > 1) {
+            int rows = Math.min(batchSize, maxRows);
+            for (int i = 0; i < idList.size(); i += rows) {
+                List<?> sublist = idList.subList(i, Math.min(i + rows, idList.size()));
+                Object[] params = new Object[sublist.size() * 3];
+                int[] paramTypes = new int[sublist.size() * 3];
+                for (int j = 0; j < sublist.size(); j++) {
+                    params[j * 3] = sessionIdParam;
+                    params[j * 3 + 1] = queryKey;
+                    params[j * 3 + 2] = converter.getSqlObject(sublist.get(j));
+                    paramTypes[j * 3] = sessionIdType;
+                    paramTypes[j * 3 + 1] = Types.INTEGER;
+                    paramTypes[j * 3 + 2] = idType;
+                }
+                String rowsSql = sql + String.join(", ", Collections.nCopies(sublist.size(), valuesRow));
+                runner.update(connection, rowsSql, params, paramTypes);
+            }
+        } else {
+            int[] paramTypes = new int[]{sessionIdType, Types.INTEGER, idType};
+            for (int i = 0; i < idList.size(); i += batchSize) {
+                List<?> sublist = idList.subList(i, Math.min(i + batchSize, idList.size()));
+                Object[][] params = new Object[sublist.size()][];
+                for (int j = 0; j < sublist.size(); j++) {
+                    params[j] = new Object[]{sessionIdParam, queryKey, converter.getSqlObject(sublist.get(j))};
+                }
+                runner.batch(connection, sql + valuesRow, params, paramTypes);
+            }
+        }
+    }
+
     @Override
     public void delete(int queryKey) {
         DbTypeConverter converter = persistence.getDbTypeConverter();
         UUID userSessionId = userSessionSource.getUserSession().getId();
-        String userSessionIdStr = converter.getSqlObject(userSessionId).toString();
         long start = System.currentTimeMillis();
         String logMsg = "Delete query results for " + userSessionId + " / " + queryKey;
         log.debug(logMsg);
 
-        String sql = "delete from SYS_QUERY_RESULT where SESSION_ID = '"
-                + userSessionIdStr + "' and QUERY_KEY = " + queryKey;
+        savedResults.invalidate(new ResultsKey(userSessionId, queryKey));
 
         QueryRunner runner = new QueryRunner(persistence.getDataSource());
         try {
-            runner.update(sql);
+            runner.update("delete from SYS_QUERY_RESULT where SESSION_ID = ? and QUERY_KEY = ?",
+                    new Object[]{converter.getSqlObject(userSessionId), queryKey},
+                    new int[]{converter.getSqlType(UUID.class), Types.INTEGER});
         } catch (SQLException e) {
             throw new RuntimeException(e);
         }
@@ -224,13 +307,16 @@ public class QueryResultsManager implements QueryResultsManagerAPI {
 
     @Override
     public void deleteForCurrentSession() {
+        DbTypeConverter converter = persistence.getDbTypeConverter();
+        UUID userSessionId = userSessionSource.getUserSession().getId();
+
+        savedResults.asMap().keySet().removeIf(key -> key.sessionId.equals(userSessionId));
+
         QueryRunner runner = new QueryRunner(persistence.getDataSource());
         try {
-            DbTypeConverter converter = persistence.getDbTypeConverter();
-            UUID userSessionId = userSessionSource.getUserSession().getId();
-            String userSessionIdStr = converter.getSqlObject(userSessionId).toString();
-            runner.update("delete from SYS_QUERY_RESULT where SESSION_ID = '"
-                    + userSessionIdStr + "'");
+            runner.update("delete from SYS_QUERY_RESULT where SESSION_ID = ?",
+                    new Object[]{converter.getSqlObject(userSessionId)},
+                    new int[]{converter.getSqlType(UUID.class)});
         } catch (SQLException e) {
             throw new RuntimeException(e);
         }
@@ -280,12 +366,36 @@ public class QueryResultsManager implements QueryResultsManagerAPI {
 
     protected void delete(List<Long> ids) {
         log.debug("Deleting " + ids.size() + " records");
-        String str = ids.stream().map(String::valueOf).collect(Collectors.joining(","));
+        String placeholders = String.join(",", Collections.nCopies(ids.size(), "?"));
         QueryRunner runner = new QueryRunner(persistence.getDataSource());
         try {
-            runner.update("delete from SYS_QUERY_RESULT where ID in (" + str + ")");
+            runner.update("delete from SYS_QUERY_RESULT where ID in (" + placeholders + ")", ids.toArray());
         } catch (SQLException e) {
             throw new RuntimeException("Error deleting query result records", e);
         }
     }
-}
\ No newline at end of file
+
+    protected static class ResultsKey {
+
+        protected final UUID sessionId;
+        protected final int queryKey;
+
+        protected ResultsKey(UUID sessionId, int queryKey) {
+            this.sessionId = sessionId;
+            this.queryKey = queryKey;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            ResultsKey that = (ResultsKey) o;
+            return queryKey == that.queryKey && sessionId.equals(that.sessionId);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * sessionId.hashCode() + queryKey;
+        }
+    }
+}
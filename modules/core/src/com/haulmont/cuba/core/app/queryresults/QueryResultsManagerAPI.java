@@ -19,6 +19,7 @@ package com.haulmont.cuba.core.app.queryresults;
 
 import com.haulmont.cuba.core.global.LoadContext;
 
+import javax.annotation.Nullable;
 import java.util.List;
 import java.util.UUID;
 
@@ -39,4 +40,13 @@ public interface QueryResultsManagerAPI {
     void deleteForCurrentSession();
 
     void deleteForInactiveSessions();
+
+    /**
+     * @return ids of the previous query results of the current user session kept in memory,
+     * or null if the results are saved to the database or not saved at all
+     */
+    @Nullable
+    default List<?> getInMemoryResults(int queryKey) {
+        return null;
+    }
 }
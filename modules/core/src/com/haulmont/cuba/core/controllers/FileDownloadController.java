@@ -18,6 +18,7 @@ package com.haulmont.cuba.core.controllers;
 
 import com.haulmont.bali.util.URLEncodeUtils;
 import com.haulmont.cuba.core.app.DataService;
+import com.haulmont.cuba.core.app.FileChannelStorageAPI;
 import com.haulmont.cuba.core.app.FileStorageAPI;
 import com.haulmont.cuba.core.entity.FileDescriptor;
 import com.haulmont.cuba.core.global.FileStorageException;
@@ -42,7 +43,10 @@ import javax.servlet.http.HttpServletResponse;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.channels.Channels;
 import java.util.UUID;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
 /**
  * Handles file download requests to the middleware.
@@ -54,6 +58,8 @@ public class FileDownloadController {
 
     private static final Logger log = LoggerFactory.getLogger(FileDownloadController.class);
 
+    private static final Pattern RANGE_PATTERN = Pattern.compile("bytes=(\\d*)-(\\d*)");
+
     @Inject
     private UserSessionsAPI userSessions;
 
@@ -85,6 +91,11 @@ public class FileDownloadController {
             response.setIntHeader("Expires", -1);
             response.setHeader("Content-Type", FileTypesHelper.DEFAULT_MIME_TYPE);
 
+            if (fd != null && fileStorage instanceof FileChannelStorageAPI) {
+                downloadChannel((FileChannelStorageAPI) fileStorage, fd, request, response);
+                return;
+            }
+
             InputStream is = null;
             ServletOutputStream os = null;
             try {
@@ -107,6 +118,57 @@ public class FileDownloadController {
         }
     }
 
+    /**
+     * Sends file contents directly from the file channel. Supports a single byte range
+     * in the {@code Range} request header.
+     */
+    protected void downloadChannel(FileChannelStorageAPI channelStorage, FileDescriptor fd,
+                                   HttpServletRequest request, HttpServletResponse response) throws IOException {
+        ServletOutputStream os = null;
+        try {
+            long size = channelStorage.getFileSize(fd);
+            long start = 0;
+            long end = size - 1;
+
+            response.setHeader("Accept-Ranges", "bytes");
+            String range = request.getHeader("Range");
+            if (range != null) {
+                Matcher matcher = RANGE_PATTERN.matcher(range.trim());
+                if (matcher.matches() && !(matcher.group(1).isEmpty() && matcher.group(2).isEmpty())) {
+                    if (matcher.group(1).isEmpty()) {
+                        // suffix range: the last N bytes
+                        start = Math.max(size - Long.parseLong(matcher.group(2)), 0);
+                    } else {
+                        start = Long.parseLong(matcher.group(1));
+                        if (!matcher.group(2).isEmpty())
+                            end = Math.min(Long.parseLong(matcher.group(2)), size - 1);
+                    }
+                    if (start >= size || start > end) {
+                        response.setHeader("Content-Range", "bytes */" + size);
+                        response.sendError(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+                        return;
+                    }
+                    response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+                    response.setHeader("Content-Range", "bytes " + start + "-" + end + "/" + size);
+                }
+            }
+
+            long length = end - start + 1;
+            response.setContentLengthLong(length);
+            os = response.getOutputStream();
+            channelStorage.transferTo(fd, start, length, Channels.newChannel(os));
+            os.flush();
+        } catch (FileStorageException e) {
+            log.error("Unable to download file", e);
+            response.sendError(e.getType().getHttpStatus());
+        } catch (Exception ex) {
+            log.error("Unable to download file", ex);
+            response.sendError(HttpServletResponse.SC_INTERNAL_SERVER_ERROR);
+        } finally {
+            IOUtils.closeQuietly(os);
+        }
+    }
+
     protected UserSession getSession(HttpServletRequest request, HttpServletResponse response) throws IOException {
         UUID sessionId;
         try {
@@ -0,0 +1,61 @@
+/*
+ * Copyright (c) 2008-2020 Haulmont.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.haulmont.cuba.core.jmx;
+
+import com.haulmont.cuba.core.sys.CompiledConstraintScript;
+import com.haulmont.cuba.core.sys.ConstraintScriptCache;
+import org.springframework.stereotype.Component;
+
+import javax.inject.Inject;
+
+@Component("cuba_ConstraintScriptCacheSupportMBean")
+public class ConstraintScriptCacheSupport implements ConstraintScriptCacheSupportMBean {
+    @Inject
+    protected ConstraintScriptCache constraintScriptCache;
+
+    @Override
+    public long getSize() {
+        return constraintScriptCache.size();
+    }
+
+    @Override
+    public String printStatistics() {
+        StringBuilder sb = new StringBuilder();
+        for (CompiledConstraintScript script : constraintScriptCache.getScripts()) {
+            long evaluations = script.getEvaluations();
+            sb.append("evaluations=").append(evaluations)
+                    .append(", failures=").append(script.getFailures())
+                    .append(", totalTime=").append(script.getTotalTimeMicros() / 1000).append("ms")
+                    .append(", avgTime=").append(evaluations > 0 ? script.getTotalTimeMicros() / evaluations : 0).append("us")
+                    .append("\n    ").append(script.getScript().replace("\n", "\n    "))
+                    .append("\n");
+        }
+        return sb.length() > 0 ? sb.toString() : "No compiled constraint scripts";
+    }
+
+    @Override
+    public String resetStatistics() {
+        constraintScriptCache.resetStatistics();
+        return "Done";
+    }
+
+    @Override
+    public String evictAll() {
+        constraintScriptCache.clear();
+        return "Done";
+    }
+}
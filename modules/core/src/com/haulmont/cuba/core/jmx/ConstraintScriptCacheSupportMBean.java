@@ -0,0 +1,37 @@
+/*
+ * Copyright (c) 2008-2020 Haulmont.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.haulmont.cuba.core.jmx;
+
+import org.springframework.jmx.export.annotation.ManagedAttribute;
+import org.springframework.jmx.export.annotation.ManagedOperation;
+import org.springframework.jmx.export.annotation.ManagedResource;
+
+@ManagedResource(description = "Manages cache of compiled Groovy scripts of in-memory constraints")
+public interface ConstraintScriptCacheSupportMBean {
+
+    @ManagedAttribute(description = "Current number of compiled constraint scripts")
+    long getSize();
+
+    @ManagedOperation(description = "Print evaluation statistics of constraint scripts, sorted by total time")
+    String printStatistics();
+
+    @ManagedOperation(description = "Reset evaluation statistics of constraint scripts")
+    String resetStatistics();
+
+    @ManagedOperation(description = "Discard all compiled constraint scripts")
+    String evictAll();
+}
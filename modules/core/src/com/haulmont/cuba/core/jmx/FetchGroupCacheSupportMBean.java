@@ -0,0 +1,43 @@
+/*
+ * Copyright (c) 2008-2020 Haulmont.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.haulmont.cuba.core.jmx;
+
+import org.springframework.jmx.export.annotation.ManagedAttribute;
+import org.springframework.jmx.export.annotation.ManagedOperation;
+import org.springframework.jmx.export.annotation.ManagedResource;
+
+@ManagedResource(description = "Manages cache of fetch groups calculated for queries and views")
+public interface FetchGroupCacheSupportMBean {
+
+    @ManagedAttribute(description = "Maximum number of cached fetch groups, 0 if the cache is disabled")
+    int getMaxSize();
+
+    @ManagedAttribute(description = "Current number of cached fetch groups")
+    long getSize();
+
+    @ManagedAttribute(description = "Number of requests that returned a cached fetch group")
+    long getHitCount();
+
+    @ManagedAttribute(description = "Number of requests that caused calculation of a fetch group")
+    long getMissCount();
+
+    @ManagedAttribute(description = "Ratio of cache requests which were hits")
+    double getHitRate();
+
+    @ManagedOperation(description = "Discard all cached fetch groups")
+    String evictAll();
+}
@@ -0,0 +1,80 @@
+/*
+ * Copyright (c) 2008-2020 Haulmont.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.haulmont.cuba.core.sys;
+
+import groovy.lang.Binding;
+import groovy.lang.Script;
+import org.codehaus.groovy.runtime.InvokerHelper;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Groovy script of an in-memory constraint, compiled once and evaluated by creating a script instance with
+ * the given binding. Instances are thread-safe and collect the evaluation statistics.
+ *
+ * @see ConstraintScriptCache
+ */
+public class CompiledConstraintScript {
+
+    protected final String script;
+    protected final Class<? extends Script> scriptClass;
+
+    protected final LongAdder evaluations = new LongAdder();
+    protected final LongAdder failures = new LongAdder();
+    protected final LongAdder totalTimeNanos = new LongAdder();
+
+    public CompiledConstraintScript(String script, Class<? extends Script> scriptClass) {
+        this.script = script;
+        this.scriptClass = scriptClass;
+    }
+
+    public Object evaluate(Binding binding) {
+        long start = System.nanoTime();
+        try {
+            return InvokerHelper.createScript(scriptClass, binding).run();
+        } catch (RuntimeException | Error e) {
+            failures.increment();
+            throw e;
+        } finally {
+            evaluations.increment();
+            totalTimeNanos.add(System.nanoTime() - start);
+        }
+    }
+
+    public String getScript() {
+        return script;
+    }
+
+    public long getEvaluations() {
+        return evaluations.sum();
+    }
+
+    public long getFailures() {
+        return failures.sum();
+    }
+
+    public long getTotalTimeMicros() {
+        return TimeUnit.NANOSECONDS.toMicros(totalTimeNanos.sum());
+    }
+
+    public void resetStatistics() {
+        evaluations.reset();
+        failures.reset();
+        totalTimeNanos.reset();
+    }
+}
@@ -0,0 +1,101 @@
+/*
+ * Copyright (c) 2008-2020 Haulmont.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.haulmont.cuba.core.sys;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.haulmont.cuba.core.app.ServerConfig;
+import com.haulmont.cuba.core.global.Scripting;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.inject.Inject;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Cache of compiled Groovy scripts of in-memory constraints, shared by all user sessions.
+ * <p>
+ * Compiling a script once and creating its instances avoids borrowing of scripts from the pool of
+ * {@link Scripting#evaluateGroovy(String, groovy.lang.Binding)} for each checked entity.
+ */
+@Component(ConstraintScriptCache.NAME)
+public class ConstraintScriptCache {
+
+    public static final String NAME = "cuba_ConstraintScriptCache";
+
+    /**
+     * Name of the binding variable containing the checked entity, replaces {@code {E}} in constraint scripts.
+     */
+    public static final String ENTITY_VARIABLE = "__entity__";
+
+    @Inject
+    protected Scripting scripting;
+
+    @Inject
+    protected ServerConfig serverConfig;
+
+    protected Cache<String, CompiledConstraintScript> cache;
+
+    @PostConstruct
+    protected void init() {
+        cache = CacheBuilder.newBuilder()
+                .maximumSize(serverConfig.getConstraintScriptCacheMaxSize())
+                .build();
+    }
+
+    /**
+     * Returns the compiled constraint script, compiling it if needed.
+     *
+     * @param groovyScript constraint script text where {@code {E}} denotes the checked entity
+     * @throws org.codehaus.groovy.control.CompilationFailedException if the script cannot be compiled
+     */
+    public CompiledConstraintScript get(String groovyScript) {
+        CompiledConstraintScript compiledScript = cache.getIfPresent(groovyScript);
+        if (compiledScript == null) {
+            // compile outside of the cache loader to propagate compilation exceptions as is
+            compiledScript = new CompiledConstraintScript(groovyScript,
+                    scripting.compileGroovy(groovyScript.replace("{E}", ENTITY_VARIABLE)));
+            cache.put(groovyScript, compiledScript);
+        }
+        return compiledScript;
+    }
+
+    public long size() {
+        return cache.size();
+    }
+
+    public void clear() {
+        cache.invalidateAll();
+    }
+
+    /**
+     * @return cached scripts sorted by total evaluation time, descending
+     */
+    public List<CompiledConstraintScript> getScripts() {
+        Collection<CompiledConstraintScript> values = cache.asMap().values();
+        List<CompiledConstraintScript> scripts = new ArrayList<>(values);
+        scripts.sort(Comparator.comparingLong(CompiledConstraintScript::getTotalTimeMicros).reversed());
+        return scripts;
+    }
+
+    public void resetStatistics() {
+        cache.asMap().values().forEach(CompiledConstraintScript::resetStatistics);
+    }
+}
@@ -17,11 +17,15 @@
 
 package com.haulmont.cuba.core.sys;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
 import com.haulmont.bali.util.Preconditions;
 import com.haulmont.chile.core.model.MetaClass;
 import com.haulmont.chile.core.model.MetaProperty;
 import com.haulmont.chile.core.model.MetaPropertyPath;
 import com.haulmont.chile.core.model.Range;
+import com.haulmont.cuba.core.app.ServerConfig;
 import com.haulmont.cuba.core.entity.BaseUuidEntity;
 import com.haulmont.cuba.core.entity.EmbeddableEntity;
 import com.haulmont.cuba.core.entity.Entity;
@@ -39,6 +43,7 @@ import org.springframework.stereotype.Component;
 import org.springframework.util.ClassUtils;
 
 import javax.annotation.Nullable;
+import javax.annotation.PostConstruct;
 import javax.inject.Inject;
 import java.lang.reflect.Method;
 import java.util.*;
@@ -60,6 +65,22 @@ public class FetchGroupManager {
     @Inject
     private ViewRepository viewRepository;
 
+    @Inject
+    private ServerConfig serverConfig;
+
+    private Cache<DescriptionKey, FetchGroupDescription> descriptionCache;
+
+    @PostConstruct
+    protected void init() {
+        int maxSize = serverConfig.getFetchGroupCacheMaxSize();
+        if (maxSize > 0) {
+            descriptionCache = CacheBuilder.newBuilder()
+                    .maximumSize(maxSize)
+                    .recordStats()
+                    .build();
+        }
+    }
+
     public void setView(JpaQuery query, String queryString, @Nullable View view, boolean singleResultExpected) {
         Preconditions.checkNotNullArgument(query, "query is null");
         if (view != null) {
@@ -128,10 +149,55 @@ public class FetchGroupManager {
         }
     }
 
+    /**
+     * Returns the description of fetch group and fetch hints for the given query and view.
+     * Descriptions are cached by query, view structure and flags; the returned instance is shared and
+     * must not be modified.
+     */
     public FetchGroupDescription calculateFetchGroup(String queryString,
                                                      View view,
                                                      boolean singleResultExpected,
                                                      boolean useFetchGroup) {
+        if (descriptionCache == null) {
+            return createFetchGroupDescription(queryString, view, singleResultExpected, useFetchGroup);
+        }
+
+        DescriptionKey key = new DescriptionKey(queryString, getViewKey(view), singleResultExpected, useFetchGroup);
+        FetchGroupDescription description = descriptionCache.getIfPresent(key);
+        if (description == null) {
+            description = createFetchGroupDescription(queryString, view, singleResultExpected, useFetchGroup);
+            descriptionCache.put(key, description);
+        }
+        return description;
+    }
+
+    /**
+     * Discards all cached fetch group descriptions. Must be called when views or metadata change.
+     */
+    public void clearCache() {
+        if (descriptionCache != null) {
+            descriptionCache.invalidateAll();
+        }
+    }
+
+    /**
+     * @return number of cached fetch group descriptions
+     */
+    public long getCacheSize() {
+        return descriptionCache != null ? descriptionCache.size() : 0;
+    }
+
+    /**
+     * @return statistics of the fetch group descriptions cache
+     */
+    public CacheStats getCacheStats() {
+        return descriptionCache != null ? descriptionCache.stats() : new CacheStats(0, 0, 0, 0, 0, 0);
+    }
+
+    protected FetchGroupDescription createFetchGroupDescription(String queryString,
+                                                                View view,
+                                                                boolean singleResultExpected,
+                                                                boolean useFetchGroup) {
         Set<FetchGroupField> fetchGroupFields = new LinkedHashSet<>();
         processView(view, null, fetchGroupFields, useFetchGroup);
 
@@ -319,6 +385,24 @@ public class FetchGroupManager {
         return description;
     }
 
+    protected String getViewKey(View view) {
+        StringBuilder sb = new StringBuilder();
+        appendViewKey(sb, view);
+        return sb.toString();
+    }
+
+    private void appendViewKey(StringBuilder sb, View view) {
+        sb.append(view.getEntityClass().getName()).append('{');
+        for (ViewProperty property : view.getProperties()) {
+            sb.append(property.getName()).append(':').append(property.getFetchMode());
+            if (property.getView() != null) {
+                appendViewKey(sb, property.getView());
+            }
+            sb.append(',');
+        }
+        sb.append('}');
+    }
+
     private boolean isTransitiveSelfReference(FetchGroupField root, FetchGroupField current,
                                               Range.Cardinality cardinality, MetaClass metaClass) {
         return root != current
@@ -507,4 +591,40 @@ public class FetchGroupManager {
             return path();
         }
     }
-}
\ No newline at end of file
+
+    protected static class DescriptionKey {
+        private final String queryString;
+        private final String viewKey;
+        private final boolean singleResultExpected;
+        private final boolean useFetchGroup;
+
+        public DescriptionKey(String queryString, String viewKey, boolean singleResultExpected, boolean useFetchGroup) {
+            this.queryString = queryString;
+            this.viewKey = viewKey;
+            this.singleResultExpected = singleResultExpected;
+            this.useFetchGroup = useFetchGroup;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+
+            DescriptionKey that = (DescriptionKey) o;
+
+            return singleResultExpected == that.singleResultExpected
+                    && useFetchGroup == that.useFetchGroup
+                    && Objects.equals(queryString, that.queryString)
+                    && viewKey.equals(that.viewKey);
+        }
+
+        @Override
+        public int hashCode() {
+            int result = Objects.hashCode(queryString);
+            result = 31 * result + viewKey.hashCode();
+            result = 31 * result + (singleResultExpected ? 1 : 0);
+            result = 31 * result + (useFetchGroup ? 1 : 0);
+            return result;
+        }
+    }
+}
@@ -34,10 +34,13 @@ import com.haulmont.cuba.core.sys.jpql.JpqlSyntaxException;
 import com.haulmont.cuba.security.entity.ConstraintOperationType;
 import com.haulmont.cuba.security.entity.EntityOp;
 import com.haulmont.cuba.security.global.UserSession;
+import com.haulmont.cuba.security.group.AccessConstraint;
 import com.haulmont.cuba.security.group.ConstraintValidationResult;
+import com.haulmont.cuba.security.group.GroovyConstraintPredicate;
 import com.haulmont.cuba.security.group.JpqlAccessConstraint;
 import org.apache.commons.collections4.CollectionUtils;
 import org.apache.commons.lang3.StringUtils;
+import groovy.lang.Binding;
 import org.apache.commons.lang3.exception.ExceptionUtils;
 import org.codehaus.groovy.control.CompilationFailedException;
 import org.codehaus.groovy.runtime.MethodClosure;
@@ -76,6 +79,9 @@ public class PersistenceSecurityImpl extends SecurityImpl implements Persistence
     @Inject
     protected EntityStates entityStates;
 
+    @Inject
+    protected ConstraintScriptCache constraintScriptCache;
+
     @Override
     public boolean applyConstraints(Query query) {
         QueryParser parser = QueryTransformerFactory.createParser(query.getQueryString());
@@ -137,9 +143,10 @@ public class PersistenceSecurityImpl extends SecurityImpl implements Persistence
     @Override
     public boolean filterByConstraints(Collection<Entity> entities) {
         boolean filtered = false;
+        InMemoryConstraintsEvaluator evaluator = new InMemoryConstraintsEvaluator(EntityOp.READ);
         for (Iterator<Entity> iterator = entities.iterator(); iterator.hasNext(); ) {
             Entity entity = iterator.next();
-            if (isNotPermittedInMemory(entity)) {
+            if (!evaluator.isPermitted(entity)) {
                 //we ignore situations when the collection is immutable
                 iterator.remove();
                 filtered = true;
@@ -388,9 +395,7 @@ public class PersistenceSecurityImpl extends SecurityImpl implements Persistence
 
     @Override
     public boolean isPermitted(Entity entity, EntityOp operation) {
-        return getConstraints(entity.getMetaClass())
-                .filter(c -> c.isInMemory() && c.getOperation() == operation)
-                .allMatch(c -> ((Predicate<Entity>) c.getPredicate()).test(entity));
+        return new InMemoryConstraintsEvaluator(operation).isPermitted(entity);
     }
 
     @Override
@@ -405,25 +410,23 @@ public class PersistenceSecurityImpl extends SecurityImpl implements Persistence
 
     @Override
     public boolean isPermitted(Entity entity, String customCode) {
-        //noinspection unchecked
-        return getConstraints(entity.getMetaClass())
-                .filter(c -> c.isInMemory() && Objects.equals(c.getCode(), customCode))
-                .allMatch(c -> ((Predicate<Entity>) c.getPredicate()).test(entity));
+        return new InMemoryConstraintsEvaluator(c -> Objects.equals(c.getCode(), customCode)).isPermitted(entity);
     }
 
     protected boolean isNotPermittedInMemory(Entity entity) {
-        //noinspection unchecked
-        return !getConstraints(entity.getMetaClass())
-                .filter(c -> c.isInMemory() && c.getOperation() == EntityOp.READ)
-                .allMatch(c -> ((Predicate<Entity>) c.getPredicate()).test(entity));
+        return !new InMemoryConstraintsEvaluator(EntityOp.READ).isPermitted(entity);
     }
 
     @Override
     public Object evaluateConstraintScript(Entity entity, String groovyScript) {
+        return evaluateConstraintScript(entity, groovyScript, createGroovyConstraintsContext());
+    }
+
+    protected Object evaluateConstraintScript(Entity entity, String groovyScript, Map<String, Object> context) {
         String metaClassName = entity.getMetaClass().getName();
         if (StringUtils.isNotBlank(groovyScript)) {
             try {
-                Object result = runGroovyScript(entity, groovyScript);
+                Object result = runGroovyScript(entity, groovyScript, context);
                 if (Boolean.FALSE.equals(result)) {
                     log.trace("Entity does not match security constraint. Entity class [{}]. Entity [{}].",
                             metaClassName, entity.getId());
@@ -454,12 +457,25 @@ public class PersistenceSecurityImpl extends SecurityImpl implements Persistence
     }
 
     protected Object runGroovyScript(Entity entity, String groovyScript) {
+        return runGroovyScript(entity, groovyScript, createGroovyConstraintsContext());
+    }
+
+    /**
+     * Evaluates the compiled constraint script with a copy of the given context, so the context can be reused
+     * for a number of entities.
+     */
+    protected Object runGroovyScript(Entity entity, String groovyScript, Map<String, Object> context) {
+        Binding binding = new Binding(new HashMap<>(context));
+        binding.setVariable(ConstraintScriptCache.ENTITY_VARIABLE, entity);
+        return constraintScriptCache.get(groovyScript).evaluate(binding);
+    }
+
+    protected Map<String, Object> createGroovyConstraintsContext() {
         Map<String, Object> context = new HashMap<>();
-        context.put("__entity__", entity);
         context.put("parse", new MethodClosure(this, "parseValue"));
         context.put("userSession", userSessionSource.getUserSession());
         fillGroovyConstraintsContext(context);
-        return scripting.evaluateGroovy(groovyScript.replace("{E}", "__entity__"), context);
+        return context;
     }
 
     /**
@@ -503,6 +519,63 @@ public class PersistenceSecurityImpl extends SecurityImpl implements Persistence
         }
     }
 
+    /**
+     * Checks entities against in-memory constraints selected by a condition, in the current user session.
+     * Predicates of the constraints are collected once per entity class, and Groovy constraints are evaluated
+     * directly by the compiled scripts with the context created once, so the evaluator is intended
+     * to be reused for a collection of entities within one thread.
+     */
+    protected class InMemoryConstraintsEvaluator {
+
+        protected final Predicate<AccessConstraint> condition;
+
+        protected final Map<MetaClass, List<Predicate<Entity>>> predicates = new HashMap<>();
+
+        protected Map<String, Object> groovyContext;
+
+        protected InMemoryConstraintsEvaluator(EntityOp operation) {
+            this(c -> c.getOperation() == operation);
+        }
+
+        protected InMemoryConstraintsEvaluator(Predicate<AccessConstraint> condition) {
+            this.condition = condition;
+        }
+
+        public boolean isPermitted(Entity entity) {
+            List<Predicate<Entity>> entityPredicates = predicates.computeIfAbsent(entity.getMetaClass(), this::createPredicates);
+            for (Predicate<Entity> predicate : entityPredicates) {
+                if (!predicate.test(entity)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        protected List<Predicate<Entity>> createPredicates(MetaClass metaClass) {
+            return getConstraints(metaClass)
+                    .filter(c -> c.isInMemory() && condition.test(c))
+                    .map(this::createPredicate)
+                    .collect(Collectors.toList());
+        }
+
+        @SuppressWarnings("unchecked")
+        protected Predicate<Entity> createPredicate(AccessConstraint constraint) {
+            Predicate<Entity> predicate = (Predicate<Entity>) constraint.getPredicate();
+            if (predicate instanceof GroovyConstraintPredicate) {
+                String groovyScript = ((GroovyConstraintPredicate) predicate).getGroovyScript();
+                return entity -> (boolean) evaluateConstraintScript(entity, groovyScript, getGroovyContext());
+            }
+            return predicate;
+        }
+
+        protected Map<String, Object> getGroovyContext() {
+            if (groovyContext == null) {
+                groovyContext = createGroovyConstraintsContext();
+            }
+            return groovyContext;
+        }
+    }
+
     protected static class EntityId {
         Object id;
         String metaClassName;
@@ -16,8 +16,13 @@
 
 package com.haulmont.cuba.core.sys;
 
+import com.haulmont.chile.core.model.MetaClass;
+import com.haulmont.cuba.core.EntityCursor;
 import com.haulmont.cuba.core.TransactionalDataManager;
 import com.haulmont.cuba.core.Transactions;
+import com.haulmont.cuba.core.app.DataStore;
+import com.haulmont.cuba.core.app.ServerConfig;
+import com.haulmont.cuba.core.app.StoreFactory;
 import com.haulmont.cuba.core.entity.BaseGenericIdEntity;
 import com.haulmont.cuba.core.entity.Entity;
 import com.haulmont.cuba.core.entity.KeyValueEntity;
@@ -43,7 +48,13 @@ public class TransactionalDataManagerBean implements TransactionalDataManager {
     protected TransactionalActionFactory transactionalActionFactory;
 
     @Inject
-    private Metadata metadata;
+    protected StoreFactory storeFactory;
+
+    @Inject
+    protected ServerConfig serverConfig;
+
+    @Inject
+    protected Metadata metadata;
 
     @Inject
     private EntityStates entityStates;
@@ -87,6 +98,20 @@ public class TransactionalDataManagerBean implements TransactionalDataManager {
         return dataManager.loadValues(context);
     }
 
+    @Override
+    public <E extends Entity> EntityCursor<E> openCursor(LoadContext<E> context) {
+        return openCursor(context, serverConfig.getEntityCursorBatchSize());
+    }
+
+    @Override
+    public <E extends Entity> EntityCursor<E> openCursor(LoadContext<E> context, int batchSize) {
+        MetaClass metaClass = metadata.getClassNN(context.getMetaClass());
+        String storeName = metadata.getTools().getStoreName(metaClass);
+        DataStore store = storeFactory.get(storeName == null ? StoreFactory.NULL_NAME : storeName);
+        // chunks are loaded by DataManager to read cross-datastore references
+        return store.openCursor(context, batchSize, dataManager::loadList);
+    }
+
     @Override
     public EntitySet save(Entity... entities) {
         CommitContext cc = new CommitContext(entities);
@@ -149,7 +174,7 @@ public class TransactionalDataManagerBean implements TransactionalDataManager {
 
     @Override
     public TransactionalDataManager secure() {
-        return new Secure(dataManager, transactions);
+        return new Secure(dataManager, transactions, storeFactory, serverConfig, metadata);
     }
 
     @Override
@@ -165,9 +190,19 @@ public class TransactionalDataManagerBean implements TransactionalDataManager {
     private static class Secure extends TransactionalDataManagerBean {
 
         @SuppressWarnings("ReassignmentInjectVariable")
-        public Secure(DataManager dataManager, Transactions transactions) {
+        public Secure(DataManager dataManager, Transactions transactions, StoreFactory storeFactory,
+                      ServerConfig serverConfig, Metadata metadata) {
             this.dataManager = dataManager.secure();
             this.transactions = transactions;
+            this.storeFactory = storeFactory;
+            this.serverConfig = serverConfig;
+            this.metadata = metadata;
+        }
+
+        @Override
+        public <E extends Entity> EntityCursor<E> openCursor(LoadContext<E> context, int batchSize) {
+            context.setAuthorizationRequired(true);
+            return super.openCursor(context, batchSize);
         }
     }
 }
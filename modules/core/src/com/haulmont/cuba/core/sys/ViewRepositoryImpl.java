@@ -17,10 +17,30 @@
 
 package com.haulmont.cuba.core.sys;
 
+import com.haulmont.chile.core.model.MetaClass;
+import com.haulmont.cuba.core.global.View;
 import com.haulmont.cuba.core.global.ViewRepository;
 
 import org.springframework.stereotype.Component;
 
+import javax.inject.Inject;
+
 @Component(ViewRepository.NAME)
 public class ViewRepositoryImpl extends AbstractViewRepository implements ViewRepository {
+
+    @Inject
+    protected FetchGroupManager fetchGroupManager;
+
+    @Override
+    public void reset() {
+        super.reset();
+        fetchGroupManager.clearCache();
+    }
+
+    @Override
+    protected void storeView(MetaClass metaClass, View view) {
+        super.storeView(metaClass, view);
+        // cached fetch groups can include views deployed before
+        fetchGroupManager.clearCache();
+    }
 }
\ No newline at end of file
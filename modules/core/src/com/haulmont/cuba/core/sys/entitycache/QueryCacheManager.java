@@ -24,6 +24,7 @@ import com.haulmont.cuba.core.EntityManager;
 import com.haulmont.cuba.core.Persistence;
 import com.haulmont.cuba.core.app.ClusterListenerAdapter;
 import com.haulmont.cuba.core.app.ClusterManagerAPI;
+import com.haulmont.cuba.core.app.CoalescingClusterMessage;
 import com.haulmont.cuba.core.entity.BaseGenericIdEntity;
 import com.haulmont.cuba.core.global.Metadata;
 import com.haulmont.cuba.core.global.View;
@@ -35,7 +36,6 @@ import javax.annotation.PostConstruct;
 import javax.inject.Inject;
 import javax.persistence.MappedSuperclass;
 import javax.persistence.TypedQuery;
-import java.io.Serializable;
 import java.util.*;
 import java.util.stream.Collectors;
 
@@ -273,7 +273,7 @@ public class QueryCacheManager {
         return newRelatedTypes;
     }
 
-    protected static class InvalidateQueryCacheMsg implements Serializable {
+    protected static class InvalidateQueryCacheMsg implements CoalescingClusterMessage {
         private static final long serialVersionUID = -9099037380378341477L;
 
         protected Set<String> typeNames;
@@ -291,5 +291,13 @@ public class QueryCacheManager {
         public InvalidateQueryCacheMsg(QueryKey queryKey) {
             this.queryKey = queryKey;
         }
+
+        @Override
+        public Object getCoalescingKey() {
+            if (invalidateAll) {
+                return Boolean.TRUE;
+            }
+            return queryKey != null ? queryKey : typeNames;
+        }
     }
 }
@@ -18,8 +18,9 @@ package com.haulmont.cuba.core.sys.entitycache;
 
 import com.google.common.cache.Cache;
 import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.RemovalCause;
+import com.google.common.cache.RemovalNotification;
 import com.google.common.collect.Maps;
-import com.google.common.collect.Sets;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Component;
@@ -29,17 +30,23 @@ import javax.inject.Inject;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
-import java.util.concurrent.CopyOnWriteArrayList;
-import java.util.concurrent.locks.Lock;
-import java.util.concurrent.locks.ReadWriteLock;
-import java.util.concurrent.locks.ReentrantReadWriteLock;
 
+/**
+ * Query cache backed by a size-bounded Guava cache.
+ * <p>
+ * Cached keys are additionally indexed by related entity type and by query id. Both indexes are maintained
+ * on {@link #put(QueryKey, QueryResult)} and cleaned up by the removal listener of the underlying cache,
+ * so evicted and invalidated keys never accumulate in them and no global lock is required.
+ * <p>
+ * Keys are indexed by their ids rather than by equality, because an equal key of a concurrent put may already
+ * be indexed when the removal listener processes a removed one.
+ */
 @Component(QueryCache.NAME)
 public class StandardQueryCache implements QueryCache {
 
     protected Cache<QueryKey, QueryResult> data;
-    protected ConcurrentMap<String, CopyOnWriteArrayList<QueryKey>> typeIndex = new ConcurrentHashMap<>();
-    protected ReadWriteLock lock = new ReentrantReadWriteLock();
+    protected ConcurrentMap<String, ConcurrentMap<UUID, QueryKey>> typeIndex = new ConcurrentHashMap<>();
+    protected ConcurrentMap<UUID, QueryKey> idIndex = new ConcurrentHashMap<>();
 
     @Inject
     protected QueryCacheConfig queryCacheConfig;
@@ -48,7 +55,22 @@ public class StandardQueryCache implements QueryCache {
 
     @PostConstruct
     protected void init() {
-        data = CacheBuilder.newBuilder().maximumSize(queryCacheConfig.getQueryCacheMaxSize()).build();
+        data = CacheBuilder.newBuilder()
+                .maximumSize(queryCacheConfig.getQueryCacheMaxSize())
+                .removalListener(this::onRemoval)
+                .build();
+    }
+
+    protected void onRemoval(RemovalNotification<QueryKey, QueryResult> notification) {
+        QueryKey queryKey = notification.getKey();
+        // put() never replaces values, a replaced value would keep the key instance already stored in the cache
+        if (queryKey != null && notification.getCause() != RemovalCause.REPLACED) {
+            idIndex.remove(queryKey.getId(), queryKey);
+            QueryResult queryResult = notification.getValue();
+            if (queryResult != null) {
+                removeFromTypeIndex(queryKey, getRelatedTypes(queryResult));
+            }
+        }
     }
 
     @Override
@@ -58,108 +80,67 @@ public class StandardQueryCache implements QueryCache {
 
     @Override
     public void put(QueryKey queryKey, QueryResult queryResult) {
-        Lock readLock = lock.readLock();
-        readLock.lock();
-        try {
-            data.put(queryKey, queryResult);
-
-            for (String type : queryResult.getRelatedTypes()) {
-                CopyOnWriteArrayList<QueryKey> keys = typeIndex.get(type);
+        // index the key before it becomes visible in the cache, so a concurrent invalidation by type cannot miss it
+        Set<String> relatedTypes = getRelatedTypes(queryResult);
+        for (String type : relatedTypes) {
+            typeIndex.compute(type, (t, keys) -> {
                 if (keys == null) {
-                    typeIndex.putIfAbsent(type, new CopyOnWriteArrayList<>());
-                    keys = typeIndex.get(type);
+                    keys = new ConcurrentHashMap<>();
                 }
-                keys.add(queryKey);
-            }
-        } finally {
-            readLock.unlock();
+                keys.put(queryKey.getId(), queryKey);
+                return keys;
+            });
+        }
+        idIndex.put(queryKey.getId(), queryKey);
+
+        // an equal key stored in the cache is removed instead of replacing its value, so the stored key instance
+        // is always the one indexed by put() and the removal listener unindexes it by its own id
+        ConcurrentMap<QueryKey, QueryResult> map = data.asMap();
+        QueryResult previous;
+        while ((previous = map.putIfAbsent(queryKey, queryResult)) != null) {
+            map.remove(queryKey, previous);
         }
     }
 
     @Override
     public QueryKey findQueryKeyById(UUID queryId) {
-        Set<QueryKey> keys = Sets.newHashSet(data.asMap().keySet());
-        for (QueryKey key : keys) {
-            if (Objects.equals(queryId, key.getId())) {
-                return key;
-            }
-        }
-        return null;
+        return idIndex.get(queryId);
     }
 
     @Override
     public void invalidate(QueryKey queryKey) {
-        Lock readLock = lock.readLock();
-        readLock.lock();
-        try {
-            log.debug("Invalidate query by key {}", queryKey.printDescription());
-            data.invalidate(queryKey);
-        } finally {
-            readLock.unlock();
-        }
+        log.debug("Invalidate query by key {}", queryKey.printDescription());
+        data.invalidate(queryKey);
     }
 
     @Override
     public void invalidate(String typeName) {
-        Lock readLock = lock.readLock();
-        readLock.lock();
-        try {
-            CopyOnWriteArrayList<QueryKey> keys = typeIndex.get(typeName);
-            if (keys == null) return;
-            log.debug("Invalidate cache for type {}", typeName);
-            Arrays.stream(keys.toArray()).forEach(it -> data.invalidate(it));
-        } finally {
-            readLock.unlock();
-        }
+        Map<UUID, QueryKey> keys = typeIndex.get(typeName);
+        if (keys == null) return;
+        log.debug("Invalidate cache for type {}", typeName);
+        data.invalidateAll(new ArrayList<>(keys.values()));
     }
 
     @Override
     public void invalidate(Set<String> typeNames) {
-        Lock readLock = lock.readLock();
-        readLock.lock();
-        try {
-            typeNames.forEach(typeName -> {
-                        CopyOnWriteArrayList<QueryKey> keys = typeIndex.get(typeName);
-                        if (keys == null) return;
-                        log.debug("Invalidate cache for type {}", typeName);
-                        Arrays.stream(keys.toArray()).forEach(it -> data.invalidate(it));
-                    }
-            );
-        } finally {
-            readLock.unlock();
-        }
+        typeNames.forEach(this::invalidate);
     }
 
     @Override
     public QueryKey invalidate(UUID queryId) {
-        Lock readLock = lock.readLock();
-        readLock.lock();
-        try {
-            Set<QueryKey> keys = Sets.newHashSet(data.asMap().keySet());
-            for (QueryKey key : keys) {
-                if (Objects.equals(queryId, key.getId())) {
-                    log.debug("Invalidate query by identifier {}", queryId);
-                    data.invalidate(key);
-                    return key;
-                }
-            }
-        } finally {
-            readLock.unlock();
+        QueryKey key = idIndex.get(queryId);
+        if (key != null) {
+            log.debug("Invalidate query by identifier {}", queryId);
+            data.invalidate(key);
         }
-        return null;
+        return key;
     }
 
     @Override
     public void invalidateAll() {
-        Lock writeLock = lock.writeLock();
-        writeLock.lock();
-        try {
-            log.debug("Invalidate all cache");
-            data.invalidateAll();
-            typeIndex.clear();
-        } finally {
-            writeLock.unlock();
-        }
+        log.debug("Invalidate all cache");
+        // indexes are cleaned up by the removal listener, clearing them here could drop keys of concurrent puts
+        data.invalidateAll();
     }
 
     @Override
@@ -176,4 +157,18 @@ public class StandardQueryCache implements QueryCache {
     public Map<QueryKey, QueryResult> asMap() {
         return Maps.newHashMap(data.asMap());
     }
+
+    protected void removeFromTypeIndex(QueryKey queryKey, Collection<String> types) {
+        for (String type : types) {
+            typeIndex.computeIfPresent(type, (t, keys) -> {
+                keys.remove(queryKey.getId(), queryKey);
+                return keys.isEmpty() ? null : keys;
+            });
+        }
+    }
+
+    protected Set<String> getRelatedTypes(QueryResult queryResult) {
+        Set<String> relatedTypes = queryResult.getRelatedTypes();
+        return relatedTypes != null ? relatedTypes : Collections.emptySet();
+    }
 }
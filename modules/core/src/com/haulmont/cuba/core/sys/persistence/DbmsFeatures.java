@@ -110,4 +110,12 @@ public interface DbmsFeatures {
     default Integer getMaxIdsBatchSize() {
         return null;
     }
+
+    /**
+     * @return maximum number of rows in a multi-row {@code insert ... values (...), (...)} statement,
+     * or 0 if the DBMS doesn't support such statements and JDBC batches should be used instead
+     */
+    default int getMaxMultiRowInsertSize() {
+        return 0;
+    }
 }
@@ -59,6 +59,11 @@ public class EclipseLinkSessionEventListener extends SessionEventAdapter {
 
     private DescriptorEventListener descriptorEventListener = AppBeans.get(EclipseLinkDescriptorEventListener.NAME);
 
+    @Override
+    public void postExecuteCall(SessionEvent event) {
+        StatementCounter.increment();
+    }
+
     @Override
     public void preLogin(SessionEvent event) {
 
@@ -77,4 +77,10 @@ public class MssqlDbmsFeatures implements DbmsFeatures {
     public boolean supportsLobSortingAndFiltering() {
         return true;
     }
-}
\ No newline at end of file
+
+    @Override
+    public int getMaxMultiRowInsertSize() {
+        // a statement can have up to 1000 rows in VALUES and up to 2100 parameters
+        return 500;
+    }
+}
@@ -27,6 +27,8 @@ import com.haulmont.cuba.core.sys.ConfigurationResourceLoader;
 import org.apache.commons.lang3.StringUtils;
 import org.dom4j.Document;
 import org.dom4j.Element;
+import org.eclipse.persistence.config.BatchWriting;
+import org.eclipse.persistence.config.PersistenceUnitProperties;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.core.io.Resource;
@@ -82,6 +84,8 @@ public class PersistenceConfigProcessor {
             addProperties(puElem, properties);
         }
 
+        addBatchWritingProperties(properties);
+
         for (String name : AppContext.getPropertyNames()) {
             if (name.startsWith("eclipselink.")) {
                 properties.put(name, AppContext.getProperty(name));
@@ -213,6 +217,28 @@ public class PersistenceConfigProcessor {
         return null;
     }
 
+    /**
+     * Enables JDBC batch writing if the {@code cuba.jdbcBatchWritingSize} app property is greater than 1.
+     * Explicitly defined {@code eclipselink.jdbc.batch-writing*} app properties take precedence.
+     */
+    protected void addBatchWritingProperties(Map<String, String> properties) {
+        String batchSizeProp = AppContext.getProperty("cuba.jdbcBatchWritingSize");
+        if (StringUtils.isBlank(batchSizeProp)) {
+            return;
+        }
+        int batchSize;
+        try {
+            batchSize = Integer.parseInt(batchSizeProp.trim());
+        } catch (NumberFormatException e) {
+            log.warn("Invalid value of cuba.jdbcBatchWritingSize: {}", batchSizeProp);
+            return;
+        }
+        if (batchSize > 1) {
+            properties.put(PersistenceUnitProperties.BATCH_WRITING, BatchWriting.JDBC);
+            properties.put(PersistenceUnitProperties.BATCH_WRITING_SIZE, String.valueOf(batchSize));
+        }
+    }
+
     private Document getDocument(String fileName) {
         Document doc;
         if (baseDir == null) {
@@ -0,0 +1,93 @@
+/*
+ * Copyright (c) 2008-2020 Haulmont.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.haulmont.cuba.core.sys.persistence;
+
+/**
+ * Counts SQL statements executed by EclipseLink in the current thread.
+ * <p>
+ * Usage:
+ * <pre>
+ *     StatementCounter counter = StatementCounter.start();
+ *     try {
+ *         // work with the database
+ *     } finally {
+ *         int statements = counter.stop();
+ *     }
+ * </pre>
+ * Counters can be nested, statements counted by a nested counter are added to the enclosing one when it is stopped.
+ * <p>
+ * When JDBC batch writing is enabled, a statement is counted when it is added to a batch, so the number
+ * of database round trips can be less than the number of counted statements.
+ */
+public final class StatementCounter {
+
+    private static final ThreadLocal<StatementCounter> current = new ThreadLocal<>();
+
+    private final StatementCounter parent;
+
+    private int count;
+
+    private boolean stopped;
+
+    private StatementCounter(StatementCounter parent) {
+        this.parent = parent;
+    }
+
+    /**
+     * Starts counting statements executed in the current thread.
+     */
+    public static StatementCounter start() {
+        StatementCounter counter = new StatementCounter(current.get());
+        current.set(counter);
+        return counter;
+    }
+
+    /**
+     * Invoked by {@link EclipseLinkSessionEventListener} for each executed statement.
+     */
+    static void increment() {
+        StatementCounter counter = current.get();
+        if (counter != null) {
+            counter.count++;
+        }
+    }
+
+    /**
+     * Stops counting and restores the enclosing counter.
+     *
+     * @return number of statements executed since the counter has been started
+     */
+    public int stop() {
+        if (!stopped) {
+            stopped = true;
+            if (parent != null) {
+                parent.count += count;
+                current.set(parent);
+            } else {
+                current.remove();
+            }
+        }
+        return count;
+    }
+
+    /**
+     * @return number of statements executed so far
+     */
+    public int getCount() {
+        return count;
+    }
+}
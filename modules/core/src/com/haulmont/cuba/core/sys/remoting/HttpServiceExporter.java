@@ -18,21 +18,24 @@
 package com.haulmont.cuba.core.sys.remoting;
 
 import com.google.common.base.Joiner;
+import com.haulmont.cuba.core.sys.AppContext;
 import com.haulmont.cuba.core.sys.serialization.SerializationException;
 import com.haulmont.cuba.core.sys.serialization.SerializationSupport;
 import org.springframework.beans.factory.BeanNameAware;
+import org.springframework.http.HttpHeaders;
+import org.springframework.remoting.RemoteException;
 import org.springframework.remoting.httpinvoker.HttpInvokerServiceExporter;
 import org.springframework.remoting.support.RemoteInvocation;
 import org.springframework.remoting.support.RemoteInvocationResult;
+import org.springframework.util.ClassUtils;
 import org.springframework.web.util.NestedServletException;
 
 import javax.servlet.ServletException;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
-import java.io.IOException;
-import java.io.ObjectInputStream;
-import java.io.ObjectOutputStream;
-import java.io.OptionalDataException;
+import java.io.*;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
 
 /**
  * Exports a middleware service bean as an HTTP invoker service endpoint.
@@ -74,6 +77,13 @@ public class HttpServiceExporter extends HttpInvokerServiceExporter implements B
             return;
         }
 
+        if (isKryoRequest(request) && !isKryoRequestSupported(request)) {
+            logger.debug("Kryo serialized request is not supported, requested version: "
+                    + request.getHeader(KryoRemotingFormat.VERSION_HEADER));
+            response.sendError(HttpServletResponse.SC_UNSUPPORTED_MEDIA_TYPE);
+            return;
+        }
+
         RemoteInvocationResult result;
         RemoteInvocation invocation = null;
         try {
@@ -105,6 +115,80 @@ public class HttpServiceExporter extends HttpInvokerServiceExporter implements B
         }
     }
 
+    @Override
+    protected InputStream decorateInputStream(HttpServletRequest request, InputStream is) throws IOException {
+        String contentEncoding = request.getHeader(HttpHeaders.CONTENT_ENCODING);
+        if (contentEncoding != null && contentEncoding.toLowerCase().contains("gzip")) {
+            return new GZIPInputStream(is);
+        }
+        return is;
+    }
+
+    @Override
+    protected OutputStream decorateOutputStream(HttpServletRequest request, HttpServletResponse response,
+                                                OutputStream os) throws IOException {
+        // declare that compressed requests are accepted (RFC 7694), see PooledHttpInvokerRequestExecutor
+        response.setHeader(HttpHeaders.ACCEPT_ENCODING, "gzip");
+        if (KryoRemotingFormat.isEnabled()) {
+            response.setHeader(KryoRemotingFormat.VERSION_HEADER, KryoRemotingFormat.VERSION);
+        }
+
+        String acceptEncoding = request.getHeader(HttpHeaders.ACCEPT_ENCODING);
+        if (acceptEncoding != null && acceptEncoding.toLowerCase().contains("gzip")
+                && Boolean.parseBoolean(AppContext.getProperty("cuba.remotingCompression"))) {
+            response.setHeader(HttpHeaders.CONTENT_ENCODING, "gzip");
+            return new GZIPOutputStream(os, 8192);
+        }
+        return os;
+    }
+
+    @Override
+    protected RemoteInvocation readRemoteInvocation(HttpServletRequest request, InputStream is)
+            throws IOException, ClassNotFoundException {
+        if (!isKryoRequest(request)) {
+            return super.readRemoteInvocation(request, is);
+        }
+        Object invocation = SerializationSupport.getKryoSerialization().deserialize(decorateInputStream(request, is));
+        if (!(invocation instanceof RemoteInvocation)) {
+            throw new RemoteException("Deserialized object needs to be assignable to type [" +
+                    RemoteInvocation.class.getName() + "]: " + ClassUtils.getDescriptiveType(invocation));
+        }
+        return (RemoteInvocation) invocation;
+    }
+
+    @Override
+    protected void writeRemoteInvocationResult(HttpServletRequest request, HttpServletResponse response,
+                                               RemoteInvocationResult result, OutputStream os) throws IOException {
+        if (!isKryoRequest(request)) {
+            super.writeRemoteInvocationResult(request, response, result, os);
+            return;
+        }
+        // serialize before the response is started, so the result can still be sent in the standard format
+        byte[] bytes;
+        try {
+            bytes = SerializationSupport.getKryoSerialization().serialize(result);
+        } catch (SerializationException e) {
+            logger.warn("Unable to serialize invocation result with Kryo, using standard serialization", e);
+            response.setContentType(getContentType());
+            super.writeRemoteInvocationResult(request, response, result, os);
+            return;
+        }
+        response.setContentType(KryoRemotingFormat.CONTENT_TYPE);
+        try (OutputStream decoratedOs = decorateOutputStream(request, response, os)) {
+            decoratedOs.write(bytes);
+        }
+    }
+
+    protected boolean isKryoRequest(HttpServletRequest request) {
+        String contentType = request.getContentType();
+        return contentType != null && contentType.startsWith(KryoRemotingFormat.CONTENT_TYPE);
+    }
+
+    protected boolean isKryoRequestSupported(HttpServletRequest request) {
+        return KryoRemotingFormat.isEnabled()
+                && KryoRemotingFormat.VERSION.equals(request.getHeader(KryoRemotingFormat.VERSION_HEADER));
+    }
+
     @Override
     protected void doWriteRemoteInvocationResult(RemoteInvocationResult result, ObjectOutputStream oos) throws IOException {
         SerializationSupport.serialize(result, oos);
@@ -82,6 +82,8 @@ public class EntityLog implements EntityLogAPI {
     protected DataManager dataManager;
     @Inject
     protected ServerConfig serverConfig;
+    @Inject
+    protected EntityLogWriter entityLogWriter;
 
     protected volatile boolean loaded;
     protected EntityLogConfig config;
@@ -222,6 +224,10 @@ public class EntityLog implements EntityLogAPI {
     }
 
     protected void saveItem(EntityLogItem item) {
+        if (config.getAsyncWritingEnabled()) {
+            enqueueItem(item);
+            return;
+        }
         String storeName = metadataTools.getStoreName(metadata.getClassNN(item.getEntity()));
         if (item.getDbGeneratedIdEntity() == null) {
             if (Stores.isMain(storeName)) {
@@ -251,6 +257,41 @@ public class EntityLog implements EntityLogAPI {
         }
     }
 
+    /**
+     * Passes the item to {@link EntityLogWriter} after the current transaction is committed.
+     * Falls back to a synchronous write in a separate transaction if the writer queue is full.
+     */
+    protected void enqueueItem(EntityLogItem item) {
+        // the writer bypasses JPA, so fill in what the persistence listener sets on persist
+        item.setCreateTs(timeSource.currentTimestamp());
+        item.setCreatedBy(auditInfoProvider.getCurrentUserLogin());
+
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            writeAsync(item);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+            @Override
+            public void afterCommit() {
+                if (item.getDbGeneratedIdEntity() != null) {
+                    Number id = item.getDbGeneratedIdEntity().getId().getNN();
+                    item.setObjectEntityId(id);
+                }
+                writeAsync(item);
+            }
+        });
+    }
+
+    protected void writeAsync(EntityLogItem item) {
+        if (!entityLogWriter.enqueue(item)) {
+            try (Transaction tx = persistence.createTransaction()) {
+                EntityManager em = persistence.getEntityManager();
+                em.persist(item);
+                tx.commit();
+            }
+        }
+    }
+
     @Override
     public synchronized boolean isEnabled() {
         return config.getEnabled() && isLoggingForCurrentThread();
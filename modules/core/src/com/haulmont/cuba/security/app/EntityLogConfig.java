@@ -21,6 +21,8 @@ import com.haulmont.cuba.core.config.Property;
 import com.haulmont.cuba.core.config.Source;
 import com.haulmont.cuba.core.config.SourceType;
 import com.haulmont.cuba.core.config.defaults.DefaultBoolean;
+import com.haulmont.cuba.core.config.defaults.DefaultInt;
+import com.haulmont.cuba.core.config.defaults.DefaultLong;
 
 /**
  * {@link com.haulmont.cuba.security.app.EntityLog} configuration parameters
@@ -35,4 +37,46 @@ public interface EntityLogConfig extends Config {
     @DefaultBoolean(true)
     boolean getEnabled();
     void setEnabled(boolean value);
-}
\ No newline at end of file
+
+    /**
+     * @return whether log items are written to the database asynchronously by {@link EntityLogWriter}
+     * after the business transaction is committed, instead of being persisted inside it
+     */
+    @Source(type = SourceType.APP)
+    @Property("cuba.entityLog.asyncWriting.enabled")
+    @DefaultBoolean(false)
+    boolean getAsyncWritingEnabled();
+
+    /**
+     * @return maximum number of log items waiting in the asynchronous writer queue
+     */
+    @Source(type = SourceType.APP)
+    @Property("cuba.entityLog.asyncWriting.queueCapacity")
+    @DefaultInt(10000)
+    int getAsyncWritingQueueCapacity();
+
+    /**
+     * @return interval between flushes of the asynchronous writer queue, in milliseconds
+     */
+    @Source(type = SourceType.APP)
+    @Property("cuba.entityLog.asyncWriting.flushInterval")
+    @DefaultLong(1000)
+    long getAsyncWritingFlushInterval();
+
+    /**
+     * @return maximum number of log items inserted in a single JDBC batch
+     */
+    @Source(type = SourceType.APP)
+    @Property("cuba.entityLog.asyncWriting.batchSize")
+    @DefaultInt(500)
+    int getAsyncWritingBatchSize();
+
+    /**
+     * @return how long a committing thread waits for free space in a full queue, in milliseconds.
+     * If the timeout expires, the item is written synchronously in a separate transaction.
+     */
+    @Source(type = SourceType.APP)
+    @Property("cuba.entityLog.asyncWriting.offerTimeout")
+    @DefaultLong(100)
+    long getAsyncWritingOfferTimeout();
+}
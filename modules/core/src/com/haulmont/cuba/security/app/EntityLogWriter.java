@@ -0,0 +1,303 @@
+/*
+ * Copyright (c) 2008-2020 Haulmont.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.haulmont.cuba.security.app;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.haulmont.bali.db.QueryRunner;
+import com.haulmont.cuba.core.Persistence;
+import com.haulmont.cuba.core.entity.ReferenceToEntity;
+import com.haulmont.cuba.core.global.Configuration;
+import com.haulmont.cuba.core.sys.events.AppContextStoppedEvent;
+import com.haulmont.cuba.core.sys.persistence.DbTypeConverter;
+import com.haulmont.cuba.security.entity.EntityLogItem;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import javax.inject.Inject;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Writes {@link EntityLogItem}s to the database in a background thread.
+ * <p>
+ * Items are accumulated in a bounded queue and inserted into {@code SEC_ENTITY_LOG} by JDBC batches
+ * either every {@link EntityLogConfig#getAsyncWritingFlushInterval()} milliseconds or as soon as
+ * {@link EntityLogConfig#getAsyncWritingBatchSize()} items are waiting.
+ * <p>
+ * Used by {@link EntityLog} when {@link EntityLogConfig#getAsyncWritingEnabled()} is true.
+ */
+@Component(EntityLogWriter.NAME)
+public class EntityLogWriter {
+
+    public static final String NAME = "cuba_EntityLogWriter";
+
+    private static final Logger log = LoggerFactory.getLogger(EntityLogWriter.class);
+
+    protected static final String INSERT_SQL = "insert into SEC_ENTITY_LOG (ID, CREATE_TS, CREATED_BY, SYS_TENANT_ID, " +
+            "EVENT_TS, USER_ID, CHANGE_TYPE, ENTITY, ENTITY_INSTANCE_NAME, " +
+            "ENTITY_ID, STRING_ENTITY_ID, INT_ENTITY_ID, LONG_ENTITY_ID, CHANGES) " +
+            "values (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    @Inject
+    protected Persistence persistence;
+
+    protected EntityLogConfig config;
+
+    protected final BlockingQueue<QueuedItem> queue;
+
+    protected final AtomicBoolean flushScheduled = new AtomicBoolean();
+
+    protected volatile ScheduledExecutorService executor;
+
+    protected volatile boolean stopped;
+
+    protected final AtomicLong writtenCount = new AtomicLong();
+    protected final AtomicLong failedCount = new AtomicLong();
+    protected final AtomicLong rejectedCount = new AtomicLong();
+    protected volatile long lastFlushDuration;
+
+    @Inject
+    public EntityLogWriter(Configuration configuration) {
+        config = configuration.getConfig(EntityLogConfig.class);
+        queue = new ArrayBlockingQueue<>(config.getAsyncWritingQueueCapacity());
+    }
+
+    /**
+     * Puts the item to the queue. If the queue is full, waits for free space up to
+     * {@link EntityLogConfig#getAsyncWritingOfferTimeout()} milliseconds.
+     *
+     * @param item log item with all attributes set, including ID, creation info and the entity reference
+     * @return true if the item is accepted, false if the queue is still full or the writer is stopped
+     * and the caller should save the item itself
+     */
+    public boolean enqueue(EntityLogItem item) {
+        if (stopped)
+            return false;
+
+        ensureStarted();
+
+        boolean accepted;
+        try {
+            accepted = queue.offer(new QueuedItem(item), config.getAsyncWritingOfferTimeout(), TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            accepted = false;
+        }
+        if (!accepted) {
+            rejectedCount.incrementAndGet();
+            log.debug("EntityLog queue is full, item {} will be written synchronously", item.getId());
+            return false;
+        }
+
+        if (queue.size() >= config.getAsyncWritingBatchSize()) {
+            scheduleFlush();
+        }
+        return true;
+    }
+
+    /**
+     * Writes all queued items in the calling thread.
+     */
+    public void flush() {
+        synchronized (queue) {
+            int batchSize = Math.max(config.getAsyncWritingBatchSize(), 1);
+            List<QueuedItem> batch = new ArrayList<>(Math.min(batchSize, queue.size()));
+            while (queue.drainTo(batch, batchSize) > 0) {
+                long start = System.currentTimeMillis();
+                writeBatch(batch);
+                lastFlushDuration = System.currentTimeMillis() - start;
+                batch.clear();
+            }
+        }
+    }
+
+    /**
+     * @return number of items waiting in the queue
+     */
+    public int getQueueSize() {
+        return queue.size();
+    }
+
+    /**
+     * @return age of the oldest item in the queue in milliseconds, or 0 if the queue is empty
+     */
+    public long getLag() {
+        QueuedItem head = queue.peek();
+        return head == null ? 0 : System.currentTimeMillis() - head.enqueuedAt;
+    }
+
+    /**
+     * @return number of items written to the database since the server start
+     */
+    public long getWrittenCount() {
+        return writtenCount.get();
+    }
+
+    /**
+     * @return number of items that could not be written to the database
+     */
+    public long getFailedCount() {
+        return failedCount.get();
+    }
+
+    /**
+     * @return number of items not accepted because the queue was full
+     */
+    public long getRejectedCount() {
+        return rejectedCount.get();
+    }
+
+    /**
+     * @return duration of the last batch insert in milliseconds
+     */
+    public long getLastFlushDuration() {
+        return lastFlushDuration;
+    }
+
+    @EventListener(AppContextStoppedEvent.class)
+    protected void applicationStopped() {
+        stopped = true;
+        synchronized (this) {
+            if (executor != null) {
+                executor.shutdown();
+                try {
+                    executor.awaitTermination(10, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }
+        flush();
+    }
+
+    protected void ensureStarted() {
+        if (executor != null)
+            return;
+        synchronized (this) {
+            if (executor == null) {
+                ScheduledExecutorService newExecutor = Executors.newSingleThreadScheduledExecutor(
+                        new ThreadFactoryBuilder().setNameFormat("EntityLogWriter-%d").setDaemon(true).build());
+                long interval = config.getAsyncWritingFlushInterval();
+                newExecutor.scheduleWithFixedDelay(this::flushSafely, interval, interval, TimeUnit.MILLISECONDS);
+                executor = newExecutor;
+            }
+        }
+    }
+
+    protected void scheduleFlush() {
+        if (flushScheduled.compareAndSet(false, true)) {
+            try {
+                executor.execute(() -> {
+                    flushScheduled.set(false);
+                    flushSafely();
+                });
+            } catch (RejectedExecutionException e) {
+                flushScheduled.set(false);
+            }
+        }
+    }
+
+    protected void flushSafely() {
+        try {
+            flush();
+        } catch (Throwable e) {
+            log.error("Error flushing EntityLog queue", e);
+        }
+    }
+
+    protected void writeBatch(List<QueuedItem> batch) {
+        DbTypeConverter converter = persistence.getDbTypeConverter();
+        int[] paramTypes = getParamTypes(converter);
+        Object[][] params = new Object[batch.size()][];
+        for (int i = 0; i < batch.size(); i++) {
+            params[i] = getParams(batch.get(i).item, converter);
+        }
+
+        QueryRunner runner = new QueryRunner(persistence.getDataSource());
+        try {
+            runner.batch(INSERT_SQL, params, paramTypes);
+            writtenCount.addAndGet(batch.size());
+        } catch (SQLException e) {
+            log.warn("Error inserting a batch of {} EntityLog items, trying to insert them one by one: {}",
+                    batch.size(), e.toString());
+            // find and report the failed items without losing the rest of the batch
+            for (int i = 0; i < params.length; i++) {
+                try {
+                    runner.update(INSERT_SQL, params[i], paramTypes);
+                    writtenCount.incrementAndGet();
+                } catch (SQLException ex) {
+                    failedCount.incrementAndGet();
+                    log.error("Error inserting EntityLog item {}", batch.get(i).item, ex);
+                }
+            }
+        }
+    }
+
+    protected int[] getParamTypes(DbTypeConverter converter) {
+        int uuidType = converter.getSqlType(UUID.class);
+        int dateType = converter.getSqlType(Date.class);
+        return new int[]{
+                uuidType, dateType, Types.VARCHAR, Types.VARCHAR,
+                dateType, uuidType, Types.VARCHAR, Types.VARCHAR, Types.VARCHAR,
+                uuidType, Types.VARCHAR, Types.INTEGER, Types.BIGINT, Types.VARCHAR
+        };
+    }
+
+    protected Object[] getParams(EntityLogItem item, DbTypeConverter converter) {
+        ReferenceToEntity ref = item.getEntityRef();
+        return new Object[]{
+                converter.getSqlObject(item.getId()),
+                toSqlObject(item.getCreateTs(), converter),
+                item.getCreatedBy(),
+                item.getSysTenantId(),
+                toSqlObject(item.getEventTs(), converter),
+                item.getUser() != null ? converter.getSqlObject(item.getUser().getId()) : null,
+                item.getType() != null ? item.getType().getId() : null,
+                item.getEntity(),
+                item.getEntityInstanceName(),
+                toSqlObject(ref.getEntityId(), converter),
+                ref.getStringEntityId(),
+                ref.getIntEntityId(),
+                ref.getLongEntityId(),
+                item.getChanges()
+        };
+    }
+
+    protected Object toSqlObject(Object value, DbTypeConverter converter) {
+        return value == null ? null : converter.getSqlObject(value);
+    }
+
+    protected static class QueuedItem {
+
+        protected final EntityLogItem item;
+        protected final long enqueuedAt;
+
+        protected QueuedItem(EntityLogItem item) {
+            this.item = item;
+            this.enqueuedAt = System.currentTimeMillis();
+        }
+    }
+}
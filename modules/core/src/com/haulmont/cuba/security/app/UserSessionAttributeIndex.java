@@ -0,0 +1,133 @@
+/*
+ * Copyright (c) 2008-2020 Haulmont.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.haulmont.cuba.security.app;
+
+import com.haulmont.cuba.security.global.UserSession;
+
+import javax.annotation.Nullable;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Index of user sessions by values of selected session attributes.
+ * <p>
+ * Attribute values are read when a session is put into the index, i.e. when it is added to {@link UserSessions},
+ * touched or received from the cluster. The index can return sessions which attribute has been changed after
+ * that, so the caller must check the actual attribute values.
+ */
+public class UserSessionAttributeIndex {
+
+    protected static final Object NULL_VALUE = new Object();
+
+    protected final Set<String> attributes;
+
+    protected final Map<String, Map<Object, Set<UUID>>> index = new ConcurrentHashMap<>();
+
+    protected final Map<UUID, Map<String, Object>> indexedValues = new ConcurrentHashMap<>();
+
+    public UserSessionAttributeIndex(Collection<String> attributes) {
+        this.attributes = Collections.unmodifiableSet(new LinkedHashSet<>(attributes));
+        for (String attribute : this.attributes) {
+            index.put(attribute, new ConcurrentHashMap<>());
+        }
+    }
+
+    public Set<String> getAttributes() {
+        return attributes;
+    }
+
+    public boolean isIndexed(String attributeName) {
+        return attributes.contains(attributeName);
+    }
+
+    public void put(UserSession session) {
+        if (attributes.isEmpty()) {
+            return;
+        }
+
+        UUID id = session.getId();
+        Map<String, Object> values = new HashMap<>(attributes.size());
+        for (String attribute : attributes) {
+            values.put(attribute, maskNull(session.getAttribute(attribute)));
+        }
+
+        Map<String, Object> previousValues = indexedValues.put(id, values);
+        for (String attribute : attributes) {
+            Object value = values.get(attribute);
+            Object previousValue = previousValues != null ? previousValues.get(attribute) : null;
+            if (!Objects.equals(value, previousValue)) {
+                if (previousValue != null) {
+                    removeEntry(attribute, previousValue, id);
+                }
+                index.get(attribute).compute(value, (key, ids) -> {
+                    if (ids == null) {
+                        ids = ConcurrentHashMap.newKeySet();
+                    }
+                    ids.add(id);
+                    return ids;
+                });
+            }
+        }
+    }
+
+    public void remove(UUID id) {
+        Map<String, Object> previousValues = indexedValues.remove(id);
+        if (previousValues != null) {
+            for (Map.Entry<String, Object> entry : previousValues.entrySet()) {
+                removeEntry(entry.getKey(), entry.getValue(), id);
+            }
+        }
+    }
+
+    /**
+     * @return ids of sessions having the given value of the indexed attribute
+     */
+    public Set<UUID> find(String attributeName, @Nullable Object value) {
+        Map<Object, Set<UUID>> attributeIndex = index.get(attributeName);
+        if (attributeIndex == null) {
+            throw new IllegalArgumentException("Attribute " + attributeName + " is not indexed");
+        }
+        Set<UUID> ids = attributeIndex.get(maskNull(value));
+        return ids != null ? new HashSet<>(ids) : Collections.emptySet();
+    }
+
+    public void clear() {
+        indexedValues.clear();
+        for (Map<Object, Set<UUID>> attributeIndex : index.values()) {
+            attributeIndex.clear();
+        }
+    }
+
+    protected void removeEntry(String attribute, Object value, UUID id) {
+        index.get(attribute).computeIfPresent(value, (key, ids) -> {
+            ids.remove(id);
+            return ids.isEmpty() ? null : ids;
+        });
+    }
+
+    protected Object maskNull(@Nullable Object value) {
+        return value != null ? value : NULL_VALUE;
+    }
+}
@@ -0,0 +1,142 @@
+/*
+ * Copyright (c) 2008-2020 Haulmont.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.haulmont.cuba.security.app;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Schedule of user session expiration checks, divided into time slots. Eviction processes only the sessions
+ * scheduled to the slots which are due instead of scanning all sessions.
+ * <p>
+ * The schedule is lazy: a session is not moved to a later slot each time it is used. When its slot comes due,
+ * the session is checked against its actual last used time and scheduled again if it has not expired.
+ */
+public class UserSessionExpirationWheel {
+
+    protected final long slotMillis;
+
+    protected final TreeMap<Long, Set<UUID>> slots = new TreeMap<>();
+
+    protected final Map<UUID, Long> scheduledSlots = new ConcurrentHashMap<>();
+
+    public UserSessionExpirationWheel(long slotMillis) {
+        if (slotMillis <= 0) {
+            throw new IllegalArgumentException("slotMillis must be positive");
+        }
+        this.slotMillis = slotMillis;
+    }
+
+    /**
+     * Schedules the expiration check of a session, unless it is already scheduled to the same or an earlier slot.
+     */
+    public void schedule(UUID id, long expirationTs) {
+        long slot = toSlot(expirationTs);
+        Long scheduledSlot = scheduledSlots.get(id);
+        if (scheduledSlot != null && scheduledSlot <= slot) {
+            return;
+        }
+        synchronized (slots) {
+            scheduledSlot = scheduledSlots.get(id);
+            if (scheduledSlot != null) {
+                if (scheduledSlot <= slot) {
+                    return;
+                }
+                removeFromSlot(scheduledSlot, id);
+            }
+            slots.computeIfAbsent(slot, key -> new HashSet<>()).add(id);
+            scheduledSlots.put(id, slot);
+        }
+    }
+
+    /**
+     * Schedules the expiration check of a session to the slot of the given time, even if it is later than the
+     * currently scheduled one.
+     */
+    public void reschedule(UUID id, long expirationTs) {
+        synchronized (slots) {
+            unschedule(id);
+            schedule(id, expirationTs);
+        }
+    }
+
+    public void unschedule(UUID id) {
+        if (!scheduledSlots.containsKey(id)) {
+            return;
+        }
+        synchronized (slots) {
+            Long scheduledSlot = scheduledSlots.remove(id);
+            if (scheduledSlot != null) {
+                removeFromSlot(scheduledSlot, id);
+            }
+        }
+    }
+
+    /**
+     * Removes the sessions scheduled to the slots up to the given time from the schedule.
+     *
+     * @return ids of the removed sessions
+     */
+    public List<UUID> pollDue(long now) {
+        long dueSlot = toSlot(now);
+        List<UUID> ids = new ArrayList<>();
+        synchronized (slots) {
+            Iterator<Map.Entry<Long, Set<UUID>>> iterator = slots.headMap(dueSlot, true).entrySet().iterator();
+            while (iterator.hasNext()) {
+                Set<UUID> slotIds = iterator.next().getValue();
+                for (UUID id : slotIds) {
+                    scheduledSlots.remove(id);
+                }
+                ids.addAll(slotIds);
+                iterator.remove();
+            }
+        }
+        return ids;
+    }
+
+    public int size() {
+        return scheduledSlots.size();
+    }
+
+    public void clear() {
+        synchronized (slots) {
+            slots.clear();
+            scheduledSlots.clear();
+        }
+    }
+
+    protected void removeFromSlot(long slot, UUID id) {
+        Set<UUID> slotIds = slots.get(slot);
+        if (slotIds != null) {
+            slotIds.remove(id);
+            if (slotIds.isEmpty()) {
+                slots.remove(slot);
+            }
+        }
+    }
+
+    protected long toSlot(long ts) {
+        return ts / slotMillis;
+    }
+}
@@ -0,0 +1,57 @@
+/*
+ * Copyright (c) 2008-2020 Haulmont.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.haulmont.cuba.security.app;
+
+import com.haulmont.cuba.core.app.CoalescingClusterMessage;
+
+import java.util.Date;
+import java.util.UUID;
+
+/**
+ * Cluster message updating the last used timestamp of a user session which is already known to other nodes.
+ * Unlike {@link UserSessions.UserSessionInfo}, it does not contain the session itself.
+ */
+public class UserSessionTouch implements CoalescingClusterMessage {
+
+    private static final long serialVersionUID = 3467158032937128403L;
+
+    private final UUID sessionId;
+    private final long lastUsedTs;
+
+    public UserSessionTouch(UUID sessionId, long lastUsedTs) {
+        this.sessionId = sessionId;
+        this.lastUsedTs = lastUsedTs;
+    }
+
+    public UUID getSessionId() {
+        return sessionId;
+    }
+
+    public long getLastUsedTs() {
+        return lastUsedTs;
+    }
+
+    @Override
+    public Object getCoalescingKey() {
+        return sessionId;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("UserSessionTouch{sessionId=%s, lastUsed: %s}", sessionId, new Date(lastUsedTs));
+    }
+}
@@ -17,6 +17,7 @@ package com.haulmont.cuba.security.app;
 
 import com.haulmont.bali.util.Preconditions;
 import com.haulmont.cuba.core.app.ClusterListener;
+import com.haulmont.cuba.core.app.ClusterListenerAdapter;
 import com.haulmont.cuba.core.app.ClusterManagerAPI;
 import com.haulmont.cuba.core.app.ServerConfig;
 import com.haulmont.cuba.core.global.Configuration;
@@ -86,8 +87,17 @@ public class UserSessions implements UserSessionsAPI {
 
     private static final Logger log = LoggerFactory.getLogger(UserSessions.class);
 
+    /**
+     * Time slot of {@link #expirationWheel}, equal to the default eviction period.
+     */
+    protected static final long EXPIRATION_SLOT_MS = 10000;
+
     protected Map<UUID, UserSessionInfo> cache = new ConcurrentHashMap<>();
 
+    protected UserSessionAttributeIndex attributeIndex = new UserSessionAttributeIndex(Collections.emptyList());
+
+    protected UserSessionExpirationWheel expirationWheel = new UserSessionExpirationWheel(EXPIRATION_SLOT_MS);
+
     protected volatile int expirationTimeout = 1800;
 
     protected volatile int sendTimeout = 10;
@@ -128,6 +138,11 @@ public class UserSessions implements UserSessionsAPI {
         setExpirationTimeoutSec(serverConfig.getUserSessionExpirationTimeoutSec());
         setSendTimeoutSec(serverConfig.getUserSessionSendTimeoutSec());
         touchTimeout = serverConfig.getUserSessionTouchTimeoutSec();
+
+        List<String> indexedAttributes = serverConfig.getUserSessionIndexedAttributes();
+        if (indexedAttributes != null && !indexedAttributes.isEmpty()) {
+            attributeIndex = new UserSessionAttributeIndex(indexedAttributes);
+        }
     }
 
     @Inject
@@ -153,6 +168,15 @@ public class UserSessions implements UserSessionsAPI {
                     }
                 }
         );
+        this.clusterManager.addListener(
+                UserSessionTouch.class,
+                new ClusterListenerAdapter<UserSessionTouch>() {
+                    @Override
+                    public void receive(UserSessionTouch message) {
+                        receiveTouchMessage(message);
+                    }
+                }
+        );
     }
 
     protected void receiveClusterMessage(UserSessionInfo message) {
@@ -168,6 +192,14 @@ public class UserSessions implements UserSessionsAPI {
         }
     }
 
+    protected void receiveTouchMessage(UserSessionTouch message) {
+        UserSessionInfo usi = getSessionInfo(message.getSessionId());
+        if (usi != null && usi.lastUsedTs < message.getLastUsedTs()) {
+            usi.lastUsedTs = message.getLastUsedTs();
+            putSessionInfo(message.getSessionId(), usi);
+        }
+    }
+
     protected void receiveClusterState(byte[] state) {
         if (state == null || state.length == 0) {
             log.debug("Received empty user sessions cache");
@@ -292,7 +324,8 @@ public class UserSessions implements UserSessionsAPI {
                 if (propagate && !usi.session.isSystem()) {
                     if (now > (usi.lastSentTs + toMillis(sendTimeout))) {
                         usi.lastSentTs = now;
-                        clusterManager.send(usi);
+                        // other nodes already have the session, only the timestamp is sent
+                        clusterManager.send(new UserSessionTouch(id, usi.lastUsedTs));
                     }
                 }
             }
@@ -321,6 +354,9 @@ public class UserSessions implements UserSessionsAPI {
     @Override
     public void setExpirationTimeoutSec(int value) {
         expirationTimeout = value;
+        getSessionInfoStream()
+                .filter(info -> !info.session.isSystem())
+                .forEach(info -> expirationWheel.reschedule(info.session.getId(), getExpirationTs(info)));
     }
 
     @Override
@@ -381,6 +417,15 @@ public class UserSessions implements UserSessionsAPI {
     public List<UUID> findUserSessionsByAttribute(String attributeName, Object attributeValue) {
         Preconditions.checkNotNullArgument(attributeName);
 
+        if (attributeIndex.isIndexed(attributeName)) {
+            return attributeIndex.find(attributeName, attributeValue).stream()
+                    .map(this::getSessionInfo)
+                    .filter(usInfo -> usInfo != null
+                            && Objects.equals(usInfo.session.getAttribute(attributeName), attributeValue))
+                    .map(userSessionInfo -> userSessionInfo.session.getId())
+                    .collect(Collectors.toList());
+        }
+
         //noinspection UnnecessaryLocalVariable
         List<UUID> sessionIds = getSessionInfoStream()
                 .filter(usInfo -> Objects.equals(usInfo.session.getAttribute(attributeName), attributeValue))
@@ -398,18 +443,30 @@ public class UserSessions implements UserSessionsAPI {
         log.trace("Processing eviction");
         long now = timeSource.currentTimeMillis();
 
-        getSessionInfoStream()
-                .filter(info -> !info.session.isSystem() && now > (info.lastUsedTs + toMillis(expirationTimeout)))
-                .forEach(usi -> {
-                    log.debug("Removing session due to timeout: {}", usi);
+        for (UUID id : expirationWheel.pollDue(now)) {
+            UserSessionInfo usi = getSessionInfo(id);
+            if (usi == null || usi.session.isSystem()) {
+                continue;
+            }
+            long expirationTs = getExpirationTs(usi);
+            if (now > expirationTs) {
+                log.debug("Removing session due to timeout: {}", usi);
 
-                    userSessionLog.updateSessionLogRecord(usi.getSession(), SessionAction.EXPIRATION);
+                userSessionLog.updateSessionLogRecord(usi.getSession(), SessionAction.EXPIRATION);
 
-                    removeSessionInfo(usi.session.getId());
+                removeSessionInfo(id);
 
-                    usi.lastUsedTs = 0;
-                    clusterManager.send(usi);
-                });
+                usi.lastUsedTs = 0;
+                clusterManager.send(usi);
+            } else {
+                // the session has been used since it was scheduled
+                expirationWheel.schedule(id, expirationTs);
+            }
+        }
+    }
+
+    protected long getExpirationTs(UserSessionInfo info) {
+        return info.lastUsedTs + toMillis(expirationTimeout);
     }
 
     protected UserSessionInfo getSessionInfo(UUID id) {
@@ -418,11 +475,18 @@ public class UserSessions implements UserSessionsAPI {
 
     protected void putSessionInfo(UUID id, UserSessionInfo info) {
         cache.put(id, info);
+        attributeIndex.put(info.session);
+        if (!info.session.isSystem()) {
+            expirationWheel.schedule(id, getExpirationTs(info));
+        }
     }
 
     @Nullable
     protected UserSessionInfo removeSessionInfo(UUID id) {
-        return cache.remove(id);
+        UserSessionInfo info = cache.remove(id);
+        attributeIndex.remove(id);
+        expirationWheel.unschedule(id);
+        return info;
     }
 
     protected Stream<UserSessionInfo> getSessionInfoStream() {
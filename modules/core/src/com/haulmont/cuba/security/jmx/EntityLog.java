@@ -19,6 +19,7 @@ package com.haulmont.cuba.security.jmx;
 
 import com.haulmont.cuba.security.app.Authenticated;
 import com.haulmont.cuba.security.app.EntityLogAPI;
+import com.haulmont.cuba.security.app.EntityLogWriter;
 
 import org.springframework.stereotype.Component;
 import javax.inject.Inject;
@@ -29,6 +30,9 @@ public class EntityLog implements EntityLogMBean {
     @Inject
     protected EntityLogAPI entityLog;
 
+    @Inject
+    protected EntityLogWriter entityLogWriter;
+
     @Override
     public boolean isEnabled() {
         return entityLog.isEnabled();
@@ -44,4 +48,39 @@ public class EntityLog implements EntityLogMBean {
     public void invalidateCache() {
         entityLog.invalidateCache();
     }
-}
\ No newline at end of file
+
+    @Override
+    public int getAsyncQueueSize() {
+        return entityLogWriter.getQueueSize();
+    }
+
+    @Override
+    public long getAsyncQueueLag() {
+        return entityLogWriter.getLag();
+    }
+
+    @Override
+    public long getAsyncWrittenCount() {
+        return entityLogWriter.getWrittenCount();
+    }
+
+    @Override
+    public long getAsyncFailedCount() {
+        return entityLogWriter.getFailedCount();
+    }
+
+    @Override
+    public long getAsyncRejectedCount() {
+        return entityLogWriter.getRejectedCount();
+    }
+
+    @Override
+    public long getAsyncLastFlushDuration() {
+        return entityLogWriter.getLastFlushDuration();
+    }
+
+    @Override
+    public void flushAsyncQueue() {
+        entityLogWriter.flush();
+    }
+}
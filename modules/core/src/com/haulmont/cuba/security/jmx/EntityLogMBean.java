@@ -36,4 +36,39 @@ public interface EntityLogMBean {
      * The configuration will be recreated from the database on next lifecycle event.
      */
     void invalidateCache();
+
+    /**
+     * @return number of log items waiting for the asynchronous writer
+     */
+    int getAsyncQueueSize();
+
+    /**
+     * @return age of the oldest item waiting for the asynchronous writer, in milliseconds
+     */
+    long getAsyncQueueLag();
+
+    /**
+     * @return number of log items written by the asynchronous writer
+     */
+    long getAsyncWrittenCount();
+
+    /**
+     * @return number of log items the asynchronous writer failed to insert
+     */
+    long getAsyncFailedCount();
+
+    /**
+     * @return number of log items written synchronously because the asynchronous writer queue was full
+     */
+    long getAsyncRejectedCount();
+
+    /**
+     * @return duration of the last asynchronous batch insert, in milliseconds
+     */
+    long getAsyncLastFlushDuration();
+
+    /**
+     * Writes all log items waiting in the asynchronous writer queue.
+     */
+    void flushAsyncQueue();
 }
@@ -0,0 +1,114 @@
+/*
+ * Copyright (c) 2008-2020 Haulmont.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.haulmont.cuba.core;
+
+import com.google.common.cache.CacheBuilder;
+import com.haulmont.chile.core.model.MetaClass;
+import com.haulmont.cuba.core.app.dynamicattributes.DynamicAttributeValuesCache;
+import com.haulmont.cuba.core.entity.CategoryAttributeValue;
+import com.haulmont.cuba.core.global.AppBeans;
+import com.haulmont.cuba.core.global.Metadata;
+import com.haulmont.cuba.core.global.MetadataTools;
+import com.haulmont.cuba.core.global.PersistenceHelper;
+import com.haulmont.cuba.security.entity.Group;
+import com.haulmont.cuba.security.entity.User;
+import com.haulmont.cuba.testsupport.TestContainer;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class DynamicAttributeValuesCacheTest {
+
+    @RegisterExtension
+    public static TestContainer cont = TestContainer.Common.INSTANCE;
+
+    private Metadata metadata;
+    private DynamicAttributeValuesCache valuesCache;
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        metadata = AppBeans.get(Metadata.class);
+        // the cache is disabled in the test application, so an enabled instance is created here
+        valuesCache = new DynamicAttributeValuesCache() {
+            {
+                metadataTools = AppBeans.get(MetadataTools.class);
+                cache = CacheBuilder.newBuilder().maximumSize(10).recordStats().build();
+            }
+        };
+    }
+
+    @Test
+    public void testCachedValuesAreCopied() throws Exception {
+        MetaClass userMetaClass = metadata.getClassNN(User.class);
+        UUID userId = UUID.randomUUID();
+        CategoryAttributeValue value = createValue(userId, "value1");
+
+        valuesCache.put(userMetaClass, userId, Collections.singletonList(value), valuesCache.getVersion());
+        value.setStringValue("changed");
+
+        List<CategoryAttributeValue> cached1 = valuesCache.get(userMetaClass, userId);
+        assertNotNull(cached1);
+        assertEquals(1, cached1.size());
+        assertEquals(value.getId(), cached1.get(0).getId());
+        assertEquals("value1", cached1.get(0).getStringValue());
+        assertEquals(userId, cached1.get(0).getObjectEntityId());
+        assertTrue(PersistenceHelper.isDetached(cached1.get(0)));
+
+        cached1.get(0).setStringValue("changed");
+        List<CategoryAttributeValue> cached2 = valuesCache.get(userMetaClass, userId);
+        assertNotSame(cached1.get(0), cached2.get(0));
+        assertEquals("value1", cached2.get(0).getStringValue());
+
+        assertNull(valuesCache.get(metadata.getClassNN(Group.class), userId));
+    }
+
+    @Test
+    public void testInvalidation() throws Exception {
+        MetaClass userMetaClass = metadata.getClassNN(User.class);
+        UUID userId = UUID.randomUUID();
+
+        long version = valuesCache.getVersion();
+        valuesCache.put(userMetaClass, userId, Collections.emptyList(), version);
+        assertEquals(Collections.emptyList(), valuesCache.get(userMetaClass, userId));
+
+        valuesCache.invalidate(Collections.singleton(userId));
+        assertNull(valuesCache.get(userMetaClass, userId));
+
+        // values loaded before invalidation must not be cached
+        valuesCache.put(userMetaClass, userId, Collections.singletonList(createValue(userId, "stale")), version);
+        assertNull(valuesCache.get(userMetaClass, userId));
+
+        valuesCache.put(userMetaClass, userId, Collections.emptyList(), valuesCache.getVersion());
+        valuesCache.invalidateAll();
+        assertNull(valuesCache.get(userMetaClass, userId));
+        assertEquals(0, valuesCache.getSize());
+    }
+
+    private CategoryAttributeValue createValue(UUID entityId, String stringValue) {
+        CategoryAttributeValue value = metadata.create(CategoryAttributeValue.class);
+        value.setCode("attr");
+        value.setStringValue(stringValue);
+        value.setObjectEntityId(entityId);
+        return value;
+    }
+}
@@ -0,0 +1,77 @@
+/*
+ * Copyright (c) 2008-2020 Haulmont.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.haulmont.cuba.core;
+
+import com.haulmont.cuba.core.global.AppBeans;
+import com.haulmont.cuba.core.global.View;
+import com.haulmont.cuba.core.sys.FetchGroupDescription;
+import com.haulmont.cuba.core.sys.FetchGroupManager;
+import com.haulmont.cuba.security.entity.Group;
+import com.haulmont.cuba.security.entity.User;
+import com.haulmont.cuba.testsupport.TestContainer;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class FetchGroupCacheTest {
+
+    @RegisterExtension
+    public static TestContainer cont = TestContainer.Common.INSTANCE;
+
+    private FetchGroupManager fetchGroupManager;
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        fetchGroupManager = AppBeans.get(FetchGroupManager.class);
+        fetchGroupManager.clearCache();
+    }
+
+    @Test
+    public void testCachedDescription() throws Exception {
+        String query = "select u from sec$User u where u.login = :login";
+
+        FetchGroupDescription description1 = fetchGroupManager.calculateFetchGroup(query, createView(), false, true);
+        long hitCount = fetchGroupManager.getCacheStats().hitCount();
+
+        // structurally equal view created anew must hit the cache
+        FetchGroupDescription description2 = fetchGroupManager.calculateFetchGroup(query, createView(), false, true);
+        assertSame(description1, description2);
+        assertEquals(hitCount + 1, fetchGroupManager.getCacheStats().hitCount());
+
+        FetchGroupDescription description3 = fetchGroupManager.calculateFetchGroup(query, createView(), true, true);
+        assertNotSame(description1, description3);
+
+        View otherView = createView().addProperty("name");
+        FetchGroupDescription description4 = fetchGroupManager.calculateFetchGroup(query, otherView, false, true);
+        assertNotSame(description1, description4);
+        assertTrue(description4.getAttributes().contains("name"));
+
+        fetchGroupManager.clearCache();
+        assertEquals(0, fetchGroupManager.getCacheSize());
+        FetchGroupDescription description5 = fetchGroupManager.calculateFetchGroup(query, createView(), false, true);
+        assertNotSame(description1, description5);
+        assertEquals(description1.getAttributes(), description5.getAttributes());
+    }
+
+    private View createView() {
+        return new View(User.class, false)
+                .addProperty("login")
+                .addProperty("group", new View(Group.class).addProperty("name"));
+    }
+}
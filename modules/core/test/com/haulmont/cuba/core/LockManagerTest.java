@@ -17,19 +17,27 @@
 
 package com.haulmont.cuba.core;
 
+import com.haulmont.cuba.core.app.LockExpirationWheel;
 import com.haulmont.cuba.core.app.LockManagerAPI;
 import com.haulmont.cuba.core.entity.LockDescriptor;
 import com.haulmont.cuba.core.entity.Server;
 import com.haulmont.cuba.core.global.AppBeans;
 import com.haulmont.cuba.core.global.LockInfo;
+import com.haulmont.cuba.core.global.LockNotSupported;
+import com.haulmont.cuba.core.global.UserSessionSource;
 import com.haulmont.cuba.testsupport.TestContainer;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.extension.RegisterExtension;
 import org.junit.jupiter.api.Test;
 
-import static org.junit.jupiter.api.Assertions.assertNotNull;
-import static org.junit.jupiter.api.Assertions.assertNull;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
 
 public class LockManagerTest {
 
@@ -73,5 +81,66 @@ public class LockManagerTest {
         lockInfo = lockManager.getLockInfo("sys$Server", entity.getId().toString());
         assertNull(lockInfo);
     }
-}
 
+    @Test
+    public void testBulkLock() throws Exception {
+        String id1 = UUID.randomUUID().toString();
+        String id2 = UUID.randomUUID().toString();
+        String id3 = UUID.randomUUID().toString();
+
+        Map<String, LockInfo> result = lockManager.lock("sys$Server", Arrays.asList(id1, id2));
+        assertTrue(result.isEmpty());
+        assertNotNull(lockManager.getLockInfo("sys$Server", id1));
+        assertNotNull(lockManager.getLockInfo("sys$Server", id2));
+
+        // nothing is locked if some of the objects are already locked
+        result = lockManager.lock("sys$Server", Arrays.asList(id2, id3));
+        assertEquals(Collections.singleton(id2), result.keySet());
+        assertNull(lockManager.getLockInfo("sys$Server", id3));
+
+        result = lockManager.lock("sys$Category", Collections.singletonList(id1));
+        assertTrue(result.get(id1) instanceof LockNotSupported);
+
+        lockManager.unlock("sys$Server", Arrays.asList(id1, id2));
+        assertNull(lockManager.getLockInfo("sys$Server", id1));
+        assertNull(lockManager.getLockInfo("sys$Server", id2));
+    }
+
+    @Test
+    public void testUnlockByUser() throws Exception {
+        String id1 = UUID.randomUUID().toString();
+        String id2 = UUID.randomUUID().toString();
+
+        assertTrue(lockManager.lock("sys$Server", Arrays.asList(id1, id2)).isEmpty());
+
+        UUID userId = AppBeans.get(UserSessionSource.class).getUserSession().getCurrentOrSubstitutedUser().getId();
+        lockManager.unlockByUser(UUID.randomUUID());
+        assertNotNull(lockManager.getLockInfo("sys$Server", id1));
+
+        lockManager.unlockByUser(userId);
+        assertNull(lockManager.getLockInfo("sys$Server", id1));
+        assertNull(lockManager.getLockInfo("sys$Server", id2));
+    }
+
+    @Test
+    public void testExpirationWheel() throws Exception {
+        LockExpirationWheel<String> wheel = new LockExpirationWheel<>(1000, 8);
+        assertTrue(wheel.advance(10_000).isEmpty());
+
+        wheel.schedule("a", 12_500);
+        wheel.schedule("b", 15_000);
+        // more than one rotation ahead
+        wheel.schedule("c", 20_500);
+        // already passed
+        wheel.schedule("d", 5_000);
+
+        assertEquals(Collections.singletonList("d"), wheel.advance(11_000));
+        assertTrue(wheel.advance(12_000).isEmpty());
+        assertEquals(Collections.singletonList("a"), wheel.advance(13_000));
+
+        List<String> expired = wheel.advance(30_000);
+        assertEquals(2, expired.size());
+        assertTrue(expired.containsAll(Arrays.asList("b", "c")));
+        assertEquals(0, wheel.size());
+    }
+}
@@ -0,0 +1,111 @@
+/*
+ * Copyright (c) 2008-2020 Haulmont.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.haulmont.cuba.core.app;
+
+import com.haulmont.cuba.core.global.LoadContext;
+import com.haulmont.cuba.core.global.ServiceInvocationBatch;
+import com.haulmont.cuba.core.sys.remoting.RemoteClientInfo;
+import com.haulmont.cuba.security.entity.Group;
+import com.haulmont.cuba.security.entity.User;
+import com.haulmont.cuba.security.global.TrustedAccessRequiredException;
+import com.haulmont.cuba.testsupport.TestContainer;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BatchInvocationServiceTest {
+
+    @RegisterExtension
+    public static TestContainer cont = TestContainer.Common.INSTANCE;
+
+    @Test
+    public void testSequentialBatch() {
+        ServiceInvocationBatch batch = new ServiceInvocationBatch();
+        checkBatch(batch);
+    }
+
+    @Test
+    public void testParallelBatch() {
+        ServiceInvocationBatch batch = new ServiceInvocationBatch().setParallel(true);
+        checkBatch(batch);
+    }
+
+    @Test
+    public void testNotExportedService() {
+        ServiceInvocationBatch batch = new ServiceInvocationBatch();
+        ServiceInvocationBatch.Result<Object> result = batch.add(BatchInvocationService.NAME, BatchInvocationService.class,
+                service -> service.invoke(null, false));
+        batch.execute();
+
+        assertTrue(result.getException() instanceof IllegalArgumentException);
+    }
+
+    @Test
+    public void testTrustedClientOnlyService() {
+        RemoteClientInfo remoteClientInfo = new RemoteClientInfo();
+        remoteClientInfo.setAddress("192.168.255.1");
+        RemoteClientInfo.set(remoteClientInfo);
+        try {
+            for (boolean parallel : new boolean[]{false, true}) {
+                ServiceInvocationBatch batch = new ServiceInvocationBatch().setParallel(parallel);
+                ServiceInvocationBatch.Result<String> trusted = batch.add(BatchInvocationTestService.NAME,
+                        BatchInvocationTestService.class, BatchInvocationTestService::trustedClientOnly);
+                ServiceInvocationBatch.Result<String> anyClient = batch.add(BatchInvocationTestService.NAME,
+                        BatchInvocationTestService.class, BatchInvocationTestService::anyClient);
+                batch.execute();
+
+                assertTrue(trusted.getException() instanceof TrustedAccessRequiredException);
+                assertEquals("any", anyClient.get());
+            }
+        } finally {
+            RemoteClientInfo.clear();
+        }
+    }
+
+    private void checkBatch(ServiceInvocationBatch batch) {
+        LoadContext<User> usersContext = LoadContext.create(User.class)
+                .setQuery(LoadContext.createQuery("select u from sec$User u where u.login = :login")
+                        .setParameter("login", "admin"));
+
+        ServiceInvocationBatch.Result<List<User>> users = batch.add(DataService.NAME, DataService.class,
+                service -> service.loadList(usersContext));
+        ServiceInvocationBatch.Result<Long> groupsCount = batch.add(DataService.NAME, DataService.class,
+                service -> service.getCount(LoadContext.create(Group.class)
+                        .setQuery(LoadContext.createQuery("select g from sec$Group g"))));
+        ServiceInvocationBatch.Result<Long> invalid = batch.add(DataService.NAME, DataService.class,
+                service -> service.getCount(LoadContext.create(User.class)
+                        .setQuery(LoadContext.createQuery("select u from sec$User u where u.unknownProperty = 1"))));
+        assertEquals(3, batch.size());
+        assertFalse(users.isDone());
+
+        batch.execute();
+
+        assertTrue(batch.isExecuted());
+        assertEquals(1, users.get().size());
+        assertEquals("admin", users.get().get(0).getLogin());
+        assertTrue(groupsCount.get() > 0);
+
+        // a failed invocation does not affect the others
+        assertNotNull(invalid.getException());
+        assertThrows(RuntimeException.class, invalid::get);
+
+        assertThrows(IllegalStateException.class, batch::execute);
+    }
+}
@@ -0,0 +1,172 @@
+/*
+ * Copyright (c) 2008-2020 Haulmont.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.haulmont.cuba.core.app;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.Serializable;
+import java.lang.reflect.Proxy;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ClusterMessageBatcherTest {
+
+    private TestClusterManager clusterManager;
+
+    private ClusterManager.MessageBatcher batcher;
+
+    @AfterEach
+    public void tearDown() {
+        if (batcher != null) {
+            batcher.scheduler.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testFlushOnBatchingWindow() throws Exception {
+        createBatcher(200);
+
+        batcher.add("message1");
+        batcher.add("message2");
+        assertEquals(2, batcher.size());
+
+        List<Serializable> batch = clusterManager.batches.poll(10, TimeUnit.SECONDS);
+        assertEquals(Arrays.asList("message1", "message2"), batch);
+        assertEquals(0, batcher.size());
+
+        // the next message starts a new window
+        batcher.add("message3");
+        batch = clusterManager.batches.poll(10, TimeUnit.SECONDS);
+        assertEquals(Arrays.asList("message3"), batch);
+        assertTrue(clusterManager.batches.isEmpty());
+    }
+
+    @Test
+    public void testCoalescingByClassAndKey() throws Exception {
+        createBatcher(60000);
+
+        TestMessage message1 = new TestMessage("key1", 1);
+        TestMessage message2 = new TestMessage("key2", 2);
+        TestMessage message3 = new TestMessage("key1", 3);
+        OtherTestMessage otherMessage = new OtherTestMessage("key1");
+
+        batcher.add(message1);
+        batcher.add(message2);
+        batcher.add(otherMessage);
+        batcher.add(message3);
+        assertEquals(3, batcher.size());
+
+        batcher.flush();
+        assertEquals(Arrays.asList(message2, otherMessage, message3), clusterManager.batches.poll());
+        assertEquals(0, batcher.size());
+    }
+
+    @Test
+    public void testNonCoalescingMessagesKeepOrder() throws Exception {
+        createBatcher(60000);
+
+        batcher.add("message1");
+        batcher.add("message2");
+        batcher.add("message1");
+        batcher.add("message3");
+
+        batcher.flush();
+        assertEquals(Arrays.asList("message1", "message2", "message1", "message3"), clusterManager.batches.poll());
+    }
+
+    @Test
+    public void testCoalescedMessageMovesBehindQueuedMessages() throws Exception {
+        createBatcher(60000);
+
+        TestMessage message1 = new TestMessage("key1", 1);
+        TestMessage message2 = new TestMessage("key1", 2);
+
+        batcher.add(message1);
+        batcher.add("message");
+        batcher.add(message2);
+
+        batcher.flush();
+        assertEquals(Arrays.asList("message", message2), clusterManager.batches.poll());
+    }
+
+    private void createBatcher(int batchingWindow) {
+        clusterManager = new TestClusterManager();
+        clusterManager.clusterConfig = (ClusterConfig) Proxy.newProxyInstance(getClass().getClassLoader(),
+                new Class[]{ClusterConfig.class},
+                (proxy, method, args) -> {
+                    if (method.getName().equals("getMessageBatchingWindow")) {
+                        return batchingWindow;
+                    }
+                    throw new UnsupportedOperationException(method.getName());
+                });
+        batcher = clusterManager.new MessageBatcher();
+        clusterManager.batcher = batcher;
+    }
+
+    private static class TestClusterManager extends ClusterManager {
+
+        private final BlockingQueue<List<Serializable>> batches = new LinkedBlockingQueue<>();
+
+        @Override
+        protected void internalSendBatch(List<Serializable> messages) {
+            batches.add(messages);
+        }
+    }
+
+    private static class TestMessage implements CoalescingClusterMessage {
+        private static final long serialVersionUID = -2245125362391465431L;
+
+        private final String key;
+        private final int value;
+
+        private TestMessage(String key, int value) {
+            this.key = key;
+            this.value = value;
+        }
+
+        @Override
+        public Object getCoalescingKey() {
+            return key;
+        }
+
+        @Override
+        public String toString() {
+            return "TestMessage{key=" + key + ", value=" + value + "}";
+        }
+    }
+
+    private static class OtherTestMessage implements CoalescingClusterMessage {
+        private static final long serialVersionUID = 7410926416307412583L;
+
+        private final String key;
+
+        private OtherTestMessage(String key) {
+            this.key = key;
+        }
+
+        @Override
+        public Object getCoalescingKey() {
+            return key;
+        }
+    }
+}
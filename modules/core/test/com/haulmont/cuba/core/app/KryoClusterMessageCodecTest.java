@@ -0,0 +1,97 @@
+/*
+ * Copyright (c) 2008-2020 Haulmont.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.haulmont.cuba.core.app;
+
+import com.haulmont.cuba.core.global.AppBeans;
+import com.haulmont.cuba.core.sys.serialization.StandardSerialization;
+import com.haulmont.cuba.testsupport.TestContainer;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+
+import java.io.Serializable;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class KryoClusterMessageCodecTest {
+
+    @RegisterExtension
+    public static TestContainer cont = TestContainer.Common.INSTANCE;
+
+    private KryoClusterMessageCodec codec;
+
+    @BeforeEach
+    public void setUp() {
+        codec = AppBeans.get(KryoClusterMessageCodec.NAME);
+    }
+
+    @Test
+    public void testKryoRoundTrip() {
+        TestMessage message = new TestMessage(UUID.randomUUID(), "sec$User");
+
+        byte[] bytes = codec.encode(message);
+        assertEquals(KryoClusterMessageCodec.FORMAT_KRYO, bytes[0]);
+
+        TestMessage decoded = (TestMessage) codec.decode(bytes);
+        assertEquals(message.id, decoded.id);
+        assertEquals(message.typeNames, decoded.typeNames);
+    }
+
+    @Test
+    public void testRegisteredClassRoundTrip() {
+        codec.registeredClassIds.put(TestMessage.class, codec.registeredClasses.size());
+        codec.registeredClasses.add(TestMessage.class);
+        try {
+            TestMessage message = new TestMessage(UUID.randomUUID(), "sec$Role");
+
+            byte[] bytes = codec.encode(message);
+            assertEquals(KryoClusterMessageCodec.FORMAT_KRYO_REGISTERED, bytes[0]);
+            assertTrue(bytes.length < new StandardSerialization().serialize(message).length);
+
+            TestMessage decoded = (TestMessage) codec.decode(bytes);
+            assertEquals(message.id, decoded.id);
+            assertEquals(message.typeNames, decoded.typeNames);
+        } finally {
+            codec.registeredClassIds.remove(TestMessage.class);
+            codec.registeredClasses.remove(TestMessage.class);
+        }
+    }
+
+    @Test
+    public void testDecodeJavaSerializedMessage() {
+        TestMessage message = new TestMessage(UUID.randomUUID(), "sec$Group");
+
+        TestMessage decoded = (TestMessage) codec.decode(new StandardSerialization().serialize(message));
+        assertEquals(message.id, decoded.id);
+        assertEquals(message.typeNames, decoded.typeNames);
+    }
+
+    public static class TestMessage implements Serializable {
+        private static final long serialVersionUID = 4126580339425185427L;
+
+        protected UUID id;
+        protected Set<String> typeNames = new HashSet<>();
+
+        public TestMessage(UUID id, String typeName) {
+            this.id = id;
+            this.typeNames.add(typeName);
+        }
+    }
+}
@@ -0,0 +1,97 @@
+/*
+ * Copyright (c) 2008-2020 Haulmont.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.haulmont.cuba.core.app.filestorage;
+
+import com.haulmont.cuba.core.app.ServerConfig;
+import com.haulmont.cuba.core.global.AppBeans;
+import com.haulmont.cuba.core.global.Configuration;
+import com.haulmont.cuba.core.sys.AppContext;
+import com.haulmont.cuba.testsupport.TestContainer;
+import org.apache.commons.io.FileUtils;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class FileStorageJournalTest {
+
+    @RegisterExtension
+    public static TestContainer cont = TestContainer.Common.INSTANCE;
+
+    private File rootDir;
+    private FileStorageJournal journal;
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        rootDir = Files.createTempDirectory("filestorage").toFile();
+        ServerConfig serverConfig = AppBeans.get(Configuration.class).getConfig(ServerConfig.class);
+        journal = new FileStorageJournal(serverConfig);
+    }
+
+    @AfterEach
+    public void tearDown() throws Exception {
+        journal.stop();
+        AppContext.setProperty("cuba.fileStorageLogMaxFileSize", null);
+        FileUtils.deleteDirectory(rootDir);
+    }
+
+    @Test
+    public void testAppend() throws Exception {
+        LocalDate today = LocalDate.now();
+        for (int i = 0; i < 100; i++) {
+            journal.append(rootDir, today, "record " + i + "\n");
+        }
+        journal.stop();
+
+        List<String> lines = Files.readAllLines(new File(rootDir, FileStorageJournal.LOG_FILE_NAME).toPath(),
+                StandardCharsets.UTF_8);
+        assertEquals(100, lines.size());
+        assertEquals("record 0", lines.get(0));
+        assertEquals("record 99", lines.get(99));
+    }
+
+    @Test
+    public void testRotationBySize() throws Exception {
+        AppContext.setProperty("cuba.fileStorageLogMaxFileSize", "100B");
+
+        LocalDate today = LocalDate.now();
+        for (int i = 0; i < 30; i++) {
+            journal.append(rootDir, today, "record " + i + "\n");
+        }
+        journal.stop();
+
+        File[] files = rootDir.listFiles();
+        assertTrue(files != null && files.length > 1);
+
+        int count = 0;
+        for (File file : files) {
+            assertTrue(file.getName().startsWith(FileStorageJournal.LOG_FILE_NAME));
+            assertTrue(file.length() <= 100);
+            count += Files.readAllLines(file.toPath(), StandardCharsets.UTF_8).size();
+        }
+        assertEquals(30, count);
+    }
+}
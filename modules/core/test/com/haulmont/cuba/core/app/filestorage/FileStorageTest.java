@@ -0,0 +1,106 @@
+/*
+ * Copyright (c) 2008-2020 Haulmont.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.haulmont.cuba.core.app.filestorage;
+
+import com.haulmont.cuba.core.app.FileChannelStorageAPI;
+import com.haulmont.cuba.core.app.FileStorageAPI;
+import com.haulmont.cuba.core.entity.FileDescriptor;
+import com.haulmont.cuba.core.global.AppBeans;
+import com.haulmont.cuba.core.global.Metadata;
+import com.haulmont.cuba.testsupport.TestContainer;
+import org.apache.commons.io.IOUtils;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.util.Date;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class FileStorageTest {
+
+    @RegisterExtension
+    public static TestContainer cont = TestContainer.Common.INSTANCE;
+
+    private static final byte[] CONTENT = "0123456789abcdefghij".getBytes(StandardCharsets.UTF_8);
+
+    private FileChannelStorageAPI fileStorage;
+    private FileDescriptor fd;
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        fileStorage = (FileChannelStorageAPI) AppBeans.get(FileStorageAPI.class);
+
+        fd = AppBeans.get(Metadata.class).create(FileDescriptor.class);
+        fd.setName("test.txt");
+        fd.setExtension("txt");
+        fd.setCreateDate(new Date());
+        fileStorage.saveFile(fd, CONTENT);
+    }
+
+    @AfterEach
+    public void tearDown() throws Exception {
+        fileStorage.removeFile(fd);
+    }
+
+    @Test
+    public void testLoadFile() throws Exception {
+        assertEquals(CONTENT.length, fileStorage.getFileSize(fd));
+        assertArrayEquals(CONTENT, fileStorage.loadFile(fd));
+    }
+
+    @Test
+    public void testRangedStream() throws Exception {
+        try (InputStream is = fileStorage.openStream(fd, 5, 10)) {
+            assertEquals("56789abcde", IOUtils.toString(is, StandardCharsets.UTF_8));
+        }
+        try (InputStream is = fileStorage.openStream(fd, 15, 100)) {
+            assertEquals("fghij", IOUtils.toString(is, StandardCharsets.UTF_8));
+        }
+    }
+
+    @Test
+    public void testTransferTo() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        long count = fileStorage.transferTo(fd, 10, 100, Channels.newChannel(out));
+        assertEquals(10, count);
+        assertEquals("abcdefghij", new String(out.toByteArray(), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void testTransferToEndOfFile() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        long count = fileStorage.transferTo(fd, 15, Long.MAX_VALUE, Channels.newChannel(out));
+        assertEquals(5, count);
+        assertEquals("fghij", new String(out.toByteArray(), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void testMap() throws Exception {
+        MappedByteBuffer buffer = fileStorage.map(fd, 2, 3);
+        byte[] bytes = new byte[buffer.remaining()];
+        buffer.get(bytes);
+        assertEquals("234", new String(bytes, StandardCharsets.UTF_8));
+    }
+}
@@ -24,11 +24,15 @@ import org.junit.jupiter.api.extension.RegisterExtension;
 import org.junit.jupiter.api.Test;
 
 import java.io.InputStream;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
-import static org.junit.jupiter.api.Assertions.assertFalse;
-import static org.junit.jupiter.api.Assertions.assertNotNull;
-import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.*;
 
 public class ViewRepositoryTest {
 
@@ -114,4 +118,107 @@ public class ViewRepositoryTest {
 
         assertNotNull(groupView.getProperty("constraints").getView());
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testSharedViews() {
+        View view1 = repository.getView(User.class, "test");
+        View view2 = repository.getView(User.class, "test");
+        assertNotSame(view1, view2);
+        assertFalse(view1.isFrozen());
+
+        // nested views are copied lazily and can be modified
+        View userRolesView = view1.getProperty("userRoles").getView();
+        assertFalse(userRolesView.isFrozen());
+        assertSame(userRolesView, view1.getProperty("userRoles").getView());
+        assertNotSame(userRolesView, view2.getProperty("userRoles").getView());
+        userRolesView.addProperty("version");
+        assertNotNull(view1.getProperty("userRoles").getView().getProperty("version"));
+        assertNull(view2.getProperty("userRoles").getView().getProperty("version"));
+        assertNull(repository.getView(User.class, "test").getProperty("userRoles").getView().getProperty("version"));
+
+        // modification of a returned view does not affect the repository
+        view1.addProperty("email");
+        view1.setLoadPartialEntities(true);
+        assertNotNull(view1.getProperty("email"));
+        assertNull(view2.getProperty("email"));
+        assertNull(repository.getView(User.class, "test").getProperty("email"));
+        assertFalse(repository.getView(User.class, "test").loadPartialEntities());
+
+        View copy = View.copy(view2);
+        assertFalse(copy.getProperty("userRoles").getView().isFrozen());
+        copy.getProperty("userRoles").getView().addProperty("version");
+        assertNull(view2.getProperty("userRoles").getView().getProperty("version"));
+    }
+
+    @Test
+    public void testModifyNestedViewOfExtendedView() {
+        View view = new View(repository.getView(User.class, "test"), User.class, "extended", true);
+        View userRolesView = view.getProperties().stream()
+                .filter(property -> property.getName().equals("userRoles"))
+                .findFirst().get().getView();
+        userRolesView.addProperty("version");
+        assertNotNull(view.getProperty("userRoles").getView().getProperty("version"));
+        assertNull(repository.getView(User.class, "test").getProperty("userRoles").getView().getProperty("version"));
+    }
+
+    @Test
+    public void testConcurrentRead() throws Exception {
+        int threads = 8;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            for (int i = 0; i < 50; i++) {
+                View view = repository.getView(User.class, "test");
+                CountDownLatch latch = new CountDownLatch(1);
+                List<Future<View>> futures = new ArrayList<>();
+                for (int j = 0; j < threads; j++) {
+                    futures.add(executor.submit(() -> {
+                        latch.await();
+                        for (ViewProperty property : view.getProperties()) {
+                            if (property.getView() != null) {
+                                property.getView().getProperties();
+                            }
+                        }
+                        return view.getProperty("userRoles").getView();
+                    }));
+                }
+                latch.countDown();
+
+                View userRolesView = view.getProperty("userRoles").getView();
+                for (Future<View> future : futures) {
+                    assertSame(userRolesView, future.get());
+                }
+                assertSame(userRolesView.getProperty("role").getView(),
+                        view.getProperty("userRoles").getView().getProperty("role").getView());
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testFrozenCopy() {
+        // frozen nested views of the repository are shared instead of copied
+        View frozenCopy1 = View.frozenCopy(repository.getView(User.class, "test"));
+        View frozenCopy2 = View.frozenCopy(repository.getView(User.class, "test"));
+        assertTrue(frozenCopy1.isFrozen());
+        assertSame(frozenCopy1, View.frozenCopy(frozenCopy1));
+        assertTrue(frozenCopy1.getProperty("userRoles").getView().isFrozen());
+        assertSame(frozenCopy1.getProperty("userRoles").getView(), frozenCopy2.getProperty("userRoles").getView());
+        assertNotNull(frozenCopy1.getProperty("userRoles").getView().getProperty("role"));
+        assertThrows(IllegalStateException.class, () -> frozenCopy1.addProperty("email"));
+
+        // modifiable nested views are copied and frozen, the source view stays modifiable
+        View view = repository.getView(User.class, "test");
+        View userRolesView = view.getProperty("userRoles").getView();
+        userRolesView.addProperty("version");
+        View frozenCopy = View.frozenCopy(view);
+        View frozenUserRolesView = frozenCopy.getProperty("userRoles").getView();
+        assertTrue(frozenUserRolesView.isFrozen());
+        assertNotSame(userRolesView, frozenUserRolesView);
+        assertNotNull(frozenUserRolesView.getProperty("version"));
+        assertFalse(view.isFrozen());
+        assertFalse(userRolesView.isFrozen());
+        userRolesView.addProperty("createTs");
+        assertNull(frozenUserRolesView.getProperty("createTs"));
+    }
+}
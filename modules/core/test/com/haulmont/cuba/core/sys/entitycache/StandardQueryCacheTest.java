@@ -0,0 +1,86 @@
+/*
+ * Copyright (c) 2008-2020 Haulmont.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.haulmont.cuba.core.sys.entitycache;
+
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.RemovalCause;
+import com.google.common.cache.RemovalNotification;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class StandardQueryCacheTest {
+
+    private StandardQueryCache queryCache;
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        queryCache = new StandardQueryCache();
+        queryCache.data = CacheBuilder.newBuilder()
+                .maximumSize(100)
+                .removalListener(queryCache::onRemoval)
+                .build();
+    }
+
+    @Test
+    public void testReplaceThenEvict() throws Exception {
+        QueryKey key1 = createKey();
+        QueryResult result1 = createResult("sec$User");
+        queryCache.put(key1, result1);
+
+        QueryKey key2 = createKey();
+        assertEquals(key1, key2);
+        queryCache.put(key2, createResult("sec$User"));
+        assertSame(key2, queryCache.findQueryKeyById(key2.getId()));
+        assertNull(queryCache.findQueryKeyById(key1.getId()));
+
+        // late removal notification of the equal key must not unindex the new entry
+        queryCache.onRemoval(RemovalNotification.create(key1, result1, RemovalCause.SIZE));
+        assertSame(key2, queryCache.findQueryKeyById(key2.getId()));
+        assertEquals(1, queryCache.size());
+
+        queryCache.invalidate("sec$User");
+        assertEquals(0, queryCache.size());
+        assertNull(queryCache.findQueryKeyById(key2.getId()));
+        assertTrue(queryCache.typeIndex.isEmpty());
+    }
+
+    @Test
+    public void testReplaceWithOtherTypes() throws Exception {
+        queryCache.put(createKey(), createResult("sec$User"));
+        queryCache.put(createKey(), createResult("sec$Group"));
+
+        queryCache.invalidate("sec$User");
+        assertEquals(1, queryCache.size());
+        assertFalse(queryCache.typeIndex.containsKey("sec$User"));
+
+        queryCache.invalidate("sec$Group");
+        assertEquals(0, queryCache.size());
+        assertTrue(queryCache.typeIndex.isEmpty());
+    }
+
+    private QueryKey createKey() {
+        return new QueryKey("select u from sec$User u", 0, 0, true, false, null, null, null);
+    }
+
+    private QueryResult createResult(String type) {
+        return new QueryResult(Collections.emptyList(), type, Collections.singleton(type));
+    }
+}
@@ -0,0 +1,97 @@
+/*
+ * Copyright (c) 2008-2020 Haulmont.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.haulmont.cuba.core.sys.jpql;
+
+import com.haulmont.cuba.core.sys.jpql.model.EntityBuilder;
+import com.haulmont.cuba.core.sys.jpql.model.JpqlEntityModel;
+import com.haulmont.cuba.core.sys.jpql.transform.QueryTreeTransformer;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class QueryTreeTest {
+
+    @Test
+    public void copy_producesSameQuery() {
+        DomainModel model = prepareDomainModel();
+
+        assertCopiedToSame(model, "select p from Player p");
+        assertCopiedToSame(model, "select p from Player p join p.team t where t.name = :name order by p.name");
+        assertCopiedToSame(model, "select p from Player p where lower(p.name) like :name and p.age > 10");
+        assertCopiedToSame(model, "select p from Player p where p.team in (select t from Team t where t.name = :name)");
+        assertCopiedToSame(model, "select t.name, count(p) from Player p join p.team t group by t.name having count(p) > 1");
+    }
+
+    @Test
+    public void copy_updateQuery() {
+        DomainModel model = prepareDomainModel();
+
+        QueryTree source = new QueryTree(model, "update Player p set p.name = :name, p.age = 10 where p.team = :team");
+        QueryTree copy = source.copy();
+
+        assertTrue(toQuery(copy).contains(" set "));
+        assertEquals(toQuery(source), toQuery(copy));
+        assertEquals(toQuery(source), toQuery(copy.copy()));
+    }
+
+    @Test
+    public void copy_treatQuery() {
+        DomainModel model = prepareDomainModel();
+
+        QueryTree source = new QueryTree(model, "select p from Player p join treat(p.team as Team) t where t.name = :name");
+        QueryTree copy = source.copy();
+
+        assertTrue(toQuery(copy).contains("treat(p.team as Team)"));
+        assertEquals(toQuery(source), toQuery(copy));
+        assertEquals(toQuery(source), toQuery(copy.copy()));
+    }
+
+    @Test
+    public void copy_transformDoesNotAffectSource() {
+        DomainModel model = prepareDomainModel();
+
+        QueryTree source = new QueryTree(model, "select p from Player p where p.name = :name order by p.name");
+        QueryTree copy = source.copy();
+
+        new QueryTreeTransformer(copy).removeOrderBy();
+
+        assertEquals("select p from Player p where p.name = :name", toQuery(copy));
+        assertEquals("select p from Player p where p.name = :name order by p.name", toQuery(source));
+        assertEquals("p", copy.getVariableNameByEntity("Player"));
+        assertNotSame(source.getAstTree(), copy.getAstTree());
+    }
+
+    private void assertCopiedToSame(DomainModel model, String query) {
+        QueryTree source = new QueryTree(model, query);
+        assertEquals(toQuery(source), toQuery(source.copy()));
+    }
+
+    private String toQuery(QueryTree queryTree) {
+        return queryTree.visit(new TreeToQuery()).getQueryString().trim();
+    }
+
+    private DomainModel prepareDomainModel() {
+        EntityBuilder builder = new EntityBuilder();
+        JpqlEntityModel teamEntity = builder.produceImmediately("Team", "name");
+        builder.startNewEntity("Player");
+        builder.addStringAttribute("name");
+        builder.addSingleValueAttribute(Integer.class, "age");
+        builder.addReferenceAttribute("team", "Team");
+        JpqlEntityModel playerEntity = builder.produce();
+        return new DomainModel(playerEntity, teamEntity);
+    }
+}
@@ -0,0 +1,51 @@
+/*
+ * Copyright (c) 2008-2020 Haulmont.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.haulmont.cuba.core.sys.remoting;
+
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+
+/**
+ * Value which can be serialized only by the standard serialization, as its state is written by custom methods.
+ */
+public class JavaSerializedValue implements Serializable {
+
+    private static final long serialVersionUID = 4327786213906518467L;
+
+    private String value;
+
+    private Object lock = new Object();
+
+    public JavaSerializedValue(String value) {
+        this.value = value;
+    }
+
+    public String getValue() {
+        return value;
+    }
+
+    private void writeObject(ObjectOutputStream out) throws IOException {
+        out.writeUTF(value);
+    }
+
+    private void readObject(ObjectInputStream in) throws IOException {
+        value = in.readUTF();
+        lock = new Object();
+    }
+}
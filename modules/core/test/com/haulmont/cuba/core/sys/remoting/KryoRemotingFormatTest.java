@@ -0,0 +1,150 @@
+/*
+ * Copyright (c) 2008-2020 Haulmont.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.haulmont.cuba.core.sys.remoting;
+
+import com.haulmont.cuba.core.sys.AppContext;
+import com.haulmont.cuba.core.sys.remoting.TestRemotingServer.RecordedExchange;
+import com.haulmont.cuba.core.sys.remoting.discovery.SessionUrlsHolder;
+import com.haulmont.cuba.core.sys.remoting.discovery.StaticServerSelector;
+import com.haulmont.cuba.testsupport.TestContainer;
+import org.apache.http.HttpHeaders;
+import org.apache.http.HttpStatus;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+
+import javax.annotation.Nullable;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class KryoRemotingFormatTest {
+
+    @RegisterExtension
+    public static TestContainer cont = TestContainer.Common.INSTANCE;
+
+    private static final String CONTENT_TYPE_SERIALIZED_OBJECT = PooledHttpInvokerRequestExecutor.CONTENT_TYPE_SERIALIZED_OBJECT;
+
+    private String kryoSerialization;
+
+    private TestRemotingServer server;
+
+    private RemotingHttpClient remotingHttpClient;
+
+    private PooledHttpInvokerRequestExecutor executor;
+
+    private RemotingTestService service;
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        kryoSerialization = AppContext.getProperty("cuba.remotingKryoSerialization");
+        AppContext.setProperty("cuba.remotingKryoSerialization", "true");
+
+        server = new TestRemotingServer(RemotingTestService.class, new RemotingTestServiceImpl());
+        remotingHttpClient = new RemotingHttpClient();
+
+        StaticServerSelector selector = new StaticServerSelector() {
+            @Nullable
+            @Override
+            protected SessionUrlsHolder getSessionUrlsHolder() {
+                return null;
+            }
+        };
+        selector.setBaseUrl(server.getBaseUrl());
+        selector.init();
+
+        executor = new PooledHttpInvokerRequestExecutor(selector);
+        executor.setBeanClassLoader(getClass().getClassLoader());
+        executor.remotingHttpClient = remotingHttpClient;
+        assertTrue(executor.kryoEnabled);
+
+        HttpServiceProxy proxy = new HttpServiceProxy(selector);
+        proxy.setHttpInvokerRequestExecutor(executor);
+        proxy.setServiceUrl(RemotingTestService.NAME);
+        proxy.setServiceInterface(RemotingTestService.class);
+        proxy.afterPropertiesSet();
+        service = (RemotingTestService) proxy.getObject();
+    }
+
+    @AfterEach
+    public void tearDown() {
+        remotingHttpClient.close();
+        server.stop();
+        AppContext.setProperty("cuba.remotingKryoSerialization", kryoSerialization);
+    }
+
+    @Test
+    public void testRoundTrip() {
+        // the server declares support of the format by the first response
+        assertEquals("value1", service.echo("value1"));
+        RecordedExchange exchange = server.getExchanges().get(0);
+        assertTrue(exchange.getRequestHeader(HttpHeaders.CONTENT_TYPE).startsWith(CONTENT_TYPE_SERIALIZED_OBJECT));
+        assertEquals(KryoRemotingFormat.VERSION, exchange.getResponseHeader(KryoRemotingFormat.VERSION_HEADER));
+        assertTrue(getStatistics().isKryoAccepted());
+
+        assertEquals("value2", service.echo("value2"));
+        exchange = server.getExchanges().get(1);
+        assertTrue(exchange.getRequestHeader(HttpHeaders.CONTENT_TYPE).startsWith(KryoRemotingFormat.CONTENT_TYPE));
+        assertEquals(KryoRemotingFormat.VERSION, exchange.getRequestHeader(KryoRemotingFormat.VERSION_HEADER));
+        assertEquals(KryoRemotingFormat.CONTENT_TYPE, exchange.getResponseHeader(HttpHeaders.CONTENT_TYPE));
+        assertEquals(HttpStatus.SC_OK, exchange.getStatus());
+    }
+
+    @Test
+    public void testFallbackOnUnsupportedMediaType() {
+        // the client has seen the format accepted by the server before, but it is not supported anymore
+        AppContext.setProperty("cuba.remotingKryoSerialization", "false");
+        getStatistics().setKryoAccepted(true);
+
+        assertEquals("value1", service.echo("value1"));
+        assertEquals(2, server.getExchanges().size());
+
+        RecordedExchange exchange = server.getExchanges().get(0);
+        assertTrue(exchange.getRequestHeader(HttpHeaders.CONTENT_TYPE).startsWith(KryoRemotingFormat.CONTENT_TYPE));
+        assertEquals(HttpStatus.SC_UNSUPPORTED_MEDIA_TYPE, exchange.getStatus());
+
+        exchange = server.getExchanges().get(1);
+        assertTrue(exchange.getRequestHeader(HttpHeaders.CONTENT_TYPE).startsWith(CONTENT_TYPE_SERIALIZED_OBJECT));
+        assertEquals(HttpStatus.SC_OK, exchange.getStatus());
+        assertNull(exchange.getResponseHeader(KryoRemotingFormat.VERSION_HEADER));
+        assertFalse(getStatistics().isKryoAccepted());
+
+        // next invocations use the standard serialization right away
+        assertEquals("value2", service.echo("value2"));
+        assertEquals(3, server.getExchanges().size());
+        exchange = server.getExchanges().get(2);
+        assertTrue(exchange.getRequestHeader(HttpHeaders.CONTENT_TYPE).startsWith(CONTENT_TYPE_SERIALIZED_OBJECT));
+    }
+
+    @Test
+    public void testResultNotSerializableWithKryo() {
+        assertEquals("value", service.echo("value"));
+        assertTrue(getStatistics().isKryoAccepted());
+
+        JavaSerializedValue result = service.getJavaSerializedValue("value");
+        assertEquals("value", result.getValue());
+
+        RecordedExchange exchange = server.getExchanges().get(1);
+        assertTrue(exchange.getRequestHeader(HttpHeaders.CONTENT_TYPE).startsWith(KryoRemotingFormat.CONTENT_TYPE));
+        assertEquals(HttpStatus.SC_OK, exchange.getStatus());
+        assertTrue(exchange.getResponseHeader(HttpHeaders.CONTENT_TYPE).startsWith(CONTENT_TYPE_SERIALIZED_OBJECT));
+    }
+
+    private RemotingHttpClient.ServerStatistics getStatistics() {
+        return remotingHttpClient.getStatistics(server.getBaseUrl() + "/remoting");
+    }
+}
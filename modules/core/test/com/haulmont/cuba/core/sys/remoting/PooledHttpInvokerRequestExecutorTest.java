@@ -0,0 +1,194 @@
+/*
+ * Copyright (c) 2008-2020 Haulmont.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.haulmont.cuba.core.sys.remoting;
+
+import com.haulmont.cuba.core.sys.AppContext;
+import com.haulmont.cuba.core.sys.remoting.TestRemotingServer.RecordedExchange;
+import com.haulmont.cuba.core.sys.remoting.discovery.SessionUrlsHolder;
+import com.haulmont.cuba.core.sys.remoting.discovery.StaticServerSelector;
+import com.haulmont.cuba.testsupport.TestContainer;
+import org.apache.commons.lang3.StringUtils;
+import org.apache.http.HttpHeaders;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.springframework.remoting.RemoteAccessException;
+
+import javax.annotation.Nullable;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PooledHttpInvokerRequestExecutorTest {
+
+    @RegisterExtension
+    public static TestContainer cont = TestContainer.Common.INSTANCE;
+
+    private TestRemotingServer server;
+
+    private RemotingHttpClient remotingHttpClient;
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        server = new TestRemotingServer(RemotingTestService.class, new RemotingTestServiceImpl());
+        remotingHttpClient = new RemotingHttpClient();
+    }
+
+    @AfterEach
+    public void tearDown() {
+        remotingHttpClient.close();
+        server.stop();
+    }
+
+    @Test
+    public void testFailover() throws Exception {
+        String unavailableUrl = TestRemotingServer.getUnavailableBaseUrl();
+        RemotingTestService service = createProxy(createExecutor(unavailableUrl + "," + server.getBaseUrl()));
+
+        assertEquals("value1", service.echo("value1"));
+        assertEquals(1, server.getExchanges().size());
+        assertEquals(1, getStatistics(unavailableUrl).getFailures());
+        assertEquals(1, getStatistics(server.getBaseUrl()).getRequests());
+
+        // the failed server is tried after the available one
+        assertEquals("value2", service.echo("value2"));
+        assertEquals(2, server.getExchanges().size());
+        assertEquals(1, getStatistics(unavailableUrl).getFailures());
+        assertEquals(2, getStatistics(server.getBaseUrl()).getRequests());
+    }
+
+    @Test
+    public void testNoServerAvailable() throws Exception {
+        String unavailableUrl = TestRemotingServer.getUnavailableBaseUrl();
+        RemotingTestService service = createProxy(createExecutor(unavailableUrl));
+
+        assertThrows(RemoteAccessException.class, () -> service.echo("value"));
+        assertEquals(1, getStatistics(unavailableUrl).getFailures());
+    }
+
+    @Test
+    public void testGzipRoundTrip() {
+        String compression = AppContext.getProperty("cuba.remotingCompression");
+        AppContext.setProperty("cuba.remotingCompression", "true");
+        try {
+            PooledHttpInvokerRequestExecutor executor = createExecutor(server.getBaseUrl());
+            executor.compressionEnabled = true;
+            executor.compressionMinSize = 8192;
+            RemotingTestService service = createProxy(executor);
+            String value = StringUtils.repeat("compressed value ", 1000);
+
+            // the server declares support of compressed requests by the first response
+            assertEquals(value, service.echo(value));
+            RecordedExchange exchange = server.getExchanges().get(0);
+            assertNull(exchange.getRequestHeader(HttpHeaders.CONTENT_ENCODING));
+            assertEquals("gzip", exchange.getResponseHeader(HttpHeaders.CONTENT_ENCODING));
+            assertEquals("gzip", exchange.getResponseHeader(HttpHeaders.ACCEPT_ENCODING));
+
+            assertEquals(value, service.echo(value));
+            exchange = server.getExchanges().get(1);
+            assertEquals("gzip", exchange.getRequestHeader(HttpHeaders.CONTENT_ENCODING));
+            assertEquals("gzip", exchange.getResponseHeader(HttpHeaders.CONTENT_ENCODING));
+
+            // small requests are not compressed
+            assertEquals("value", service.echo("value"));
+            assertNull(server.getExchanges().get(2).getRequestHeader(HttpHeaders.CONTENT_ENCODING));
+
+            RemotingHttpClient.ServerStatistics statistics = getStatistics(server.getBaseUrl());
+            assertEquals(3, statistics.getRequests());
+            assertEquals(1, statistics.compressedRequests.get());
+        } finally {
+            AppContext.setProperty("cuba.remotingCompression", compression);
+        }
+    }
+
+    @Test
+    public void testResponseNotCompressedIfDisabled() {
+        String compression = AppContext.getProperty("cuba.remotingCompression");
+        AppContext.setProperty("cuba.remotingCompression", "false");
+        try {
+            RemotingTestService service = createProxy(createExecutor(server.getBaseUrl()));
+
+            assertEquals("value", service.echo("value"));
+            RecordedExchange exchange = server.getExchanges().get(0);
+            assertEquals("gzip", exchange.getRequestHeader(HttpHeaders.ACCEPT_ENCODING));
+            assertNull(exchange.getResponseHeader(HttpHeaders.CONTENT_ENCODING));
+        } finally {
+            AppContext.setProperty("cuba.remotingCompression", compression);
+        }
+    }
+
+    @Test
+    public void testConnectionPoolingSwitch() {
+        String connectionPooling = AppContext.getProperty("cuba.remotingConnectionPooling");
+        try {
+            AppContext.setProperty("cuba.remotingConnectionPooling", "true");
+            HttpServiceProxy proxy = new HttpServiceProxy(createSelector(server.getBaseUrl()));
+            assertTrue(proxy.getHttpInvokerRequestExecutor() instanceof PooledHttpInvokerRequestExecutor);
+            assertEquals("value1", createProxy(proxy).echo("value1"));
+
+            AppContext.setProperty("cuba.remotingConnectionPooling", "false");
+            proxy = new HttpServiceProxy(createSelector(server.getBaseUrl()));
+            assertTrue(proxy.getHttpInvokerRequestExecutor() instanceof ClusteredHttpInvokerRequestExecutor);
+            assertEquals("value2", createProxy(proxy).echo("value2"));
+
+            AppContext.setProperty("cuba.remotingConnectionPooling", null);
+            proxy = new HttpServiceProxy(createSelector(server.getBaseUrl()));
+            assertTrue(proxy.getHttpInvokerRequestExecutor() instanceof ClusteredHttpInvokerRequestExecutor);
+
+            assertEquals(2, server.getExchanges().size());
+        } finally {
+            AppContext.setProperty("cuba.remotingConnectionPooling", connectionPooling);
+        }
+    }
+
+    private RemotingHttpClient.ServerStatistics getStatistics(String baseUrl) {
+        return remotingHttpClient.getStatistics(baseUrl + "/remoting");
+    }
+
+    private StaticServerSelector createSelector(String baseUrl) {
+        StaticServerSelector selector = new StaticServerSelector() {
+            @Nullable
+            @Override
+            protected SessionUrlsHolder getSessionUrlsHolder() {
+                return null;
+            }
+        };
+        selector.setBaseUrl(baseUrl);
+        selector.init();
+        return selector;
+    }
+
+    private PooledHttpInvokerRequestExecutor createExecutor(String baseUrl) {
+        PooledHttpInvokerRequestExecutor executor = new PooledHttpInvokerRequestExecutor(createSelector(baseUrl));
+        executor.setBeanClassLoader(getClass().getClassLoader());
+        executor.remotingHttpClient = remotingHttpClient;
+        return executor;
+    }
+
+    private RemotingTestService createProxy(PooledHttpInvokerRequestExecutor executor) {
+        HttpServiceProxy proxy = new HttpServiceProxy(executor.serverSelector);
+        proxy.setHttpInvokerRequestExecutor(executor);
+        return createProxy(proxy);
+    }
+
+    private RemotingTestService createProxy(HttpServiceProxy proxy) {
+        proxy.setServiceUrl(RemotingTestService.NAME);
+        proxy.setServiceInterface(RemotingTestService.class);
+        proxy.afterPropertiesSet();
+        return (RemotingTestService) proxy.getObject();
+    }
+}
@@ -0,0 +1,34 @@
+/*
+ * Copyright (c) 2008-2020 Haulmont.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.haulmont.cuba.core.sys.remoting;
+
+/**
+ * Implementation of {@link RemotingTestService} exported by {@link TestRemotingServer}, not a Spring bean
+ * to be invoked without a user session.
+ */
+public class RemotingTestServiceImpl implements RemotingTestService {
+
+    @Override
+    public String echo(String value) {
+        return value;
+    }
+
+    @Override
+    public JavaSerializedValue getJavaSerializedValue(String value) {
+        return new JavaSerializedValue(value);
+    }
+}
@@ -0,0 +1,248 @@
+/*
+ * Copyright (c) 2008-2020 Haulmont.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.haulmont.cuba.core.sys.remoting;
+
+import com.sun.net.httpserver.Headers;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import javax.servlet.ReadListener;
+import javax.servlet.ServletException;
+import javax.servlet.ServletInputStream;
+import javax.servlet.ServletOutputStream;
+import javax.servlet.WriteListener;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.Proxy;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Serves a service by {@link HttpServiceExporter} on the JDK HTTP server to test the remoting transport
+ * without a servlet container. Headers and statuses of all handled requests are recorded.
+ */
+public class TestRemotingServer {
+
+    protected HttpServer httpServer;
+
+    protected HttpServiceExporter exporter;
+
+    protected List<RecordedExchange> exchanges = new CopyOnWriteArrayList<>();
+
+    public TestRemotingServer(Class<?> serviceInterface, Object service) throws IOException {
+        exporter = new HttpServiceExporter();
+        exporter.setServiceInterface(serviceInterface);
+        exporter.setService(service);
+        exporter.afterPropertiesSet();
+
+        httpServer = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        httpServer.createContext("/", this::handle);
+        httpServer.start();
+    }
+
+    /**
+     * @return base URL of the server to be passed to a server selector
+     */
+    public String getBaseUrl() {
+        return "http://localhost:" + httpServer.getAddress().getPort();
+    }
+
+    public List<RecordedExchange> getExchanges() {
+        return exchanges;
+    }
+
+    public void stop() {
+        httpServer.stop(0);
+    }
+
+    /**
+     * @return base URL of a server which refuses connections
+     */
+    public static String getUnavailableBaseUrl() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return "http://localhost:" + socket.getLocalPort();
+        }
+    }
+
+    protected void handle(HttpExchange exchange) throws IOException {
+        RecordedExchange recordedExchange = new RecordedExchange(exchange);
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        try {
+            exporter.handleRequest(createRequest(exchange), createResponse(exchange, recordedExchange, body));
+        } catch (ServletException | RuntimeException e) {
+            recordedExchange.status = HttpServletResponse.SC_INTERNAL_SERVER_ERROR;
+            body.reset();
+        }
+        exchanges.add(recordedExchange);
+
+        byte[] bytes = body.toByteArray();
+        exchange.sendResponseHeaders(recordedExchange.status, bytes.length > 0 ? bytes.length : -1);
+        if (bytes.length > 0) {
+            exchange.getResponseBody().write(bytes);
+        }
+        exchange.close();
+    }
+
+    protected HttpServletRequest createRequest(HttpExchange exchange) {
+        ServletInputStream inputStream = new ServletInputStream() {
+            protected InputStream delegate = exchange.getRequestBody();
+            protected boolean finished;
+
+            @Override
+            public int read() throws IOException {
+                int b = delegate.read();
+                finished = b < 0;
+                return b;
+            }
+
+            @Override
+            public boolean isFinished() {
+                return finished;
+            }
+
+            @Override
+            public boolean isReady() {
+                return true;
+            }
+
+            @Override
+            public void setReadListener(ReadListener readListener) {
+                throw new UnsupportedOperationException();
+            }
+        };
+
+        return (HttpServletRequest) Proxy.newProxyInstance(getClass().getClassLoader(),
+                new Class[]{HttpServletRequest.class},
+                (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "getHeader":
+                            return exchange.getRequestHeaders().getFirst((String) args[0]);
+                        case "getContentType":
+                            return exchange.getRequestHeaders().getFirst("Content-Type");
+                        case "getInputStream":
+                            return inputStream;
+                        case "getMethod":
+                            return exchange.getRequestMethod();
+                        case "getRequestURI":
+                            return exchange.getRequestURI().getPath();
+                        default:
+                            return defaultValue(method.getReturnType());
+                    }
+                });
+    }
+
+    protected HttpServletResponse createResponse(HttpExchange exchange, RecordedExchange recordedExchange,
+                                                 ByteArrayOutputStream body) {
+        ServletOutputStream outputStream = new ServletOutputStream() {
+            @Override
+            public void write(int b) {
+                body.write(b);
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) {
+                body.write(b, off, len);
+            }
+
+            @Override
+            public boolean isReady() {
+                return true;
+            }
+
+            @Override
+            public void setWriteListener(WriteListener writeListener) {
+                throw new UnsupportedOperationException();
+            }
+        };
+
+        Headers headers = exchange.getResponseHeaders();
+        return (HttpServletResponse) Proxy.newProxyInstance(getClass().getClassLoader(),
+                new Class[]{HttpServletResponse.class},
+                (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "setHeader":
+                            headers.set((String) args[0], (String) args[1]);
+                            return null;
+                        case "addHeader":
+                            headers.add((String) args[0], (String) args[1]);
+                            return null;
+                        case "getHeader":
+                            return headers.getFirst((String) args[0]);
+                        case "containsHeader":
+                            return headers.containsKey((String) args[0]);
+                        case "setContentType":
+                            headers.set("Content-Type", (String) args[0]);
+                            return null;
+                        case "getContentType":
+                            return headers.getFirst("Content-Type");
+                        case "setStatus":
+                        case "sendError":
+                            recordedExchange.status = (Integer) args[0];
+                            return null;
+                        case "getStatus":
+                            return recordedExchange.status;
+                        case "getOutputStream":
+                            return outputStream;
+                        default:
+                            return defaultValue(method.getReturnType());
+                    }
+                });
+    }
+
+    protected static Object defaultValue(Class<?> type) {
+        if (type == boolean.class) {
+            return false;
+        } else if (type == int.class) {
+            return 0;
+        } else if (type == long.class) {
+            return 0L;
+        }
+        return null;
+    }
+
+    /**
+     * Headers and status of a handled request.
+     */
+    public static class RecordedExchange {
+
+        protected final Headers requestHeaders;
+        protected final Headers responseHeaders;
+        protected int status = HttpServletResponse.SC_OK;
+
+        public RecordedExchange(HttpExchange exchange) {
+            requestHeaders = exchange.getRequestHeaders();
+            responseHeaders = exchange.getResponseHeaders();
+        }
+
+        public String getRequestHeader(String name) {
+            return requestHeaders.getFirst(name);
+        }
+
+        public String getResponseHeader(String name) {
+            return responseHeaders.getFirst(name);
+        }
+
+        public int getStatus() {
+            return status;
+        }
+    }
+}
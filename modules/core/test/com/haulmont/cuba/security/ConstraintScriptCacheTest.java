@@ -0,0 +1,82 @@
+/*
+ * Copyright (c) 2008-2020 Haulmont.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.haulmont.cuba.security;
+
+import com.haulmont.cuba.core.global.AppBeans;
+import com.haulmont.cuba.core.sys.CompiledConstraintScript;
+import com.haulmont.cuba.core.sys.ConstraintScriptCache;
+import com.haulmont.cuba.security.entity.User;
+import com.haulmont.cuba.testsupport.TestContainer;
+import groovy.lang.Binding;
+import org.codehaus.groovy.control.CompilationFailedException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ConstraintScriptCacheTest {
+
+    @RegisterExtension
+    public static TestContainer cont = TestContainer.Common.INSTANCE;
+
+    private ConstraintScriptCache constraintScriptCache;
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        constraintScriptCache = AppBeans.get(ConstraintScriptCache.NAME);
+        constraintScriptCache.clear();
+    }
+
+    @Test
+    public void testCompiledScript() {
+        String script = "{E}.login.startsWith('a')";
+
+        CompiledConstraintScript compiledScript = constraintScriptCache.get(script);
+        assertSame(compiledScript, constraintScriptCache.get(script));
+        assertEquals(1, constraintScriptCache.size());
+
+        User user1 = cont.metadata().create(User.class);
+        user1.setLogin("admin");
+        User user2 = cont.metadata().create(User.class);
+        user2.setLogin("user");
+
+        assertEquals(Boolean.TRUE, compiledScript.evaluate(createBinding(user1)));
+        assertEquals(Boolean.FALSE, compiledScript.evaluate(createBinding(user2)));
+        assertEquals(2, compiledScript.getEvaluations());
+        assertEquals(0, compiledScript.getFailures());
+
+        User user3 = cont.metadata().create(User.class);
+        assertThrows(NullPointerException.class, () -> compiledScript.evaluate(createBinding(user3)));
+        assertEquals(1, compiledScript.getFailures());
+
+        constraintScriptCache.resetStatistics();
+        assertEquals(0, compiledScript.getEvaluations());
+    }
+
+    @Test
+    public void testCompilationError() {
+        assertThrows(CompilationFailedException.class, () -> constraintScriptCache.get("{E}.login ==="));
+        assertEquals(0, constraintScriptCache.size());
+    }
+
+    private Binding createBinding(User user) {
+        Binding binding = new Binding();
+        binding.setVariable(ConstraintScriptCache.ENTITY_VARIABLE, user);
+        return binding;
+    }
+}
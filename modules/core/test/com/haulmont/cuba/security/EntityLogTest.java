@@ -25,7 +25,9 @@ import com.haulmont.cuba.core.Transaction;
 import com.haulmont.cuba.core.TypedQuery;
 import com.haulmont.cuba.core.global.AppBeans;
 import com.haulmont.cuba.core.global.Messages;
+import com.haulmont.cuba.core.sys.AppContext;
 import com.haulmont.cuba.security.app.EntityLogAPI;
+import com.haulmont.cuba.security.app.EntityLogWriter;
 import com.haulmont.cuba.security.entity.*;
 import com.haulmont.cuba.testsupport.TestContainer;
 import org.junit.jupiter.api.AfterEach;
@@ -196,6 +198,56 @@ public class EntityLogTest {
         assertEquals(1, items.get(0).getAttributes().size());
     }
 
+    @Test
+    public void testAsyncWriting() throws Exception {
+        AppContext.setProperty("cuba.entityLog.asyncWriting.enabled", "true");
+        try {
+            Transaction tx = cont.persistence().createTransaction();
+            try {
+                EntityManager em = cont.persistence().getEntityManager();
+
+                Group group = em.find(Group.class, UUID.fromString("0fa2b1a5-1d68-4d69-9fbd-dff348347f93"));
+
+                User user = new User();
+                userId = user.getId();
+                user.setGroup(group);
+                user.setLogin("test");
+                user.setName("test-name");
+                user.setEmail("test-email");
+                em.persist(user);
+
+                tx.commit();
+            } finally {
+                tx.end();
+            }
+
+            EntityLogWriter writer = AppBeans.get(EntityLogWriter.NAME);
+            writer.flush();
+            assertEquals(0, writer.getQueueSize());
+        } finally {
+            AppContext.setProperty("cuba.entityLog.asyncWriting.enabled", null);
+        }
+
+        List<EntityLogItem> items;
+        Transaction tx = cont.persistence().createTransaction();
+        try {
+            EntityManager em = cont.persistence().getEntityManager();
+            TypedQuery<EntityLogItem> query = em.createQuery(
+                    "select i from sec$EntityLog i where i.entity = ?1 and i.entityRef.entityId = ?2", EntityLogItem.class);
+            query.setParameter(1, "sec$User");
+            query.setParameter(2, userId);
+            items = query.getResultList();
+
+            tx.commit();
+        } finally {
+            tx.end();
+        }
+        assertEquals(1, items.size());
+        assertEquals(EntityLogItem.Type.CREATE, items.get(0).getType());
+        assertNotNull(items.get(0).getCreateTs());
+        assertEquals(1, items.get(0).getAttributes().size());
+    }
+
     @Test
     public void testEnumDisplayValue() throws Exception {
         Transaction tx = cont.persistence().createTransaction();
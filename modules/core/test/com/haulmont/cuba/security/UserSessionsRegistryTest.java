@@ -0,0 +1,98 @@
+/*
+ * Copyright (c) 2008-2020 Haulmont.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.haulmont.cuba.security;
+
+import com.haulmont.cuba.security.app.UserSessionAttributeIndex;
+import com.haulmont.cuba.security.app.UserSessionExpirationWheel;
+import com.haulmont.cuba.security.entity.User;
+import com.haulmont.cuba.security.global.UserSession;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class UserSessionsRegistryTest {
+
+    @Test
+    public void testExpirationWheel() {
+        UserSessionExpirationWheel wheel = new UserSessionExpirationWheel(1000);
+        UUID id1 = UUID.randomUUID();
+        UUID id2 = UUID.randomUUID();
+
+        wheel.schedule(id1, 1500);
+        wheel.schedule(id2, 5500);
+        // a later expiration does not move the session
+        wheel.schedule(id1, 3500);
+        assertEquals(2, wheel.size());
+
+        assertTrue(wheel.pollDue(500).isEmpty());
+
+        List<UUID> due = wheel.pollDue(1600);
+        assertEquals(Collections.singletonList(id1), due);
+        assertEquals(1, wheel.size());
+
+        wheel.reschedule(id2, 2500);
+        assertEquals(Collections.singletonList(id2), wheel.pollDue(2999));
+
+        wheel.schedule(id1, 4000);
+        wheel.unschedule(id1);
+        assertTrue(wheel.pollDue(10000).isEmpty());
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    public void testAttributeIndex() {
+        UserSessionAttributeIndex index = new UserSessionAttributeIndex(Arrays.asList("tenant", "department"));
+        assertTrue(index.isIndexed("tenant"));
+        assertFalse(index.isIndexed("other"));
+
+        UserSession session1 = createSession();
+        session1.setAttribute("tenant", "t1");
+        UserSession session2 = createSession();
+        session2.setAttribute("tenant", "t1");
+        session2.setAttribute("department", "d1");
+
+        index.put(session1);
+        index.put(session2);
+
+        assertEquals(2, index.find("tenant", "t1").size());
+        assertEquals(Collections.singleton(session2.getId()), index.find("department", "d1"));
+        assertEquals(Collections.singleton(session1.getId()), index.find("department", null));
+
+        session1.setAttribute("tenant", "t2");
+        index.put(session1);
+        assertEquals(Collections.singleton(session2.getId()), index.find("tenant", "t1"));
+        assertEquals(Collections.singleton(session1.getId()), index.find("tenant", "t2"));
+
+        index.remove(session2.getId());
+        assertTrue(index.find("tenant", "t1").isEmpty());
+        assertTrue(index.find("department", "d1").isEmpty());
+
+        assertThrows(IllegalArgumentException.class, () -> index.find("other", "value"));
+    }
+
+    private UserSession createSession() {
+        User user = new User();
+        user.setLogin("user");
+        return new UserSession(UUID.randomUUID(), user, Collections.emptyList(), Locale.ENGLISH, false);
+    }
+}
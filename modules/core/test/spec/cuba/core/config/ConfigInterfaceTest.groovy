@@ -16,8 +16,10 @@
 
 package spec.cuba.core.config
 
+import com.haulmont.cuba.core.app.ConfigStorageAPI
 import com.haulmont.cuba.core.global.AppBeans
 import com.haulmont.cuba.core.global.Configuration
+import com.haulmont.cuba.core.sys.AppContext
 import com.haulmont.cuba.testsupport.TestContainer
 import org.junit.ClassRule
 import spock.lang.Shared
@@ -59,4 +61,42 @@ class ConfigInterfaceTest extends Specification {
 
         config.setFoo(null)
     }
+
+    def "cached values are invalidated on changes of properties"() {
+
+        def config = configuration.getConfig(TestConfig)
+
+        when: "values are read twice"
+
+        def bar = config.getBar()
+        def foo = config.getFoo()
+
+        then: "the same values are returned"
+
+        bar == 'bar-value'
+        config.getBar() == bar
+        foo == null
+        config.getFoo() == foo
+
+        when: "app property is changed"
+
+        AppContext.setProperty('test.bar', 'bar-changed')
+
+        then: "the new value is returned"
+
+        config.getBar() == 'bar-changed'
+
+        when: "database property is changed bypassing the config interface"
+
+        AppBeans.get(ConfigStorageAPI).setDbProperty('test.foo', 'foo-changed')
+
+        then: "the new value is returned"
+
+        config.getFoo() == 'foo-changed'
+
+        cleanup:
+
+        AppContext.setProperty('test.bar', null)
+        config.setFoo(null)
+    }
 }
@@ -19,6 +19,7 @@ package spec.cuba.core.data_manager
 import com.haulmont.cuba.core.entity.KeyValueEntity
 import com.haulmont.cuba.core.entity.contracts.Id
 import com.haulmont.cuba.core.global.*
+import com.haulmont.cuba.core.sys.persistence.StatementCounter
 import com.haulmont.cuba.testmodel.sales.Customer
 import com.haulmont.cuba.testmodel.sales.Order
 import com.haulmont.cuba.testmodel.sales.TestOrderChangedEventListener
@@ -210,6 +211,34 @@ class DataManagerCommitTest extends Specification {
         cont.deleteRecord(order, customer)
     }
 
+    def "statements executed on commit are counted"() {
+
+        given:
+        def customers = (1..3).collect { new Customer(name: "customer-$it") }
+
+        when:
+        def outerCounter = StatementCounter.start()
+        def counter = StatementCounter.start()
+        dataManager.commit(new CommitContext(customers))
+        def statements = counter.stop()
+        outerCounter.stop()
+
+        then:
+        statements >= 3
+        outerCounter.count == statements
+
+        when:
+        def notCounted = new Customer(name: 'not counted')
+        dataManager.commit(new CommitContext(notCounted))
+
+        then:
+        outerCounter.count == statements
+
+        cleanup:
+        cont.deleteRecord(customers as Customer[])
+        cont.deleteRecord(notCounted)
+    }
+
     protected CommitContext commitContextFor(Customer customer, Order order) {
         new CommitContext()
                 .addInstanceToCommit(customer)
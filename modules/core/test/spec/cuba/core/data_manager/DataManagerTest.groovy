@@ -363,6 +363,33 @@ class DataManagerTest extends Specification {
         sql.execute("delete from TEST_COMPOSITE_KEY where TENANT = $id2.tenant and ENTITY_ID = $id2.entityId")
     }
 
+    def "load by collection of composite ids in concurrent batches"() {
+
+        AppContext.setProperty('cuba.embeddedIdsBatchSize', '2')
+        AppContext.setProperty('cuba.idsBatchLoadingThreads', '2')
+
+        def ids = (1..5).collect { new EntityKey(tenant: 1, entityId: it) }
+        def entities = ids.collect { new CompositeKeyEntity(id: it, name: "e$it.entityId") }
+        dataManager.commit(new CommitContext(entities))
+
+        when:
+
+        def loadContext = LoadContext.create(CompositeKeyEntity).setIds(ids.reverse())
+        def list = dataManager.loadList(loadContext)
+
+        then:
+
+        list == entities.reverse()
+
+        cleanup:
+
+        AppContext.setProperty('cuba.embeddedIdsBatchSize', null)
+        AppContext.setProperty('cuba.idsBatchLoadingThreads', null)
+
+        Sql sql = new Sql(cont.persistence().getDataSource())
+        ids.each { sql.execute("delete from TEST_COMPOSITE_KEY where TENANT = $it.tenant and ENTITY_ID = $it.entityId") }
+    }
+
     def "load by null id"() {
 
         when:
@@ -0,0 +1,160 @@
+/*
+ * Copyright (c) 2008-2020 Haulmont.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package spec.cuba.core.data_manager
+
+import com.haulmont.cuba.core.EntityCursor
+import com.haulmont.cuba.core.Transaction
+import com.haulmont.cuba.core.TransactionalDataManager
+import com.haulmont.cuba.core.global.AppBeans
+import com.haulmont.cuba.core.global.DataManager
+import com.haulmont.cuba.core.global.EntityStates
+import com.haulmont.cuba.core.global.LoadContext
+import com.haulmont.cuba.core.global.Sort
+import com.haulmont.cuba.testmodel.sales.Customer
+import com.haulmont.cuba.testsupport.TestContainer
+import org.junit.ClassRule
+import spock.lang.Shared
+import spock.lang.Specification
+
+import java.util.stream.Collectors
+
+class EntityCursorTest extends Specification {
+
+    @Shared @ClassRule
+    public TestContainer cont = TestContainer.Common.INSTANCE
+
+    private DataManager dataManager
+    private TransactionalDataManager txDataManager
+    private List<Customer> customers
+
+    void setup() {
+        dataManager = AppBeans.get(DataManager)
+        txDataManager = AppBeans.get(TransactionalDataManager)
+
+        customers = (1..5).collect {
+            def customer = cont.metadata().create(Customer)
+            customer.name = "cursor-$it"
+            customer
+        }
+        dataManager.commit(customers as Customer[])
+    }
+
+    void cleanup() {
+        cont.deleteRecord(customers as Customer[])
+    }
+
+    def "cursor iterates over instances selected by query in the query order"() {
+
+        def context = LoadContext.create(Customer)
+                .setQuery(LoadContext.createQuery('select c from test$Customer c where c.name like :name order by c.name desc')
+                .setParameter('name', 'cursor-%'))
+                .setView('_base')
+
+        when:
+
+        def names = []
+        EntityCursor<Customer> cursor = txDataManager.openCursor(context, 2)
+        try {
+            while (cursor.hasNext()) {
+                def customer = cursor.next()
+                assert !AppBeans.get(EntityStates).isManaged(customer)
+                names << customer.name
+            }
+        } finally {
+            cursor.close()
+        }
+
+        then:
+
+        names == ['cursor-5', 'cursor-4', 'cursor-3', 'cursor-2', 'cursor-1']
+        !cursor.hasNext()
+    }
+
+    def "cursor respects first and max results"() {
+
+        def context = LoadContext.create(Customer)
+                .setQuery(LoadContext.createQuery('select c from test$Customer c where c.name like :name')
+                .setParameter('name', 'cursor-%')
+                .setSort(Sort.by('name'))
+                .setFirstResult(1)
+                .setMaxResults(3))
+
+        when:
+
+        def names = txDataManager.openCursor(context, 2).stream()
+                .map { it.name }
+                .collect(Collectors.toList())
+
+        then:
+
+        names == ['cursor-2', 'cursor-3', 'cursor-4']
+    }
+
+    def "cursor iterates over instances by ids"() {
+
+        def context = LoadContext.create(Customer)
+                .setIds(customers.reverse().collect { it.id })
+
+        when:
+
+        def cursor = txDataManager.openCursor(context, 2)
+        def names = cursor.stream()
+                .map { it.name }
+                .collect(Collectors.toList())
+        cursor.close()
+
+        then:
+
+        names == ['cursor-5', 'cursor-4', 'cursor-3', 'cursor-2', 'cursor-1']
+        !cursor.hasNext()
+    }
+
+    def "instances can be saved in the current transaction while iterating"() {
+
+        def context = LoadContext.create(Customer)
+                .setQuery(LoadContext.createQuery('select c from test$Customer c where c.name like :name')
+                .setParameter('name', 'cursor-%'))
+                .setView('_base')
+
+        when:
+
+        Transaction tx = cont.persistence().createTransaction()
+        try {
+            EntityCursor<Customer> cursor = txDataManager.openCursor(context, 2)
+            try {
+                while (cursor.hasNext()) {
+                    def customer = cursor.next()
+                    customer.name = customer.name.replace('cursor-', 'saved-')
+                    txDataManager.save(customer)
+                }
+            } finally {
+                cursor.close()
+            }
+            tx.commit()
+        } finally {
+            tx.end()
+        }
+
+        then:
+
+        def names = dataManager.loadList(LoadContext.create(Customer)
+                .setQuery(LoadContext.createQuery('select c from test$Customer c where c.name like :name order by c.name')
+                .setParameter('name', 'saved-%')))
+                .collect { it.name }
+        names == ['saved-1', 'saved-2', 'saved-3', 'saved-4', 'saved-5']
+    }
+}
@@ -94,4 +94,46 @@ class EntityJsonSerializationTest extends Specification {
         parsedObject.transientField == 'tf'
         parsedObject.valueFromMetaPropertyMethod == null
     }
+
+    def "streaming serialization produces the same JSON as serialization to string"() {
+        def order = cont.metadata().create(Serialization_Order.class)
+        order.setNumber('order-1')
+
+        def orderItem1 = cont.metadata().create(Serialization_OrderItem.class)
+        orderItem1.name = 'item-1'
+        orderItem1.order = order
+
+        def orderItem2 = cont.metadata().create(Serialization_OrderItem.class)
+        orderItem2.name = 'item-2'
+        orderItem2.order = order
+        orderItem2.relatedItem = orderItem1
+
+        order.items = [orderItem1, orderItem2]
+
+        when:
+
+        def writer = new StringWriter()
+        entitySerializationAPI.toJson([order, orderItem2], null, writer, EntitySerializationOption.SERIALIZE_NULLS)
+
+        def outputStream = new ByteArrayOutputStream()
+        entitySerializationAPI.toJson([order, orderItem2], null, outputStream, EntitySerializationOption.COMPACT_REPEATED_ENTITIES)
+
+        then:
+
+        writer.toString() == entitySerializationAPI.toJson([order, orderItem2], null, EntitySerializationOption.SERIALIZE_NULLS)
+        outputStream.toString('UTF-8') == entitySerializationAPI.toJson([order, orderItem2], null, EntitySerializationOption.COMPACT_REPEATED_ENTITIES)
+
+        when:
+
+        def entities = entitySerializationAPI.entitiesCollectionFromJson(new StringReader(writer.toString()), null)
+
+        then:
+
+        entities.size() == 2
+        entities[0] == order
+        entities[0].number == 'order-1'
+        entities[0].items.size() == 2
+        entities[1] == orderItem2
+        entities[1].relatedItem == orderItem1
+    }
 }
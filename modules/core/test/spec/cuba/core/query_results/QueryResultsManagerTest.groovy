@@ -49,6 +49,32 @@ class QueryResultsManagerTest extends Specification {
         new QueryRunner(persistence.getDataSource()).update("delete from SYS_QUERY_RESULT")
     }
 
+    def "test insert and delete"() {
+        def ids = (1..2500).collect { UUID.randomUUID() }
+
+        when:
+
+        queryResultsManager.insert(200, ids)
+
+        then:
+
+        def list = persistence.callInTransaction { em ->
+            em.createQuery('select e.entityId from sys$QueryResult e where e.queryKey = 200').resultList
+        }
+        list.size() == 2500
+        list.toSet() == ids.toSet()
+
+        when:
+
+        queryResultsManager.delete(200)
+
+        then:
+
+        persistence.callInTransaction { em ->
+            em.createQuery('select e from sys$QueryResult e where e.queryKey = 200').resultList
+        }.isEmpty()
+    }
+
     def "test deleteForInactiveSessions - empty table"() {
 
         when:
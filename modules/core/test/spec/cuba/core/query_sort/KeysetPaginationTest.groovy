@@ -0,0 +1,95 @@
+package spec.cuba.core.query_sort
+
+import com.haulmont.cuba.core.app.JpqlQueryBuilder
+import com.haulmont.cuba.core.global.AppBeans
+import com.haulmont.cuba.core.global.DataManager
+import com.haulmont.cuba.core.global.Keyset
+import com.haulmont.cuba.core.global.Metadata
+import com.haulmont.cuba.core.global.Sort
+import com.haulmont.cuba.security.entity.User
+import com.haulmont.cuba.testsupport.TestContainer
+import org.junit.ClassRule
+import spock.lang.Shared
+import spock.lang.Specification
+
+class KeysetPaginationTest extends Specification {
+
+    @Shared
+    @ClassRule
+    public TestContainer cont = TestContainer.Common.INSTANCE
+
+    def "seek predicate is added for applicable sort"() {
+
+        def user = AppBeans.get(Metadata).create(User)
+        user.login = 'b'
+        def keyset = Keyset.after(user, Sort.by('login'))
+
+        when:
+
+        def queryBuilder = AppBeans.get(JpqlQueryBuilder)
+        queryBuilder.setQueryString('select u from sec$User u')
+                .setQueryParameters([:])
+                .setSort(Sort.by('login'))
+                .setKeyset(keyset)
+                .setEntityName('sec$User')
+
+        then:
+
+        queryBuilder.getResultQueryString().contains('u.login > :_ks_0')
+        queryBuilder.getResultQueryString().contains('u.login = :_ks_0 and u.id > :_ks_1')
+        queryBuilder.getResultQueryString().endsWith('order by u.login, u.id')
+        queryBuilder.getResultParameters() == [_ks_0: 'b', _ks_1: user.id]
+
+        when: "sort differs from the keyset"
+
+        queryBuilder = AppBeans.get(JpqlQueryBuilder)
+        queryBuilder.setQueryString('select u from sec$User u')
+                .setQueryParameters([:])
+                .setSort(Sort.by('name'))
+                .setKeyset(keyset)
+                .setEntityName('sec$User')
+
+        then:
+
+        queryBuilder.getResultQueryString() == 'select u from sec$User u order by u.name, u.id'
+    }
+
+    def "keyset is not created for missing values"() {
+
+        def user = AppBeans.get(Metadata).create(User)
+        user.login = 'b'
+
+        expect:
+
+        Keyset.after(user, null) == null
+        Keyset.after(user, Sort.by('name')) == null
+        Keyset.after(user, Sort.by('login')) != null
+    }
+
+    def "keyset pages are the same as offset pages"() {
+
+        def dataManager = AppBeans.get(DataManager)
+        def sort = Sort.by(Sort.Direction.DESC, 'login')
+        def all = dataManager.load(User).query('select u from sec$User u').sort(sort).list()
+
+        when:
+
+        def loaded = []
+        Keyset keyset = null
+        for (int i = 0; i < all.size() + 1; i++) {
+            def page = dataManager.load(User).query('select u from sec$User u')
+                    .sort(sort)
+                    .firstResult(i)
+                    .maxResults(1)
+                    .keyset(keyset)
+                    .list()
+            loaded.addAll(page)
+            keyset = page.isEmpty() ? null : Keyset.after(page[0], sort)
+        }
+
+        then:
+
+        all.size() > 1
+        loaded == all
+    }
+}
@@ -0,0 +1,43 @@
+/*
+ * Copyright (c) 2008-2020 Haulmont.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.haulmont.cuba.core.app;
+
+import com.haulmont.cuba.core.sys.remoting.BatchedRemoteInvocation;
+import org.springframework.remoting.support.RemoteInvocationResult;
+
+import java.util.List;
+
+/**
+ * Executes several invocations of middleware services in one round trip.
+ * <p>
+ * Use {@link com.haulmont.cuba.core.global.ServiceInvocationBatch} on the client tier instead of calling this service
+ * directly.
+ */
+public interface BatchInvocationService {
+
+    String NAME = "cuba_BatchInvocationService";
+
+    /**
+     * Invokes middleware services on behalf of the current user session. Each invocation is executed as a separate
+     * service call, so an exception thrown by one of them does not affect the others.
+     *
+     * @param invocations invocations of services annotated with {@link org.springframework.stereotype.Service}
+     * @param parallel    whether the invocations may be executed concurrently
+     * @return results of the invocations in the same order, each containing either a returned value or a thrown exception
+     */
+    List<RemoteInvocationResult> invoke(List<BatchedRemoteInvocation> invocations, boolean parallel);
+}
@@ -22,6 +22,8 @@ import com.google.common.collect.HashBasedTable;
 import com.google.common.collect.Table;
 import com.google.gson.*;
 import com.google.gson.reflect.TypeToken;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
 import com.haulmont.chile.core.datatypes.Datatype;
 import com.haulmont.chile.core.datatypes.Datatypes;
 import com.haulmont.chile.core.model.MetaClass;
@@ -42,10 +44,17 @@ import org.springframework.stereotype.Component;
 import javax.annotation.Nullable;
 import javax.inject.Inject;
 import javax.validation.constraints.NotNull;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.Writer;
 import java.lang.reflect.Field;
 import java.lang.reflect.Modifier;
 import java.lang.reflect.Type;
 import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
 import java.text.ParseException;
 import java.util.*;
 import java.util.stream.Collectors;
@@ -109,6 +118,55 @@ public class EntitySerialization implements EntitySerializationAPI {
         return createGsonForSerialization(view, options).toJson(entities);
     }
 
+    @Override
+    public void toJson(Entity entity,
+                       @Nullable View view,
+                       Writer writer,
+                       EntitySerializationOption... options) {
+        context.remove();
+        EntitySerializer serializer = new EntitySerializer(view, options);
+        try {
+            JsonWriter jsonWriter = createJsonWriter(writer, options);
+            serializer.writeEntity(jsonWriter, entity, view, new HashSet<>());
+            jsonWriter.flush();
+        } catch (IOException e) {
+            throw new EntitySerializationException("Unable to write entity to JSON", e);
+        }
+    }
+
+    @Override
+    public void toJson(Collection<? extends Entity> entities,
+                       @Nullable View view,
+                       Writer writer,
+                       EntitySerializationOption... options) {
+        context.remove();
+        EntitySerializer serializer = new EntitySerializer(view, options);
+        try {
+            JsonWriter jsonWriter = createJsonWriter(writer, options);
+            jsonWriter.beginArray();
+            for (Entity entity : entities) {
+                if (entity == null) {
+                    jsonWriter.nullValue();
+                } else {
+                    serializer.writeEntity(jsonWriter, entity, view, new HashSet<>());
+                }
+            }
+            jsonWriter.endArray();
+            jsonWriter.flush();
+        } catch (IOException e) {
+            throw new EntitySerializationException("Unable to write entities to JSON", e);
+        }
+    }
+
+    @Override
+    public void toJson(Collection<? extends Entity> entities,
+                       @Nullable View view,
+                       OutputStream outputStream,
+                       EntitySerializationOption... options) {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8));
+        toJson(entities, view, writer, options);
+    }
+
     @Override
     public String objectToJson(Object object, EntitySerializationOption... options) {
         context.remove();
@@ -134,6 +192,28 @@ public class EntitySerialization implements EntitySerializationAPI {
         return createGsonForDeserialization(metaClass, options).fromJson(json, collectionType);
     }
 
+    @SuppressWarnings("unchecked")
+    @Override
+    public <T extends Entity> Collection<T> entitiesCollectionFromJson(Reader json,
+                                                                       @Nullable MetaClass metaClass,
+                                                                       EntitySerializationOption... options) {
+        context.remove();
+        Gson gson = createGsonForDeserialization(metaClass, options);
+        List<T> entities = new ArrayList<>();
+        try {
+            JsonReader jsonReader = new JsonReader(json);
+            jsonReader.beginArray();
+            while (jsonReader.hasNext()) {
+                // only a single array element is kept in memory as a JSON tree
+                entities.add((T) gson.fromJson(jsonReader, Entity.class));
+            }
+            jsonReader.endArray();
+        } catch (IOException e) {
+            throw new EntitySerializationException("Unable to read entities from JSON", e);
+        }
+        return entities;
+    }
+
     @Override
     public <T> T objectFromJson(String json, Class<T> clazz, EntitySerializationOption... options) {
         context.remove();
@@ -161,6 +241,18 @@ public class EntitySerialization implements EntitySerializationAPI {
         return gsonBuilder.create();
     }
 
+    protected JsonWriter createJsonWriter(Writer writer, EntitySerializationOption... options) {
+        JsonWriter jsonWriter = new JsonWriter(writer);
+        // the same settings as Gson uses for the JSON tree produced by toJson()
+        if (ArrayUtils.contains(options, EntitySerializationOption.PRETTY_PRINT)) {
+            jsonWriter.setIndent("  ");
+        }
+        jsonWriter.setSerializeNulls(ArrayUtils.contains(options, EntitySerializationOption.SERIALIZE_NULLS));
+        jsonWriter.setHtmlSafe(true);
+        jsonWriter.setLenient(true);
+        return jsonWriter;
+    }
+
     protected Gson createGsonForDeserialization(@Nullable MetaClass metaClass, EntitySerializationOption... options) {
         return new GsonBuilder()
                 .registerTypeHierarchyAdapter(Entity.class, new EntityDeserializer(metaClass, options))
@@ -192,6 +284,7 @@ public class EntitySerialization implements EntitySerializationAPI {
         protected boolean serializeInstanceName;
         protected boolean doNotSerializeReadOnlyProperties = false;
         protected View view;
+        protected Map<MetaClass, Map<View, EntityWritePlan>> writePlans = new HashMap<>();
 
         public EntitySerializer(@Nullable View view, EntitySerializationOption... options) {
             this.view = view;
@@ -380,6 +473,216 @@ public class EntitySerialization implements EntitySerializationAPI {
                     });
             return jsonArray;
         }
+
+        /**
+         * Writes an entity directly to the JSON stream. Produces the same output as {@link #serializeEntity}
+         * without building a JSON tree.
+         *
+         * @param cyclicReferences entities on the path from the root entity, the set is restored before return
+         */
+        protected void writeEntity(JsonWriter out, Entity entity, @Nullable View view,
+                                   Set<Entity> cyclicReferences) throws IOException {
+            out.beginObject();
+            MetaClass metaClass = entity.getMetaClass();
+            if (!metadataTools.isEmbeddable(metaClass)) {
+                out.name(ENTITY_NAME_PROP).value(metaClass.getName());
+                if (serializeInstanceName) {
+                    String instanceName = null;
+                    try {
+                        instanceName = metadataTools.getInstanceName(entity);
+                    } catch (Exception e) {
+                        log.trace("Unable to get instance name of {}", metaClass.getName(), e);
+                    }
+                    out.name(INSTANCE_NAME_PROP).value(instanceName);
+                }
+                writeIdField(out, entity);
+                if (compactRepeatedEntities) {
+                    Table<Object, MetaClass, Entity> processedObjects = context.get().getProcessedEntities();
+                    if (processedObjects.get(entity.getId(), metaClass) == null) {
+                        processedObjects.put(entity.getId(), metaClass, entity);
+                        writeFields(out, entity, view, cyclicReferences);
+                    }
+                } else if (cyclicReferences.add(entity)) {
+                    writeFields(out, entity, view, cyclicReferences);
+                    cyclicReferences.remove(entity);
+                }
+            } else {
+                writeFields(out, entity, view, cyclicReferences);
+            }
+
+            if (globalConfig.getRestRequiresSecurityToken()) {
+                if (entity instanceof BaseGenericIdEntity || entity instanceof EmbeddableEntity) {
+                    SecurityState securityState = getSecurityState(entity);
+                    if (securityState != null) {
+                        byte[] securityToken = getSecurityToken(securityState);
+                        if (securityToken != null) {
+                            out.name("__securityToken").value(Base64.getEncoder().encodeToString(securityToken));
+                        }
+                    }
+                }
+            }
+            out.endObject();
+        }
+
+        protected void writeIdField(JsonWriter out, Entity entity) throws IOException {
+            MetaProperty primaryKeyProperty = metadataTools.getPrimaryKeyProperty(entity.getMetaClass());
+            if (primaryKeyProperty == null) {
+                primaryKeyProperty = entity.getMetaClass().getProperty("id");
+            }
+            if (primaryKeyProperty == null)
+                throw new EntitySerializationException("Primary key property not found for entity " + entity.getMetaClass());
+            out.name("id");
+            if (metadataTools.hasCompositePrimaryKey(entity.getMetaClass())) {
+                writeEntity(out, (Entity) entity.getId(), null, new HashSet<>());
+            } else {
+                Datatype idDatatype = Datatypes.getNN(primaryKeyProperty.getJavaType());
+                out.value(idDatatype.format(entity.getId()));
+            }
+        }
+
+        protected void writeFields(JsonWriter out, Entity entity, @Nullable View view,
+                                   Set<Entity> cyclicReferences) throws IOException {
+            EntityWritePlan plan = getWritePlan(entity.getMetaClass(), view);
+
+            boolean isNew = PersistenceHelper.isNew(entity);
+            for (PropertyWritePlan property : plan.properties) {
+                boolean loaded = PersistenceHelper.isLoaded(entity, property.name);
+                if (!property.writingAllowed && !(property.persistent && loaded)) {
+                    continue;
+                }
+                if (!isNew && !loaded) {
+                    continue;
+                }
+                writeProperty(out, entity, property, cyclicReferences);
+            }
+
+            if (entity instanceof BaseGenericIdEntity && ((BaseGenericIdEntity) entity).getDynamicAttributes() != null) {
+                for (PropertyWritePlan property : plan.getDynamicProperties()) {
+                    writeProperty(out, entity, property, cyclicReferences);
+                }
+            }
+        }
+
+        protected void writeProperty(JsonWriter out, Entity entity, PropertyWritePlan property,
+                                     Set<Entity> cyclicReferences) throws IOException {
+            MetaProperty metaProperty = property.metaProperty;
+            Object fieldValue = entity.getValue(property.name);
+
+            // JsonWriter omits the name if nulls should not be serialized
+            if (fieldValue == null) {
+                out.name(property.name).nullValue();
+                return;
+            }
+
+            Range propertyRange = metaProperty.getRange();
+            if (propertyRange.isDatatype()) {
+                out.name(property.name);
+                if (property.collectionDynamicAttribute && fieldValue instanceof Collection) {
+                    out.beginArray();
+                    for (Object item : (Collection) fieldValue) {
+                        writeSimpleValue(out, item, metaProperty);
+                    }
+                    out.endArray();
+                } else {
+                    writeSimpleValue(out, fieldValue, metaProperty);
+                }
+            } else if (propertyRange.isEnum()) {
+                out.name(property.name).value(fieldValue.toString());
+            } else if (propertyRange.isClass()) {
+                if (fieldValue instanceof Entity) {
+                    out.name(property.name);
+                    writeEntity(out, (Entity) fieldValue, property.view, cyclicReferences);
+                } else if (fieldValue instanceof Collection) {
+                    out.name(property.name).beginArray();
+                    for (Object item : (Collection) fieldValue) {
+                        if (item instanceof Entity) {
+                            writeEntity(out, (Entity) item, property.view, cyclicReferences);
+                        }
+                    }
+                    out.endArray();
+                }
+            }
+        }
+
+        protected void writeSimpleValue(JsonWriter out, Object value, MetaProperty property) throws IOException {
+            if (value instanceof Number) {
+                out.value((Number) value);
+            } else if (value instanceof Boolean) {
+                out.value((Boolean) value);
+            } else {
+                Datatype datatype = property.getRange().asDatatype();
+                out.value(datatype.format(value));
+            }
+        }
+
+        protected EntityWritePlan getWritePlan(MetaClass metaClass, @Nullable View view) {
+            Map<View, EntityWritePlan> plans = writePlans.computeIfAbsent(metaClass, k -> new IdentityHashMap<>());
+            EntityWritePlan plan = plans.get(view);
+            if (plan == null) {
+                plan = new EntityWritePlan(metaClass, view);
+                plans.put(view, plan);
+            }
+            return plan;
+        }
+
+        /**
+         * Properties of a meta class written for a view. Calculated once for each meta class and view instance
+         * during a serialization call, only the checks depending on the state of an entity are made per entity.
+         */
+        protected class EntityWritePlan {
+            protected final MetaClass metaClass;
+            protected final List<PropertyWritePlan> properties = new ArrayList<>();
+            protected List<PropertyWritePlan> dynamicProperties;
+
+            protected EntityWritePlan(MetaClass metaClass, @Nullable View view) {
+                this.metaClass = metaClass;
+                boolean notPersistentEntity = AbstractNotPersistentEntity.class.isAssignableFrom(metaClass.getJavaClass());
+                for (MetaProperty metaProperty : metaClass.getProperties()) {
+                    if ("id".equals(metaProperty.getName())) {
+                        continue;
+                    }
+                    ViewProperty viewProperty = null;
+                    if (view != null) {
+                        viewProperty = view.getProperty(metaProperty.getName());
+                        if (viewProperty == null) continue;
+                    }
+                    boolean persistent = metadataTools.isPersistent(metaProperty);
+                    boolean writingAllowed = notPersistentEntity
+                            || (!persistent && (!metaProperty.isReadOnly() || !doNotSerializeReadOnlyProperties));
+                    properties.add(new PropertyWritePlan(metaProperty, viewProperty != null ? viewProperty.getView() : null,
+                            persistent, writingAllowed));
+                }
+            }
+
+            protected List<PropertyWritePlan> getDynamicProperties() {
+                if (dynamicProperties == null) {
+                    dynamicProperties = dynamicAttributes.getAttributesForMetaClass(metaClass).stream()
+                            .map(categoryAttribute -> DynamicAttributesUtils.getMetaPropertyPath(metaClass, categoryAttribute).getMetaProperty())
+                            .map(metaProperty -> new PropertyWritePlan(metaProperty, null, false, true))
+                            .collect(Collectors.toList());
+                }
+                return dynamicProperties;
+            }
+        }
+
+        protected class PropertyWritePlan {
+            protected final MetaProperty metaProperty;
+            protected final String name;
+            protected final View view;
+            protected final boolean persistent;
+            protected final boolean writingAllowed;
+            protected final boolean collectionDynamicAttribute;
+
+            protected PropertyWritePlan(MetaProperty metaProperty, @Nullable View view,
+                                        boolean persistent, boolean writingAllowed) {
+                this.metaProperty = metaProperty;
+                this.name = metaProperty.getName();
+                this.view = view;
+                this.persistent = persistent;
+                this.writingAllowed = writingAllowed;
+                this.collectionDynamicAttribute = isCollectionDynamicAttribute(metaProperty);
+            }
+        }
     }
 
     protected class EntityDeserializer implements JsonDeserializer<Entity> {
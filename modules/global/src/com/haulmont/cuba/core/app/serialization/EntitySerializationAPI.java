@@ -21,8 +21,15 @@ import com.haulmont.chile.core.model.MetaClass;
 import com.haulmont.cuba.core.entity.Entity;
 import com.haulmont.cuba.core.global.View;
 
+import org.apache.commons.io.IOUtils;
+
 import javax.annotation.Nullable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.io.Writer;
 import java.lang.reflect.Type;
+import java.nio.charset.StandardCharsets;
 import java.util.Collection;
 
 /**
@@ -87,6 +94,76 @@ public interface EntitySerializationAPI {
      */
     String toJson(Collection<? extends Entity> entities);
 
+    /**
+     * Serializes a single entity directly to the given writer without building an intermediate JSON object graph.
+     * The result is the same as of the {@link #toJson(Entity, View, EntitySerializationOption...)} method.
+     * The writer is flushed but not closed.
+     * <p>
+     * The default implementation writes the result of the String-based method.
+     *
+     * @param entity  an entity to be serialized
+     * @param view    a view that defines which entity properties should be added to the result JSON object
+     * @param writer  a writer to write the JSON object to
+     * @param options options specifying how an entity should be serialized
+     */
+    default void toJson(Entity entity,
+                        @Nullable View view,
+                        Writer writer,
+                        EntitySerializationOption... options) {
+        try {
+            writer.write(toJson(entity, view, options));
+            writer.flush();
+        } catch (IOException e) {
+            throw new EntitySerializationException("Unable to write entity to JSON", e);
+        }
+    }
+
+    /**
+     * Serializes a collection of entities directly to the given writer without building an intermediate JSON
+     * object graph. The result is the same as of the {@link #toJson(Collection, View, EntitySerializationOption...)}
+     * method. The writer is flushed but not closed.
+     * <p>
+     * The default implementation writes the result of the String-based method.
+     *
+     * @param entities a collection of entities to be serialized
+     * @param view     a view that defines which entity properties should be added to the result JSON objects
+     * @param writer   a writer to write the JSON array to
+     * @param options  options specifying how entities should be serialized
+     */
+    default void toJson(Collection<? extends Entity> entities,
+                        @Nullable View view,
+                        Writer writer,
+                        EntitySerializationOption... options) {
+        try {
+            writer.write(toJson(entities, view, options));
+            writer.flush();
+        } catch (IOException e) {
+            throw new EntitySerializationException("Unable to write entities to JSON", e);
+        }
+    }
+
+    /**
+     * Serializes a collection of entities directly to the given output stream in UTF-8. Works like the
+     * {@link #toJson(Collection, View, Writer, EntitySerializationOption...)} method. The stream is flushed
+     * but not closed.
+     *
+     * @param entities     a collection of entities to be serialized
+     * @param view         a view that defines which entity properties should be added to the result JSON objects
+     * @param outputStream a stream to write the JSON array to
+     * @param options      options specifying how entities should be serialized
+     */
+    default void toJson(Collection<? extends Entity> entities,
+                        @Nullable View view,
+                        OutputStream outputStream,
+                        EntitySerializationOption... options) {
+        try {
+            outputStream.write(toJson(entities, view, options).getBytes(StandardCharsets.UTF_8));
+            outputStream.flush();
+        } catch (IOException e) {
+            throw new EntitySerializationException("Unable to write entities to JSON", e);
+        }
+    }
+
     /**
      * Serializes any custom POJO or collection of POJOs or JSON. If some field in POJO is an entity then this field
      * will be serialized according to entity serialization rules. Date fields are serialized according to the format of
@@ -128,6 +205,30 @@ public interface EntitySerializationAPI {
                                                                 @Nullable MetaClass metaClass,
                                                                 EntitySerializationOption... options);
 
+    /**
+     * Deserializes a JSON array of objects to entities collection reading the array from the given reader element
+     * by element. Works like the {@link #entitiesCollectionFromJson(String, MetaClass, EntitySerializationOption...)}
+     * method, but does not require the whole JSON to be loaded in memory. The reader is not closed.
+     * <p>
+     * The default implementation reads the whole JSON and delegates to the String-based method.
+     *
+     * @param json      a reader of a JSON array of objects
+     * @param metaClass a metaClass of the entities that will be created
+     * @param options   options specifying how a JSON object graph was serialized
+     * @return an entities collection
+     */
+    default <T extends Entity> Collection<T> entitiesCollectionFromJson(Reader json,
+                                                                        @Nullable MetaClass metaClass,
+                                                                        EntitySerializationOption... options) {
+        String jsonString;
+        try {
+            jsonString = IOUtils.toString(json);
+        } catch (IOException e) {
+            throw new EntitySerializationException("Unable to read entities from JSON", e);
+        }
+        return entitiesCollectionFromJson(jsonString, metaClass, options);
+    }
+
     /**
      * Deserializes an object of any class from JSON. Date fields are deserialized according to the {@link
      * com.haulmont.chile.core.datatypes.impl.DateTimeDatatype} format, entities object and fields of Entity type are
@@ -85,6 +85,10 @@ public class ConfigGetter extends ConfigAccessorMethod {
             return factory.build(str);
     }
 
+    public SourceType getSourceType() {
+        return sourceType;
+    }
+
     /**
      * Get a configuration field value.
      *
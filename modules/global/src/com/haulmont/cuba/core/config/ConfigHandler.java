@@ -21,6 +21,8 @@ package com.haulmont.cuba.core.config;
 
 import java.lang.reflect.InvocationHandler;
 import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Configuration interface method handler.
@@ -35,6 +37,14 @@ public class ConfigHandler implements InvocationHandler {
      * The configuration interface.
      */
     private final Class<?> configInterface;
+    /**
+     * Method implementations, to avoid synchronization in {@link ConfigMethods#getInstance}.
+     */
+    private final Map<Method, ConfigMethod> configMethods = new ConcurrentHashMap<>();
+    /**
+     * Typed values returned by getters without arguments, see {@link ConfigValueCache}.
+     */
+    private final Map<Method, CachedValue> cachedValues = new ConcurrentHashMap<>();
 
     /**
      * Create a new ConfigHandler instance.
@@ -75,7 +85,40 @@ public class ConfigHandler implements InvocationHandler {
      */
     @Override
     public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
-        ConfigMethod configMethod = ConfigMethods.getInstance(configInterface, method);
+        boolean noArgs = args == null || args.length == 0;
+        if (noArgs) {
+            CachedValue cachedValue = cachedValues.get(method);
+            if (cachedValue != null && cachedValue.version == ConfigValueCache.getVersion()) {
+                return cachedValue.value;
+            }
+        }
+
+        ConfigMethod configMethod = configMethods.get(method);
+        if (configMethod == null) {
+            configMethod = ConfigMethods.getInstance(configInterface, method);
+            configMethods.put(method, configMethod);
+        }
+
+        if (noArgs && configMethod instanceof ConfigGetter
+                && persister.isCacheable(((ConfigGetter) configMethod).getSourceType())) {
+            // read the version before the value to not cache a value changed concurrently under the new version
+            long version = ConfigValueCache.getVersion();
+            Object value = configMethod.invoke(this, args, proxy);
+            if (ConfigValueCache.isImmutable(value)) {
+                cachedValues.put(method, new CachedValue(version, value));
+            }
+            return value;
+        }
         return configMethod.invoke(this, args, proxy);
-  }
+    }
+
+    protected static class CachedValue {
+        protected final long version;
+        protected final Object value;
+
+        protected CachedValue(long version, Object value) {
+            this.version = version;
+            this.value = value;
+        }
+    }
 }
\ No newline at end of file
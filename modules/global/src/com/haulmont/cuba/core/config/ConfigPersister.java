@@ -20,4 +20,12 @@ public interface ConfigPersister {
     String getProperty(SourceType sourceType, String name);
 
     void setProperty(SourceType sourceType, String name, String value);
+
+    /**
+     * @return whether config interface proxies may cache values of the given source type until
+     * {@link ConfigValueCache#invalidate()} is called
+     */
+    default boolean isCacheable(SourceType sourceType) {
+        return false;
+    }
 }
\ No newline at end of file
@@ -73,6 +73,7 @@ public class ConfigSetter extends ConfigAccessorMethod {
         else
             str = stringifier.stringify(value);
         persister.setProperty(sourceType, getPropertyName(), str);
+        ConfigValueCache.invalidate();
     }
 
     /**
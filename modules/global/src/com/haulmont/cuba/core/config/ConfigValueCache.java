@@ -0,0 +1,71 @@
+/*
+ * Copyright (c) 2008-2020 Haulmont.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.haulmont.cuba.core.config;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.Locale;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Version of configuration property values cached by {@link ConfigHandler}.
+ * <p>
+ * Any change of application properties or database-stored properties increments the version, which discards
+ * all values cached before the change. Values are cached only for source types allowed by
+ * {@link ConfigPersister#isCacheable(SourceType)}.
+ */
+public final class ConfigValueCache {
+
+    private static final AtomicLong version = new AtomicLong();
+
+    private ConfigValueCache() {
+    }
+
+    public static long getVersion() {
+        return version.get();
+    }
+
+    /**
+     * Discards all cached configuration values. Must be called on any change of property values.
+     */
+    public static void invalidate() {
+        version.incrementAndGet();
+    }
+
+    /**
+     * @return true if the value can be returned to different callers without copying
+     */
+    public static boolean isImmutable(Object value) {
+        return value == null
+                || value instanceof String
+                || value instanceof Boolean
+                || value instanceof Integer
+                || value instanceof Long
+                || value instanceof Double
+                || value instanceof Float
+                || value instanceof Short
+                || value instanceof Byte
+                || value instanceof Character
+                || value instanceof BigDecimal
+                || value instanceof BigInteger
+                || value instanceof Enum
+                || value instanceof Class
+                || value instanceof UUID
+                || value instanceof Locale;
+    }
+}
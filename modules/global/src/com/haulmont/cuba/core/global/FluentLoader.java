@@ -22,6 +22,7 @@ import com.haulmont.cuba.core.entity.Entity;
 import com.haulmont.cuba.core.global.queryconditions.Condition;
 
 import javax.annotation.CheckReturnValue;
+import javax.annotation.Nullable;
 import javax.persistence.TemporalType;
 import java.util.*;
 import java.util.function.Consumer;
@@ -446,6 +447,8 @@ public class FluentLoader<E extends Entity<K>, K> {
         private int maxResults;
         private boolean cacheable;
         private Condition condition;
+        private Sort sort;
+        private Keyset keyset;
 
         ByQuery(FluentLoader<E, K> loader, String queryString) {
             Preconditions.checkNotEmptyString(queryString, "queryString is empty");
@@ -489,6 +492,8 @@ public class FluentLoader<E extends Entity<K>, K> {
             loadContext.getQuery().setFirstResult(firstResult);
             loadContext.getQuery().setMaxResults(maxResults);
             loadContext.getQuery().setCacheable(cacheable);
+            loadContext.getQuery().setSort(sort);
+            loadContext.getQuery().setKeyset(keyset);
 
             return loadContext;
         }
@@ -663,6 +668,22 @@ public class FluentLoader<E extends Entity<K>, K> {
             return this;
         }
 
+        /**
+         * Sets sort of the query results.
+         */
+        public ByQuery<E, K> sort(Sort sort) {
+            this.sort = sort;
+            return this;
+        }
+
+        /**
+         * Sets the position of the page for keyset pagination, see {@link LoadContext.Query#setKeyset(Keyset)}.
+         */
+        public ByQuery<E, K> keyset(@Nullable Keyset keyset) {
+            this.keyset = keyset;
+            return this;
+        }
+
         /**
          * Indicates that the query results should be cached.
          * By default, queries are not cached.
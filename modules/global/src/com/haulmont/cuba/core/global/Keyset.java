@@ -0,0 +1,181 @@
+/*
+ * Copyright (c) 2008-2020 Haulmont.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.haulmont.cuba.core.global;
+
+import com.haulmont.chile.core.model.MetaClass;
+import com.haulmont.chile.core.model.MetaProperty;
+import com.haulmont.chile.core.model.Range;
+import com.haulmont.cuba.core.entity.Entity;
+import com.haulmont.cuba.core.entity.IdProxy;
+
+import javax.annotation.Nullable;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Position in results of a sorted query used for keyset (seek) pagination.
+ * <p>
+ * Contains values of the sort properties and the identifier of the last row of the previous page. If the keyset is
+ * set to {@link LoadContext.Query#setKeyset(Keyset)}, the query loads rows following this position instead of
+ * skipping {@link LoadContext.Query#getFirstResult()} rows, so loading of a deep page costs the same as loading of
+ * the first one. The first result is used as usual if the keyset cannot be applied to the query, see
+ * {@link #isApplicable(MetaClass, Sort)}.
+ * <p>
+ * Use {@link #after(Entity, Sort)} to create a keyset for the next page.
+ */
+public class Keyset implements Serializable {
+
+    private static final long serialVersionUID = -3529174120539012455L;
+
+    private final List<Sort.Order> orders;
+    private final List<Object> values;
+    private final Object id;
+
+    protected Keyset(List<Sort.Order> orders, List<Object> values, Object id) {
+        this.orders = orders;
+        this.values = values;
+        this.id = id;
+    }
+
+    /**
+     * Creates a keyset pointing to the position after the given entity.
+     *
+     * @param entity last entity of the current page
+     * @param sort   sort of the query
+     * @return keyset or null if the query is not sorted or the entity has no loaded values of the sort properties
+     */
+    @Nullable
+    public static Keyset after(Entity entity, @Nullable Sort sort) {
+        if (sort == null || sort.getOrders().isEmpty()) {
+            return null;
+        }
+        EntityStates entityStates = AppBeans.get(EntityStates.NAME);
+
+        List<Object> values = new ArrayList<>(sort.getOrders().size());
+        for (Sort.Order order : sort.getOrders()) {
+            String property = order.getProperty();
+            if (property.indexOf('.') >= 0 || !entityStates.isLoaded(entity, property)) {
+                return null;
+            }
+            Object value = entity.getValue(property);
+            if (value == null) {
+                return null;
+            }
+            values.add(value);
+        }
+
+        Object id = entity.getId();
+        if (id instanceof IdProxy) {
+            id = ((IdProxy) id).get();
+        }
+        if (id == null || id instanceof Entity) {
+            return null;
+        }
+        return new Keyset(new ArrayList<>(sort.getOrders()), values, id);
+    }
+
+    /**
+     * @return orders of the sort the keyset was created for
+     */
+    public List<Sort.Order> getOrders() {
+        return Collections.unmodifiableList(orders);
+    }
+
+    /**
+     * @return values of the sort properties in the order of {@link #getOrders()}
+     */
+    public List<Object> getValues() {
+        return Collections.unmodifiableList(values);
+    }
+
+    /**
+     * @return identifier of the last row of the previous page
+     */
+    public Object getId() {
+        return id;
+    }
+
+    /**
+     * Checks whether the keyset can be applied to the query sorted as specified. It is possible if the keyset is
+     * created for the same sort and all sort properties are persistent, not nullable, non-LOB attributes of the
+     * entity itself sorted in the same direction, and the entity has a simple primary key.
+     */
+    public boolean isApplicable(MetaClass metaClass, @Nullable Sort sort) {
+        if (sort == null || sort.getOrders().size() != orders.size() || orders.isEmpty()) {
+            return false;
+        }
+        MetadataTools metadataTools = AppBeans.get(MetadataTools.NAME);
+
+        Sort.Direction direction = orders.get(0).getDirection();
+        for (int i = 0; i < orders.size(); i++) {
+            Sort.Order order = orders.get(i);
+            Sort.Order sortOrder = sort.getOrders().get(i);
+            if (!order.getProperty().equals(sortOrder.getProperty())
+                    || order.getDirection() != sortOrder.getDirection()
+                    || order.getDirection() != direction) {
+                return false;
+            }
+
+            MetaProperty metaProperty = metaClass.getProperty(order.getProperty());
+            if (metaProperty == null
+                    || !metaProperty.isMandatory()
+                    || !metadataTools.isPersistent(metaProperty)
+                    || metadataTools.isLob(metaProperty)) {
+                return false;
+            }
+            Range range = metaProperty.getRange();
+            if (!range.isDatatype() && !range.isEnum()) {
+                return false;
+            }
+        }
+
+        MetaProperty primaryKeyProperty = metadataTools.getPrimaryKeyProperty(metaClass);
+        return primaryKeyProperty != null && !primaryKeyProperty.getRange().isClass();
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+
+        Keyset keyset = (Keyset) o;
+
+        if (!values.equals(keyset.values) || !id.equals(keyset.id) || orders.size() != keyset.orders.size())
+            return false;
+        for (int i = 0; i < orders.size(); i++) {
+            Sort.Order order = orders.get(i);
+            Sort.Order other = keyset.orders.get(i);
+            if (!order.getProperty().equals(other.getProperty()) || order.getDirection() != other.getDirection())
+                return false;
+        }
+        return true;
+    }
+
+    @Override
+    public int hashCode() {
+        int result = values.hashCode();
+        result = 31 * result + id.hashCode();
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        return "Keyset{orders=" + orders + ", values=" + values + ", id=" + id + "}";
+    }
+}
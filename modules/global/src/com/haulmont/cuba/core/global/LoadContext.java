@@ -331,6 +331,7 @@ public class LoadContext<E extends Entity> implements DataLoadContext, Serializa
             ctx.getHints().putAll(hints);
         }
         ctx.loadDynamicAttributes = loadDynamicAttributes;
+        ctx.loadPartialEntities = loadPartialEntities;
         ctx.authorizationRequired = authorizationRequired;
         ctx.joinTransaction = joinTransaction;
         return ctx;
@@ -359,6 +360,7 @@ public class LoadContext<E extends Entity> implements DataLoadContext, Serializa
         private boolean cacheable;
         private Condition condition;
         private Sort sort;
+        private Keyset keyset;
 
         /**
          * @param queryString JPQL query string. Only named parameters are supported.
@@ -491,6 +493,26 @@ public class LoadContext<E extends Entity> implements DataLoadContext, Serializa
             return this;
         }
 
+        /**
+         * @return position of the page for keyset pagination
+         */
+        @Nullable
+        public Keyset getKeyset() {
+            return keyset;
+        }
+
+        /**
+         * Sets the position of the page for keyset pagination. If the keyset is applicable to the query sort,
+         * rows following the keyset are loaded and the first result is ignored.
+         *
+         * @param keyset keyset created by {@link Keyset#after(Entity, Sort)} for the last row of the previous page
+         * @return this query instance for chaining
+         */
+        public Query setKeyset(@Nullable Keyset keyset) {
+            this.keyset = keyset;
+            return this;
+        }
+
         /**
          * Indicates that the query results should be cached.
          * @return the same query instance
@@ -535,6 +557,7 @@ public class LoadContext<E extends Entity> implements DataLoadContext, Serializa
             query.cacheable = cacheable;
             query.condition = condition == null ? null : condition.copy();
             query.sort = sort;
+            query.keyset = keyset;
             return query;
         }
 
@@ -547,6 +570,7 @@ public class LoadContext<E extends Entity> implements DataLoadContext, Serializa
 
             if (firstResult != query.firstResult) return false;
             if (maxResults != query.maxResults) return false;
+            if (!Objects.equals(keyset, query.keyset)) return false;
             if (!parameters.equals(query.parameters)) return false;
             return queryString.equals(query.queryString);
         }
@@ -557,6 +581,7 @@ public class LoadContext<E extends Entity> implements DataLoadContext, Serializa
             result = 31 * result + queryString.hashCode();
             result = 31 * result + firstResult;
             result = 31 * result + maxResults;
+            result = 31 * result + (keyset != null ? keyset.hashCode() : 0);
             return result;
         }
 
@@ -568,6 +593,7 @@ public class LoadContext<E extends Entity> implements DataLoadContext, Serializa
                     ", sort=" + sort +
                     ", firstResult=" + firstResult +
                     ", maxResults=" + maxResults +
+                    (keyset != null ? ", keyset=" + keyset : "") +
                     "}";
             return StringHelper.removeExtraSpaces(stringResult.replace('\n', ' '));
         }
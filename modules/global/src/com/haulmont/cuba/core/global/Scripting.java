@@ -18,6 +18,7 @@
 package com.haulmont.cuba.core.global;
 
 import groovy.lang.Binding;
+import groovy.lang.Script;
 
 import javax.annotation.Nullable;
 import java.util.Map;
@@ -61,6 +62,15 @@ public interface Scripting {
      */
     <T> T evaluateGroovy(String text, Map<String, Object> context);
 
+    /**
+     * Compiles Groovy expression or script text with the default imports.
+     * Unlike {@link #evaluateGroovy(String, Binding)}, the compiled class is not cached: the caller is responsible
+     * for keeping it for repeated evaluations.
+     * @param text      Groovy expression or script text
+     * @return          script class, its instances can be run concurrently with separate bindings
+     */
+    Class<? extends Script> compileGroovy(String text);
+
     /**
      * Runs Groovy script.
      * The script must be located as file under <em>conf</em> directory, or as a classpath resource.
@@ -0,0 +1,243 @@
+/*
+ * Copyright (c) 2008-2020 Haulmont.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.haulmont.cuba.core.global;
+
+import com.google.common.base.Defaults;
+import com.haulmont.cuba.core.app.BatchInvocationService;
+import com.haulmont.cuba.core.sys.remoting.BatchedRemoteInvocation;
+import org.springframework.remoting.support.RemoteInvocationResult;
+import org.springframework.remoting.support.RemoteInvocationUtils;
+
+import javax.annotation.Nullable;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.lang.reflect.UndeclaredThrowableException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Collects invocations of middleware services and executes them in one round trip, which is cheaper than
+ * sequential remote calls when a screen needs several independent pieces of data from the middleware.
+ * <p>
+ * Usage example:
+ * <pre>
+ * ServiceInvocationBatch batch = new ServiceInvocationBatch();
+ * ServiceInvocationBatch.Result&lt;List&lt;User&gt;&gt; users =
+ *         batch.add(DataService.NAME, DataService.class, service -&gt; service.loadList(usersContext));
+ * ServiceInvocationBatch.Result&lt;Long&gt; groupsCount =
+ *         batch.add(DataService.NAME, DataService.class, service -&gt; service.getCount(groupsContext));
+ * batch.execute();
+ *
+ * List&lt;User&gt; list = users.get();
+ * long count = groupsCount.get();
+ * </pre>
+ * Each invocation is executed on the middleware as a separate service call in the current user session.
+ * An exception thrown by an invocation is rethrown by {@link Result#get()} of this invocation only.
+ * <p>
+ * The batch is not thread-safe and can be executed once.
+ */
+public class ServiceInvocationBatch {
+
+    protected final List<BatchedRemoteInvocation> invocations = new ArrayList<>();
+    protected final List<Result<?>> results = new ArrayList<>();
+
+    protected boolean parallel;
+    protected boolean executed;
+
+    /**
+     * @return whether the invocations may be executed on the middleware concurrently
+     */
+    public boolean isParallel() {
+        return parallel;
+    }
+
+    /**
+     * Allows the middleware to execute the invocations concurrently. Set it only if the invocations do not depend
+     * on each other.
+     */
+    public ServiceInvocationBatch setParallel(boolean parallel) {
+        this.parallel = parallel;
+        return this;
+    }
+
+    /**
+     * Adds an invocation of a service method returning a value.
+     *
+     * @param serviceName      name of the service, e.g. {@code DataService.NAME}
+     * @param serviceInterface service interface
+     * @param invocation       function invoking exactly one method of the service passed to it. The function is
+     *                         called immediately with a recording stub, so its return value must not be used.
+     * @return result of the invocation which is available after {@link #execute()}
+     */
+    public <S, R> Result<R> add(String serviceName, Class<S> serviceInterface, Function<S, R> invocation) {
+        return addInvocation(serviceName, serviceInterface, invocation::apply);
+    }
+
+    /**
+     * Adds an invocation of a service method not returning a value.
+     *
+     * @see #add(String, Class, Function)
+     */
+    public <S> Result<Void> addVoid(String serviceName, Class<S> serviceInterface, Consumer<S> invocation) {
+        return addInvocation(serviceName, serviceInterface, invocation);
+    }
+
+    /**
+     * @return number of added invocations
+     */
+    public int size() {
+        return invocations.size();
+    }
+
+    public boolean isExecuted() {
+        return executed;
+    }
+
+    /**
+     * Executes all added invocations by {@link BatchInvocationService} and fills their results.
+     */
+    public void execute() {
+        if (executed) {
+            throw new IllegalStateException("Batch is already executed");
+        }
+        executed = true;
+
+        if (invocations.isEmpty()) {
+            return;
+        }
+
+        BatchInvocationService batchInvocationService = AppBeans.get(BatchInvocationService.NAME);
+        List<RemoteInvocationResult> invocationResults = batchInvocationService.invoke(invocations, parallel);
+        if (invocationResults.size() != results.size()) {
+            throw new IllegalStateException(String.format("Expected %s results of invocations, got %s",
+                    results.size(), invocationResults.size()));
+        }
+        for (int i = 0; i < invocationResults.size(); i++) {
+            results.get(i).invocationResult = invocationResults.get(i);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    protected <S, R> Result<R> addInvocation(String serviceName, Class<S> serviceInterface, Consumer<S> invocation) {
+        if (executed) {
+            throw new IllegalStateException("Batch is already executed");
+        }
+        if (!serviceInterface.isInterface()) {
+            throw new IllegalArgumentException("Not an interface: " + serviceInterface.getName());
+        }
+
+        RecordingInvocationHandler handler = new RecordingInvocationHandler();
+        S stub = (S) Proxy.newProxyInstance(serviceInterface.getClassLoader(), new Class[]{serviceInterface}, handler);
+        invocation.accept(stub);
+        if (handler.method == null) {
+            throw new IllegalArgumentException("No method of " + serviceInterface.getName() + " is invoked");
+        }
+
+        invocations.add(new BatchedRemoteInvocation(serviceName,
+                handler.method.getName(), handler.method.getParameterTypes(), handler.arguments));
+
+        Result<R> result = new Result<>();
+        results.add(result);
+        return result;
+    }
+
+    protected static class RecordingInvocationHandler implements InvocationHandler {
+
+        protected Method method;
+        protected Object[] arguments;
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) {
+            if (method.getDeclaringClass() == Object.class) {
+                throw new UnsupportedOperationException("Method " + method.getName() + " cannot be invoked in a batch");
+            }
+            if (this.method != null) {
+                throw new IllegalStateException("Only one service method can be invoked per batch item");
+            }
+            this.method = method;
+            this.arguments = args != null ? args : new Object[0];
+            return Defaults.defaultValue(method.getReturnType());
+        }
+    }
+
+    /**
+     * Result of an invocation added to the batch.
+     */
+    public static class Result<R> {
+
+        protected RemoteInvocationResult invocationResult;
+
+        /**
+         * @return true if the batch is executed and the result is available
+         */
+        public boolean isDone() {
+            return invocationResult != null;
+        }
+
+        /**
+         * @return value returned by the service method
+         * @throws IllegalStateException if the batch is not executed yet
+         * @throws RuntimeException      exception thrown by the service method. Checked exceptions are wrapped into
+         *                               {@link UndeclaredThrowableException}.
+         */
+        @SuppressWarnings("unchecked")
+        @Nullable
+        public R get() {
+            Throwable exception = getException();
+            if (exception != null) {
+                if (exception instanceof Exception) {
+                    RemoteInvocationUtils.fillInClientStackTraceIfPossible(exception);
+                }
+                if (exception instanceof RuntimeException) {
+                    throw (RuntimeException) exception;
+                }
+                if (exception instanceof Error) {
+                    throw (Error) exception;
+                }
+                throw new UndeclaredThrowableException(exception);
+            }
+            return (R) invocationResult.getValue();
+        }
+
+        /**
+         * @return exception thrown by the service method, or null if the method completed normally
+         * @throws IllegalStateException if the batch is not executed yet
+         */
+        @Nullable
+        public Throwable getException() {
+            if (invocationResult == null) {
+                throw new IllegalStateException("Batch is not executed");
+            }
+            Throwable throwable = invocationResult.getException();
+            if (throwable instanceof InvocationTargetException) {
+                throwable = ((InvocationTargetException) throwable).getTargetException();
+            }
+            if (throwable instanceof RemoteException) {
+                // checked exception declared in the service method or runtime exception supported by client
+                Exception exception = ((RemoteException) throwable).getFirstCauseException();
+                if (exception != null) {
+                    throwable = exception;
+                }
+            }
+            return throwable;
+        }
+    }
+}
@@ -16,6 +16,7 @@
  */
 package com.haulmont.cuba.core.global;
 
+import com.haulmont.bali.util.Preconditions;
 import com.haulmont.chile.core.model.MetaClass;
 import com.haulmont.chile.core.model.MetaProperty;
 import com.haulmont.cuba.core.entity.*;
@@ -40,7 +41,14 @@ import static org.apache.commons.collections4.CollectionUtils.isNotEmpty;
  * <li>{@link #MINIMAL}</li>
  * <li>{@link #BASE}</li>
  * </ul>
- *
+ * <p>
+ * A view can be {@linkplain #freeze() frozen} to be safely shared between threads. Views returned by
+ * {@link ViewRepository} are lightweight copies of frozen views: they share properties with the repository
+ * until modified. Frozen nested views of a modifiable view are copied the same way when they are obtained from
+ * its properties, and such a copy replaces the nested view of its owner on the first modification.
+ * A modifiable view can be read by several threads as long as it is not modified. Code which only reads a view
+ * can use {@link #frozenCopy(View)} to avoid copying nested views.
+ * </p>
  */
 public class View implements Serializable {
 
@@ -104,6 +112,27 @@ public class View implements Serializable {
 
     private boolean loadPartialEntities;
 
+    private transient boolean frozen;
+
+    private transient boolean sharedProperties;
+
+    /**
+     * Lazy copies of frozen nested views by original properties, created when the nested views are accessed.
+     * Guarded by this view together with {@link #resolvedProperties}.
+     */
+    private transient Map<ViewProperty, ViewProperty> nestedCopies;
+
+    private transient List<ViewProperty> resolvedProperties;
+
+    /**
+     * For a lazy copy of a frozen nested view: the view which owns the copy until it is modified.
+     */
+    private transient View copyOwner;
+
+    private transient ViewProperty copyOwnerSourceProperty;
+
+    private transient ViewProperty copyOwnerProperty;
+
     public View(Class<? extends Entity> entityClass) {
         this(entityClass, "", true);
     }
@@ -153,7 +182,8 @@ public class View implements Serializable {
             }
 
             for (View view : sources) {
-                putProperties(this.properties, view.getProperties());
+                // original properties, lazy copies of nested views belong to the source view
+                putProperties(this.properties, view.properties.values());
             }
         }
     }
@@ -165,10 +195,16 @@ public class View implements Serializable {
             if (thisProperties.containsKey(sourcePropertyName)) {
                 View sourcePropertyView = sourceProperty.getView();
 
-                if (sourcePropertyView != null && isNotEmpty(sourcePropertyView.getProperties())) {
-
-                    Map<String, ViewProperty> thisViewProperties = thisProperties.get(sourcePropertyName).getView().properties;
-                    putProperties(thisViewProperties, sourcePropertyView.getProperties());
+                if (sourcePropertyView != null && !sourcePropertyView.properties.isEmpty()) {
+                    ViewProperty thisProperty = thisProperties.get(sourcePropertyName);
+                    View thisPropertyView = thisProperty.getView();
+                    if (thisPropertyView.isFrozen()) {
+                        // do not merge into a view shared with other graphs
+                        thisPropertyView = copy(thisPropertyView);
+                        thisProperties.put(sourcePropertyName,
+                                new ViewProperty(sourcePropertyName, thisPropertyView, thisProperty.getFetchMode()));
+                    }
+                    putProperties(thisPropertyView.getModifiableProperties(), sourcePropertyView.properties.values());
                 }
 
             } else {
@@ -187,13 +223,130 @@ public class View implements Serializable {
                 .entityClass(view.getEntityClass())
                 .name(view.getName());
         View copy = new View(viewParams);
-        for (ViewProperty property : view.getProperties()) {
+        for (ViewProperty property : view.properties.values()) {
             copy.addProperty(property.getName(), copy(property.getView()), property.getFetchMode());
         }
 
         return copy;
     }
 
+    /**
+     * Creates a lightweight copy of the given frozen view. The copy shares properties with the source view
+     * until it is modified, nested views are copied lazily when they are obtained from the copy.
+     *
+     * @param view frozen view
+     * @return modifiable copy of the view
+     */
+    public static View sharedCopy(View view) {
+        Preconditions.checkNotNullArgument(view, "view is null");
+        if (!view.isFrozen()) {
+            throw new IllegalArgumentException("View " + view + " is not frozen");
+        }
+
+        View copy = new View(new View.ViewParams()
+                .entityClass(view.getEntityClass())
+                .name(view.getName()));
+        copy.properties = view.properties;
+        copy.sharedProperties = true;
+        copy.loadPartialEntities = view.loadPartialEntities;
+        return copy;
+    }
+
+    /**
+     * Creates a frozen copy of the given view to be read without copying nested views. Frozen nested views are
+     * shared with the source view, other nested views are copied and frozen, so the source view is not affected.
+     *
+     * @param view view to copy
+     * @return the view itself if it is frozen, or its frozen copy
+     */
+    public static View frozenCopy(View view) {
+        Preconditions.checkNotNullArgument(view, "view is null");
+        if (view.isFrozen()) {
+            return view;
+        }
+
+        View copy = new View(new View.ViewParams()
+                .entityClass(view.getEntityClass())
+                .name(view.getName()));
+        for (ViewProperty property : view.properties.values()) {
+            View propertyView = property.getView();
+            if (propertyView != null && !propertyView.isFrozen()) {
+                property = new ViewProperty(property.getName(), frozenCopy(propertyView), property.getFetchMode());
+            }
+            copy.properties.put(property.getName(), property);
+        }
+        copy.loadPartialEntities = view.loadPartialEntities;
+        copy.frozen = true;
+        return copy;
+    }
+
+    /**
+     * Makes this view and all its nested views immutable. Any attempt to modify a frozen view
+     * throws {@link IllegalStateException}.
+     *
+     * @return this view instance for chaining
+     */
+    public View freeze() {
+        if (!frozen) {
+            frozen = true;
+            nestedCopies = null;
+            resolvedProperties = null;
+            for (ViewProperty property : properties.values()) {
+                if (property.getView() != null) {
+                    property.getView().freeze();
+                }
+            }
+        }
+        return this;
+    }
+
+    /**
+     * @return true if the view is immutable
+     * @see #freeze()
+     */
+    public boolean isFrozen() {
+        return frozen;
+    }
+
+    protected void checkNotFrozen() {
+        if (frozen) {
+            throw new IllegalStateException(String.format("View %s is frozen and cannot be modified, use View.copy()", this));
+        }
+    }
+
+    /**
+     * Prepares the view for modification. A lazy copy of a frozen nested view replaces the original nested
+     * view in its owner, so the modification becomes visible through the owner.
+     */
+    protected void beforeModification() {
+        checkNotFrozen();
+        View owner;
+        ViewProperty ownerSourceProperty;
+        ViewProperty ownerProperty;
+        synchronized (this) {
+            resolvedProperties = null;
+            owner = copyOwner;
+            ownerSourceProperty = copyOwnerSourceProperty;
+            ownerProperty = copyOwnerProperty;
+            copyOwner = null;
+            copyOwnerSourceProperty = null;
+            copyOwnerProperty = null;
+        }
+        // the owner could get another view for the property since this copy was created
+        if (owner != null && owner.properties.get(ownerProperty.getName()) == ownerSourceProperty) {
+            owner.getModifiableProperties().put(ownerProperty.getName(), ownerProperty);
+        }
+    }
+
+    protected Map<String, ViewProperty> getModifiableProperties() {
+        beforeModification();
+        if (sharedProperties) {
+            properties = new LinkedHashMap<>(properties);
+            sharedProperties = false;
+        }
+        return properties;
+    }
+
     /**
      * @return entity class this view belongs to
      */
@@ -212,7 +365,52 @@ public class View implements Serializable {
      * @return collection of properties
      */
     public Collection<ViewProperty> getProperties() {
-        return properties.values();
+        if (frozen) {
+            return Collections.unmodifiableCollection(properties.values());
+        }
+        synchronized (this) {
+            if (resolvedProperties == null) {
+                List<ViewProperty> resolved = null;
+                for (ViewProperty property : properties.values()) {
+                    if (property.getView() != null && property.getView().isFrozen()) {
+                        resolved = new ArrayList<>(properties.size());
+                        break;
+                    }
+                }
+                if (resolved == null) {
+                    return sharedProperties ? Collections.unmodifiableCollection(properties.values()) : properties.values();
+                }
+                for (ViewProperty property : properties.values()) {
+                    resolved.add(resolveProperty(property));
+                }
+                resolvedProperties = Collections.unmodifiableList(resolved);
+            }
+            return resolvedProperties;
+        }
+    }
+
+    /**
+     * @return the given property or, if the property has a frozen view and this view is modifiable, a property
+     * with a lazy copy of the frozen view
+     */
+    protected ViewProperty resolveProperty(ViewProperty property) {
+        View view = property.getView();
+        if (frozen || view == null || !view.isFrozen()) {
+            return property;
+        }
+        synchronized (this) {
+            if (nestedCopies == null) {
+                nestedCopies = new IdentityHashMap<>();
+            }
+            return nestedCopies.computeIfAbsent(property, original -> {
+                View nestedCopy = sharedCopy(original.getView());
+                ViewProperty copyProperty = new ViewProperty(original.getName(), nestedCopy, original.getFetchMode());
+                nestedCopy.copyOwner = this;
+                nestedCopy.copyOwnerSourceProperty = original;
+                nestedCopy.copyOwnerProperty = copyProperty;
+                return copyProperty;
+            });
+        }
     }
 
     /**
@@ -223,13 +421,13 @@ public class View implements Serializable {
      * @return      this view instance for chaining
      */
     public View addProperty(String name, @Nullable View view, FetchMode fetchMode) {
-        properties.put(name, new ViewProperty(name, view, fetchMode));
+        getModifiableProperties().put(name, new ViewProperty(name, view, fetchMode));
         return this;
     }
 
     @Deprecated
     public View addProperty(String name, @Nullable View view, boolean lazy) {
-        properties.put(name, new ViewProperty(name, view, lazy));
+        getModifiableProperties().put(name, new ViewProperty(name, view, lazy));
         return this;
     }
 
@@ -240,7 +438,7 @@ public class View implements Serializable {
      * @return      this view instance for chaining
      */
     public View addProperty(String name, View view) {
-        properties.put(name, new ViewProperty(name, view));
+        getModifiableProperties().put(name, new ViewProperty(name, view));
         return this;
     }
 
@@ -250,7 +448,7 @@ public class View implements Serializable {
      * @return      this view instance for chaining
      */
     public View addProperty(String name) {
-        properties.put(name, new ViewProperty(name, null));
+        getModifiableProperties().put(name, new ViewProperty(name, null));
         return this;
     }
 
@@ -283,7 +481,8 @@ public class View implements Serializable {
      */
     @Nullable
     public ViewProperty getProperty(String name) {
-        return properties.get(name);
+        ViewProperty property = properties.get(name);
+        return property != null ? resolveProperty(property) : null;
     }
 
     /**
@@ -313,6 +512,7 @@ public class View implements Serializable {
      * @return this view instance for chaining
      */
     public View setLoadPartialEntities(boolean loadPartialEntities) {
+        beforeModification();
         this.loadPartialEntities = loadPartialEntities;
         return this;
     }
@@ -59,6 +59,11 @@ public class AbstractViewRepository implements ViewRepository {
 
     protected Map<MetaClass, Map<String, View>> storage = new ConcurrentHashMap<>();
 
+    /**
+     * Frozen copies of stored views returned to clients. Invalidated when the storage changes.
+     */
+    protected Map<MetaClass, Map<String, View>> frozenViews = new ConcurrentHashMap<>();
+
     @Inject
     protected Metadata metadata;
 
@@ -93,6 +98,7 @@ public class AbstractViewRepository implements ViewRepository {
         StopWatch initTiming = new Slf4JStopWatch("ViewRepository.init." + getClass().getSimpleName());
 
         storage.clear();
+        frozenViews.clear();
         readFileNames.clear();
 
         String configName = AppContext.getProperty("cuba.viewsConfig");
@@ -153,6 +159,7 @@ public class AbstractViewRepository implements ViewRepository {
 
     public void reset() {
         initialized = false;
+        frozenViews.clear();
     }
 
     /**
@@ -204,12 +211,25 @@ public class AbstractViewRepository implements ViewRepository {
             return null;
         }
 
+        if (initialized) {
+            Map<String, View> views = frozenViews.get(metaClass);
+            View frozenView = views == null ? null : views.get(name);
+            if (frozenView != null) {
+                return View.sharedCopy(frozenView);
+            }
+        }
+
         lock.readLock().lock();
         try {
             checkInitialized();
 
             View view = retrieveView(metaClass, name, new HashSet<>());
-            return copyView(view);
+            if (view == null) {
+                return null;
+            }
+            View frozenView = copyView(view).freeze();
+            frozenViews.computeIfAbsent(metaClass, k -> new ConcurrentHashMap<>()).put(name, frozenView);
+            return View.sharedCopy(frozenView);
         } finally {
             lock.readLock().unlock();
         }
@@ -553,6 +573,9 @@ public class AbstractViewRepository implements ViewRepository {
 
         views.put(view.getName(), view);
         storage.put(metaClass, views);
+
+        // deployed view can override views referenced by other frozen views
+        frozenViews.clear();
     }
 
     protected List<View> getAllInitialized() {
@@ -57,6 +57,25 @@ public class QueryTree {
         new TreeVisitor().visit(tree, idVarSelector);
     }
 
+    protected QueryTree(DomainModel model, String queryString, CommonTree tree) {
+        this.model = model;
+        this.queryString = queryString;
+        this.tree = tree;
+
+        this.idVarSelector = new IdVarSelector(model);
+        new TreeVisitor().visit(tree, idVarSelector);
+    }
+
+    /**
+     * Creates an independent copy of this tree. The AST is duplicated node by node without re-parsing
+     * the query string, so the copy can be transformed without affecting the source tree.
+     */
+    public QueryTree copy() {
+        CommonTree treeCopy = (CommonTree) tree.dupNode();
+        copyMissingChildren(tree, treeCopy);
+        return new QueryTree(model, queryString, treeCopy);
+    }
+
     public DomainModel getModel() {
         return model;
     }
@@ -155,6 +174,21 @@ public class QueryTree {
         return visitor;
     }
 
+    /**
+     * Custom nodes duplicate their children in {@code dupNode()}, plain ANTLR nodes don't,
+     * so the children missing in the copy are duplicated here.
+     */
+    protected static void copyMissingChildren(Tree source, Tree copy) {
+        if (copy.getChildCount() == 0) {
+            for (int i = 0; i < source.getChildCount(); i++) {
+                copy.addChild(source.getChild(i).dupNode());
+            }
+        }
+        for (int i = 0; i < source.getChildCount(); i++) {
+            copyMissingChildren(source.getChild(i), copy.getChild(i));
+        }
+    }
+
     @SuppressWarnings("unchecked")
     protected <T> Stream<T> generateChildrenByClass(CommonTree commonTree, Class<T> clazz) {
         return commonTree.getChildren().stream()
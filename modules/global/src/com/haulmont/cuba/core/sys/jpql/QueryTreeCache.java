@@ -0,0 +1,123 @@
+/*
+ * Copyright (c) 2008-2020 Haulmont.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.haulmont.cuba.core.sys.jpql;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.inject.Inject;
+import java.util.Objects;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * INTERNAL.
+ * Bounded cache of parsed JPQL query trees shared by {@code QueryParserAstBased} and {@code QueryTransformerAstBased}.
+ * <p>
+ * Cached trees are never modified: {@link #getForRead(DomainModel, String)} returns the shared instance which
+ * must be used only for analysis, {@link #getForTransform(DomainModel, String)} returns a private copy.
+ */
+@Component(QueryTreeCache.NAME)
+public class QueryTreeCache {
+
+    public static final String NAME = "cuba_QueryTreeCache";
+
+    @Inject
+    protected QueryTreeCacheConfig config;
+
+    protected Cache<Key, QueryTree> trees;
+
+    @PostConstruct
+    protected void init() {
+        trees = CacheBuilder.newBuilder()
+                .maximumSize(config.getQueryTreeCacheMaxSize())
+                .recordStats()
+                .build();
+    }
+
+    /**
+     * Returns the shared parsed tree for the query. The returned tree must not be modified.
+     */
+    public QueryTree getForRead(DomainModel model, String query) {
+        if (!config.getQueryTreeCacheEnabled()) {
+            return new QueryTree(model, query);
+        }
+        try {
+            return trees.get(new Key(model, query), () -> new QueryTree(model, query));
+        } catch (ExecutionException | UncheckedExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new RuntimeException(e.getCause());
+        }
+    }
+
+    /**
+     * Returns a copy of the parsed tree for the query which can be freely transformed.
+     */
+    public QueryTree getForTransform(DomainModel model, String query) {
+        if (!config.getQueryTreeCacheEnabled()) {
+            return new QueryTree(model, query);
+        }
+        return getForRead(model, query).copy();
+    }
+
+    public void invalidateAll() {
+        trees.invalidateAll();
+    }
+
+    public long size() {
+        return trees.size();
+    }
+
+    public long getMaxSize() {
+        return config.getQueryTreeCacheMaxSize();
+    }
+
+    public CacheStats getStats() {
+        return trees.stats();
+    }
+
+    /**
+     * Domain model is compared by identity, so trees built for a replaced model are never returned.
+     */
+    protected static class Key {
+        protected final DomainModel model;
+        protected final String query;
+
+        protected Key(DomainModel model, String query) {
+            this.model = model;
+            this.query = query;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            Key key = (Key) o;
+            return model == key.model && query.equals(key.query);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(System.identityHashCode(model), query);
+        }
+    }
+}
@@ -0,0 +1,42 @@
+/*
+ * Copyright (c) 2008-2020 Haulmont.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.haulmont.cuba.core.sys.jpql;
+
+import com.haulmont.cuba.core.config.Config;
+import com.haulmont.cuba.core.config.Property;
+import com.haulmont.cuba.core.config.Source;
+import com.haulmont.cuba.core.config.SourceType;
+import com.haulmont.cuba.core.config.defaults.DefaultBoolean;
+import com.haulmont.cuba.core.config.defaults.DefaultInt;
+
+@Source(type = SourceType.APP)
+public interface QueryTreeCacheConfig extends Config {
+
+    /**
+     * @return whether parsed JPQL query trees are cached
+     */
+    @Property("cuba.jpql.queryTreeCache.enabled")
+    @DefaultBoolean(true)
+    boolean getQueryTreeCacheEnabled();
+
+    /**
+     * @return maximum number of parsed JPQL query trees kept in the cache
+     */
+    @Property("cuba.jpql.queryTreeCache.maxSize")
+    @DefaultInt(1000)
+    int getQueryTreeCacheMaxSize();
+}
@@ -46,6 +46,7 @@ public class SelectedItemNode extends BaseCustomNode {
     @Override
     public Tree dupNode() {
         SelectedItemNode result = new SelectedItemNode(token);
+        result.skipSeparator = skipSeparator;
         dupChildren(result);
         return result;
     }
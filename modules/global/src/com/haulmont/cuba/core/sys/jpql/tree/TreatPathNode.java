@@ -49,6 +49,11 @@ public class TreatPathNode extends PathNode {
         return null;
     }
 
+    @Override
+    public TreatPathNode dupNode() {
+        return (TreatPathNode) super.dupNode();
+    }
+
     @Override
     protected PathNode createDuplicate() {
         return new TreatPathNode(token, entityVariableName, subtype);
@@ -0,0 +1,44 @@
+/*
+ * Copyright (c) 2008-2020 Haulmont.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.haulmont.cuba.core.sys.remoting;
+
+import org.springframework.remoting.support.RemoteInvocation;
+
+/**
+ * Invocation of a middleware service method, executed as a part of a batch by
+ * {@link com.haulmont.cuba.core.app.BatchInvocationService}.
+ */
+public class BatchedRemoteInvocation extends RemoteInvocation {
+
+    private static final long serialVersionUID = -4260390712386519154L;
+
+    private String serviceName;
+
+    public BatchedRemoteInvocation(String serviceName, String methodName, Class<?>[] parameterTypes, Object[] arguments) {
+        super(methodName, parameterTypes, arguments);
+        this.serviceName = serviceName;
+    }
+
+    public String getServiceName() {
+        return serviceName;
+    }
+
+    @Override
+    public String toString() {
+        return "BatchedRemoteInvocation: method name '" + getMethodName() + "', service '" + serviceName + "'";
+    }
+}
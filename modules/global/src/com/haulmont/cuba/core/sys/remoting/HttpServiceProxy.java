@@ -18,6 +18,7 @@
 package com.haulmont.cuba.core.sys.remoting;
 
 import com.haulmont.cuba.core.global.RemoteException;
+import com.haulmont.cuba.core.sys.AppContext;
 import com.haulmont.cuba.core.sys.remoting.discovery.ServerSelector;
 import org.springframework.remoting.httpinvoker.HttpInvokerProxyFactoryBean;
 import org.springframework.remoting.support.RemoteInvocationResult;
@@ -30,9 +31,15 @@ public class HttpServiceProxy extends HttpInvokerProxyFactoryBean {
     public HttpServiceProxy(ServerSelector selector) {
         setRemoteInvocationFactory(new CubaRemoteInvocationFactory());
 
-        ClusteredHttpInvokerRequestExecutor executor = new ClusteredHttpInvokerRequestExecutor(selector);
-        executor.setBeanClassLoader(getBeanClassLoader());
-        setHttpInvokerRequestExecutor(executor);
+        if (Boolean.parseBoolean(AppContext.getProperty("cuba.remotingConnectionPooling"))) {
+            PooledHttpInvokerRequestExecutor executor = new PooledHttpInvokerRequestExecutor(selector);
+            executor.setBeanClassLoader(getBeanClassLoader());
+            setHttpInvokerRequestExecutor(executor);
+        } else {
+            ClusteredHttpInvokerRequestExecutor executor = new ClusteredHttpInvokerRequestExecutor(selector);
+            executor.setBeanClassLoader(getBeanClassLoader());
+            setHttpInvokerRequestExecutor(executor);
+        }
     }
 
     @Override
@@ -0,0 +1,52 @@
+/*
+ * Copyright (c) 2008-2020 Haulmont.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.haulmont.cuba.core.sys.remoting;
+
+import com.haulmont.cuba.core.sys.AppContext;
+
+/**
+ * Binary wire format of service invocations which writes {@link CubaRemoteInvocation} and the invocation result
+ * directly by the pooled {@link com.haulmont.cuba.core.sys.serialization.KryoSerialization}, without
+ * wrapping it into the Java object stream.
+ * <p>
+ * The format is negotiated: a server which accepts it adds the {@link #VERSION_HEADER} to every response, and
+ * a client sends requests in this format only to such servers. A request in this format contains the
+ * {@link #CONTENT_TYPE} content type and the version header; the server answers in the same format, or with
+ * the {@code 415} status if the version is not supported, in which case the client falls back to the standard
+ * serialization. A result which cannot be serialized in this format is sent in the standard format, the client
+ * reads the response according to its content type.
+ * <p>
+ * The format is used if {@code cuba.remotingKryoSerialization} application property is true on both sides.
+ */
+public final class KryoRemotingFormat {
+
+    public static final String CONTENT_TYPE = "application/x-cuba-kryo-serialized-object";
+
+    public static final String VERSION_HEADER = "X-Cuba-Kryo-Version";
+
+    /**
+     * Version of the format. Must be changed on incompatible changes of Kryo registrations.
+     */
+    public static final String VERSION = "1";
+
+    private KryoRemotingFormat() {
+    }
+
+    public static boolean isEnabled() {
+        return Boolean.parseBoolean(AppContext.getProperty("cuba.remotingKryoSerialization"));
+    }
+}
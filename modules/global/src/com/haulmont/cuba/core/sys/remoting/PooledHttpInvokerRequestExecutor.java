@@ -0,0 +1,311 @@
+/*
+ * Copyright (c) 2008-2020 Haulmont.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.haulmont.cuba.core.sys.remoting;
+
+import com.google.common.io.CountingInputStream;
+import com.haulmont.cuba.core.global.AppBeans;
+import com.haulmont.cuba.core.sys.AppContext;
+import com.haulmont.cuba.core.sys.remoting.discovery.ServerSelector;
+import com.haulmont.cuba.core.sys.serialization.SerializationException;
+import com.haulmont.cuba.core.sys.serialization.SerializationSupport;
+import org.apache.commons.lang3.StringUtils;
+import org.apache.http.Header;
+import org.apache.http.HttpHeaders;
+import org.apache.http.HttpResponse;
+import org.apache.http.HttpStatus;
+import org.apache.http.NoHttpResponseException;
+import org.apache.http.StatusLine;
+import org.apache.http.client.methods.HttpPost;
+import org.apache.http.entity.ByteArrayEntity;
+import org.apache.http.entity.ContentType;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.BeanClassLoaderAware;
+import org.springframework.context.i18n.LocaleContextHolder;
+import org.springframework.remoting.RemoteException;
+import org.springframework.remoting.httpinvoker.HttpInvokerClientConfiguration;
+import org.springframework.remoting.httpinvoker.HttpInvokerRequestExecutor;
+import org.springframework.remoting.rmi.CodebaseAwareObjectInputStream;
+import org.springframework.remoting.support.RemoteInvocation;
+import org.springframework.remoting.support.RemoteInvocationResult;
+import org.springframework.util.ClassUtils;
+
+import javax.annotation.Nullable;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * HttpInvokerRequestExecutor that executes a request on a server which is selected according to the current cluster
+ * topology, provided by {@link ServerSelector}, using keep-alive connections from the pool of {@link RemotingHttpClient}.
+ * <p>
+ * If {@code cuba.remotingCompression} application property is true, request bodies bigger than
+ * {@code cuba.remotingCompressionMinSize} bytes are compressed with gzip, but only for servers which declared
+ * support of compressed requests by the {@code Accept-Encoding} header of a previous response.
+ * Compressed responses are accepted always.
+ * <p>
+ * If {@code cuba.remotingKryoSerialization} application property is true, invocations are sent in the
+ * {@link KryoRemotingFormat} to servers which accept it.
+ */
+public class PooledHttpInvokerRequestExecutor implements HttpInvokerRequestExecutor, BeanClassLoaderAware {
+
+    private static final Logger log = LoggerFactory.getLogger(PooledHttpInvokerRequestExecutor.class);
+
+    protected static final String CONTENT_TYPE_SERIALIZED_OBJECT = "application/x-java-serialized-object";
+
+    protected static final String ENCODING_GZIP = "gzip";
+
+    protected ServerSelector serverSelector;
+
+    protected volatile RemotingHttpClient remotingHttpClient;
+
+    protected ClassLoader beanClassLoader;
+
+    protected boolean compressionEnabled;
+
+    protected int compressionMinSize;
+
+    protected boolean kryoEnabled;
+
+    public PooledHttpInvokerRequestExecutor(ServerSelector serverSelector) {
+        this.serverSelector = serverSelector;
+
+        compressionEnabled = Boolean.parseBoolean(AppContext.getProperty("cuba.remotingCompression"));
+
+        String compressionMinSizeProp = AppContext.getProperty("cuba.remotingCompressionMinSize");
+        compressionMinSize = StringUtils.isBlank(compressionMinSizeProp) ? 4096 : Integer.parseInt(compressionMinSizeProp);
+
+        kryoEnabled = KryoRemotingFormat.isEnabled();
+    }
+
+    @Override
+    public void setBeanClassLoader(ClassLoader classLoader) {
+        this.beanClassLoader = classLoader;
+    }
+
+    protected RemotingHttpClient getRemotingHttpClient() {
+        if (remotingHttpClient == null) {
+            remotingHttpClient = AppBeans.get(RemotingHttpClient.NAME);
+        }
+        return remotingHttpClient;
+    }
+
+    @Override
+    public RemoteInvocationResult executeRequest(HttpInvokerClientConfiguration config, RemoteInvocation invocation)
+            throws IOException, ClassNotFoundException {
+
+        RemoteInvocationResult result;
+
+        Object context = serverSelector.initContext();
+        String serverUrl = serverSelector.getUrl(context);
+        if (serverUrl == null)
+            throw new IllegalStateException("Server URL list is empty");
+
+        RequestBody requestBody = new RequestBody(invocation);
+
+        while (true) {
+            RemotingHttpClient.ServerStatistics statistics = getRemotingHttpClient().getStatistics(serverUrl);
+            long start = System.currentTimeMillis();
+
+            boolean kryo = kryoEnabled && statistics.isKryoAccepted() && requestBody.getKryoBody() != null;
+            byte[] body = kryo ? requestBody.getKryoBody() : requestBody.getStandardBody();
+            boolean compress = compressionEnabled && statistics.isCompressionAccepted() && body.length >= compressionMinSize;
+            if (compress) {
+                body = compress(body);
+            }
+
+            HttpPost httpPost = createHttpPost(serverUrl + "/" + config.getServiceUrl(), body, compress, kryo);
+            try {
+                HttpResponse response = getRemotingHttpClient().getHttpClient().execute(httpPost);
+                if (kryo && response.getStatusLine().getStatusCode() == HttpStatus.SC_UNSUPPORTED_MEDIA_TYPE) {
+                    log.info("Server {} does not support Kryo serialization version {}, falling back to standard serialization",
+                            serverUrl, KryoRemotingFormat.VERSION);
+                    statistics.setKryoAccepted(false);
+                    continue;
+                }
+                validateResponse(response);
+                statistics.setCompressionAccepted(isCompressedRequestAccepted(response));
+                statistics.setKryoAccepted(isKryoRequestAccepted(response));
+
+                CountingInputStream responseInputStream = new CountingInputStream(response.getEntity().getContent());
+                serverSelector.success(context);
+
+                InputStream inputStream = isGzipResponse(response) ?
+                        new GZIPInputStream(responseInputStream) : responseInputStream;
+                result = isKryoResponse(response) ?
+                        readKryoRemoteInvocationResult(inputStream) :
+                        readRemoteInvocationResult(inputStream, config.getCodebaseUrl());
+
+                long time = System.currentTimeMillis() - start;
+                statistics.success(body.length, responseInputStream.getCount(), time, compress);
+                if (log.isDebugEnabled()) {
+                    log.debug(String.format("Receiving HTTP invoker response for service at [%s], request size %s, response size %s, time %s",
+                            config.getServiceUrl(), body.length, responseInputStream.getCount(), time));
+                }
+                break;
+            } catch (IOException e) {
+                log.info(String.format("Invocation of %s/%s failed: %s", serverUrl, config.getServiceUrl(), e));
+
+                statistics.failure();
+                serverSelector.fail(context);
+                serverUrl = serverSelector.getUrl(context);
+                if (serverUrl != null) {
+                    log.info("Trying to invoke the next available URL: " + serverUrl + "/" + config.getServiceUrl());
+                    continue;
+                }
+                log.info("No more URL available");
+                throw e;
+            } finally {
+                httpPost.releaseConnection();
+            }
+        }
+        return result;
+    }
+
+    protected HttpPost createHttpPost(String url, byte[] body, boolean compressed, boolean kryo) {
+        HttpPost httpPost = new HttpPost(url);
+
+        httpPost.addHeader(HttpHeaders.ACCEPT_LANGUAGE, LocaleContextHolder.getLocale().toLanguageTag());
+        httpPost.addHeader(HttpHeaders.ACCEPT_ENCODING, ENCODING_GZIP);
+        if (compressed) {
+            httpPost.addHeader(HttpHeaders.CONTENT_ENCODING, ENCODING_GZIP);
+        }
+        if (kryo) {
+            httpPost.addHeader(KryoRemotingFormat.VERSION_HEADER, KryoRemotingFormat.VERSION);
+        }
+
+        String contentType = kryo ? KryoRemotingFormat.CONTENT_TYPE : CONTENT_TYPE_SERIALIZED_OBJECT;
+        httpPost.setEntity(new ByteArrayEntity(body, ContentType.create(contentType)));
+        return httpPost;
+    }
+
+    protected byte[] writeRemoteInvocation(RemoteInvocation invocation) throws IOException {
+        ByteArrayOutputStream baos = new ByteArrayOutputStream(1024);
+        try (ObjectOutputStream oos = new ObjectOutputStream(baos)) {
+            SerializationSupport.serialize(invocation, oos);
+        }
+        return baos.toByteArray();
+    }
+
+    @Nullable
+    protected byte[] writeKryoRemoteInvocation(RemoteInvocation invocation) {
+        try {
+            return SerializationSupport.getKryoSerialization().serialize(invocation);
+        } catch (SerializationException e) {
+            log.debug("Unable to serialize invocation of {} with Kryo, using standard serialization: {}",
+                    invocation.getMethodName(), e.toString());
+            return null;
+        }
+    }
+
+    protected RemoteInvocationResult readRemoteInvocationResult(InputStream is, @Nullable String codebaseUrl)
+            throws IOException, ClassNotFoundException {
+        try (ObjectInputStream ois = new CodebaseAwareObjectInputStream(is, beanClassLoader, codebaseUrl)) {
+            Object result = SerializationSupport.deserialize(ois);
+            if (!(result instanceof RemoteInvocationResult)) {
+                throw new RemoteException("Deserialized object needs to be assignable to type [" +
+                        RemoteInvocationResult.class.getName() + "]: " + ClassUtils.getDescriptiveType(result));
+            }
+            return (RemoteInvocationResult) result;
+        }
+    }
+
+    protected RemoteInvocationResult readKryoRemoteInvocationResult(InputStream is) {
+        Object result = SerializationSupport.getKryoSerialization().deserialize(is);
+        if (!(result instanceof RemoteInvocationResult)) {
+            throw new RemoteException("Deserialized object needs to be assignable to type [" +
+                    RemoteInvocationResult.class.getName() + "]: " + ClassUtils.getDescriptiveType(result));
+        }
+        return (RemoteInvocationResult) result;
+    }
+
+    protected byte[] compress(byte[] body) throws IOException {
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream(body.length / 4);
+        try (GZIPOutputStream gzipOutputStream = new GZIPOutputStream(compressed)) {
+            gzipOutputStream.write(body);
+        }
+        return compressed.toByteArray();
+    }
+
+    protected void validateResponse(HttpResponse response) throws IOException {
+        StatusLine status = response.getStatusLine();
+        if (status.getStatusCode() >= 300) {
+            throw new NoHttpResponseException(
+                    "Did not receive successful HTTP response: status code = " + status.getStatusCode() +
+                            ", status message = [" + status.getReasonPhrase() + "]");
+        }
+    }
+
+    protected boolean isGzipResponse(HttpResponse response) {
+        return headerContains(response, HttpHeaders.CONTENT_ENCODING, ENCODING_GZIP);
+    }
+
+    /**
+     * A server declares support of compressed requests by the {@code Accept-Encoding} response header (RFC 7694).
+     */
+    protected boolean isCompressedRequestAccepted(HttpResponse response) {
+        return headerContains(response, HttpHeaders.ACCEPT_ENCODING, ENCODING_GZIP);
+    }
+
+    protected boolean isKryoRequestAccepted(HttpResponse response) {
+        Header versionHeader = response.getFirstHeader(KryoRemotingFormat.VERSION_HEADER);
+        return versionHeader != null && KryoRemotingFormat.VERSION.equals(versionHeader.getValue());
+    }
+
+    protected boolean isKryoResponse(HttpResponse response) {
+        return headerContains(response, HttpHeaders.CONTENT_TYPE, KryoRemotingFormat.CONTENT_TYPE);
+    }
+
+    protected boolean headerContains(HttpResponse response, String name, String value) {
+        Header header = response.getFirstHeader(name);
+        return header != null && header.getValue() != null && header.getValue().toLowerCase().contains(value);
+    }
+
+    /**
+     * Serialized invocation, each format is written once and only if requested.
+     */
+    protected class RequestBody {
+        protected final RemoteInvocation invocation;
+        protected byte[] standardBody;
+        protected byte[] kryoBody;
+        protected boolean kryoWritten;
+
+        protected RequestBody(RemoteInvocation invocation) {
+            this.invocation = invocation;
+        }
+
+        protected byte[] getStandardBody() throws IOException {
+            if (standardBody == null) {
+                standardBody = writeRemoteInvocation(invocation);
+            }
+            return standardBody;
+        }
+
+        @Nullable
+        protected byte[] getKryoBody() {
+            if (!kryoWritten) {
+                kryoBody = writeKryoRemoteInvocation(invocation);
+                kryoWritten = true;
+            }
+            return kryoBody;
+        }
+    }
+}
@@ -0,0 +1,285 @@
+/*
+ * Copyright (c) 2008-2020 Haulmont.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.haulmont.cuba.core.sys.remoting;
+
+import com.haulmont.cuba.core.sys.AppContext;
+import org.apache.commons.lang3.StringUtils;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.conn.routing.HttpRoute;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.HttpClients;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.apache.http.pool.PoolStats;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Holds the HTTP client with the pool of keep-alive connections shared by all service proxies which use
+ * {@link PooledHttpInvokerRequestExecutor}, and collects invocation statistics for each middleware server.
+ * <p>
+ * The client is created on first use and configured by the following application properties:
+ * <ul>
+ *     <li>{@code cuba.remotingMaxConnections} - maximum number of connections in the pool, 100 by default</li>
+ *     <li>{@code cuba.remotingMaxConnectionsPerServer} - maximum number of connections to a server, 20 by default</li>
+ *     <li>{@code cuba.remotingIdleConnectionTimeoutSec} - idle connections are closed after this timeout, 60 by default</li>
+ *     <li>{@code cuba.connectionTimeout} and {@code cuba.connectionReadTimeout} - the same as for
+ *     {@link ClusteredHttpInvokerRequestExecutor}</li>
+ * </ul>
+ */
+@Component(RemotingHttpClient.NAME)
+public class RemotingHttpClient implements RemotingHttpClientMBean {
+
+    public static final String NAME = "cuba_RemotingHttpClient";
+
+    private static final Logger log = LoggerFactory.getLogger(RemotingHttpClient.class);
+
+    protected volatile CloseableHttpClient httpClient;
+
+    protected PoolingHttpClientConnectionManager connectionManager;
+
+    protected Map<String, ServerStatistics> statistics = new ConcurrentHashMap<>();
+
+    /**
+     * @return the shared HTTP client, created on first invocation
+     */
+    public CloseableHttpClient getHttpClient() {
+        CloseableHttpClient client = httpClient;
+        if (client == null) {
+            synchronized (this) {
+                client = httpClient;
+                if (client == null) {
+                    client = createHttpClient();
+                    httpClient = client;
+                }
+            }
+        }
+        return client;
+    }
+
+    protected CloseableHttpClient createHttpClient() {
+        connectionManager = new PoolingHttpClientConnectionManager();
+        connectionManager.setMaxTotal(getMaxConnections());
+        connectionManager.setDefaultMaxPerRoute(getMaxConnectionsPerServer());
+        // stale connections are checked only after some time of inactivity
+        connectionManager.setValidateAfterInactivity(2000);
+
+        RequestConfig requestConfig = RequestConfig.custom()
+                .setConnectTimeout(getIntProperty("cuba.connectionTimeout", -1))
+                .setSocketTimeout(getIntProperty("cuba.connectionReadTimeout", -1))
+                .build();
+
+        log.info("Creating remoting HTTP client with connection pool: maxConnections={}, maxConnectionsPerServer={}",
+                getMaxConnections(), getMaxConnectionsPerServer());
+
+        return HttpClients.custom()
+                .setConnectionManager(connectionManager)
+                .setDefaultRequestConfig(requestConfig)
+                // compression is negotiated by the request executor
+                .disableContentCompression()
+                .evictExpiredConnections()
+                .evictIdleConnections(getIntProperty("cuba.remotingIdleConnectionTimeoutSec", 60), TimeUnit.SECONDS)
+                .build();
+    }
+
+    /**
+     * @param serverUrl base URL of a middleware server
+     * @return statistics of invocations of the server
+     */
+    public ServerStatistics getStatistics(String serverUrl) {
+        return statistics.computeIfAbsent(serverUrl, ServerStatistics::new);
+    }
+
+    @PreDestroy
+    public void close() {
+        CloseableHttpClient client = httpClient;
+        if (client != null) {
+            httpClient = null;
+            try {
+                client.close();
+            } catch (IOException e) {
+                log.warn("Error closing remoting HTTP client", e);
+            }
+        }
+    }
+
+    @Override
+    public int getMaxConnections() {
+        return getIntProperty("cuba.remotingMaxConnections", 100);
+    }
+
+    @Override
+    public int getMaxConnectionsPerServer() {
+        return getIntProperty("cuba.remotingMaxConnectionsPerServer", 20);
+    }
+
+    @Override
+    public int getLeasedConnections() {
+        return httpClient != null ? connectionManager.getTotalStats().getLeased() : 0;
+    }
+
+    @Override
+    public int getAvailableConnections() {
+        return httpClient != null ? connectionManager.getTotalStats().getAvailable() : 0;
+    }
+
+    @Override
+    public int getPendingRequests() {
+        return httpClient != null ? connectionManager.getTotalStats().getPending() : 0;
+    }
+
+    @Override
+    public String printServerStatistics() {
+        StringBuilder sb = new StringBuilder();
+        for (ServerStatistics serverStatistics : statistics.values()) {
+            sb.append(serverStatistics).append('\n');
+        }
+        if (httpClient != null) {
+            for (HttpRoute route : connectionManager.getRoutes()) {
+                PoolStats stats = connectionManager.getStats(route);
+                sb.append(route.getTargetHost().toURI())
+                        .append(": leased=").append(stats.getLeased())
+                        .append(", available=").append(stats.getAvailable())
+                        .append(", pending=").append(stats.getPending())
+                        .append(", max=").append(stats.getMax())
+                        .append('\n');
+            }
+        }
+        return sb.length() > 0 ? sb.toString() : "No statistics";
+    }
+
+    @Override
+    public String resetStatistics() {
+        statistics.clear();
+        return "Done";
+    }
+
+    @Override
+    public String closeIdleConnections() {
+        if (httpClient != null) {
+            connectionManager.closeIdleConnections(0, TimeUnit.MILLISECONDS);
+        }
+        return "Done";
+    }
+
+    protected int getIntProperty(String name, int defaultValue) {
+        String value = AppContext.getProperty(name);
+        return StringUtils.isBlank(value) ? defaultValue : Integer.parseInt(value.trim());
+    }
+
+    /**
+     * Invocation statistics of a middleware server.
+     */
+    public static class ServerStatistics {
+
+        protected final String serverUrl;
+
+        protected final AtomicLong requests = new AtomicLong();
+        protected final AtomicLong failures = new AtomicLong();
+        protected final AtomicLong compressedRequests = new AtomicLong();
+        protected final AtomicLong bytesSent = new AtomicLong();
+        protected final AtomicLong bytesReceived = new AtomicLong();
+        protected final AtomicLong totalTime = new AtomicLong();
+
+        /**
+         * Whether the server accepts compressed request bodies.
+         */
+        protected volatile boolean compressionAccepted;
+
+        /**
+         * Whether the server accepts requests in the {@link KryoRemotingFormat}.
+         */
+        protected volatile boolean kryoAccepted;
+
+        public ServerStatistics(String serverUrl) {
+            this.serverUrl = serverUrl;
+        }
+
+        public void success(long bytesSent, long bytesReceived, long time, boolean compressed) {
+            requests.incrementAndGet();
+            if (compressed) {
+                compressedRequests.incrementAndGet();
+            }
+            this.bytesSent.addAndGet(bytesSent);
+            this.bytesReceived.addAndGet(bytesReceived);
+            totalTime.addAndGet(time);
+        }
+
+        public void failure() {
+            failures.incrementAndGet();
+        }
+
+        public boolean isCompressionAccepted() {
+            return compressionAccepted;
+        }
+
+        public void setCompressionAccepted(boolean compressionAccepted) {
+            this.compressionAccepted = compressionAccepted;
+        }
+
+        public boolean isKryoAccepted() {
+            return kryoAccepted;
+        }
+
+        public void setKryoAccepted(boolean kryoAccepted) {
+            this.kryoAccepted = kryoAccepted;
+        }
+
+        public String getServerUrl() {
+            return serverUrl;
+        }
+
+        public long getRequests() {
+            return requests.get();
+        }
+
+        public long getFailures() {
+            return failures.get();
+        }
+
+        public long getBytesSent() {
+            return bytesSent.get();
+        }
+
+        public long getBytesReceived() {
+            return bytesReceived.get();
+        }
+
+        public long getTotalTime() {
+            return totalTime.get();
+        }
+
+        @Override
+        public String toString() {
+            long requestCount = requests.get();
+            return serverUrl + ": requests=" + requestCount
+                    + ", failures=" + failures.get()
+                    + ", compressedRequests=" + compressedRequests.get()
+                    + ", kryoAccepted=" + kryoAccepted
+                    + ", bytesSent=" + bytesSent.get()
+                    + ", bytesReceived=" + bytesReceived.get()
+                    + ", avgTime=" + (requestCount > 0 ? totalTime.get() / requestCount : 0) + "ms";
+        }
+    }
+}
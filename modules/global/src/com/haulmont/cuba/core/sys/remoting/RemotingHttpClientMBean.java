@@ -0,0 +1,51 @@
+/*
+ * Copyright (c) 2008-2020 Haulmont.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.haulmont.cuba.core.sys.remoting;
+
+import com.haulmont.cuba.core.sys.jmx.JmxBean;
+import org.springframework.jmx.export.annotation.ManagedAttribute;
+import org.springframework.jmx.export.annotation.ManagedOperation;
+import org.springframework.jmx.export.annotation.ManagedResource;
+
+@JmxBean(module = "cuba", alias = "RemotingHttpClient")
+@ManagedResource(description = "Pool of HTTP connections used for invocations of middleware services")
+public interface RemotingHttpClientMBean {
+
+    @ManagedAttribute(description = "Maximum number of connections in the pool")
+    int getMaxConnections();
+
+    @ManagedAttribute(description = "Maximum number of connections to a single server")
+    int getMaxConnectionsPerServer();
+
+    @ManagedAttribute(description = "Number of connections currently used for requests")
+    int getLeasedConnections();
+
+    @ManagedAttribute(description = "Number of idle connections kept alive in the pool")
+    int getAvailableConnections();
+
+    @ManagedAttribute(description = "Number of requests waiting for a connection")
+    int getPendingRequests();
+
+    @ManagedOperation(description = "Print invocation and connection statistics for each server")
+    String printServerStatistics();
+
+    @ManagedOperation(description = "Reset invocation statistics")
+    String resetStatistics();
+
+    @ManagedOperation(description = "Close all idle connections in the pool")
+    String closeIdleConnections();
+}
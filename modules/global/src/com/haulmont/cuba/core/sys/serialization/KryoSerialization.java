@@ -212,6 +212,34 @@ public class KryoSerialization implements Serialization {
         return deserialize(new ByteArrayInputStream(bytes));
     }
 
+    /**
+     * Serialize object {@code object} to stream {@code os} without writing its class.
+     * The object can be read only by {@link #deserialize(InputStream, Class)} with the same class.
+     */
+    public void serializeWithoutClass(Object object, OutputStream os) {
+        withKryoFromPool(kryo -> {
+            try (Output output = new CubaOutput(os)) {
+                kryo.writeObject(output, object);
+            } catch (Exception e) {
+                throw new SerializationException(e);
+            }
+            return null;
+        });
+    }
+
+    /**
+     * Deserialize object of class {@code type} written by {@link #serializeWithoutClass(Object, OutputStream)}.
+     */
+    public <T> T deserialize(InputStream is, Class<T> type) {
+        return withKryoFromPool(kryo -> {
+            try (Input input = new Input(is)) {
+                return kryo.readObject(input, type);
+            } catch (Exception e) {
+                throw new SerializationException(e);
+            }
+        });
+    }
+
     public Object copy(Object object) {
         if (object == null) {
             return null;
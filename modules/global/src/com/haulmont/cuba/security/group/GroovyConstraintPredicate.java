@@ -13,6 +13,10 @@ public class GroovyConstraintPredicate<T extends Entity> implements ConstraintPr
         this.groovyScript = groovyScript;
     }
 
+    public String getGroovyScript() {
+        return groovyScript;
+    }
+
     @Override
     public boolean test(T o) {
         Security security = AppBeans.get(Security.class);
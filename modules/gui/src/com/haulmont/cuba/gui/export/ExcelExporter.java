@@ -172,54 +172,10 @@ public class ExcelExporter {
         createFonts();
         createFormats();
 
-        int r = 0;
-        if (filterDescription != null) {
-            for (r = 0; r < filterDescription.size(); r++) {
-                String line = filterDescription.get(r);
-                Row row = sheet.createRow(r);
-                if (r == 0) {
-                    RichTextString richTextFilterName = excelExportHelper.createRichTextString(line);
-                    richTextFilterName.applyFont(boldFont);
-                    row.createCell(0).setCellValue(richTextFilterName);
-                } else {
-                    row.createCell(0).setCellValue(line);
-                }
-            }
-            r++;
-        }
-        Row row = sheet.createRow(r);
-        createAutoColumnSizers(columns.size());
-
-        float maxHeight = sheet.getDefaultRowHeightInPoints();
-
-        CellStyle headerCellStyle = wb.createCellStyle();
-        headerCellStyle.setVerticalAlignment(VerticalAlignment.CENTER);
-        for (Table.Column column : columns) {
-            String caption = column.getCaption();
-
-            int countOfReturnSymbols = StringUtils.countMatches(caption, "\n");
-            if (countOfReturnSymbols > 0) {
-                maxHeight = Math.max(maxHeight, (countOfReturnSymbols + 1) * sheet.getDefaultRowHeightInPoints());
-                headerCellStyle.setWrapText(true);
-            }
-        }
-        row.setHeightInPoints(maxHeight);
-
-        for (int c = 0; c < columns.size(); c++) {
-            Table.Column column = columns.get(c);
-            String caption = column.getCaption();
-
-            Cell cell = row.createCell(c);
-            RichTextString richTextString = excelExportHelper.createRichTextString(caption);
-            richTextString.applyFont(boldFont);
-            cell.setCellValue(richTextString);
-
-            ExcelAutoColumnSizer sizer = new ExcelAutoColumnSizer();
-            sizer.notifyCellValue(caption, boldFont);
-            sizers[c] = sizer;
-
-            cell.setCellStyle(headerCellStyle);
-        }
+        List<String> captions = columns.stream()
+                .map(Table.Column::getCaption)
+                .collect(Collectors.toList());
+        int r = createHeader(captions, filterDescription);
 
         TableItems<Entity> tableItems = table.getItems();
 
@@ -328,54 +284,10 @@ public class ExcelExporter {
         createFonts();
         createFormats();
 
-        int r = 0;
-        if (filterDescription != null) {
-            for (r = 0; r < filterDescription.size(); r++) {
-                String line = filterDescription.get(r);
-                Row row = sheet.createRow(r);
-                if (r == 0) {
-                    RichTextString richTextFilterName = excelExportHelper.createRichTextString(line);
-                    richTextFilterName.applyFont(boldFont);
-                    row.createCell(0).setCellValue(richTextFilterName);
-                } else {
-                    row.createCell(0).setCellValue(line);
-                }
-            }
-            r++;
-        }
-        Row row = sheet.createRow(r);
-        createAutoColumnSizers(columns.size());
-
-        float maxHeight = sheet.getDefaultRowHeightInPoints();
-
-        CellStyle headerCellStyle = wb.createCellStyle();
-        headerCellStyle.setVerticalAlignment(VerticalAlignment.CENTER);
-        for (DataGrid.Column column : columns) {
-            String caption = column.getCaption();
-
-            int countOfReturnSymbols = StringUtils.countMatches(caption, "\n");
-            if (countOfReturnSymbols > 0) {
-                maxHeight = Math.max(maxHeight, (countOfReturnSymbols + 1) * sheet.getDefaultRowHeightInPoints());
-                headerCellStyle.setWrapText(true);
-            }
-        }
-        row.setHeightInPoints(maxHeight);
-
-        for (int c = 0; c < columns.size(); c++) {
-            DataGrid.Column column = columns.get(c);
-            String caption = column.getCaption();
-
-            Cell cell = row.createCell(c);
-            RichTextString richTextString = excelExportHelper.createRichTextString(caption);
-            richTextString.applyFont(boldFont);
-            cell.setCellValue(richTextString);
-
-            ExcelAutoColumnSizer sizer = new ExcelAutoColumnSizer();
-            sizer.notifyCellValue(caption, boldFont);
-            sizers[c] = sizer;
-
-            cell.setCellStyle(headerCellStyle);
-        }
+        List<String> captions = columns.stream()
+                .map(DataGrid.Column::getCaption)
+                .collect(Collectors.toList());
+        int r = createHeader(captions, filterDescription);
 
         EntityDataGridItems<Entity> dataGridSource = (EntityDataGridItems) dataGrid.getItems();
         if (dataGridSource == null) {
@@ -433,6 +345,62 @@ public class ExcelExporter {
         display.show(new ByteArrayDataProvider(out.toByteArray()), fileName + excelOptions.getExtension(), excelOptions.getExportFormat());
     }
 
+    /**
+     * Creates rows with the filter description and the row with column captions.
+     *
+     * @param captions          column captions
+     * @param filterDescription lines of the filter description or null
+     * @return number of the row with column captions
+     */
+    protected int createHeader(List<String> captions, @Nullable List<String> filterDescription) {
+        int r = 0;
+        if (filterDescription != null) {
+            for (r = 0; r < filterDescription.size(); r++) {
+                String line = filterDescription.get(r);
+                Row row = sheet.createRow(r);
+                if (r == 0) {
+                    RichTextString richTextFilterName = excelExportHelper.createRichTextString(line);
+                    richTextFilterName.applyFont(boldFont);
+                    row.createCell(0).setCellValue(richTextFilterName);
+                } else {
+                    row.createCell(0).setCellValue(line);
+                }
+            }
+            r++;
+        }
+        Row row = sheet.createRow(r);
+        createAutoColumnSizers(captions.size());
+
+        float maxHeight = sheet.getDefaultRowHeightInPoints();
+
+        CellStyle headerCellStyle = wb.createCellStyle();
+        headerCellStyle.setVerticalAlignment(VerticalAlignment.CENTER);
+        for (String caption : captions) {
+            int countOfReturnSymbols = StringUtils.countMatches(caption, "\n");
+            if (countOfReturnSymbols > 0) {
+                maxHeight = Math.max(maxHeight, (countOfReturnSymbols + 1) * sheet.getDefaultRowHeightInPoints());
+                headerCellStyle.setWrapText(true);
+            }
+        }
+        row.setHeightInPoints(maxHeight);
+
+        for (int c = 0; c < captions.size(); c++) {
+            String caption = captions.get(c);
+
+            Cell cell = row.createCell(c);
+            RichTextString richTextString = excelExportHelper.createRichTextString(caption);
+            richTextString.applyFont(boldFont);
+            cell.setCellValue(richTextString);
+
+            ExcelAutoColumnSizer sizer = new ExcelAutoColumnSizer();
+            sizer.notifyCellValue(caption, boldFont);
+            sizers[c] = sizer;
+
+            cell.setCellStyle(headerCellStyle);
+        }
+        return r;
+    }
+
     protected void createFormats() {
         timeFormatCellStyle = wb.createCellStyle();
         String timeFormat = messages.getMainMessage("excelExporter.timeFormat");
@@ -605,7 +573,6 @@ public class ExcelExporter {
             return;
         }
 
-        Row row = sheet.createRow(rowNumber);
         Entity instance = (Entity) table.getItems().getItem(itemId);
 
         int level = 0;
@@ -613,6 +580,16 @@ public class ExcelExporter {
             level = ((TreeTable) table).getLevel(itemId);
         }
 
+        createEntityRow(table, columns, startColumn, rowNumber, instance, level);
+    }
+
+    /**
+     * Creates the row for the given entity instance which is not necessarily contained in the table items.
+     */
+    protected void createEntityRow(Table table, List<Table.Column> columns, int startColumn, int rowNumber,
+                                   Entity instance, int level) {
+        Row row = sheet.createRow(rowNumber);
+
         for (int c = startColumn; c < columns.size(); c++) {
             Cell cell = row.createCell(c);
 
@@ -670,13 +647,23 @@ public class ExcelExporter {
         if (startColumn >= columns.size()) {
             return;
         }
-        Row row = sheet.createRow(rowNumber);
         Entity item = (Entity) dataGrid.getItems().getItem(itemId);
 
         int level = 0;
         if (dataGrid instanceof TreeDataGrid) {
             level = ((TreeDataGrid) dataGrid).getLevel(item);
         }
+
+        createDataGridEntityRow(dataGrid, columns, startColumn, rowNumber, item, level);
+    }
+
+    /**
+     * Creates the row for the given entity instance which is not necessarily contained in the data grid items.
+     */
+    protected void createDataGridEntityRow(DataGrid dataGrid, List<DataGrid.Column> columns,
+                                           int startColumn, int rowNumber, Entity item, int level) {
+        Row row = sheet.createRow(rowNumber);
+
         for (int c = startColumn; c < columns.size(); c++) {
             Cell cell = row.createCell(c);
 
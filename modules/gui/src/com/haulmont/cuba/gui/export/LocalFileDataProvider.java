@@ -0,0 +1,53 @@
+/*
+ * Copyright (c) 2008-2020 Haulmont.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.haulmont.cuba.gui.export;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.InputStream;
+
+import static com.haulmont.bali.util.Preconditions.checkNotNullArgument;
+
+/**
+ * Data provider for a file in the local file system, e.g. a temporary file created by {@link StreamingExcelExporter}.
+ */
+public class LocalFileDataProvider implements ExportDataProvider {
+
+    private static final Logger log = LoggerFactory.getLogger(LocalFileDataProvider.class);
+
+    protected File file;
+
+    public LocalFileDataProvider(File file) {
+        checkNotNullArgument(file, "Null file");
+
+        this.file = file;
+    }
+
+    @Override
+    public InputStream provide() {
+        try {
+            return new FileInputStream(file);
+        } catch (FileNotFoundException e) {
+            log.warn("Unable to read file " + file.getAbsolutePath());
+            return null;
+        }
+    }
+}
@@ -0,0 +1,629 @@
+/*
+ * Copyright (c) 2008-2020 Haulmont.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.haulmont.cuba.gui.export;
+
+import com.haulmont.chile.core.model.MetaClass;
+import com.haulmont.cuba.client.ClientConfig;
+import com.haulmont.cuba.core.entity.Entity;
+import com.haulmont.cuba.core.entity.FileDescriptor;
+import com.haulmont.cuba.core.global.*;
+import com.haulmont.cuba.gui.ComponentsHelper;
+import com.haulmont.cuba.gui.components.Component;
+import com.haulmont.cuba.gui.components.DataGrid;
+import com.haulmont.cuba.gui.components.GroupTable;
+import com.haulmont.cuba.gui.components.Table;
+import com.haulmont.cuba.gui.components.TreeDataGrid;
+import com.haulmont.cuba.gui.components.TreeTable;
+import com.haulmont.cuba.gui.components.data.DataGridItems;
+import com.haulmont.cuba.gui.components.data.GroupTableItems;
+import com.haulmont.cuba.gui.components.data.TableItems;
+import com.haulmont.cuba.gui.components.data.meta.ContainerDataUnit;
+import com.haulmont.cuba.gui.components.data.meta.EntityDataGridItems;
+import com.haulmont.cuba.gui.components.data.meta.EntityDataUnit;
+import com.haulmont.cuba.gui.executors.BackgroundTask;
+import com.haulmont.cuba.gui.executors.TaskLifeCycle;
+import com.haulmont.cuba.gui.export.helper.SxssfExportHelper;
+import com.haulmont.cuba.gui.export.helper.XlsxExportHelper;
+import com.haulmont.cuba.gui.model.CollectionContainer;
+import com.haulmont.cuba.gui.model.CollectionLoader;
+import com.haulmont.cuba.gui.model.HasLoader;
+import com.haulmont.cuba.gui.upload.FileUploadingAPI;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.Nullable;
+import java.io.BufferedOutputStream;
+import java.io.FileOutputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Exports {@link Table} and {@link DataGrid} into XLSX format keeping only a window of rows in memory.
+ * <p>
+ * If the component is bound to a collection container loaded by a {@link CollectionLoader}, all rows are loaded
+ * page by page through {@link DataManager} using the query, condition, parameters and sort of the loader
+ * regardless of the rows currently loaded into the container. Otherwise, the rows of the container are exported.
+ * <p>
+ * The document is written to a temporary file which is shown by {@link ExportDisplay} or put into the file storage.
+ * The temporary file is deleted after the document is read by the display or put into the file storage.
+ * Use {@link #createTableExportTask} and {@link #createDataGridExportTask} to run the export in background
+ * with progress reporting.
+ * <p>
+ * Exported rows are flat. Tree tables and data grids, grouped tables, aggregation rows and selected rows are exported
+ * by {@link ExcelExporter} into a regular XLSX workbook kept in memory, because rows of a streaming workbook cannot
+ * be outlined after they are flushed.
+ */
+public class StreamingExcelExporter extends ExcelExporter {
+
+    /**
+     * Listener of the export progress.
+     */
+    @FunctionalInterface
+    public interface ProgressListener {
+
+        /**
+         * @param exportedRows number of exported rows
+         * @param totalRows    total number of rows or -1 if it is unknown
+         */
+        void onProgress(int exportedRows, long totalRows) throws InterruptedException;
+    }
+
+    private static final Logger log = LoggerFactory.getLogger(StreamingExcelExporter.class);
+
+    protected final DataManager dataManager;
+    protected final FileUploadingAPI fileUploading;
+
+    protected SxssfExportHelper sxssfExportHelper;
+
+    protected int pageSize;
+
+    public StreamingExcelExporter() {
+        super(ExcelExportFormat.XLSX);
+
+        dataManager = AppBeans.get(DataManager.NAME);
+        fileUploading = AppBeans.get(FileUploadingAPI.NAME);
+
+        ClientConfig clientConfig = AppBeans.get(Configuration.class).getConfig(ClientConfig.class);
+        pageSize = clientConfig.getStreamingExcelExportPageSize();
+
+        sxssfExportHelper = new SxssfExportHelper(clientConfig.getStreamingExcelExportRowWindowSize());
+        excelExportHelper = sxssfExportHelper;
+        excelOptions = sxssfExportHelper.getExcelOptions();
+    }
+
+    /**
+     * @return number of entities loaded by one request
+     */
+    public int getPageSize() {
+        return pageSize;
+    }
+
+    /**
+     * Sets the number of entities loaded by one request.
+     */
+    public void setPageSize(int pageSize) {
+        if (pageSize <= 0) {
+            throw new IllegalArgumentException("Page size must be positive");
+        }
+        this.pageSize = pageSize;
+    }
+
+    @Override
+    public void exportTable(Table<Entity> table, List<Table.Column> columns, Boolean exportExpanded,
+                            @Nullable ExportDisplay display, @Nullable List<String> filterDescription,
+                            @Nullable String fileName, ExportMode exportMode) {
+        if (display == null) {
+            throw new IllegalArgumentException("ExportDisplay is null");
+        }
+
+        if (!isStreamingApplicable(table, exportMode)) {
+            exportInMemory(() ->
+                    super.exportTable(table, columns, exportExpanded, display, filterDescription, fileName, exportMode));
+            return;
+        }
+
+        RowsSource rowsSource = createRowsSource(table.getItems());
+        FileUploadingAPI.FileInfo fileInfo = createFile();
+        try {
+            writeTable(table, columns, filterDescription, rowsSource, fileInfo, null);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Export is interrupted", e);
+        }
+        showFile(fileInfo, display, getFileName(rowsSource.getMetaClass(), fileName));
+    }
+
+    @Override
+    public void exportDataGrid(DataGrid<Entity> dataGrid, List<DataGrid.Column> columns,
+                               @Nullable ExportDisplay display, @Nullable List<String> filterDescription,
+                               @Nullable String fileName, ExportMode exportMode) {
+        if (display == null) {
+            throw new IllegalArgumentException("ExportDisplay is null");
+        }
+
+        if (!isStreamingApplicable(dataGrid, exportMode)) {
+            exportInMemory(() ->
+                    super.exportDataGrid(dataGrid, columns, display, filterDescription, fileName, exportMode));
+            return;
+        }
+
+        RowsSource rowsSource = createRowsSource(dataGrid.getItems());
+        FileUploadingAPI.FileInfo fileInfo = createFile();
+        try {
+            writeDataGrid(dataGrid, columns, filterDescription, rowsSource, fileInfo, null);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Export is interrupted", e);
+        }
+        showFile(fileInfo, display, getFileName(rowsSource.getMetaClass(), fileName));
+    }
+
+    /**
+     * Exports all rows of the table and puts the document into the file storage.
+     *
+     * @return committed file descriptor of the document
+     */
+    public FileDescriptor exportTableToFileStorage(Table<Entity> table, List<Table.Column> columns,
+                                                   @Nullable List<String> filterDescription, @Nullable String fileName,
+                                                   @Nullable ProgressListener progressListener)
+            throws InterruptedException {
+        RowsSource rowsSource = createRowsSource(table.getItems());
+        FileUploadingAPI.FileInfo fileInfo = createFile();
+        writeTable(table, columns, filterDescription, rowsSource, fileInfo, progressListener);
+        return putIntoFileStorage(fileInfo, getFileName(rowsSource.getMetaClass(), fileName));
+    }
+
+    /**
+     * Exports all rows of the data grid and puts the document into the file storage.
+     *
+     * @return committed file descriptor of the document
+     */
+    public FileDescriptor exportDataGridToFileStorage(DataGrid<Entity> dataGrid, List<DataGrid.Column> columns,
+                                                      @Nullable List<String> filterDescription,
+                                                      @Nullable String fileName,
+                                                      @Nullable ProgressListener progressListener)
+            throws InterruptedException {
+        RowsSource rowsSource = createRowsSource(dataGrid.getItems());
+        FileUploadingAPI.FileInfo fileInfo = createFile();
+        writeDataGrid(dataGrid, columns, filterDescription, rowsSource, fileInfo, progressListener);
+        return putIntoFileStorage(fileInfo, getFileName(rowsSource.getMetaClass(), fileName));
+    }
+
+    /**
+     * Creates a task that exports all rows of the table in background, puts the document into the file storage
+     * and shows it by the given display. The task publishes the number of exported rows as progress.
+     * <p>
+     * Must be invoked in UI thread. Cell values, including values of generated columns and formatters,
+     * are obtained in the background thread, so they must not depend on the state of UI components.
+     */
+    public BackgroundTask<Integer, FileDescriptor> createTableExportTask(Table<Entity> table,
+                                                                         List<Table.Column> columns,
+                                                                         @Nullable ExportDisplay display,
+                                                                         @Nullable List<String> filterDescription,
+                                                                         @Nullable String fileName,
+                                                                         long timeoutSeconds) {
+        RowsSource rowsSource = createRowsSource(table.getItems());
+        String resourceName = getFileName(rowsSource.getMetaClass(), fileName);
+
+        return new ExportTask(timeoutSeconds, table, display) {
+            @Override
+            protected FileDescriptor export(TaskLifeCycle<Integer> taskLifeCycle) throws InterruptedException {
+                FileUploadingAPI.FileInfo fileInfo = createFile();
+                writeTable(table, columns, filterDescription, rowsSource, fileInfo,
+                        (exportedRows, totalRows) -> taskLifeCycle.publish(exportedRows));
+                return putIntoFileStorage(fileInfo, resourceName);
+            }
+        };
+    }
+
+    /**
+     * Creates a task that exports all rows of the data grid in background, puts the document into the file storage
+     * and shows it by the given display. The task publishes the number of exported rows as progress.
+     * <p>
+     * Must be invoked in UI thread. Cell values, including values of column value providers and formatters,
+     * are obtained in the background thread, so they must not depend on the state of UI components.
+     */
+    public BackgroundTask<Integer, FileDescriptor> createDataGridExportTask(DataGrid<Entity> dataGrid,
+                                                                            List<DataGrid.Column> columns,
+                                                                            @Nullable ExportDisplay display,
+                                                                            @Nullable List<String> filterDescription,
+                                                                            @Nullable String fileName,
+                                                                            long timeoutSeconds) {
+        RowsSource rowsSource = createRowsSource(dataGrid.getItems());
+        String resourceName = getFileName(rowsSource.getMetaClass(), fileName);
+
+        return new ExportTask(timeoutSeconds, dataGrid, display) {
+            @Override
+            protected FileDescriptor export(TaskLifeCycle<Integer> taskLifeCycle) throws InterruptedException {
+                FileUploadingAPI.FileInfo fileInfo = createFile();
+                writeDataGrid(dataGrid, columns, filterDescription, rowsSource, fileInfo,
+                        (exportedRows, totalRows) -> taskLifeCycle.publish(exportedRows));
+                return putIntoFileStorage(fileInfo, resourceName);
+            }
+        };
+    }
+
+    /**
+     * Runs the export by {@link ExcelExporter} with a regular XLSX workbook.
+     */
+    protected void exportInMemory(Runnable export) {
+        excelExportHelper = new XlsxExportHelper();
+        try {
+            export.run();
+        } finally {
+            excelExportHelper = sxssfExportHelper;
+        }
+    }
+
+    protected boolean isStreamingApplicable(Table<Entity> table, ExportMode exportMode) {
+        if (exportMode == ExportMode.SELECTED_ROWS && !table.getSelected().isEmpty()) {
+            return false;
+        }
+        if (table instanceof TreeTable) {
+            return false;
+        }
+        TableItems<Entity> items = table.getItems();
+        if (table instanceof GroupTable && items instanceof GroupTableItems
+                && ((GroupTableItems) items).hasGroups()) {
+            return false;
+        }
+        if (table.isAggregatable() && getExportAggregation() && hasAggregatableColumn(table)) {
+            return false;
+        }
+        return getLoader(items) != null;
+    }
+
+    protected boolean isStreamingApplicable(DataGrid<Entity> dataGrid, ExportMode exportMode) {
+        if (exportMode == ExportMode.SELECTED_ROWS && !dataGrid.getSelected().isEmpty()) {
+            return false;
+        }
+        if (dataGrid instanceof TreeDataGrid) {
+            return false;
+        }
+        return getLoader(dataGrid.getItems()) != null;
+    }
+
+    protected void writeTable(Table<Entity> table, List<Table.Column> columns,
+                              @Nullable List<String> filterDescription, RowsSource rowsSource,
+                              FileUploadingAPI.FileInfo fileInfo, @Nullable ProgressListener progressListener)
+            throws InterruptedException {
+        createWorkbookWithSheet();
+        try {
+            createFonts();
+            createFormats();
+
+            List<String> captions = columns.stream()
+                    .map(Table.Column::getCaption)
+                    .collect(Collectors.toList());
+            int r = createHeader(captions, filterDescription);
+
+            rowsSource.createRows(r, (entity, rowNumber) ->
+                    createEntityRow(table, columns, 0, rowNumber, entity, 0), progressListener);
+
+            for (int c = 0; c < columns.size(); c++) {
+                sheet.setColumnWidth(c, sizers[c].getWidth() * excelOptions.getColWidthMagic());
+            }
+
+            writeWorkbook(fileInfo);
+        } catch (InterruptedException | RuntimeException e) {
+            deleteFile(fileInfo);
+            throw e;
+        } finally {
+            sxssfExportHelper.dispose(wb);
+        }
+    }
+
+    protected void writeDataGrid(DataGrid<Entity> dataGrid, List<DataGrid.Column> columns,
+                                 @Nullable List<String> filterDescription, RowsSource rowsSource,
+                                 FileUploadingAPI.FileInfo fileInfo, @Nullable ProgressListener progressListener)
+            throws InterruptedException {
+        createWorkbookWithSheet();
+        try {
+            createFonts();
+            createFormats();
+
+            List<String> captions = columns.stream()
+                    .map(DataGrid.Column::getCaption)
+                    .collect(Collectors.toList());
+            int r = createHeader(captions, filterDescription);
+
+            rowsSource.createRows(r, (entity, rowNumber) ->
+                    createDataGridEntityRow(dataGrid, columns, 0, rowNumber, entity, 0), progressListener);
+
+            for (int c = 0; c < columns.size(); c++) {
+                sheet.setColumnWidth(c, sizers[c].getWidth() * excelOptions.getColWidthMagic());
+            }
+
+            writeWorkbook(fileInfo);
+        } catch (InterruptedException | RuntimeException e) {
+            deleteFile(fileInfo);
+            throw e;
+        } finally {
+            sxssfExportHelper.dispose(wb);
+        }
+    }
+
+    protected void writeWorkbook(FileUploadingAPI.FileInfo fileInfo) {
+        try (OutputStream out = new BufferedOutputStream(new FileOutputStream(fileInfo.getFile()))) {
+            wb.write(out);
+        } catch (IOException e) {
+            throw new RuntimeException("Unable to write document", e);
+        }
+    }
+
+    protected FileUploadingAPI.FileInfo createFile() {
+        try {
+            return fileUploading.createFile();
+        } catch (FileStorageException e) {
+            throw new RuntimeFileStorageException("Unable to create file for export", e);
+        }
+    }
+
+    /**
+     * Puts the document into the file storage. The temporary file is deleted in any case.
+     */
+    protected FileDescriptor putIntoFileStorage(FileUploadingAPI.FileInfo fileInfo, String fileName) {
+        FileDescriptor fileDescriptor = fileUploading.getFileDescriptor(fileInfo.getId(), fileName);
+        try {
+            fileUploading.putFileIntoStorage(fileInfo.getId(), fileDescriptor);
+        } catch (FileStorageException e) {
+            throw new RuntimeFileStorageException("Unable to put exported file into storage", e);
+        } finally {
+            deleteFile(fileInfo);
+        }
+        return dataManager.commit(fileDescriptor);
+    }
+
+    /**
+     * Shows the document by the display. The temporary file is deleted when the display closes the stream of
+     * the document.
+     */
+    protected void showFile(FileUploadingAPI.FileInfo fileInfo, ExportDisplay display, String resourceName) {
+        try {
+            display.show(new TemporaryFileDataProvider(fileInfo), resourceName, excelOptions.getExportFormat());
+        } catch (RuntimeException e) {
+            deleteFile(fileInfo);
+            throw e;
+        }
+    }
+
+    protected void deleteFile(FileUploadingAPI.FileInfo fileInfo) {
+        deleteFile(fileInfo.getId());
+    }
+
+    protected void deleteFile(UUID fileId) {
+        try {
+            fileUploading.deleteFile(fileId);
+        } catch (FileStorageException e) {
+            log.warn("Unable to delete temporary file {}", fileId, e);
+        }
+    }
+
+    protected String getFileName(MetaClass metaClass, @Nullable String fileName) {
+        if (fileName == null) {
+            fileName = messages.getTools().getEntityCaption(metaClass);
+        }
+        return fileName + excelOptions.getExtension();
+    }
+
+    @SuppressWarnings("unchecked")
+    @Nullable
+    protected CollectionLoader<Entity> getLoader(@Nullable Object items) {
+        if (items instanceof ContainerDataUnit) {
+            CollectionContainer<Entity> container = ((ContainerDataUnit<Entity>) items).getContainer();
+            if (container instanceof HasLoader && ((HasLoader) container).getLoader() instanceof CollectionLoader) {
+                return (CollectionLoader<Entity>) ((HasLoader) container).getLoader();
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Creates the source of exported rows. Must be invoked in UI thread.
+     */
+    @SuppressWarnings("unchecked")
+    protected RowsSource createRowsSource(@Nullable Object items) {
+        if (!(items instanceof EntityDataUnit)) {
+            throw new IllegalStateException("Component is not bound to entities");
+        }
+        MetaClass metaClass = ((EntityDataUnit) items).getEntityMetaClass();
+
+        CollectionLoader<Entity> loader = getLoader(items);
+        if (loader != null) {
+            LoadContext<Entity> loadContext = loader.createLoadContext();
+            LoadContext.Query query = loadContext.getQuery();
+            if (query.getSort() == null || query.getSort().getOrders().isEmpty()) {
+                // paging requires a stable order of rows
+                String primaryKeyName = metadataTools.getPrimaryKeyName(metaClass);
+                if (primaryKeyName != null) {
+                    query.setSort(Sort.by(primaryKeyName));
+                }
+            }
+            return new RowsSource(metaClass, loadContext, loader.getLoadDelegate(), null);
+        }
+
+        List<Entity> entities;
+        if (items instanceof TableItems) {
+            TableItems<Entity> tableItems = (TableItems<Entity>) items;
+            entities = tableItems.getItemIds().stream()
+                    .map(tableItems::getItem)
+                    .collect(Collectors.toList());
+        } else if (items instanceof EntityDataGridItems) {
+            entities = ((DataGridItems<Entity>) items).getItems().collect(Collectors.toList());
+        } else {
+            throw new IllegalStateException("Unsupported items: " + items);
+        }
+        return new RowsSource(metaClass, null, null, entities);
+    }
+
+    @FunctionalInterface
+    protected interface RowCreator {
+        void createRow(Entity entity, int rowNumber);
+    }
+
+    /**
+     * Provides entities of exported rows either by loading them page by page or from the list of loaded entities.
+     */
+    protected class RowsSource {
+
+        protected final MetaClass metaClass;
+        protected final LoadContext<Entity> loadContext;
+        protected final Function<LoadContext<Entity>, List<Entity>> loadDelegate;
+        protected final List<Entity> entities;
+
+        protected RowsSource(MetaClass metaClass,
+                             @Nullable LoadContext<Entity> loadContext,
+                             @Nullable Function<LoadContext<Entity>, List<Entity>> loadDelegate,
+                             @Nullable List<Entity> entities) {
+            this.metaClass = metaClass;
+            this.loadContext = loadContext;
+            this.loadDelegate = loadDelegate;
+            this.entities = entities;
+        }
+
+        public MetaClass getMetaClass() {
+            return metaClass;
+        }
+
+        /**
+         * Creates rows for all entities starting after the given row.
+         *
+         * @return number of the last created row
+         */
+        public int createRows(int r, RowCreator rowCreator, @Nullable ProgressListener progressListener)
+                throws InterruptedException {
+            if (loadContext == null) {
+                int exportedRows = 0;
+                for (Entity entity : entities) {
+                    if (checkIsRowNumberExceed(r)) {
+                        break;
+                    }
+                    rowCreator.createRow(entity, ++r);
+                    exportedRows++;
+                }
+                if (progressListener != null) {
+                    progressListener.onProgress(exportedRows, entities.size());
+                }
+                return r;
+            }
+
+            @SuppressWarnings("unchecked")
+            LoadContext<Entity> pageContext = (LoadContext<Entity>) loadContext.copy();
+            pageContext.getQuery().setFirstResult(0);
+            pageContext.getQuery().setMaxResults(0);
+            pageContext.getQuery().setKeyset(null);
+            long totalRows = loadDelegate == null ? dataManager.getCount(pageContext) : -1;
+
+            int exportedRows = 0;
+            int firstResult = 0;
+            while (true) {
+                if (Thread.currentThread().isInterrupted()) {
+                    throw new InterruptedException("Export is interrupted");
+                }
+
+                pageContext.getQuery().setFirstResult(firstResult);
+                pageContext.getQuery().setMaxResults(pageSize);
+
+                List<Entity> page = loadDelegate != null
+                        ? loadDelegate.apply(pageContext)
+                        : dataManager.loadList(pageContext);
+                for (Entity entity : page) {
+                    if (checkIsRowNumberExceed(r)) {
+                        return r;
+                    }
+                    rowCreator.createRow(entity, ++r);
+                    exportedRows++;
+                }
+
+                if (progressListener != null) {
+                    progressListener.onProgress(exportedRows, totalRows);
+                }
+                if (page.size() < pageSize) {
+                    return r;
+                }
+                firstResult += pageSize;
+                // the next page is loaded after the last row if possible, otherwise by the first result
+                Entity lastEntity = page.get(page.size() - 1);
+                pageContext.getQuery().setKeyset(Keyset.after(lastEntity, pageContext.getQuery().getSort()));
+            }
+        }
+    }
+
+    /**
+     * Provides the temporary file of the document and deletes the file when the provided stream is closed.
+     */
+    protected class TemporaryFileDataProvider extends LocalFileDataProvider {
+
+        protected final UUID fileId;
+
+        protected TemporaryFileDataProvider(FileUploadingAPI.FileInfo fileInfo) {
+            super(fileInfo.getFile());
+            this.fileId = fileInfo.getId();
+        }
+
+        @Override
+        public InputStream provide() {
+            InputStream stream = super.provide();
+            if (stream == null) {
+                return null;
+            }
+            return new FilterInputStream(stream) {
+                @Override
+                public void close() throws IOException {
+                    try {
+                        super.close();
+                    } finally {
+                        deleteFile(fileId);
+                    }
+                }
+            };
+        }
+    }
+
+    /**
+     * Task exporting rows in background.
+     */
+    protected abstract class ExportTask extends BackgroundTask<Integer, FileDescriptor> {
+
+        protected final ExportDisplay display;
+
+        protected ExportTask(long timeoutSeconds, Component.BelongToFrame component, @Nullable ExportDisplay display) {
+            super(timeoutSeconds, ComponentsHelper.getWindowNN(component).getFrameOwner());
+            this.display = display;
+        }
+
+        @Override
+        public FileDescriptor run(TaskLifeCycle<Integer> taskLifeCycle) throws Exception {
+            return export(taskLifeCycle);
+        }
+
+        protected abstract FileDescriptor export(TaskLifeCycle<Integer> taskLifeCycle) throws InterruptedException;
+
+        @Override
+        public void done(FileDescriptor result) {
+            if (display != null) {
+                display.show(result, excelOptions.getExportFormat());
+            }
+        }
+    }
+}
@@ -0,0 +1,69 @@
+/*
+ * Copyright (c) 2008-2020 Haulmont.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.haulmont.cuba.gui.export.helper;
+
+import org.apache.poi.ss.usermodel.Workbook;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
+
+/**
+ * Helper class for streaming export to XLSX file.
+ * <p>
+ * Only a window of the last created rows is kept in memory, previous rows are flushed to a temporary file.
+ * Workbooks created by this helper must be disposed by {@link #dispose(Workbook)} after writing.
+ */
+public class SxssfExportHelper extends XlsxExportHelper {
+
+    public static final int DEFAULT_ROW_WINDOW_SIZE = 100;
+
+    protected int rowWindowSize;
+
+    public SxssfExportHelper() {
+        this(DEFAULT_ROW_WINDOW_SIZE);
+    }
+
+    /**
+     * @param rowWindowSize number of rows kept in memory
+     */
+    public SxssfExportHelper(int rowWindowSize) {
+        this.rowWindowSize = rowWindowSize;
+    }
+
+    /**
+     * @return new instance of {@link org.apache.poi.xssf.streaming.SXSSFWorkbook} with compressed temporary files
+     */
+    @Override
+    public Workbook createWorkbook() {
+        SXSSFWorkbook workbook = new SXSSFWorkbook(rowWindowSize);
+        workbook.setCompressTempFiles(true);
+        return workbook;
+    }
+
+    /**
+     * Deletes temporary files of the workbook.
+     *
+     * @param workbook workbook created by this helper
+     */
+    public void dispose(Workbook workbook) {
+        if (workbook instanceof SXSSFWorkbook) {
+            ((SXSSFWorkbook) workbook).dispose();
+        }
+    }
+
+    public int getRowWindowSize() {
+        return rowWindowSize;
+    }
+}
@@ -18,11 +18,13 @@ package com.haulmont.cuba.gui.model;
 
 import com.haulmont.bali.events.Subscription;
 import com.haulmont.cuba.core.entity.Entity;
+import com.haulmont.cuba.core.global.Keyset;
 import com.haulmont.cuba.core.global.LoadContext;
 import com.haulmont.cuba.core.global.View;
 import com.haulmont.cuba.gui.screen.InstallSubject;
 import com.haulmont.cuba.gui.screen.Subscribe;
 
+import javax.annotation.Nullable;
 import java.util.EventObject;
 import java.util.List;
 import java.util.function.Consumer;
@@ -86,6 +88,18 @@ public interface CollectionLoader<E extends Entity> extends BaseCollectionLoader
      */
     void setView(String viewName);
 
+    /**
+     * Returns the position of the page for keyset pagination.
+     */
+    @Nullable
+    Keyset getKeyset();
+
+    /**
+     * Sets the position of the page for keyset pagination, see {@link LoadContext.Query#setKeyset(Keyset)}.
+     * The keyset must correspond to the first result and is reset by {@link #setFirstResult(int)}.
+     */
+    void setKeyset(@Nullable Keyset keyset);
+
     /**
      * Returns a function which will be used to load data instead of standard implementation.
      */
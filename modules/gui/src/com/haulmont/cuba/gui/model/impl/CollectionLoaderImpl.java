@@ -49,6 +49,7 @@ public class CollectionLoaderImpl<E extends Entity> implements CollectionLoader<
     protected View view;
     protected String viewName;
     protected Sort sort;
+    protected Keyset keyset;
     protected Function<LoadContext<E>, List<E>> delegate;
     protected LoadContext.Query lastQuery;
     protected List<LoadContext.Query> prevQueries;
@@ -141,6 +142,7 @@ public class CollectionLoaderImpl<E extends Entity> implements CollectionLoader<
             query.setFirstResult(firstResult);
         if (maxResults < Integer.MAX_VALUE)
             query.setMaxResults(maxResults);
+        query.setKeyset(keyset);
 
         loadContext.setView(resolveView());
         loadContext.setSoftDeletion(softDeletion);
@@ -248,6 +250,18 @@ public class CollectionLoaderImpl<E extends Entity> implements CollectionLoader<
     @Override
     public void setFirstResult(int firstResult) {
         this.firstResult = firstResult;
+        this.keyset = null;
+    }
+
+    @Nullable
+    @Override
+    public Keyset getKeyset() {
+        return keyset;
+    }
+
+    @Override
+    public void setKeyset(@Nullable Keyset keyset) {
+        this.keyset = keyset;
     }
 
     @Override
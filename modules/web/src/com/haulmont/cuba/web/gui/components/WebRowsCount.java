@@ -19,6 +19,7 @@ package com.haulmont.cuba.web.gui.components;
 import com.haulmont.bali.events.Subscription;
 import com.haulmont.chile.core.datatypes.Datatype;
 import com.haulmont.chile.core.datatypes.DatatypeRegistry;
+import com.haulmont.cuba.core.entity.Entity;
 import com.haulmont.cuba.core.entity.KeyValueEntity;
 import com.haulmont.cuba.core.global.*;
 import com.haulmont.cuba.gui.components.*;
@@ -290,6 +291,7 @@ public class WebRowsCount extends WebAbstractComponent<CubaRowsCount> implements
     protected void onNextClick() {
         int firstResult = adapter.getFirstResult();
         adapter.setFirstResult(adapter.getFirstResult() + adapter.getMaxResults());
+        adapter.seekAfterLastItem();
         if (refreshData()) {
             if (state == State.LAST && size == 0) {
                 adapter.setFirstResult(firstResult);
@@ -561,6 +563,13 @@ public class WebRowsCount extends WebAbstractComponent<CubaRowsCount> implements
         int getCount();
         int size();
         void refresh();
+
+        /**
+         * Makes the next refresh load rows following the last loaded row if possible instead of skipping
+         * the first result rows. Must be called after {@link #setFirstResult(int)}.
+         */
+        default void seekAfterLastItem() {
+        }
     }
 
     protected class LoaderAdapter implements Adapter {
@@ -573,11 +582,21 @@ public class WebRowsCount extends WebAbstractComponent<CubaRowsCount> implements
         @Nullable
         protected BaseCollectionLoader loader;
 
+        protected Subscription loaderPostLoadSubscription;
+        protected Entity lastLoadedItem;
+
         @SuppressWarnings("unchecked")
         public LoaderAdapter(CollectionContainer container, @Nullable BaseCollectionLoader loader) {
             this.container = container;
             this.loader = loader;
 
+            if (loader instanceof CollectionLoader) {
+                loaderPostLoadSubscription = ((CollectionLoader<Entity>) loader).addPostLoadListener(e -> {
+                    List<Entity> loadedEntities = e.getLoadedEntities();
+                    lastLoadedItem = loadedEntities.isEmpty() ? null : loadedEntities.get(loadedEntities.size() - 1);
+                });
+            }
+
             containerCollectionChangeListener = e -> {
                 samePage = CollectionChangeType.REFRESH != e.getChangeType();
                 onCollectionChanged();
@@ -592,6 +611,9 @@ public class WebRowsCount extends WebAbstractComponent<CubaRowsCount> implements
         @Override
         public void unbind() {
             weakContainerCollectionChangeListener.removeItself();
+            if (loaderPostLoadSubscription != null) {
+                loaderPostLoadSubscription.remove();
+            }
         }
 
         @Override
@@ -660,6 +682,14 @@ public class WebRowsCount extends WebAbstractComponent<CubaRowsCount> implements
             if (loader != null)
                 loader.load();
         }
+
+        @Override
+        public void seekAfterLastItem() {
+            if (loader instanceof CollectionLoader && lastLoadedItem != null) {
+                CollectionLoader collectionLoader = (CollectionLoader) loader;
+                collectionLoader.setKeyset(Keyset.after(lastLoadedItem, collectionLoader.getSort()));
+            }
+        }
     }
 
     protected class DatasourceAdapter extends AbstractDatasourceAdapter {
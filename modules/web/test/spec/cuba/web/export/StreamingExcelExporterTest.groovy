@@ -0,0 +1,132 @@
+/*
+ * Copyright (c) 2008-2020 Haulmont.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package spec.cuba.web.export
+
+import com.haulmont.cuba.core.entity.Entity
+import com.haulmont.cuba.gui.components.GroupTable
+import com.haulmont.cuba.gui.components.Table
+import com.haulmont.cuba.gui.export.ExcelExporter
+import com.haulmont.cuba.gui.export.ExportDataProvider
+import com.haulmont.cuba.gui.export.ExportDisplay
+import com.haulmont.cuba.gui.export.StreamingExcelExporter
+import com.haulmont.cuba.gui.export.helper.SxssfExportHelper
+import com.haulmont.cuba.gui.model.CollectionContainer
+import com.haulmont.cuba.gui.model.CollectionLoader
+import com.haulmont.cuba.gui.screen.UiControllerUtils
+import com.haulmont.cuba.web.testmodel.sales.Customer
+import org.apache.poi.xssf.usermodel.XSSFWorkbook
+import spec.cuba.web.UiScreenSpec
+import spec.cuba.web.export.screens.StreamingExportScreen
+
+@SuppressWarnings(["GroovyAccessibility", "GroovyAssignabilityCheck"])
+class StreamingExcelExporterTest extends UiScreenSpec {
+
+    List<Customer> customers
+
+    void setup() {
+        exportScreensPackages(['spec.cuba.web.export.screens'])
+
+        customers = (1..5).collect {
+            def customer = metadata.create(Customer)
+            customer.name = "customer-$it"
+            customer.status = 'active'
+            customer
+        }
+    }
+
+    def "rows of a table bound to a loader are loaded page by page and streamed into a temporary file"() {
+        showMainWindow()
+
+        def screen = screens.create(StreamingExportScreen)
+        screen.show()
+
+        def table = screen.window.getComponentNN('customersTable') as Table<Entity>
+        def loader = UiControllerUtils.getScreenData(screen).getLoader('customersDl') as CollectionLoader<Customer>
+
+        def pages = []
+        loader.setLoadDelegate({ context ->
+            pages << context.query.firstResult
+            customers.drop(context.query.firstResult).take(context.query.maxResults)
+        })
+
+        def exporter = new StreamingExcelExporter()
+        exporter.pageSize = 2
+
+        ExportDataProvider dataProvider = null
+        def display = Mock(ExportDisplay) {
+            show(_, _, _) >> { args -> dataProvider = args[0] }
+        }
+
+        when:
+
+        exporter.exportTable(table, table.columns, false, display, null, null, ExcelExporter.ExportMode.ALL_ROWS)
+
+        def file = dataProvider.file as File
+        def stream = dataProvider.provide()
+        def workbook = new XSSFWorkbook(stream)
+        stream.close()
+
+        then:
+
+        pages == [0, 2, 4]
+        def sheet = workbook.getSheetAt(0)
+        (1..5).collect { sheet.getRow(it).getCell(0).stringCellValue } ==
+                ['customer-1', 'customer-2', 'customer-3', 'customer-4', 'customer-5']
+        // the temporary file is deleted after the document is read
+        !file.exists()
+    }
+
+    def "groups larger than the row window of the streaming workbook keep their outline"() {
+        showMainWindow()
+
+        def screen = screens.create(StreamingExportScreen)
+        screen.show()
+
+        def container = UiControllerUtils.getScreenData(screen).getContainer('groupedCustomersDc') as CollectionContainer<Customer>
+        container.setItems(customers)
+
+        def groupTable = screen.window.getComponentNN('groupedCustomersTable') as GroupTable<Entity>
+        groupTable.groupByColumns('status')
+
+        def exporter = new StreamingExcelExporter()
+        exporter.sxssfExportHelper = new SxssfExportHelper(2)
+        exporter.excelExportHelper = exporter.sxssfExportHelper
+
+        ExportDataProvider dataProvider = null
+        def display = Mock(ExportDisplay) {
+            show(_, _, _) >> { args -> dataProvider = args[0] }
+        }
+
+        when:
+
+        exporter.exportTable(groupTable, groupTable.columns, false, display, null, null,
+                ExcelExporter.ExportMode.ALL_ROWS)
+
+        def stream = dataProvider.provide()
+        def workbook = new XSSFWorkbook(stream)
+        stream.close()
+
+        then:
+
+        def sheet = workbook.getSheetAt(0)
+        // header, group row and rows of the group
+        sheet.lastRowNum == 6
+        (2..6).every { sheet.getRow(it).outlineLevel == 1 }
+        // the streaming helper is restored after the export
+        exporter.excelExportHelper.is(exporter.sxssfExportHelper)
+    }
+}